@@ -0,0 +1,32 @@
+@echo off
+
+rem   Licensed to the Apache Software Foundation (ASF) under one or more
+rem   contributor license agreements.  See the NOTICE file distributed with
+rem   this work for additional information regarding copyright ownership.
+rem   The ASF licenses this file to You under the Apache License, Version 2.0
+rem   (the "License"); you may not use this file except in compliance with
+rem   the License.  You may obtain a copy of the License at
+rem 
+rem       http://www.apache.org/licenses/LICENSE-2.0
+rem 
+rem   Unless required by applicable law or agreed to in writing, software
+rem   distributed under the License is distributed on an "AS IS" BASIS,
+rem   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+rem   See the License for the specific language governing permissions and
+rem   limitations under the License.
+
+rem   Query a CSV result file through its index, building the index if needed
+rem   Run with -? to list the options
+
+setlocal
+
+rem On NT/2K grab all arguments at once
+set JMETER_CMD_LINE_ARGS=%*
+
+cd /D %~dp0
+
+set CP=..\lib\ext\ApacheJMeter_core.jar;..\lib\*
+
+java -cp "%CP%" org.apache.jmeter.report.index.ResultsIndexTool %JMETER_CMD_LINE_ARGS%
+
+pause
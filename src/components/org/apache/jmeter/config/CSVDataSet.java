@@ -22,9 +22,14 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jmeter.engine.DistributedRunner;
 import org.apache.jmeter.engine.event.LoopIterationEvent;
 import org.apache.jmeter.engine.event.LoopIterationListener;
 import org.apache.jmeter.engine.util.NoConfigMerge;
@@ -32,10 +37,13 @@ import org.apache.jmeter.save.CSVSaveService;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testbeans.gui.GenericTestBeanCustomizer;
+import org.apache.jmeter.testelement.property.FunctionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.StringProperty;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.threads.VariableSlots;
+import org.apache.jmeter.threads.VariablesDeclarer;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.util.JMeterStopThreadException;
 import org.apache.jorphan.util.JOrphanUtils;
@@ -65,10 +73,14 @@ import org.slf4j.LoggerFactory;
  * for individual threads, the thread hashcode is used as the suffix.
  * Or the user can provide their own suffix, in which case the file is shared between all
  * threads with the same suffix.
+ * <p>
+ * If partitioned, each remote engine of a distributed test reads its own stripe of the rows,
+ * and in "Current thread" mode each thread reads its own stripe of the rows of its engine,
+ * so that no row is used twice without splitting the file by hand.
  *
  */
 public class CSVDataSet extends ConfigTestElement 
-    implements TestBean, LoopIterationListener, NoConfigMerge {
+    implements TestBean, LoopIterationListener, NoConfigMerge, VariablesDeclarer {
     private static final Logger log = LoggerFactory.getLogger(CSVDataSet.class);
 
     private static final long serialVersionUID = 233L;
@@ -92,9 +104,14 @@ public class CSVDataSet extends ConfigTestElement
 
     private transient String[] vars;
 
+    // Slots of vars, VariableSlots.NO_SLOT for names without slot
+    private transient int[] varSlots;
+
     private transient String alias;
 
     private transient String shareMode;
+
+    private transient boolean partitioned;
     
     private boolean firstLineIsNames = false;
 
@@ -176,9 +193,25 @@ public class CSVDataSet extends ConfigTestElement
                     alias = fileName+"@"+mode; // user-specified key
                     break;
             }
+            int partition = 0;
+            int partitions = 1;
+            if (getPartitioned()) {
+                int engineCount = Math.max(1, JMeterUtils.getPropDefault(DistributedRunner.ENGINE_COUNT, 1));
+                int engineIndex = Math.floorMod(JMeterUtils.getPropDefault(DistributedRunner.ENGINE_INDEX, 0), engineCount);
+                if (modeInt == CSVDataSetBeanInfo.SHARE_THREAD) {
+                    // Threads added while the test runs share the partitions of the first ones
+                    int threads = Math.max(1, context.getThreadGroup().getNumThreads());
+                    partitions = engineCount * threads;
+                    partition = engineIndex * threads + context.getThreadNum() % threads;
+                } else {
+                    partitions = engineCount;
+                    partition = engineIndex;
+                }
+            }
             final String names = getVariableNames();
             if (StringUtils.isEmpty(names)) {
-                String header = server.reserveFile(fileName, getFileEncoding(), alias, true);
+                String header = server.reserveFile(fileName, getFileEncoding(), alias, true,
+                        partition, partitions, getQuotedData());
                 try {
                     vars = CSVSaveService.csvSplitString(header, delim.charAt(0));
                     firstLineIsNames = true;
@@ -186,10 +219,15 @@ public class CSVDataSet extends ConfigTestElement
                     throw new IllegalArgumentException("Could not split CSV header line from file:" + fileName,e);
                 }
             } else {
-                server.reserveFile(fileName, getFileEncoding(), alias, ignoreFirstLine);
+                server.reserveFile(fileName, getFileEncoding(), alias, ignoreFirstLine,
+                        partition, partitions, getQuotedData());
                 vars = JOrphanUtils.split(names, ","); // $NON-NLS-1$
             }
             trimVarNames(vars);
+            varSlots = new int[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                varSlots[i] = VariableSlots.slotOf(vars[i]);
+            }
         }
            
         // TODO: fetch this once as per vars above?
@@ -205,7 +243,7 @@ public class CSVDataSet extends ConfigTestElement
                 lineValues = JOrphanUtils.split(line, delim, false);
             }
             for (int a = 0; a < vars.length && a < lineValues.length; a++) {
-                threadVars.put(vars[a], lineValues[a]);
+                putVariable(threadVars, a, lineValues[a]);
             }
         } catch (IOException e) { // treat the same as EOF
             log.error(e.toString());
@@ -215,12 +253,39 @@ public class CSVDataSet extends ConfigTestElement
                 throw new JMeterStopThreadException("End of file:"+ getFilename()+" detected for CSV DataSet:"
                         +getName()+" configured with stopThread:"+ getStopThread()+", recycle:" + getRecycle());
             }
-            for (String var :vars) {
-                threadVars.put(var, EOFVALUE);
+            for (int a = 0; a < vars.length; a++) {
+                putVariable(threadVars, a, EOFVALUE);
             }
         }
     }
 
+    private void putVariable(JMeterVariables threadVars, int index, String value) {
+        int slot = varSlots[index];
+        if (slot != VariableSlots.NO_SLOT) {
+            threadVars.put(slot, value);
+        } else {
+            threadVars.put(vars[index], value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Names read from the header line of the file are not known before the test starts,
+     * so they are not declared.
+     */
+    @Override
+    public Collection<String> getDeclaredVariableNames() {
+        JMeterProperty names = getProperty("variableNames"); // $NON-NLS-1$
+        if (names instanceof FunctionProperty || StringUtils.isEmpty(names.getStringValue())) {
+            return Collections.emptyList();
+        }
+        List<String> declared = new ArrayList<>();
+        for (String name : JOrphanUtils.split(names.getStringValue(), ",")) { // $NON-NLS-1$
+            declared.add(name.trim());
+        }
+        return declared;
+    }
+
     /**
      * trim content of array varNames
      * @param varsNames
@@ -316,6 +381,20 @@ public class CSVDataSet extends ConfigTestElement
         this.shareMode = value;
     }
 
+    /**
+     * @return true if each remote engine, and each thread in thread share mode, reads its own rows
+     */
+    public boolean getPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * @param partitioned true if each remote engine, and each thread in thread share mode, should read its own rows
+     */
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
     /**
      * @return the ignoreFirstLine
      */
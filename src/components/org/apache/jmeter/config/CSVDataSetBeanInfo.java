@@ -38,6 +38,7 @@ public class CSVDataSetBeanInfo extends BeanInfoSupport {
     private static final String STOPTHREAD = "stopThread";           //$NON-NLS-1$
     private static final String QUOTED_DATA = "quotedData";          //$NON-NLS-1$
     private static final String SHAREMODE = "shareMode";             //$NON-NLS-1$
+    private static final String PARTITIONED = "partitioned";         //$NON-NLS-1$
 
     // Access needed from CSVDataSet
     private static final String[] SHARE_TAGS = new String[3];
@@ -58,7 +59,7 @@ public class CSVDataSetBeanInfo extends BeanInfoSupport {
         createPropertyGroup("csv_data",             //$NON-NLS-1$
                 new String[] { FILENAME, FILE_ENCODING, VARIABLE_NAMES, 
                         IGNORE_FIRST_LINE, DELIMITER, QUOTED_DATA, 
-                        RECYCLE, STOPTHREAD, SHAREMODE });
+                        RECYCLE, STOPTHREAD, SHAREMODE, PARTITIONED });
 
         PropertyDescriptor p = property(FILENAME);
         p.setValue(NOT_UNDEFINED, Boolean.TRUE);
@@ -104,6 +105,10 @@ public class CSVDataSetBeanInfo extends BeanInfoSupport {
         p.setValue(NOT_OTHER, Boolean.FALSE);
         p.setValue(NOT_EXPRESSION, Boolean.FALSE);
         p.setValue(TAGS, SHARE_TAGS);
+
+        p = property(PARTITIONED);
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, Boolean.FALSE);
     }
 
     public static int getShareModeAsInt(String mode) {
@@ -20,6 +20,7 @@ package org.apache.jmeter.extractor;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,9 +28,13 @@ import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.jmeter.processor.PostProcessor;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractScopedTestElement;
+import org.apache.jmeter.testelement.property.FunctionProperty;
 import org.apache.jmeter.testelement.property.IntegerProperty;
+import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.threads.VariableSlots;
+import org.apache.jmeter.threads.VariablesDeclarer;
 import org.apache.jmeter.util.Document;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.oro.text.MalformedCachePatternException;
@@ -44,7 +49,7 @@ import org.slf4j.LoggerFactory;
 
 // @see org.apache.jmeter.extractor.TestRegexExtractor for unit tests
 
-public class RegexExtractor extends AbstractScopedTestElement implements PostProcessor, Serializable {
+public class RegexExtractor extends AbstractScopedTestElement implements PostProcessor, VariablesDeclarer, Serializable {
 
     private static final long serialVersionUID = 242L;
 
@@ -91,6 +96,11 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
 
     private transient List<Object> template;
 
+    // Reference name whose slot is cached in refNameSlot
+    private transient String slotRefName;
+
+    private transient int refNameSlot = VariableSlots.NO_SLOT;
+
     /**
      * Parses the response data using regular expressions and saving the results
      * into variables for use later in the test.
@@ -114,7 +124,7 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
 
         final String defaultValue = getDefaultValue();
         if (defaultValue.length() > 0 || isEmptyDefaultValue()) {// Only replace default if it is provided or empty default value is explicitly requested
-            vars.put(refName, defaultValue);
+            putRefNameValue(vars, refName, defaultValue);
         }
         
         Perl5Matcher matcher = JMeterUtils.getMatcher();
@@ -139,7 +149,7 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
                 if (matchNumber >= 0) {// Original match behaviour
                     match = getCorrectMatch(matches, matchNumber);
                     if (match != null) {
-                        vars.put(refName, generateResult(match));
+                        putRefNameValue(vars, refName, generateResult(match));
                         saveGroups(vars, refName, match);
                     } else {
                         // refname has already been set to the default (if present)
@@ -392,6 +402,35 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
         return getPropertyAsString(REGEX);
     }
 
+    /**
+     * Save the value of the reference name variable, using its slot if it has one.
+     * The slot is resolved again whenever the reference name changes (e.g. it is a function).
+     */
+    private void putRefNameValue(JMeterVariables vars, String refName, String value) {
+        if (!refName.equals(slotRefName)) {
+            slotRefName = refName;
+            refNameSlot = VariableSlots.slotOf(refName);
+        }
+        if (refNameSlot != VariableSlots.NO_SLOT) {
+            vars.put(refNameSlot, value);
+        } else {
+            vars.put(refName, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the reference name is declared, as the other variables depend on the number of matches.
+     */
+    @Override
+    public Collection<String> getDeclaredVariableNames() {
+        JMeterProperty refName = getProperty(REFNAME);
+        if (refName instanceof FunctionProperty) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(refName.getStringValue());
+    }
+
     /**
      * Set the prefix name of the variable to be used to store the regex matches
      * @param refName prefix of the variables to be used
@@ -19,8 +19,10 @@
 package org.apache.jmeter.modifiers;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.jmeter.engine.event.LoopIterationEvent;
 import org.apache.jmeter.engine.event.LoopIterationListener;
@@ -28,12 +30,16 @@ import org.apache.jmeter.processor.PreProcessor;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.apache.jmeter.testelement.property.FunctionProperty;
+import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.PropertyIterator;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.threads.VariablesDeclarer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class UserParameters extends AbstractTestElement implements Serializable, PreProcessor, LoopIterationListener {
+public class UserParameters extends AbstractTestElement implements Serializable, PreProcessor, LoopIterationListener,
+        VariablesDeclarer {
     private static final Logger log = LoggerFactory.getLogger(UserParameters.class);
 
     private static final long serialVersionUID = 234L;
@@ -183,6 +189,23 @@ public class UserParameters extends AbstractTestElement implements Serializable,
      *
      * @see java.lang.Object#clone()
      */
+    @Override
+    public Collection<String> getDeclaredVariableNames() {
+        List<String> declared = new ArrayList<>();
+        JMeterProperty names = getProperty(NAMES);
+        if (!(names instanceof CollectionProperty)) {
+            return declared;
+        }
+        PropertyIterator namesIter = ((CollectionProperty) names).iterator();
+        while (namesIter.hasNext()) {
+            JMeterProperty name = namesIter.next();
+            if (!(name instanceof FunctionProperty)) {
+                declared.add(name.getStringValue());
+            }
+        }
+        return declared;
+    }
+
     @Override
     public Object clone() {
         UserParameters up = (UserParameters) super.clone();
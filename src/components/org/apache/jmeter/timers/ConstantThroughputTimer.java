@@ -24,6 +24,7 @@ import java.beans.Introspector;
 import java.util.ResourceBundle;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testbeans.gui.GenericTestBeanCustomizer;
@@ -50,13 +51,14 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
     private static final long serialVersionUID = 4;
 
     private static class ThroughputInfo{
-        final Object MUTEX = new Object();
-        long lastScheduledTime = 0;
+        final PacingSchedule schedule = new PacingSchedule();
     }
     private static final Logger log = LoggerFactory.getLogger(ConstantThroughputTimer.class);
 
     private static final double MILLISEC_PER_MIN = 60000.0;
 
+    private static final double NANOSEC_PER_MIN = TimeUnit.MINUTES.toNanos(1);
+
     /**
      * This enum defines the calculation modes used by the ConstantThroughputTimer.
      */
@@ -81,10 +83,11 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
     }
 
     /**
-     * Target time for the start of the next request. The delay provided by the
-     * timer will be calculated so that the next request happens at this time.
+     * Schedule of the requests of this thread, for the modes which are not shared.
+     * The delay provided by the timer is calculated so that the next request
+     * happens at the next deadline of the schedule.
      */
-    private long previousTime = 0;
+    private transient PacingSchedule threadSchedule;
 
     private Mode mode = Mode.ThisThreadOnly;
 
@@ -141,52 +144,34 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
      */
     @Override
     public long delay() {
-        long currentTime = System.currentTimeMillis();
-
-        /*
-         * If previous time is zero, then target will be in the past.
-         * This is what we want, so first sample is run without a delay.
-        */
-        long currentTarget = previousTime  + calculateDelay();
-        if (currentTime > currentTarget) {
-            // We're behind schedule -- try to catch up:
-            previousTime = currentTime; // assume the sample will run immediately
-            return 0;
-        }
-        previousTime = currentTarget; // assume the sample will run as soon as the delay has expired
-        return currentTarget - currentTime;
+        return Math.round(delayNanos() / 1e6);
     }
 
     /**
-     * Calculate the target time by adding the result of private method
-     * <code>calculateDelay()</code> to the given <code>currentTime</code>
-     * 
-     * @param currentTime
-     *            time in ms
-     * @return new Target time
+     * Retrieve the delay to use during test execution, in nanoseconds.
+     * <p>
+     * Requests are paced on deadlines computed with {@link System#nanoTime()}, so rates
+     * higher than one request per millisecond and per thread are honoured, and a request
+     * started late is compensated by the following ones, see {@link PacingSchedule}.
+     * The first request is run without delay.
+     *
+     * @see org.apache.jmeter.timers.Timer#delayNanos()
      */
-    // TODO - is this used? (apart from test code)
-    protected long calculateCurrentTarget(long currentTime) {
-        return currentTime + calculateDelay();
-    }
-
-    // Calculate the delay based on the mode
-    private long calculateDelay() {
-        long delay;
+    @Override
+    public long delayNanos() {
         // N.B. we fetch the throughput each time, as it may vary during a test
-        double msPerRequest = MILLISEC_PER_MIN / getThroughput();
+        double nanosPerRequest = NANOSEC_PER_MIN / getThroughput();
         switch (mode) {
         case AllActiveThreads: // Total number of threads
-            delay = Math.round(JMeterContextService.getNumberOfThreads() * msPerRequest);
-            break;
+            return getThreadSchedule().nextDelayNanos(
+                    Math.round(JMeterContextService.getNumberOfThreads() * nanosPerRequest));
 
         case AllActiveThreadsInCurrentThreadGroup: // Active threads in this group
-            delay = Math.round(JMeterContextService.getContext().getThreadGroup().getNumberOfThreads() * msPerRequest);
-            break;
+            return getThreadSchedule().nextDelayNanos(
+                    Math.round(JMeterContextService.getContext().getThreadGroup().getNumberOfThreads() * nanosPerRequest));
 
         case AllActiveThreads_Shared: // All threads - alternate calculation
-            delay = calculateSharedDelay(allThreadsInfo,Math.round(msPerRequest));
-            break;
+            return allThreadsInfo.schedule.nextDelayNanos(Math.round(nanosPerRequest));
 
         case AllActiveThreadsInCurrentThreadGroup_Shared: //All threads in this group - alternate calculation
             final org.apache.jmeter.threads.AbstractThreadGroup group =
@@ -199,39 +184,55 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
                     groupInfo = previous; // so use the existing one
                 }
             }
-            delay = calculateSharedDelay(groupInfo,Math.round(msPerRequest));
-            break;
+            return groupInfo.schedule.nextDelayNanos(Math.round(nanosPerRequest));
 
         case ThisThreadOnly:
         default: // e.g. 0
-            delay = Math.round(msPerRequest); // i.e. * 1
-            break;
+            return getThreadSchedule().nextDelayNanos(Math.round(nanosPerRequest)); // i.e. * 1
         }
-        return delay;
     }
 
-    private long calculateSharedDelay(ThroughputInfo info, long milliSecPerRequest) {
-        final long now = System.currentTimeMillis();
-        final long calculatedDelay;
-
-        //Synchronize on the info object's MUTEX to ensure
-        //Multiple threads don't update the scheduled time simultaneously
-        synchronized (info.MUTEX) {
-            final long nextRequestTime = info.lastScheduledTime + milliSecPerRequest;
-            info.lastScheduledTime = Math.max(now, nextRequestTime);
-            calculatedDelay = info.lastScheduledTime - now;
+    private PacingSchedule getThreadSchedule() {
+        // no need to sync as one per instance
+        if (threadSchedule == null) {
+            threadSchedule = new PacingSchedule();
         }
+        return threadSchedule;
+    }
 
-        return Math.max(calculatedDelay, 0);
+    /**
+     * Calculate the target time by adding the interval between two requests
+     * of a thread to the given <code>currentTime</code>
+     * 
+     * @param currentTime
+     *            time in ms
+     * @return new Target time
+     */
+    // TODO - is this used? (apart from test code)
+    protected long calculateCurrentTarget(long currentTime) {
+        return currentTime + calculateDelay();
     }
 
-    private void reset() {
-        synchronized (allThreadsInfo.MUTEX) {
-            allThreadsInfo.lastScheduledTime = 0;
+    // Calculate the interval between two requests of a thread in ms, based on the mode
+    private long calculateDelay() {
+        double msPerRequest = MILLISEC_PER_MIN / getThroughput();
+        switch (mode) {
+        case AllActiveThreads: // Total number of threads
+            return Math.round(JMeterContextService.getNumberOfThreads() * msPerRequest);
+
+        case AllActiveThreadsInCurrentThreadGroup: // Active threads in this group
+            return Math.round(JMeterContextService.getContext().getThreadGroup().getNumberOfThreads() * msPerRequest);
+
+        default:
+            return Math.round(msPerRequest); // i.e. * 1
         }
+    }
+
+    private void reset() {
+        allThreadsInfo.schedule.reset();
         threadGroupsInfoMap.clear();
         // no need to sync as one per instance
-        previousTime = 0;
+        threadSchedule = null;
     }
 
     /**
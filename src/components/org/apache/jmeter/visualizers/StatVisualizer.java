@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -123,7 +124,32 @@ public class StatVisualizer extends AbstractVisualizer implements Clearable, Act
 
     @Override
     public void add(final SampleResult res) {
-        SamplingStatCalculator row = tableRows.computeIfAbsent(res.getSampleLabel(useGroupName.isSelected()), label -> {
+        addToRow(res, useGroupName.isSelected());
+        SamplingStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
+        synchronized(lock) {
+            tot.addSample(res);
+        }
+    }
+
+    /**
+     * Adds the samples of a refresh period, updating the total row once.
+     */
+    @Override
+    public void addAll(List<SampleResult> samples) {
+        boolean groupName = useGroupName.isSelected();
+        for (SampleResult res : samples) {
+            addToRow(res, groupName);
+        }
+        SamplingStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
+        synchronized(lock) {
+            for (SampleResult res : samples) {
+                tot.addSample(res);
+            }
+        }
+    }
+
+    private void addToRow(SampleResult res, boolean groupName) {
+        SamplingStatCalculator row = tableRows.computeIfAbsent(res.getSampleLabel(groupName), label -> {
            SamplingStatCalculator newRow = new SamplingStatCalculator(label);
            newRows.add(newRow);
            return newRow;
@@ -134,10 +160,6 @@ public class StatVisualizer extends AbstractVisualizer implements Clearable, Act
              */
             row.addSample(res);
         }
-        SamplingStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
-        synchronized(lock) {
-            tot.addSample(res);
-        }
     }
 
     /**
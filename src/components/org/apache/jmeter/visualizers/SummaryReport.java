@@ -29,6 +29,7 @@ import java.nio.charset.Charset;
 import java.text.DecimalFormat;
 import java.text.Format;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -203,7 +204,34 @@ public class SummaryReport extends AbstractVisualizer implements Clearable, Acti
 
     @Override
     public void add(final SampleResult res) {
-        Calculator row = tableRows.computeIfAbsent(res.getSampleLabel(useGroupName.isSelected()), label -> {
+        addToRow(res, useGroupName.isSelected());
+        Calculator tot = tableRows.get(TOTAL_ROW_LABEL);
+        synchronized (lock) {
+            tot.addSample(res);
+        }
+        dataChanged = true;
+    }
+
+    /**
+     * Adds the samples of a refresh period, updating the total row once.
+     */
+    @Override
+    public void addAll(List<SampleResult> samples) {
+        boolean groupName = useGroupName.isSelected();
+        for (SampleResult res : samples) {
+            addToRow(res, groupName);
+        }
+        Calculator tot = tableRows.get(TOTAL_ROW_LABEL);
+        synchronized (lock) {
+            for (SampleResult res : samples) {
+                tot.addSample(res);
+            }
+        }
+        dataChanged = true;
+    }
+
+    private void addToRow(SampleResult res, boolean groupName) {
+        Calculator row = tableRows.computeIfAbsent(res.getSampleLabel(groupName), label -> {
             Calculator newRow = new Calculator(label);
             newRows.add(newRow);
             return newRow;
@@ -214,11 +242,6 @@ public class SummaryReport extends AbstractVisualizer implements Clearable, Acti
         synchronized (row) {
             row.addSample(res);
         }
-        Calculator tot = tableRows.get(TOTAL_ROW_LABEL);
-        synchronized (lock) {
-            tot.addSample(res);
-        }
-        dataChanged = true;
     }
 
     /**
@@ -174,6 +174,18 @@ implements ActionListener, TreeSelectionListener, Clearable, ItemListener {
         }
     }
 
+    /** {@inheritDoc} */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void addAll(List<SampleResult> samples) {
+        synchronized (buffer) {
+            for (SampleResult sample : samples) {
+                buffer.add(sample);
+            }
+            dataChanged = true;
+        }
+    }
+
     /**
      * Update the visualizer with new data.
      */
@@ -31,9 +31,9 @@ import java.util.concurrent.locks.LockSupport;
 
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.BatchSampleListener;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestElement;
@@ -48,7 +48,7 @@ import org.slf4j.LoggerFactory;
  * @since 2.13
  */
 public class BackendListener extends AbstractTestElement
-    implements Backend, Serializable, SampleListener, 
+    implements Backend, Serializable, BatchSampleListener, 
         TestStateListener, NoThreadClone, Remoteable {
 
     private static final class ListenerClientData {
@@ -160,7 +160,23 @@ public class BackendListener extends AbstractTestElement
     public void sampleOccurred(SampleEvent event) {
         Arguments args = getArguments();
         BackendListenerContext context = new BackendListenerContext(args);
+        queueSample(context, event);
+    }
+
+    /**
+     * Queues the samples like {@link #sampleOccurred(SampleEvent)},
+     * creating the {@link BackendListenerContext} only once for the batch.
+     */
+    @Override
+    public void sampleOccurredBatch(List<SampleEvent> events) {
+        Arguments args = getArguments();
+        BackendListenerContext context = new BackendListenerContext(args);
+        for (SampleEvent event : events) {
+            queueSample(context, event);
+        }
+    }
 
+    private void queueSample(BackendListenerContext context, SampleEvent event) {
         SampleResult sr = listenerClientData.client.createSampleResult(context, event.getResult());
         if(sr == null) {
             if (log.isDebugEnabled()) {
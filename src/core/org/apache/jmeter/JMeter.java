@@ -32,6 +32,7 @@ import java.net.MalformedURLException;
 import java.net.SocketException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
@@ -263,8 +264,8 @@ public class JMeter implements JMeterPlugin {
                     "Exit the remote servers at end of test (non-GUI)");
     private static final CLOptionDescriptor D_REPORT_GENERATING_OPT =
             new CLOptionDescriptor("reportonly",
-                    CLOptionDescriptor.ARGUMENT_REQUIRED, REPORT_GENERATING_OPT,
-                    "generate report dashboard only, from a test results file",
+                    CLOptionDescriptor.ARGUMENT_REQUIRED | CLOptionDescriptor.DUPLICATES_ALLOWED, REPORT_GENERATING_OPT,
+                    "generate report dashboard only, from a test results file (repeat to merge several files)",
                     new CLOptionDescriptor[]{ D_NONGUI_OPT, D_REMOTE_OPT, D_REMOTE_OPT_PARAM, D_LOGFILE_OPT }); // disallowed
     private static final CLOptionDescriptor D_REPORT_AT_END_OPT =
             new CLOptionDescriptor("reportatendofloadtests",
@@ -513,10 +514,15 @@ public class JMeter implements JMeterPlugin {
                     }
                 }
                 CLOption testReportOpt = parser.getArgumentById(REPORT_GENERATING_OPT);
-                if (testReportOpt != null) { // generate report from existing file
-                    String reportFile = testReportOpt.getArgument();
+                if (testReportOpt != null) { // generate report from existing files
+                    List<String> reportFiles = new ArrayList<>();
+                    for (CLOption option : parser.getArguments()) {
+                        if (option.getDescriptor().getId() == REPORT_GENERATING_OPT) {
+                            reportFiles.add(option.getArgument());
+                        }
+                    }
                     extractAndSetReportOutputFolder(parser);
-                    ReportGenerator generator = new ReportGenerator(reportFile, null);
+                    ReportGenerator generator = new ReportGenerator(reportFiles);
                     generator.generate();
                 } else if (parser.getArgumentById(NONGUI_OPT) == null) { // not non-GUI => GUI
                     startGui(testFile);
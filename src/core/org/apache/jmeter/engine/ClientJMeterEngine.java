@@ -26,6 +26,7 @@ import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.server.RemoteObject;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.threads.JMeterContextService;
@@ -48,6 +49,16 @@ public class ClientJMeterEngine implements JMeterEngine {
 
     private final String host;
 
+    private static final int CLOCK_PROBES =
+            JMeterUtils.getPropDefault("client.clock_sync.probes", 5); // $NON-NLS-1$
+
+    // Set by prepareTest
+    private boolean coordinated;
+
+    private long clockOffset;
+
+    private long roundTripTime;
+
     private static RemoteJMeterEngine getEngine(String h) throws MalformedURLException, RemoteException,
             NotBoundException {
        final String name = "//" + h + "/" + RemoteJMeterEngineImpl.JMETER_ENGINE_RMI_NAME; // $NON-NLS-1$ $NON-NLS-2$
@@ -64,7 +75,12 @@ public class ClientJMeterEngine implements JMeterEngine {
     }
 
     public ClientJMeterEngine(String host) throws MalformedURLException, NotBoundException, RemoteException {
-        this.remote = getEngine(host);
+        this(host, getEngine(host));
+    }
+
+    // For tests
+    ClientJMeterEngine(String host, RemoteJMeterEngine remote) {
+        this.remote = remote;
         this.host = host;
     }
 
@@ -105,6 +121,22 @@ public class ClientJMeterEngine implements JMeterEngine {
 
     @Override
     public void runTest() throws JMeterEngineException {
+        prepareTest(false);
+        startTestAt(0L);
+    }
+
+    /**
+     * First phase of a coordinated start: send the test and the properties to the server,
+     * and estimate the offset between the clocks of the server and of this client.
+     *
+     * @throws JMeterEngineException if the test could not be sent
+     * @see #startTestAt(long)
+     */
+    public void prepareTest() throws JMeterEngineException {
+        prepareTest(true);
+    }
+
+    private void prepareTest(boolean estimateClock) throws JMeterEngineException {
         log.info("running clientengine run method");
         
         // See https://bz.apache.org/bugzilla/show_bug.cgi?id=55510
@@ -145,17 +177,115 @@ public class ClientJMeterEngine implements JMeterEngine {
             } catch (RemoteException e) {
                 log.warn("Could not set properties: " + e.toString());
             }
-            methodName="rrunTest()";
-            remote.rrunTest();
-            log.info("sent run command to "+ host);
-        } catch (IllegalStateException ex) {
-            log.error("Error in "+methodName+" method "+ex); // $NON-NLS-1$ $NON-NLS-2$
-            tidyRMI(log);
-            throw ex; // Don't wrap this error - display it as is
+            coordinated = estimateClock && estimateClockOffset();
         } catch (Exception ex) {
-            log.error("Error in "+methodName+" method "+ex); // $NON-NLS-1$ $NON-NLS-2$
-            tidyRMI(log);
-            throw new JMeterEngineException("Error in "+methodName+" method "+ex, ex); // $NON-NLS-1$ $NON-NLS-2$
+            throw startFailure(methodName, ex);
+        }
+    }
+
+    /**
+     * Second phase of a coordinated start: ask the server to start the prepared test
+     * at the given time of this client, and to correct its sample times by the estimated clock offset.
+     * Starts the test immediately if the server does not support coordinated start.
+     *
+     * @param startTime time at which the test should start, in milliseconds of the clock of this client,
+     *  0 to start it immediately
+     * @throws JMeterEngineException if the test could not be started
+     * @see #prepareTest()
+     */
+    public void startTestAt(long startTime) throws JMeterEngineException {
+        String methodName="rrunTest()";
+        try {
+            if (coordinated && startTime > 0) {
+                methodName="rrunTestAt()"; // NOSONAR Used for tracing
+                remote.rrunTestAt(startTime, clockOffset);
+                log.info("sent run command to {} for {}", host, startTime);
+            } else {
+                remote.rrunTest();
+                log.info("sent run command to "+ host);
+            }
+        } catch (Exception ex) {
+            throw startFailure(methodName, ex);
+        }
+    }
+
+    private JMeterEngineException startFailure(String methodName, Exception ex) {
+        log.error("Error in "+methodName+" method "+ex); // $NON-NLS-1$ $NON-NLS-2$
+        tidyRMI(log);
+        if (ex instanceof IllegalStateException) {
+            throw (IllegalStateException) ex; // Don't wrap this error - display it as is
+        }
+        return new JMeterEngineException("Error in "+methodName+" method "+ex, ex); // $NON-NLS-1$ $NON-NLS-2$
+    }
+
+    /**
+     * Estimate the offset of the clock of the server, keeping the probe with the shortest round trip,
+     * as the server time is then known with the best precision.
+     *
+     * @return false if the server does not support clock probes
+     */
+    private boolean estimateClockOffset() {
+        long bestRoundTrip = Long.MAX_VALUE;
+        long bestOffset = 0L;
+        try {
+            for (int i = 0; i < CLOCK_PROBES; i++) {
+                long start = System.nanoTime();
+                long localTime = System.currentTimeMillis();
+                long remoteTime = remote.rcurrentTimeMillis();
+                long roundTrip = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (roundTrip < bestRoundTrip) {
+                    bestRoundTrip = roundTrip;
+                    bestOffset = remoteTime - (localTime + roundTrip / 2);
+                }
+            }
+        } catch (RemoteException e) {
+            log.warn("{} does not support coordinated start, it will start immediately: {}", host, e.toString());
+            return false;
+        }
+        clockOffset = bestOffset;
+        roundTripTime = bestRoundTrip;
+        log.info("Clock of {} is {} ms ahead of the client (round trip: {} ms)", host, clockOffset, roundTripTime);
+        return true;
+    }
+
+    /**
+     * @return offset of the clock of the server to the clock of this client in milliseconds,
+     *  as estimated by {@link #prepareTest()}
+     */
+    public long getClockOffset() {
+        return clockOffset;
+    }
+
+    /**
+     * @return shortest round trip to the server in milliseconds, measured by {@link #prepareTest()}
+     */
+    public long getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * @return health metrics of the last interval of the server, null if not available
+     */
+    public InjectorHealthMonitor.Health getHealth() {
+        try {
+            return remote.rgetHealth();
+        } catch (RemoteException e) {
+            log.debug("Could not get health of {}: {}", host, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Scale the number of threads of the server.
+     *
+     * @param share share of the configured number of threads
+     * @see StandardJMeterEngine#setLoadShare(double)
+     */
+    public void setLoadShare(double share) {
+        try {
+            remote.rsetLoadShare(share);
+        } catch (RemoteException | IllegalStateException e) {
+            log.warn("Could not set load share of {}: {}", host, e.toString());
         }
     }
 
@@ -50,14 +50,23 @@ public class DistributedRunner {
     public static final String RETRIES_NUMBER = "client.tries"; // $NON-NLS-1$
     public static final String RETRIES_DELAY = "client.retries_delay"; // $NON-NLS-1$
     public static final String CONTINUE_ON_FAIL = "client.continue_on_fail"; // $NON-NLS-1$
+    public static final String COORDINATED_START = "client.start.coordinated"; // $NON-NLS-1$
+    public static final String START_DELAY = "client.start.delay"; // $NON-NLS-1$
+    /** Index of a started remote engine, from 0, sent to each engine */
+    public static final String ENGINE_INDEX = "jmeterengine.remote.index"; // $NON-NLS-1$
+    /** Number of started remote engines, sent to each engine */
+    public static final String ENGINE_COUNT = "jmeterengine.remote.count"; // $NON-NLS-1$
 
     private final Properties remoteProps;
     private final boolean continueOnFail;
     private final int retriesDelay;
     private final int retriesNumber;
+    private final boolean coordinatedStart;
+    private final long startDelay;
     private PrintStream stdout = new PrintStream(new SilentOutputStream());
     private PrintStream stderr = new PrintStream(new SilentOutputStream());
     private final Map<String, JMeterEngine> engines = new HashMap<>();
+    private LoadRebalancer loadRebalancer;
 
 
     public DistributedRunner() {
@@ -69,6 +78,8 @@ public class DistributedRunner {
         retriesNumber = JMeterUtils.getPropDefault(RETRIES_NUMBER, 1);
         continueOnFail = JMeterUtils.getPropDefault(CONTINUE_ON_FAIL, false);
         retriesDelay = JMeterUtils.getPropDefault(RETRIES_DELAY, 5000);
+        coordinatedStart = JMeterUtils.getPropDefault(COORDINATED_START, true);
+        startDelay = JMeterUtils.getPropDefault(START_DELAY, 1000L);
     }
 
     public void init(List<String> addresses, HashTree tree) {
@@ -124,12 +135,28 @@ public class DistributedRunner {
      */
     public void start(List<String> addresses) {
         println("Starting remote engines");
-        long now = System.currentTimeMillis();
-        println("Starting the test @ " + new Date(now) + " (" + now + ")");
+        List<ClientJMeterEngine> coordinatedEngines = new LinkedList<>();
+        long roundTrips = 0;
+        int engineCount = 0;
+        for (String address : addresses) {
+            if (engines.containsKey(address)) {
+                engineCount++;
+            }
+        }
+        int engineIndex = 0;
         for (String address : addresses) {
             try {
                 if (engines.containsKey(address)) {
-                    engines.get(address).runTest();
+                    JMeterEngine engine = engines.get(address);
+                    engine.setProperties(getEngineProperties(engineIndex++, engineCount));
+                    if (coordinatedStart && engine instanceof ClientJMeterEngine) {
+                        ClientJMeterEngine clientEngine = (ClientJMeterEngine) engine;
+                        clientEngine.prepareTest();
+                        roundTrips += clientEngine.getRoundTripTime();
+                        coordinatedEngines.add(clientEngine);
+                    } else {
+                        engine.runTest();
+                    }
                 } else {
                     log.warn("Host not found in list of active engines: {}", address);
                 }
@@ -137,9 +164,50 @@ public class DistributedRunner {
                 JMeterUtils.reportErrorToUser(e.getMessage(), JMeterUtils.getResString("remote_error_starting")); // $NON-NLS-1$  
             }
         }
+        // Leave enough time for all the run commands to reach their server
+        long now = System.currentTimeMillis();
+        long startTime = coordinatedEngines.isEmpty() ? now : now + startDelay + roundTrips;
+        println("Starting the test @ " + new Date(startTime) + " (" + startTime + ")");
+        for (ClientJMeterEngine engine : coordinatedEngines) {
+            try {
+                engine.startTestAt(startTime);
+            } catch (IllegalStateException | JMeterEngineException e) { // NOSONAR already reported to user
+                JMeterUtils.reportErrorToUser(e.getMessage(), JMeterUtils.getResString("remote_error_starting")); // $NON-NLS-1$  
+            }
+        }
+        if (coordinatedEngines.size() > 1 && LoadRebalancer.isEnabled()) {
+            stopRebalancing();
+            loadRebalancer = new LoadRebalancer(coordinatedEngines);
+            loadRebalancer.start();
+        }
         println("Remote engines have been started");
     }
 
+    /**
+     * @param index index of the engine among the started engines
+     * @param count number of started engines
+     * @return the properties to send to the engine, telling it its index so it can read its own partition of data,
+     * and enabling its health monitor if its load is rebalanced
+     */
+    private Properties getEngineProperties(int index, int count) {
+        Properties props = new Properties();
+        props.putAll(remoteProps);
+        props.setProperty(ENGINE_INDEX, Integer.toString(index));
+        props.setProperty(ENGINE_COUNT, Integer.toString(count));
+        if (coordinatedStart && LoadRebalancer.isEnabled()
+                && !props.containsKey(InjectorHealthMonitor.MONITOR_ENABLED)) {
+            props.setProperty(InjectorHealthMonitor.MONITOR_ENABLED, Boolean.TRUE.toString());
+        }
+        return props;
+    }
+
+    private void stopRebalancing() {
+        if (loadRebalancer != null) {
+            loadRebalancer.stop();
+            loadRebalancer = null;
+        }
+    }
+
     /**
      * Start all engines that were previously initiated
      */
@@ -151,6 +219,7 @@ public class DistributedRunner {
 
     public void stop(List<String> addresses) {
         println("Stopping remote engines");
+        stopRebalancing();
         for (String address : addresses) {
             try {
                 if (engines.containsKey(address)) {
@@ -176,6 +245,7 @@ public class DistributedRunner {
 
     public void shutdown(List<String> addresses) {
         println("Shutting down remote engines");
+        stopRebalancing();
         for (String address : addresses) {
             try {
                 if (engines.containsKey(address)) {
@@ -193,6 +263,7 @@ public class DistributedRunner {
 
     public void exit(List<String> addresses) {
         println("Exiting remote engines");
+        stopRebalancing();
         for (String address : addresses) {
             try {
                 if (engines.containsKey(address)) {
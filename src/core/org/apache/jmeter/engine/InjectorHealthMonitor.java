@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import java.io.Serializable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.ListenerNotifier;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.math.LongHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monitors the health of the JVM generating the load, to tell injector saturation
+ * from server slowness.
+ * <p>
+ * Started by {@link StandardJMeterEngine} for the duration of the test if property
+ * <code>injector.health.monitor</code> is true, it samples at a fixed interval:
+ * <ul>
+ * <li>process CPU usage, in percent of all available processors</li>
+ * <li>time spent in garbage collection, in percent of the interval</li>
+ * <li>allocation rate of live threads (approximate, allocations of threads ended during the interval are missed)</li>
+ * <li>timer lag: how late threads wake up after a timer or ramp-up pause,
+ * recorded by {@link org.apache.jmeter.threads.JMeterThread JMeterThread}</li>
+ * </ul>
+ * An interval is flagged as saturated, and a warning is logged, when CPU, GC or timer lag
+ * reach their threshold: response times measured during the interval may be inflated by the injector.
+ * <p>
+ * If property <code>injector.health.samples</code> is true, each metric is also sent as a {@link SampleResult}
+ * to the test plan level listeners (for example a Backend Listener), the value of the metric being the elapsed time
+ * and the success flag telling whether it is under its threshold.
+ * @since 4.0
+ */
+public class InjectorHealthMonitor implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(InjectorHealthMonitor.class);
+
+    /** Property enabling the monitor, set by the client on its servers when it rebalances their load */
+    public static final String MONITOR_ENABLED = "injector.health.monitor"; // $NON-NLS-1$
+
+    static final String LABEL_CPU = "Injector CPU %"; // $NON-NLS-1$
+    static final String LABEL_GC = "Injector GC %"; // $NON-NLS-1$
+    static final String LABEL_ALLOCATION = "Injector allocation MB/s"; // $NON-NLS-1$
+    static final String LABEL_TIMER_LAG = "Injector timer lag 99% ms"; // $NON-NLS-1$
+
+    private static final String THREAD_GROUP_NAME = "Injector health"; // $NON-NLS-1$
+
+    private static final long INTERVAL =
+            JMeterUtils.getPropDefault("injector.health.interval", 5000L); // $NON-NLS-1$
+
+    private static final double CPU_THRESHOLD =
+            JMeterUtils.getPropDefault("injector.health.cpu.threshold", 90.0f); // $NON-NLS-1$
+
+    private static final double GC_THRESHOLD =
+            JMeterUtils.getPropDefault("injector.health.gc.threshold", 10.0f); // $NON-NLS-1$
+
+    private static final long TIMER_LAG_THRESHOLD =
+            JMeterUtils.getPropDefault("injector.health.timer_lag.threshold", 100L); // $NON-NLS-1$
+
+    private static final boolean SEND_SAMPLES =
+            JMeterUtils.getPropDefault("injector.health.samples", false); // $NON-NLS-1$
+
+    private static final String OPERATING_SYSTEM_BEAN = "java.lang:type=OperatingSystem"; // $NON-NLS-1$
+
+    private static final String[] LONG_ARRAY_SIGNATURE = { long[].class.getName() };
+
+    private static final int TIMER_LAG_PRECISION = 4;
+
+    // null when no monitor is running, so timer lag is only recorded during tests
+    private static final AtomicReference<LongHistogram> TIMER_LAG = new AtomicReference<>();
+
+    // Last metrics of the running monitor, null when no monitor is running
+    private static volatile Health lastHealth;
+
+    /**
+     * Metrics of one interval, also sent by remote servers to the client to rebalance the load
+     */
+    public static final class Health implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final double cpuPercent;
+        final double gcPercent;
+        final double allocationMBPerSecond;
+        final long timerLagCount;
+        final long timerLag99Millis;
+        final long timerLagMaxMillis;
+
+        Health(double cpuPercent, double gcPercent, double allocationMBPerSecond, LongHistogram timerLag) {
+            this.cpuPercent = cpuPercent;
+            this.gcPercent = gcPercent;
+            this.allocationMBPerSecond = allocationMBPerSecond;
+            this.timerLagCount = timerLag.getCount();
+            this.timerLag99Millis = TimeUnit.NANOSECONDS.toMillis(timerLag.getPercentile(99));
+            this.timerLagMaxMillis = TimeUnit.NANOSECONDS.toMillis(timerLag.getMax());
+        }
+
+        boolean isCpuSaturated() {
+            return cpuPercent >= CPU_THRESHOLD;
+        }
+
+        boolean isGcSaturated() {
+            return gcPercent >= GC_THRESHOLD;
+        }
+
+        boolean isTimerLagging() {
+            return timerLagCount > 0 && timerLag99Millis >= TIMER_LAG_THRESHOLD;
+        }
+
+        /**
+         * @return true if CPU, GC or timer lag reached its threshold during the interval
+         */
+        public boolean isSaturated() {
+            return isCpuSaturated() || isGcSaturated() || isTimerLagging();
+        }
+
+        /**
+         * @return CPU usage of the JVM in percent of all available processors
+         */
+        public double getCpuPercent() {
+            return cpuPercent;
+        }
+
+        /**
+         * @return time spent in garbage collection in percent of the interval
+         */
+        public double getGcPercent() {
+            return gcPercent;
+        }
+
+        /**
+         * @return 99th percentile of the timer lag in milliseconds
+         */
+        public long getTimerLag99Millis() {
+            return timerLag99Millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "cpu=%.1f%% gc=%.1f%% allocation=%.1f MB/s timer lag 99%%=%d ms max=%d ms (%d pauses)", // $NON-NLS-1$
+                    cpuPercent, gcPercent, allocationMBPerSecond, timerLag99Millis, timerLagMaxMillis, timerLagCount);
+        }
+    }
+
+    private final List<SampleListener> listeners;
+
+    private final ListenerNotifier notifier = new ListenerNotifier();
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final int processors = Runtime.getRuntime().availableProcessors();
+
+    private ScheduledExecutorService executor;
+
+    private long lastNanos;
+    private long lastCpuNanos;
+    private long lastGcMillis;
+    private long lastAllocatedBytes;
+
+    private int intervals;
+    private int saturatedIntervals;
+    private boolean saturated;
+    private double maxCpuPercent;
+    private double maxGcPercent;
+    private long maxTimerLag99Millis;
+
+    /**
+     * @param listeners test plan level listeners to which metrics are sent if
+     *            property <code>injector.health.samples</code> is true
+     */
+    public InjectorHealthMonitor(List<SampleListener> listeners) {
+        this.listeners = new ArrayList<>(listeners);
+    }
+
+    /**
+     * @return true if the monitor should be started, see property <code>injector.health.monitor</code>
+     */
+    public static boolean isEnabled() {
+        return JMeterUtils.getPropDefault(MONITOR_ENABLED, false);
+    }
+
+    /**
+     * @return metrics of the last interval of the running monitor, null if no monitor is running
+     *  or no interval has elapsed yet
+     */
+    public static Health getLastHealth() {
+        return lastHealth;
+    }
+
+    /**
+     * Record how late a thread woke up after a pause.
+     * Does nothing if no monitor is running.
+     * @param lagNanos time slept in excess of the requested pause, in nanoseconds
+     */
+    public static void recordTimerLag(long lagNanos) {
+        LongHistogram histogram = TIMER_LAG.get();
+        if (histogram != null) {
+            histogram.record(lagNanos);
+        }
+    }
+
+    /**
+     * Start sampling the metrics every <code>injector.health.interval</code> milliseconds
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        TIMER_LAG.set(new LongHistogram(TIMER_LAG_PRECISION));
+        lastNanos = System.nanoTime();
+        lastCpuNanos = processCpuNanos();
+        lastGcMillis = gcMillis();
+        lastAllocatedBytes = allocatedBytes();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "InjectorHealthMonitor"); // $NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+        log.info("Injector health monitor started, interval: {} ms", INTERVAL);
+    }
+
+    /**
+     * Stop sampling and log a summary of the test
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        TIMER_LAG.set(null);
+        lastHealth = null;
+        if (saturatedIntervals > 0) {
+            log.warn("Injector was saturated during {} of {} intervals of {} ms,"
+                    + " max cpu={}%, max gc={}%, max timer lag 99%={} ms",
+                    saturatedIntervals, intervals, INTERVAL,
+                    Math.round(maxCpuPercent), Math.round(maxGcPercent), maxTimerLag99Millis);
+        } else {
+            log.info("Injector was not saturated during the test ({} intervals of {} ms),"
+                    + " max cpu={}%, max gc={}%, max timer lag 99%={} ms",
+                    intervals, INTERVAL,
+                    Math.round(maxCpuPercent), Math.round(maxGcPercent), maxTimerLag99Millis);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            Health health = sample();
+            report(health);
+        } catch (RuntimeException e) {
+            log.warn("Error while monitoring injector health", e);
+        }
+    }
+
+    /**
+     * Compute the metrics since the previous call
+     * @return metrics of the interval
+     */
+    synchronized Health sample() {
+        long nanos = System.nanoTime();
+        long elapsedNanos = Math.max(1L, nanos - lastNanos);
+        long cpuNanos = processCpuNanos();
+        long gcMillis = gcMillis();
+        long allocatedBytes = allocatedBytes();
+        LongHistogram timerLag = TIMER_LAG.getAndSet(new LongHistogram(TIMER_LAG_PRECISION));
+        if (timerLag == null) {
+            timerLag = new LongHistogram(TIMER_LAG_PRECISION);
+        }
+
+        double cpuPercent = cpuNanos < 0 || lastCpuNanos < 0
+                ? 0.0
+                : 100.0 * (cpuNanos - lastCpuNanos) / ((double) elapsedNanos * processors);
+        double gcPercent = 100.0 * (gcMillis - lastGcMillis) / (elapsedNanos / 1e6);
+        // Allocated bytes of ended threads are lost, so the delta can be negative
+        double allocation = allocatedBytes < 0 || lastAllocatedBytes < 0
+                ? 0.0
+                : Math.max(0L, allocatedBytes - lastAllocatedBytes) / (1024.0 * 1024.0) / (elapsedNanos / 1e9);
+
+        lastNanos = nanos;
+        lastCpuNanos = cpuNanos;
+        lastGcMillis = gcMillis;
+        lastAllocatedBytes = allocatedBytes;
+        return new Health(cpuPercent, gcPercent, allocation, timerLag);
+    }
+
+    private void report(Health health) {
+        intervals++;
+        maxCpuPercent = Math.max(maxCpuPercent, health.cpuPercent);
+        maxGcPercent = Math.max(maxGcPercent, health.gcPercent);
+        maxTimerLag99Millis = Math.max(maxTimerLag99Millis, health.timerLag99Millis);
+        if (health.isSaturated()) {
+            saturatedIntervals++;
+            if (!saturated) {
+                log.warn("Injector is saturated, response times may be inflated by JMeter itself: {}", health);
+            } else {
+                log.debug("Injector still saturated: {}", health);
+            }
+        } else if (saturated) {
+            log.info("Injector is no longer saturated: {}", health);
+        } else {
+            log.debug("Injector health: {}", health);
+        }
+        saturated = health.isSaturated();
+        lastHealth = health;
+        if (SEND_SAMPLES && !listeners.isEmpty()) {
+            long now = System.currentTimeMillis();
+            List<SampleEvent> events = new ArrayList<>(4);
+            events.add(createEvent(now, LABEL_CPU, Math.round(health.cpuPercent), !health.isCpuSaturated()));
+            events.add(createEvent(now, LABEL_GC, Math.round(health.gcPercent), !health.isGcSaturated()));
+            events.add(createEvent(now, LABEL_ALLOCATION, Math.round(health.allocationMBPerSecond), true));
+            events.add(createEvent(now, LABEL_TIMER_LAG, health.timerLag99Millis, !health.isTimerLagging()));
+            notifier.notifyListeners(events, listeners);
+        }
+    }
+
+    private static SampleEvent createEvent(long now, String label, long value, boolean ok) {
+        return new SampleEvent(createSample(now, label, value, ok), THREAD_GROUP_NAME);
+    }
+
+    /**
+     * @param now timestamp of the sample
+     * @param label name of the metric
+     * @param value value of the metric, stored as elapsed time
+     * @param ok false if the metric reached its threshold
+     * @return sample representing the metric
+     */
+    static SampleResult createSample(long now, String label, long value, boolean ok) {
+        SampleResult result = new SampleResult();
+        result.setStampAndTime(now, Math.max(0L, value));
+        result.setSampleLabel(label);
+        result.setThreadName(THREAD_GROUP_NAME);
+        result.setSuccessful(ok);
+        result.setResponseCode(ok ? "200" : "500"); // $NON-NLS-1$ // $NON-NLS-2$
+        result.setResponseMessage(ok ? "OK" : "Injector saturated"); // $NON-NLS-1$
+        result.setDataType(SampleResult.TEXT);
+        return result;
+    }
+
+    /**
+     * @return CPU time used by the JVM in nanoseconds, -1 if not supported
+     */
+    private long processCpuNanos() {
+        try {
+            Object value = server.getAttribute(new ObjectName(OPERATING_SYSTEM_BEAN), "ProcessCpuTime"); // $NON-NLS-1$
+            return value instanceof Long ? ((Long) value).longValue() : -1L;
+        } catch (JMException | RuntimeException e) { // NOSONAR Not available on all JVMs
+            return -1L;
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long time = gc.getCollectionTime();
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return bytes allocated by live threads, -1 if not supported
+     */
+    private long allocatedBytes() {
+        try {
+            long[] ids = threadBean.getAllThreadIds();
+            Object value = server.invoke(new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME),
+                    "getThreadAllocatedBytes", new Object[] { ids }, LONG_ARRAY_SIGNATURE); // $NON-NLS-1$
+            if (!(value instanceof long[])) {
+                return -1L;
+            }
+            long total = 0;
+            for (long bytes : (long[]) value) {
+                if (bytes > 0) {
+                    total += bytes;
+                }
+            }
+            return total;
+        } catch (JMException | RuntimeException e) { // NOSONAR Not available on all JVMs
+            return -1L;
+        }
+    }
+}
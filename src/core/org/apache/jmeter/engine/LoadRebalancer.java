@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebalances the load of a distributed test between the servers, from the client.
+ * <p>
+ * Every <code>client.rebalance.interval</code> milliseconds, the health of each server is read
+ * (see {@link InjectorHealthMonitor}). Each saturated server has its load share reduced by
+ * <code>client.rebalance.step</code>, and the load removed is given to the servers that are not saturated,
+ * so that the total number of threads stays the same. A share is the fraction of the configured number
+ * of threads of each thread group a server runs, it is kept between <code>client.rebalance.min_share</code>
+ * and <code>client.rebalance.max_share</code>.
+ * <p>
+ * Servers that do not report their health are left out of the rebalancing.
+ * @since 4.0
+ */
+public class LoadRebalancer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadRebalancer.class);
+
+    public static final String REBALANCE = "client.rebalance"; // $NON-NLS-1$
+
+    private static final long INTERVAL =
+            JMeterUtils.getPropDefault("client.rebalance.interval", 30000L); // $NON-NLS-1$
+
+    private static final double STEP =
+            JMeterUtils.getPropDefault("client.rebalance.step", 0.1f); // $NON-NLS-1$
+
+    private static final double MIN_SHARE =
+            JMeterUtils.getPropDefault("client.rebalance.min_share", 0.5f); // $NON-NLS-1$
+
+    private static final double MAX_SHARE =
+            JMeterUtils.getPropDefault("client.rebalance.max_share", 1.5f); // $NON-NLS-1$
+
+    // Shares are only sent when they change by more than this
+    private static final double MIN_CHANGE = 0.01;
+
+    private final List<ClientJMeterEngine> engines;
+
+    private final double[] shares;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param engines the started engines, all with a share of 1.0
+     */
+    public LoadRebalancer(List<ClientJMeterEngine> engines) {
+        this.engines = new ArrayList<>(engines);
+        this.shares = new double[engines.size()];
+        Arrays.fill(shares, 1.0);
+    }
+
+    /**
+     * @return true if the load should be rebalanced, see property <code>client.rebalance</code>
+     */
+    public static boolean isEnabled() {
+        return JMeterUtils.getPropDefault(REBALANCE, false);
+    }
+
+    /**
+     * Start rebalancing every <code>client.rebalance.interval</code> milliseconds,
+     * the first time after one interval so that thread groups have ramped up
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LoadRebalancer"); // $NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+        log.info("Load rebalancing of {} engines started, interval: {} ms", engines.size(), INTERVAL);
+    }
+
+    /**
+     * Stop rebalancing
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            log.warn("Error while rebalancing load", e);
+        }
+    }
+
+    /**
+     * Read the health of the engines and send them their new share if it changed
+     */
+    void rebalance() {
+        int size = engines.size();
+        int[] reporting = new int[size];
+        boolean[] saturated = new boolean[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            InjectorHealthMonitor.Health health = engines.get(i).getHealth();
+            if (health != null) {
+                reporting[count] = i;
+                saturated[count] = health.isSaturated();
+                count++;
+            }
+        }
+        if (count < 2) {
+            return; // nowhere to move load
+        }
+        double[] current = new double[count];
+        for (int j = 0; j < count; j++) {
+            current[j] = shares[reporting[j]];
+        }
+        double[] next = computeShares(current, Arrays.copyOf(saturated, count), STEP, MIN_SHARE, MAX_SHARE);
+        for (int j = 0; j < count; j++) {
+            int i = reporting[j];
+            if (Math.abs(next[j] - shares[i]) >= MIN_CHANGE) {
+                ClientJMeterEngine engine = engines.get(i);
+                log.info("Load share of {} {} from {} to {}", engine.getHost(),
+                        saturated[j] ? "reduced" : "increased", // $NON-NLS-1$ $NON-NLS-2$
+                        format(shares[i]), format(next[j]));
+                engine.setLoadShare(next[j]);
+                shares[i] = next[j];
+            }
+        }
+    }
+
+    /**
+     * @return the current share of each engine, in the order of the constructor list
+     */
+    double[] getShares() {
+        return shares.clone();
+    }
+
+    /**
+     * Compute new shares: saturated engines lose <code>step</code> of their share,
+     * then all shares are scaled to keep their sum and clamped.
+     *
+     * @param shares current shares
+     * @param saturated whether each engine is saturated
+     * @param step fraction of its share a saturated engine loses
+     * @param min minimum share
+     * @param max maximum share
+     * @return the new shares, unchanged if no engine or all engines are saturated
+     */
+    static double[] computeShares(double[] shares, boolean[] saturated, double step, double min, double max) {
+        double total = 0;
+        int saturatedCount = 0;
+        double[] next = new double[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            total += shares[i];
+            next[i] = saturated[i] ? shares[i] * (1.0 - step) : shares[i];
+            if (saturated[i]) {
+                saturatedCount++;
+            }
+        }
+        if (saturatedCount == 0 || saturatedCount == shares.length) {
+            return shares.clone();
+        }
+        // Clamping changes the sum, a few passes converge close enough
+        for (int pass = 0; pass < 3; pass++) {
+            double sum = 0;
+            for (double share : next) {
+                sum += share;
+            }
+            // Only engines with headroom receive the load removed from saturated ones
+            double factor = 1.0 + (total - sum) / unsaturatedSum(next, saturated);
+            for (int i = 0; i < next.length; i++) {
+                double scaled = saturated[i] ? next[i] : next[i] * factor;
+                next[i] = Math.min(max, Math.max(min, scaled));
+            }
+        }
+        return next;
+    }
+
+    private static double unsaturatedSum(double[] shares, boolean[] saturated) {
+        double sum = 0;
+        for (int i = 0; i < shares.length; i++) {
+            if (!saturated[i]) {
+                sum += shares[i];
+            }
+        }
+        return sum;
+    }
+
+    private static String format(double share) {
+        return String.format(Locale.ENGLISH, "%.2f", share); // $NON-NLS-1$
+    }
+}
@@ -33,6 +33,37 @@ public interface RemoteJMeterEngine extends Remote {
 
     void rrunTest() throws RemoteException, JMeterEngineException;
 
+    /**
+     * Start the configured test at the given time, for a coordinated start of several servers.
+     *
+     * @param startTime time at which the test should start, in milliseconds of the clock of the client
+     * @param clockOffset offset of the clock of this server to the clock of the client in milliseconds,
+     *  also used to express the sample times in client time
+     * @throws RemoteException on RMI failure
+     * @throws JMeterEngineException if the test cannot be started
+     */
+    void rrunTestAt(long startTime, long clockOffset) throws RemoteException, JMeterEngineException;
+
+    /**
+     * @return the current time of this server in milliseconds, used to estimate its clock offset
+     * @throws RemoteException on RMI failure
+     */
+    long rcurrentTimeMillis() throws RemoteException;
+
+    /**
+     * @return the health metrics of the last interval of the running test, null if not available
+     * @throws RemoteException on RMI failure
+     */
+    InjectorHealthMonitor.Health rgetHealth() throws RemoteException;
+
+    /**
+     * Scale the number of threads of the running thread groups, to rebalance the load between servers.
+     *
+     * @param share share of the configured number of threads, 1.0 to run the thread groups as configured
+     * @throws RemoteException on RMI failure
+     */
+    void rsetLoadShare(double share) throws RemoteException;
+
     void rstopTest(boolean now) throws RemoteException;
 
     void rreset() throws RemoteException;
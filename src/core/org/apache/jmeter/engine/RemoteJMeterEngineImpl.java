@@ -27,7 +27,10 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.ServerNotActiveException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
@@ -48,6 +51,9 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     
     private transient Thread ownerThread;
 
+    // Host of the client that configured the engine, null if unknown
+    private transient String ownerHost;
+
     private static final int DEFAULT_RMI_PORT =
         JMeterUtils.getPropDefault("server.rmi.port", 1099); // $NON-NLS-1$
 
@@ -70,6 +76,9 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
 
     private Properties remotelySetProperties;
 
+    // Thread waiting for the start time of a coordinated start, guarded by LOCK
+    private transient PendingStart pendingStart;
+
     private RemoteJMeterEngineImpl(int localPort, int rmiPort) throws RemoteException {
         super(localPort); // Create this object using the specified port (0 means anonymous)
         this.rmiPort = rmiPort;
@@ -149,19 +158,15 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     @Override
     public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) throws RemoteException {
         log.info("Creating JMeter engine on host {} base '{}'", host, jmxBase);
-        try {
-            if (log.isInfoEnabled()) {
-                log.info("Remote client host: {}", getClientHost());
-            }
-        } catch (ServerNotActiveException e) {
-            // ignored
-        }
+        String clientHost = clientHost();
+        log.info("Remote client host: {}", clientHost);
         synchronized(LOCK) { // close window where another remote client might jump in
             if (backingEngine != null && backingEngine.isActive()) {
                 log.warn("Engine is busy - cannot create JMeter engine");
                 throw new IllegalStateException("Engine is busy - please try later");
             }
             ownerThread = Thread.currentThread();
+            ownerHost = clientHost;
             backingEngine = new StandardJMeterEngine(host);
             backingEngine.configure(testTree); // sets active = true
         }
@@ -173,16 +178,121 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     public void rrunTest() throws RemoteException, JMeterEngineException, IllegalStateException {
         log.info("Running test");
         checkOwner("runTest");
+        SampleResult.setClockOffset(0L);
         backingEngine.runTest();
     }
 
+    @Override
+    public void rrunTestAt(long startTime, long clockOffset)
+            throws RemoteException, JMeterEngineException, IllegalStateException {
+        checkOwner("runTestAt");
+        SampleResult.setClockOffset(clockOffset);
+        final JMeterEngine engine = backingEngine;
+        long delay = startTime + clockOffset - System.currentTimeMillis();
+        if (delay <= 0) {
+            log.info("Running test, start time {} is past by {} ms", startTime, -delay);
+            engine.runTest();
+            return;
+        }
+        log.info("Running test in {} ms (clock offset {} ms)", delay, clockOffset);
+        PendingStart starter = new PendingStart(engine, delay);
+        synchronized (LOCK) {
+            pendingStart = starter;
+        }
+        starter.start();
+    }
+
+    /**
+     * Cancel any test waiting for its coordinated start time.
+     *
+     * @return <code>true</code> if a test was cancelled before its start,
+     *         <code>false</code> if there was none or it had already been started
+     */
+    private boolean cancelPendingTest() {
+        PendingStart starter;
+        synchronized (LOCK) {
+            starter = pendingStart;
+            pendingStart = null;
+        }
+        return starter != null && starter.cancel();
+    }
+
+    /**
+     * Thread waiting for the start time of a coordinated start, then running the test
+     * unless it was cancelled meanwhile
+     */
+    private static final class PendingStart extends Thread {
+        private final JMeterEngine engine;
+        private final long delay;
+        // Claimed either by the start or by the cancellation of the test, whichever comes first
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingStart(JMeterEngine engine, long delay) {
+            super("StartTestAt"); // $NON-NLS-1$
+            this.engine = engine;
+            this.delay = delay;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!claimed.compareAndSet(false, true)) {
+                return; // cancelled before its start
+            }
+            try {
+                engine.runTest();
+            } catch (JMeterEngineException e) {
+                log.error("Could not start the test", e);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the test was cancelled, <code>false</code> if it was already started
+         */
+        boolean cancel() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            interrupt();
+            return true;
+        }
+    }
+
+    @Override
+    public long rcurrentTimeMillis() throws RemoteException {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public InjectorHealthMonitor.Health rgetHealth() throws RemoteException {
+        return InjectorHealthMonitor.getLastHealth();
+    }
+
+    @Override
+    public void rsetLoadShare(double share) throws RemoteException {
+        // Called by the rebalancing thread of the client, so check the client rather than the thread
+        checkClient("setLoadShare");
+        if (backingEngine instanceof StandardJMeterEngine) {
+            ((StandardJMeterEngine) backingEngine).setLoadShare(share);
+        }
+    }
+
     @Override
     public void rreset() throws RemoteException, IllegalStateException {
         // Mail on userlist reported NPE here - looks like only happens if there are network errors, but check anyway
         if (backingEngine != null) {
             log.info("Reset");
             checkOwner("reset");
-            backingEngine.reset();
+            if (cancelPendingTest()) {
+                endCancelledTest();
+            } else {
+                backingEngine.reset();
+            }
         } else {
             log.warn("Backing engine is null, ignoring reset");
         }
@@ -195,10 +305,30 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
         } else {
             log.info("Shutting test ...");
         }
-        backingEngine.stopTest(now);
+        if (cancelPendingTest()) {
+            endCancelledTest();
+        } else {
+            backingEngine.stopTest(now);
+        }
         log.info("... stopped");
     }
 
+    /**
+     * Run a test cancelled before its start without starting any thread group,
+     * so that its listeners, and the client through them, see it end
+     */
+    private void endCancelledTest() {
+        log.info("Test cancelled before its start");
+        if (backingEngine instanceof StandardJMeterEngine) {
+            ((StandardJMeterEngine) backingEngine).cancel();
+            try {
+                backingEngine.runTest();
+            } catch (JMeterEngineException e) {
+                log.error("Could not end the cancelled test", e);
+            }
+        }
+    }
+
     /*
      * Called by:
      * - ClientJMeterEngine.exe() which is called on remoteStop 
@@ -206,6 +336,7 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     @Override
     public void rexit() throws RemoteException {
         log.info("Exiting");
+        cancelPendingTest();
         // Bug 59400 - allow rexit() to return
         Thread et = new Thread() {
             @Override
@@ -242,6 +373,32 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
         this.remotelySetProperties = p;
     }
 
+    /**
+     * Check if the caller runs on the host of the client that configured the engine.
+     * Unlike {@link #checkOwner(String)}, it accepts calls from any thread of that client.
+     * @param methodName the name of the method for the log message
+     * @throws IllegalStateException if the caller is another client.
+     */
+    private void checkClient(String methodName) throws IllegalStateException {
+        String clientHost = clientHost();
+        if (ownerHost != null && clientHost != null && !ownerHost.equals(clientHost)) {
+            String msg = "The engine is not owned by client " + clientHost + " - cannot call " + methodName;
+            log.warn(msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    /**
+     * @return the host of the client of the current remote call, null if not called remotely
+     */
+    private static String clientHost() {
+        try {
+            return getClientHost();
+        } catch (ServerNotActiveException e) {
+            return null;
+        }
+    }
+
     /**
      * Check if the caller owns the engine.
      * @param methodName the name of the method for the log message
@@ -20,21 +20,27 @@ package org.apache.jmeter.engine;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.JMeter;
 import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testbeans.TestBeanHelper;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.ElementCosts;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.threads.ListenerNotifier;
 import org.apache.jmeter.threads.PostThreadGroup;
@@ -94,6 +100,9 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
     /** tearDown Thread Groups run after shutdown of main threads */
     private volatile boolean tearDownOnShutdown = false;
 
+    /** Set when the test was cancelled before being run: no thread group is started */
+    private volatile boolean cancelled = false;
+
     private HashTree test;
 
     private final String host;
@@ -101,6 +110,26 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
     // The list of current thread groups; may be setUp, main, or tearDown.
     private final List<AbstractThreadGroup> groups = new CopyOnWriteArrayList<>();
 
+    // Thread counts of the current thread groups for setLoadShare, guarded by itself
+    private final Map<AbstractThreadGroup, GroupShare> groupShares = new IdentityHashMap<>();
+
+    /**
+     * Number of threads of a thread group, configured and reached with the current load share
+     */
+    private static final class GroupShare {
+        private final int configured;
+        private int current;
+        // Names of the running threads already asked to stop
+        private final Set<String> stopped = new HashSet<>();
+        // Whether the group was reported as unable to run fewer threads
+        private boolean fixedReported;
+
+        private GroupShare(int configured) {
+            this.configured = configured;
+            this.current = configured;
+        }
+    }
+
     public StandardJMeterEngine() {
         this(null);
     }
@@ -219,6 +248,16 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         }
     }
 
+    private static List<SampleListener> getSampleListeners(List<?> testLevelElements) {
+        List<SampleListener> listeners = new ArrayList<>();
+        for (Object element : testLevelElements) {
+            if (element instanceof SampleListener) {
+                listeners.add((SampleListener) element);
+            }
+        }
+        return listeners;
+    }
+
     private void notifyTestListenersOfEnd(SearchByClass<TestStateListener> testListeners) {
         log.info("Notifying test listeners of end of test");
         for (TestStateListener tl : testListeners.getSearchResults()) {
@@ -244,6 +283,15 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         active=false;
     }
 
+    /**
+     * Cancel a test that has not been run yet, for example one waiting for a coordinated start.
+     * When run, the test only notifies its test listeners of its start and end without starting
+     * any thread group, so that they see it end and the engine becomes inactive.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
     @Override
     public void reset() {
         if (running) {
@@ -351,8 +399,12 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
 
     @Override
     public void run() {
-        log.info("Running the test!");
-        running = true;
+        if (cancelled) {
+            log.info("Test cancelled before its start, ending it");
+        } else {
+            log.info("Running the test!");
+        }
+        running = !cancelled;
 
         /*
          * Ensure that the sample variables are correctly initialised for each run.
@@ -395,6 +447,8 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         test.traverse(postSearcher);
         
         TestCompiler.initialize();
+        TestCompiler.registerDeclaredVariables(test);
+        ElementCosts.reset();
         // for each thread group, generate threads
         // hand each thread the sampler controller
         // and the listeners, and the timer
@@ -429,6 +483,7 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         }
 
         groups.clear(); // The groups have all completed now                
+        clearGroupShares();
 
         /*
          * Here's where the test really starts. Run a Full GC now: it's no harm
@@ -437,6 +492,13 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
          */
         JMeterUtils.helpGC();
         
+        // Started after the full GC, which would be reported as injector saturation
+        InjectorHealthMonitor healthMonitor = null;
+        if (InjectorHealthMonitor.isEnabled()) {
+            healthMonitor = new InjectorHealthMonitor(getSampleListeners(testLevelElements));
+            healthMonitor.start();
+        }
+
         JMeterContextService.getContext().setSamplingStarted(true);
         boolean mainGroups = running; // still running at this point, i.e. setUp was not cancelled
         while (running && iter.hasNext()) {// for each thread group
@@ -469,6 +531,7 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         //wait for all Test Threads To Exit
         waitThreadsStopped();
         groups.clear(); // The groups have all completed now            
+        clearGroupShares();
 
         if (postIter.hasNext()){
             groupCount = 0;
@@ -491,6 +554,10 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
             waitThreadsStopped(); // wait for Post threads to stop
         }
 
+        if (healthMonitor != null) {
+            healthMonitor.stop();
+        }
+        ElementCosts.logSummary();
         notifyTestListenersOfEnd(testListeners);
         JMeterContextService.endTest();
         if (JMeter.isNonGUI() && SYSTEM_EXIT_FORCED) {
@@ -525,6 +592,9 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
             ListedHashTree threadGroupTree = (ListedHashTree) searcher.getSubTree(group);
             threadGroupTree.add(group, testLevelElements);
     
+            synchronized (groupShares) {
+                groupShares.put(group, new GroupShare(numThreads));
+            }
             groups.add(group);
             group.start(groupCount, notifier, threadGroupTree, this);
         } catch (JMeterStopTestException ex) { // NOSONAR Reported by log
@@ -534,6 +604,75 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         }
     }
 
+    private void clearGroupShares() {
+        synchronized (groupShares) {
+            groupShares.clear();
+        }
+    }
+
+    /**
+     * Scale the number of threads of the running thread groups to a share of their configured number,
+     * by adding threads with {@link AbstractThreadGroup#addExtraThread(int, StandardJMeterEngine)}
+     * or asking threads to stop at the end of their current sample with
+     * {@link AbstractThreadGroup#stopThread(String, boolean)}.
+     * Only the difference with the number of threads reached with the previous share is applied:
+     * threads that ended by themselves are not replaced.
+     * <p>
+     * Called on the servers of a distributed test to rebalance the load between them.
+     *
+     * @param share share of the configured number of threads, 1.0 to run the thread groups as configured
+     */
+    public void setLoadShare(double share) {
+        if (!running) {
+            return;
+        }
+        synchronized (groupShares) {
+            for (AbstractThreadGroup group : groups) {
+                GroupShare groupShare = groupShares.get(group);
+                if (groupShare == null || groupShare.configured == 0) {
+                    continue;
+                }
+                // Keep at least one thread, a stopped group could not be scaled up again
+                int target = Math.max(1, (int) Math.round(groupShare.configured * share));
+                int delta = target - groupShare.current;
+                int reached = groupShare.current;
+                if (delta > 0) {
+                    for (int i = 0; i < delta; i++) {
+                        if (group.addExtraThread(0, this) != null) {
+                            reached++;
+                        }
+                    }
+                } else if (delta < 0) {
+                    if (!group.canListThreads()) {
+                        if (!groupShare.fixedReported) {
+                            log.warn("Group {} of type {} cannot list its threads, its number of threads will not be reduced",
+                                    group.getName(), group.getClass().getName());
+                            groupShare.fixedReported = true;
+                        }
+                        continue;
+                    }
+                    List<String> threadNames = group.getThreadNames();
+                    // Forget the threads that have ended since
+                    groupShare.stopped.retainAll(threadNames);
+                    for (String threadName : threadNames) {
+                        if (reached == target) {
+                            break;
+                        }
+                        if (!groupShare.stopped.contains(threadName) && group.stopThread(threadName, false)) {
+                            groupShare.stopped.add(threadName);
+                            reached--;
+                        }
+                    }
+                }
+                if (delta != 0) {
+                    log.info("Load share {}: {} threads instead of {} for group {} (target: {})",
+                            share, reached, groupShare.current, group.getName(), target);
+                }
+                groupShare.current = reached;
+            }
+        }
+    }
+
     /**
      * Wait for Group Threads to stop
      */
@@ -23,10 +23,13 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -85,6 +88,25 @@ public class ReportGeneratorConfiguration {
     private static final String REPORT_GENERATOR_KEY_SAMPLE_FILTER = REPORT_GENERATOR_KEY_PREFIX
             + KEY_DELIMITER + "sample_filter";
 
+    // Label normalization rules
+    private static final String REPORT_GENERATOR_KEY_LABEL_NORMALIZATION = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "label_normalization";
+    private static final String LABEL_NORMALIZATION_KEY_PATTERN = "pattern";
+    private static final String LABEL_NORMALIZATION_KEY_REPLACEMENT = "replacement";
+
+    // Maximum number of distinct labels
+    private static final String REPORT_GENERATOR_KEY_MAX_LABELS = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "max_labels";
+
+    // Label of the samples whose label is not kept
+    private static final String REPORT_GENERATOR_KEY_OTHER_LABEL = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "other_label";
+    private static final String REPORT_GENERATOR_KEY_OTHER_LABEL_DEFAULT = "Other labels";
+
+    // Merge samples of several result files in time stamp order
+    private static final String REPORT_GENERATOR_KEY_MERGE_IN_ORDER = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "merge_in_order";
+
     // report title
     private static final String REPORT_GENERATOR_KEY_REPORT_TITLE = REPORT_GENERATOR_KEY_PREFIX
             + KEY_DELIMITER + "report_title";
@@ -277,6 +299,10 @@ public class ReportGeneratorConfiguration {
     private Date startDate;
     private Date endDate;
     private String sampleFilter;
+    private Map<String, String> labelNormalization = new LinkedHashMap<>();
+    private int maxLabels;
+    private String otherLabel = REPORT_GENERATOR_KEY_OTHER_LABEL_DEFAULT;
+    private boolean mergeInOrder;
     private File tempDirectory;
     private long apdexSatisfiedThreshold;
     private long apdexToleratedThreshold;
@@ -305,6 +331,85 @@ public class ReportGeneratorConfiguration {
         this.sampleFilter = sampleFilter;
     }
 
+    /**
+     * Gets the label normalization rules.
+     *
+     * @return the regular expressions and their replacements, in the order they are tried
+     */
+    public final Map<String, String> getLabelNormalization() {
+        return labelNormalization;
+    }
+
+    /**
+     * Sets the label normalization rules.
+     *
+     * @param labelNormalization
+     *            the regular expressions and their replacements, in the order they are tried
+     */
+    public final void setLabelNormalization(Map<String, String> labelNormalization) {
+        this.labelNormalization = labelNormalization;
+    }
+
+    /**
+     * Gets the maximum number of distinct labels in the report.
+     *
+     * @return the maximum number of labels, 0 for no limit
+     */
+    public final int getMaxLabels() {
+        return maxLabels;
+    }
+
+    /**
+     * Sets the maximum number of distinct labels in the report.
+     *
+     * @param maxLabels
+     *            the maximum number of labels, 0 for no limit
+     */
+    public final void setMaxLabels(int maxLabels) {
+        this.maxLabels = maxLabels;
+    }
+
+    /**
+     * Indicates whether the samples of several result files are merged in
+     * time stamp order.
+     *
+     * @return {@code true} if the samples are merged in time stamp order,
+     *         {@code false} if they are produced as the files are read
+     */
+    public final boolean isMergeInOrder() {
+        return mergeInOrder;
+    }
+
+    /**
+     * Sets whether the samples of several result files are merged in time
+     * stamp order.
+     *
+     * @param mergeInOrder
+     *            {@code true} to merge the samples in time stamp order
+     */
+    public final void setMergeInOrder(boolean mergeInOrder) {
+        this.mergeInOrder = mergeInOrder;
+    }
+
+    /**
+     * Gets the label of the samples whose label exceeds the maximum number of labels.
+     *
+     * @return the other label
+     */
+    public final String getOtherLabel() {
+        return otherLabel;
+    }
+
+    /**
+     * Sets the label of the samples whose label exceeds the maximum number of labels.
+     *
+     * @param otherLabel
+     *            the other label
+     */
+    public final void setOtherLabel(String otherLabel) {
+        this.otherLabel = otherLabel;
+    }
+
     /**
      * Gets the temporary directory.
      *
@@ -656,6 +761,22 @@ public class ReportGeneratorConfiguration {
                 REPORT_GENERATOR_KEY_SAMPLE_FILTER, String.class);
         configuration.setSampleFilter(sampleFilter);
 
+        // Load label cardinality controls
+        configuration.setLabelNormalization(getLabelNormalizationRules(props));
+        final int maxLabels = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_MAX_LABELS, Integer.valueOf(0),
+                int.class).intValue();
+        configuration.setMaxLabels(maxLabels);
+        final String otherLabel = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_OTHER_LABEL,
+                REPORT_GENERATOR_KEY_OTHER_LABEL_DEFAULT, String.class);
+        configuration.setOtherLabel(otherLabel);
+
+        final boolean mergeInOrder = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_MERGE_IN_ORDER, Boolean.FALSE,
+                Boolean.class).booleanValue();
+        configuration.setMergeInOrder(mergeInOrder);
+
         final String reportTitle = getOptionalProperty(props,
                 REPORT_GENERATOR_KEY_REPORT_TITLE, String.class);
         configuration.setReportTitle(reportTitle);
@@ -728,6 +849,53 @@ public class ReportGeneratorConfiguration {
      * @param apdexPerTransaction the string coming from properties
      * @return {@link Map} containing for each sample name or sample name regex an array of Long corresponding to satisfied and tolerated apdex thresholds.
      */
+    /**
+     * Reads the label normalization rules, defined by properties
+     * <code>jmeter.reportgenerator.label_normalization.&lt;name&gt;.pattern</code> and
+     * <code>.replacement</code>, ordered by name.
+     *
+     * @param props
+     *            the properties
+     * @return the patterns and their replacements, ordered by rule name
+     * @throws ConfigurationException
+     *             if a pattern is missing or invalid
+     */
+    private static Map<String, String> getLabelNormalizationRules(Props props)
+            throws ConfigurationException {
+        Map<String, String[]> rulesByName = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : props.innerMap(
+                REPORT_GENERATOR_KEY_LABEL_NORMALIZATION).entrySet()) {
+            String key = entry.getKey();
+            int index = key.lastIndexOf(KEY_DELIMITER);
+            String name = index > 0 ? key.substring(0, index) : key;
+            String[] rule = rulesByName.computeIfAbsent(name, k -> new String[2]);
+            String field = key.substring(index + 1);
+            if (LABEL_NORMALIZATION_KEY_PATTERN.equals(field)) {
+                rule[0] = (String) entry.getValue();
+            } else if (LABEL_NORMALIZATION_KEY_REPLACEMENT.equals(field)) {
+                rule[1] = (String) entry.getValue();
+            } else {
+                log.warn("Invalid property '{}', skip it.", key);
+            }
+        }
+        Map<String, String> rules = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : rulesByName.entrySet()) {
+            String[] rule = entry.getValue();
+            if (StringUtils.isEmpty(rule[0])) {
+                throw new ConfigurationException(String.format(
+                        "Missing pattern of label normalization rule '%s'", entry.getKey()));
+            }
+            try {
+                Pattern.compile(rule[0]);
+            } catch (PatternSyntaxException e) {
+                throw new ConfigurationException(String.format(
+                        "Invalid pattern of label normalization rule '%s': %s", entry.getKey(), rule[0]), e);
+            }
+            rules.put(rule[0], StringUtils.defaultString(rule[1]));
+        }
+        return rules;
+    }
+
     public static Map<String, Long[]> getApdexPerTransactionParts(String apdexPerTransaction) {
         Map <String, Long[]> specificApdexes = new HashMap<>();
         if (StringUtils.isEmpty(apdexPerTransaction) || 
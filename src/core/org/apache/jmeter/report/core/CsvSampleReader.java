@@ -20,17 +20,16 @@ package org.apache.jmeter.report.core;
 import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
 import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.CSVTokenizer;
 import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.util.JOrphanUtils;
@@ -38,7 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Reader class for reading CSV files.
+ * Reader class for reading CSV files, optionally gzip compressed.
  * <p>
  * Handles {@link SampleMetadata} reading and sample extraction.
  * </p>
@@ -62,6 +61,8 @@ public class CsvSampleReader implements Closeable{
     private InputStream fis;
     private Reader isr;
     private BufferedReader reader;
+    private CSVTokenizer tokenizer;
+    private boolean closed;
 
     private char separator;
 
@@ -71,7 +72,19 @@ public class CsvSampleReader implements Closeable{
 
     private int columnCount;
 
-    private Sample lastSampleRead;
+    // Data of the next sample, null at the end of the file
+    private String[] nextData;
+
+    private long nextRow;
+
+    // Sample built from nextData, on demand
+    private Sample nextSample;
+
+    private final SampleBatch.Dictionary labels = new SampleBatch.Dictionary();
+
+    private final SampleBatch.Dictionary threadNames = new SampleBatch.Dictionary();
+
+    private final SampleBatch.Dictionary responseCodes = new SampleBatch.Dictionary();
 
     /**
      * Instantiates a new csv sample reader.
@@ -108,10 +121,10 @@ public class CsvSampleReader implements Closeable{
         }
         this.file = inputFile;
         try {
-            this.fis = new FileInputStream(file); 
+            this.fis = BlockGzip.newInputStream(file);
             this.isr = new InputStreamReader(fis, CHARSET);
             this.reader = new BufferedReader(isr, BUF_SIZE);
-        } catch (FileNotFoundException | UnsupportedEncodingException ex) {
+        } catch (IOException ex) {
             JOrphanUtils.closeQuietly(isr);
             JOrphanUtils.closeQuietly(fis);
             JOrphanUtils.closeQuietly(this.reader);
@@ -125,8 +138,9 @@ public class CsvSampleReader implements Closeable{
         }
         this.columnCount = this.metadata.getColumnCount();
         this.separator = this.metadata.getSeparator();
+        this.tokenizer = new CSVTokenizer(reader, separator);
         this.row = 0;
-        this.lastSampleRead = nextSample();
+        advance();
     }
 
     private SampleMetadata readMetadata(char separator, boolean useSaveSampleCfg) {
@@ -173,19 +187,24 @@ public class CsvSampleReader implements Closeable{
         return metadata;
     }
 
-    private Sample nextSample() {
-        String[] data;
+    private void advance() {
+        nextSample = null;
+        if (closed) {
+            // The tokenizer may still have buffered data
+            throw new SampleException("Could not read sample <" + row + ">, reader is closed");
+        }
         try {
-            data = CSVSaveService.csvReadFile(reader, separator);
-            Sample sample = null;
+            String[] data = tokenizer.next();
             if (data.length > 0) {
                 if (data.length != columnCount) {
                     throw new SampleException("Mismatch between expected number of columns:"+columnCount+" and columns in CSV file:"+data.length+
                             ", check your jmeter.save.saveservice.* configuration");
                 }
-                sample = new Sample(row, metadata, data);
+                nextData = data;
+                nextRow = row++;
+            } else {
+                nextData = null;
             }
-            return sample;
         } catch (IOException e) {
             throw new SampleException("Could not read sample <" + row + ">", e);
         }
@@ -197,18 +216,47 @@ public class CsvSampleReader implements Closeable{
      * @return the sample
      */
     public Sample readSample() {
-        Sample out = lastSampleRead;
-        lastSampleRead = nextSample();
+        Sample out = peek();
+        if (out != null) {
+            advance();
+        }
         return out;
     }
 
+    /**
+     * Reads the next samples of the file into a columnar batch.
+     * <p>
+     * Label, thread name and response code dictionaries are shared by all the
+     * batches read by this reader.
+     * </p>
+     *
+     * @param capacity
+     *            the maximum number of samples to read
+     * @return the batch, or {@code null} if the file contains no more samples
+     */
+    public SampleBatch readBatch(int capacity) {
+        if (nextData == null) {
+            return null;
+        }
+        SampleBatch batch = new SampleBatch(metadata, capacity, labels,
+                threadNames, responseCodes);
+        while (nextData != null && !batch.isFull()) {
+            batch.add(nextRow, nextData);
+            advance();
+        }
+        return batch;
+    }
+
     /**
      * Gets next sample from file but keep the reading file position.
      *
      * @return the sample
      */
     public Sample peek() {
-        return lastSampleRead;
+        if (nextSample == null && nextData != null) {
+            nextSample = new Sample(nextRow, metadata, nextData);
+        }
+        return nextSample;
     }
 
     /**
@@ -217,7 +265,7 @@ public class CsvSampleReader implements Closeable{
      * @return true, if the file contains more samples
      */
     public boolean hasNext() {
-        return lastSampleRead != null;
+        return nextData != null;
     }
 
     /**
@@ -225,6 +273,7 @@ public class CsvSampleReader implements Closeable{
      */
     @Override
     public void close() {
+        closed = true;
         JOrphanUtils.closeQuietly(isr);
         JOrphanUtils.closeQuietly(fis);
         JOrphanUtils.closeQuietly(reader);
@@ -38,10 +38,15 @@ public class Sample {
     
     private static final String EMPTY_CONTROLLER_PATTERN = "Number of samples in transaction : 0";
 
-    private final boolean storesStartTimeStamp;
+    private static final boolean STORES_START_TIMESTAMP =
+            JMeterUtils.getPropDefault("sampleresult.timestamp.start", false);
+
     private final SampleMetadata metadata;
     private final String[] data;
     private final long row;
+    // Typed values of the sample when it belongs to a batch, null otherwise
+    private final SampleBatch batch;
+    private final int index;
 
     /**
      * Build a sample from a string array
@@ -58,7 +63,44 @@ public class Sample {
         this.row = row;
         this.metadata = metadata;
         this.data = data;
-        this.storesStartTimeStamp = JMeterUtils.getPropDefault("sampleresult.timestamp.start", false);
+        this.batch = null;
+        this.index = 0;
+    }
+
+    /**
+     * Build a sample whose typed values are held by a batch
+     *
+     * @param row
+     *            the row number in the CSV source
+     * @param metadata
+     *            The sample metadata
+     * @param data
+     *            The sample data as a string array
+     * @param batch
+     *            the batch holding the typed values
+     * @param index
+     *            the index of the sample in the batch
+     */
+    Sample(long row, SampleMetadata metadata, String[] data, SampleBatch batch, int index) {
+        this.row = row;
+        this.metadata = metadata;
+        this.data = data;
+        this.batch = batch;
+        this.index = index;
+    }
+
+    private long getLong(int column, String name) {
+        if (batch != null && batch.hasLong(column)) {
+            return batch.getLong(column, index);
+        }
+        return getData(long.class, name).longValue();
+    }
+
+    private int getInt(int column, String name) {
+        if (batch != null && batch.hasInt(column)) {
+            return batch.getInt(column, index);
+        }
+        return getData(int.class, name).intValue();
     }
 
     /**
@@ -148,7 +190,7 @@ public class Sample {
      * @return the time stamp
      */
     public long getTimestamp() {
-        return getData(long.class, CSVSaveService.TIME_STAMP).longValue();
+        return getLong(SampleBatch.TIMESTAMP, CSVSaveService.TIME_STAMP);
     }
 
     /**
@@ -157,7 +199,7 @@ public class Sample {
      * @return the elapsed time stored in the sample
      */
     public long getElapsedTime() {
-        return getData(long.class, CSVSaveService.CSV_ELAPSED).longValue();
+        return getLong(SampleBatch.ELAPSED, CSVSaveService.CSV_ELAPSED);
     }
 
     /**
@@ -171,13 +213,15 @@ public class Sample {
      * <li>If the property is true, this method returns the time stamp stored in
      * the sample.</li>
      * <li>If the property is false, this method returns the time stamp stored
-     * in the sample minus the elapsed time.</li>
+     * in the sample minus the mean elapsed time.</li>
      * </ul>
+     * The mean elapsed time is used because the elapsed time of a sample standing
+     * for several samples is their sum, see {@link #getMeanElapsedTime()}.
      *
      * @return the start time
      */
     public long getStartTime() {
-        return storesStartTimeStamp ? getTimestamp() : getTimestamp() - getElapsedTime();
+        return STORES_START_TIMESTAMP ? getTimestamp() : getTimestamp() - getMeanElapsedTime();
     }
 
     /**
@@ -189,7 +233,7 @@ public class Sample {
      * </p>
      * <ul>
      * <li>If the property is true, this method returns the time stamp recorded
-     * in the sample plus the elapsed time.</li>
+     * in the sample plus the mean elapsed time.</li>
      * <li>If the property is false, this method returns the time stamp
      * recorded.</li>
      * </ul>
@@ -197,7 +241,7 @@ public class Sample {
      * @return the end time
      */
     public long getEndTime() {
-        return storesStartTimeStamp ? getTimestamp() + getElapsedTime() : getTimestamp();
+        return STORES_START_TIMESTAMP ? getTimestamp() + getMeanElapsedTime() : getTimestamp();
     }
 
     /**
@@ -206,7 +250,8 @@ public class Sample {
      * @return the response code stored in the sample
      */
     public String getResponseCode() {
-        return getData(CSVSaveService.RESPONSE_CODE);
+        String value = batch != null ? batch.getResponseCode(index) : null;
+        return value != null ? value : getData(CSVSaveService.RESPONSE_CODE);
     }
 
     /**
@@ -224,7 +269,8 @@ public class Sample {
      * @return the name stored in the sample
      */
     public String getName() {
-        return getData(CSVSaveService.LABEL);
+        String value = batch != null ? batch.getLabel(index) : null;
+        return value != null ? value : getData(CSVSaveService.LABEL);
     }
 
     /**
@@ -242,7 +288,7 @@ public class Sample {
      * @return the latency stored in the sample
      */
     public long getLatency() {
-        return getData(long.class, CSVSaveService.CSV_LATENCY).longValue();
+        return getLong(SampleBatch.LATENCY, CSVSaveService.CSV_LATENCY);
     }
     
     /**
@@ -252,18 +298,57 @@ public class Sample {
      */
     public long getConnectTime() {
         if(metadata.indexOf(CSVSaveService.CSV_CONNECT_TIME) >= 0) {
-            return getData(long.class, CSVSaveService.CSV_CONNECT_TIME).longValue();
+            return getLong(SampleBatch.CONNECT_TIME, CSVSaveService.CSV_CONNECT_TIME);
         } else {
             return 0L;
         }
     }
 
+    /**
+     * Gets the mean elapsed time of the samples this sample stands for:
+     * the elapsed time of a sample whose sample count is more than one is the
+     * sum of their elapsed times.
+     *
+     * @return the elapsed time stored in the sample divided by its sample count
+     */
+    public long getMeanElapsedTime() {
+        return mean(getElapsedTime());
+    }
+
+    /**
+     * Gets the mean latency of the samples this sample stands for.
+     *
+     * @return the latency stored in the sample divided by its sample count
+     * @see #getMeanElapsedTime()
+     */
+    public long getMeanLatency() {
+        return mean(getLatency());
+    }
+
+    /**
+     * Gets the mean connect time of the samples this sample stands for.
+     *
+     * @return the connect time stored in the sample divided by its sample count
+     * @see #getMeanElapsedTime()
+     */
+    public long getMeanConnectTime() {
+        return mean(getConnectTime());
+    }
+
+    private long mean(long total) {
+        int sampleCount = getSampleCount();
+        return sampleCount > 1 ? Math.round((double) total / sampleCount) : total;
+    }
+
     /**
      * Gets the success status stored in the sample.
      *
      * @return the success status stored in the sample
      */
     public boolean getSuccess() {
+        if (batch != null && batch.hasSuccess()) {
+            return batch.getSuccess(index);
+        }
         return getData(boolean.class, CSVSaveService.SUCCESSFUL).booleanValue();
     }
 
@@ -273,7 +358,7 @@ public class Sample {
      * @return the number of received bytes stored in the sample
      */
     public long getReceivedBytes() {
-        return getData(long.class, CSVSaveService.CSV_BYTES).longValue();
+        return getLong(SampleBatch.RECEIVED_BYTES, CSVSaveService.CSV_BYTES);
     }
 
     /**
@@ -283,7 +368,7 @@ public class Sample {
      */
     public long getSentBytes() {
         if(metadata.indexOf(CSVSaveService.CSV_SENT_BYTES) >= 0) {
-            return getData(long.class, CSVSaveService.CSV_SENT_BYTES).longValue();
+            return getLong(SampleBatch.SENT_BYTES, CSVSaveService.CSV_SENT_BYTES);
         } else {
             return 0L;
         }
@@ -295,7 +380,7 @@ public class Sample {
      * @return the number of threads in the group of this sample
      */
     public int getGroupThreads() {
-        return getData(int.class, CSVSaveService.CSV_THREAD_COUNT1).intValue();
+        return getInt(SampleBatch.GROUP_THREADS, CSVSaveService.CSV_THREAD_COUNT1);
     }
 
     /**
@@ -304,7 +389,40 @@ public class Sample {
      * @return the overall number of threads
      */
     public int getAllThreads() {
-        return getData(int.class, CSVSaveService.CSV_THREAD_COUNT2).intValue();
+        return getInt(SampleBatch.ALL_THREADS, CSVSaveService.CSV_THREAD_COUNT2);
+    }
+
+    /**
+     * Gets the number of samples this sample stands for: more than one if
+     * it was saved in Statistical mode or by a sampled result file, where each
+     * kept success is weighted by the successes it replaces. The elapsed time,
+     * latency, connect time and bytes of such a sample are sums over these
+     * samples.
+     *
+     * @return the number of samples stored in the sample or 1 if column is not
+     *         in results
+     */
+    public int getSampleCount() {
+        if (metadata.indexOf(CSVSaveService.CSV_SAMPLE_COUNT) >= 0) {
+            return getInt(SampleBatch.SAMPLE_COUNT, CSVSaveService.CSV_SAMPLE_COUNT);
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * Gets the number of failed samples among the samples this sample stands
+     * for.
+     *
+     * @return the number of errors stored in the sample or, if column is not
+     *         in results, 0 if the sample succeeded and 1 if it failed
+     */
+    public int getErrorCount() {
+        if (metadata.indexOf(CSVSaveService.CSV_ERROR_COUNT) >= 0) {
+            return getInt(SampleBatch.ERROR_COUNT, CSVSaveService.CSV_ERROR_COUNT);
+        } else {
+            return getSuccess() ? 0 : 1;
+        }
     }
 
     /**
@@ -313,7 +431,8 @@ public class Sample {
      * @return the thread name stored in the sample
      */
     public String getThreadName() {
-        return getData(CSVSaveService.THREAD_NAME);
+        String value = batch != null ? batch.getThreadName(index) : null;
+        return value != null ? value : getData(CSVSaveService.THREAD_NAME);
     }
 
     /**
@@ -0,0 +1,404 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jmeter.save.CSVSaveService;
+
+/**
+ * Columnar block of consecutive samples read from a CSV source.
+ * <p>
+ * The numeric columns used by the report consumers are parsed once, when the
+ * batch is filled, into primitive arrays. Labels, thread names and response
+ * codes are dictionary coded: each distinct value is stored once in a
+ * {@link Dictionary} shared by all the batches of a reader, and the batch only
+ * keeps its int code.
+ * </p>
+ * <p>
+ * The {@link Sample}s returned by {@link #getSample(int)} read their typed
+ * values from the batch instead of converting their string data on every call.
+ * When a column is missing from the metadata or one of its values cannot be
+ * parsed, the column is left untyped for the whole batch and these samples
+ * fall back to the string conversion, which reports the error as before.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class SampleBatch {
+
+    static final int TIMESTAMP = 0;
+    static final int ELAPSED = 1;
+    static final int LATENCY = 2;
+    static final int CONNECT_TIME = 3;
+    static final int RECEIVED_BYTES = 4;
+    static final int SENT_BYTES = 5;
+    private static final int LONG_COLUMNS = 6;
+
+    private static final String[] LONG_COLUMN_NAMES = {
+            CSVSaveService.TIME_STAMP,
+            CSVSaveService.CSV_ELAPSED,
+            CSVSaveService.CSV_LATENCY,
+            CSVSaveService.CSV_CONNECT_TIME,
+            CSVSaveService.CSV_BYTES,
+            CSVSaveService.CSV_SENT_BYTES };
+
+    static final int GROUP_THREADS = 0;
+    static final int ALL_THREADS = 1;
+    static final int SAMPLE_COUNT = 2;
+    static final int ERROR_COUNT = 3;
+    private static final int INT_COLUMNS = 4;
+
+    private static final String[] INT_COLUMN_NAMES = {
+            CSVSaveService.CSV_THREAD_COUNT1,
+            CSVSaveService.CSV_THREAD_COUNT2,
+            CSVSaveService.CSV_SAMPLE_COUNT,
+            CSVSaveService.CSV_ERROR_COUNT };
+
+    /**
+     * Assigns an int code to each distinct string value of a column.
+     * <p>
+     * The dictionary holds at most {@link #MAX_SIZE} values, so that a column
+     * with unbounded cardinality (e.g. labels containing identifiers) does not
+     * retain all its values: values encoded once it is full get
+     * {@link #NO_CODE} and are read from the sample data instead.
+     * </p>
+     * <p>
+     * Values are encoded by a single thread, but can be decoded by other
+     * threads once the batch holding the code has been safely published to
+     * them (e.g. through a {@link java.util.concurrent.BlockingQueue}).
+     * </p>
+     */
+    public static final class Dictionary {
+
+        /** Maximum number of values held by a dictionary */
+        public static final int MAX_SIZE = 65536;
+
+        /** Code of the values that did not fit in the dictionary */
+        public static final int NO_CODE = -1;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        // Replaced, never modified once published, when it has to grow
+        private volatile String[] values = new String[16];
+
+        private int size;
+
+        /**
+         * Gets the code of a value, adding it to the dictionary if needed.
+         *
+         * @param value
+         *            the value to encode
+         * @return the code of the value, {@link #NO_CODE} if the value is
+         *         not in the dictionary and the dictionary is full
+         */
+        public int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (size >= MAX_SIZE) {
+                    return NO_CODE;
+                }
+                String[] current = values;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, Math.min(size * 2, MAX_SIZE));
+                    values = current;
+                }
+                current[size] = value;
+                code = Integer.valueOf(size);
+                codes.put(value, code);
+                size++;
+            }
+            return code.intValue();
+        }
+
+        /**
+         * Gets the value of a code.
+         *
+         * @param code
+         *            a code returned by {@link #encode(String)}
+         * @return the value of the code, {@code null} for {@link #NO_CODE}
+         */
+        public String decode(int code) {
+            return code == NO_CODE ? null : values[code];
+        }
+
+        /**
+         * @return the number of distinct values encoded so far
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    private final SampleMetadata metadata;
+    private final int capacity;
+    private final Dictionary labels;
+    private final Dictionary threadNames;
+    private final Dictionary responseCodes;
+
+    private final int[] longIndexes = new int[LONG_COLUMNS];
+    private final int[] intIndexes = new int[INT_COLUMNS];
+    private final int successIndex;
+    private final int labelIndex;
+    private final int threadNameIndex;
+    private final int responseCodeIndex;
+
+    // null when the column is untyped in this batch
+    private final long[][] longs = new long[LONG_COLUMNS][];
+    private final int[][] ints = new int[INT_COLUMNS][];
+    private boolean[] success;
+    private int[] labelCodes;
+    private int[] threadNameCodes;
+    private int[] responseCodeCodes;
+
+    private final Sample[] samples;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param metadata
+     *            the metadata of the samples
+     * @param capacity
+     *            the maximum number of samples of the batch
+     * @param labels
+     *            the dictionary of the sample labels
+     * @param threadNames
+     *            the dictionary of the thread names
+     * @param responseCodes
+     *            the dictionary of the response codes
+     */
+    public SampleBatch(SampleMetadata metadata, int capacity,
+            Dictionary labels, Dictionary threadNames, Dictionary responseCodes) {
+        this.metadata = metadata;
+        this.capacity = capacity;
+        this.labels = labels;
+        this.threadNames = threadNames;
+        this.responseCodes = responseCodes;
+        this.samples = new Sample[capacity];
+        for (int i = 0; i < LONG_COLUMNS; i++) {
+            longIndexes[i] = metadata.indexOf(LONG_COLUMN_NAMES[i]);
+            if (longIndexes[i] >= 0) {
+                longs[i] = new long[capacity];
+            }
+        }
+        for (int i = 0; i < INT_COLUMNS; i++) {
+            intIndexes[i] = metadata.indexOf(INT_COLUMN_NAMES[i]);
+            if (intIndexes[i] >= 0) {
+                ints[i] = new int[capacity];
+            }
+        }
+        successIndex = metadata.indexOf(CSVSaveService.SUCCESSFUL);
+        if (successIndex >= 0) {
+            success = new boolean[capacity];
+        }
+        labelIndex = metadata.indexOf(CSVSaveService.LABEL);
+        if (labelIndex >= 0) {
+            labelCodes = new int[capacity];
+        }
+        threadNameIndex = metadata.indexOf(CSVSaveService.THREAD_NAME);
+        if (threadNameIndex >= 0) {
+            threadNameCodes = new int[capacity];
+        }
+        responseCodeIndex = metadata.indexOf(CSVSaveService.RESPONSE_CODE);
+        if (responseCodeIndex >= 0) {
+            responseCodeCodes = new int[capacity];
+        }
+    }
+
+    /**
+     * Appends a sample to the batch, parsing its typed columns.
+     *
+     * @param row
+     *            the row number of the sample in the CSV source
+     * @param data
+     *            the sample data as a string array
+     * @return the sample added
+     * @throws IllegalStateException
+     *             if the batch is full
+     */
+    public Sample add(long row, String[] data) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full, capacity:" + capacity);
+        }
+        int i = size;
+        for (int c = 0; c < LONG_COLUMNS; c++) {
+            long[] column = longs[c];
+            if (column != null) {
+                try {
+                    column[i] = Long.parseLong(data[longIndexes[c]]);
+                } catch (NumberFormatException e) { // NOSONAR Sample reports the error if the value is used
+                    longs[c] = null;
+                }
+            }
+        }
+        for (int c = 0; c < INT_COLUMNS; c++) {
+            int[] column = ints[c];
+            if (column != null) {
+                try {
+                    column[i] = Integer.parseInt(data[intIndexes[c]]);
+                } catch (NumberFormatException e) { // NOSONAR Sample reports the error if the value is used
+                    ints[c] = null;
+                }
+            }
+        }
+        if (success != null) {
+            success[i] = Boolean.parseBoolean(data[successIndex]);
+        }
+        if (labelCodes != null) {
+            labelCodes[i] = labels.encode(data[labelIndex]);
+        }
+        if (threadNameCodes != null) {
+            threadNameCodes[i] = threadNames.encode(data[threadNameIndex]);
+        }
+        if (responseCodeCodes != null) {
+            responseCodeCodes[i] = responseCodes.encode(data[responseCodeIndex]);
+        }
+        Sample sample = new Sample(row, metadata, data, this, i);
+        samples[i] = sample;
+        size++;
+        return sample;
+    }
+
+    /**
+     * @return the metadata of the samples
+     */
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return the number of samples in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if no more sample can be added
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @param i
+     *            the index of the sample in the batch
+     * @return the sample
+     */
+    public Sample getSample(int i) {
+        return samples[i];
+    }
+
+    /**
+     * @return {@code true} if the time stamps of all the samples of the batch
+     *         are numeric
+     */
+    public boolean hasTimestamps() {
+        return longs[TIMESTAMP] != null;
+    }
+
+    /**
+     * @return the dictionary of the sample labels
+     */
+    public Dictionary getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return the dictionary of the thread names
+     */
+    public Dictionary getThreadNames() {
+        return threadNames;
+    }
+
+    /**
+     * @return the dictionary of the response codes
+     */
+    public Dictionary getResponseCodes() {
+        return responseCodes;
+    }
+
+    /**
+     * @param i
+     *            the index of the sample in the batch
+     * @return the code of the sample label in {@link #getLabels()}, or
+     *         {@link Dictionary#NO_CODE}
+     */
+    public int getLabelCode(int i) {
+        return labelCodes[i];
+    }
+
+    /**
+     * @param i
+     *            the index of the sample in the batch
+     * @return the code of the thread name in {@link #getThreadNames()}, or
+     *         {@link Dictionary#NO_CODE}
+     */
+    public int getThreadNameCode(int i) {
+        return threadNameCodes[i];
+    }
+
+    /**
+     * @param i
+     *            the index of the sample in the batch
+     * @return the code of the response code in {@link #getResponseCodes()},
+     *         or {@link Dictionary#NO_CODE}
+     */
+    public int getResponseCodeCode(int i) {
+        return responseCodeCodes[i];
+    }
+
+    boolean hasLong(int column) {
+        return longs[column] != null;
+    }
+
+    long getLong(int column, int i) {
+        return longs[column][i];
+    }
+
+    boolean hasInt(int column) {
+        return ints[column] != null;
+    }
+
+    int getInt(int column, int i) {
+        return ints[column][i];
+    }
+
+    boolean hasSuccess() {
+        return success != null;
+    }
+
+    boolean getSuccess(int i) {
+        return success[i];
+    }
+
+    String getLabel(int i) {
+        return labelCodes == null ? null : labels.decode(labelCodes[i]);
+    }
+
+    String getThreadName(int i) {
+        return threadNameCodes == null ? null : threadNames.decode(threadNameCodes[i]);
+    }
+
+    String getResponseCode(int i) {
+        return responseCodeCodes == null ? null : responseCodes.decode(responseCodeCodes[i]);
+    }
+}
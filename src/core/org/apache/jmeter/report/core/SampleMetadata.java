@@ -229,4 +229,26 @@ public class SampleMetadata {
     public String toString() {
         return StringUtils.join(columns, separator);
     }
+
+    /**
+     * Metadata are equal when they have the same separator and the same
+     * columns in the same order, so that samples described by one of them can
+     * be read with the column indexes of the other.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SampleMetadata)) {
+            return false;
+        }
+        SampleMetadata other = (SampleMetadata) obj;
+        return separator == other.separator && columns.equals(other.columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * separator + columns.hashCode();
+    }
 }
@@ -22,6 +22,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -91,6 +94,14 @@ public class HtmlTemplateExporter extends AbstractDataExporter {
     // Default output folder name
     private static final String OUTPUT_DIR_NAME_DEFAULT = "report-output";
 
+    // Number of threads processing the template files
+    private static final String THREADS = "threads";
+
+    // Whether static files are hard linked instead of copied
+    private static final String LINK_FILES = "link_files";
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
     /**
      * Adds to context the value surrounding it with quotes
      * @param key Key
@@ -483,9 +494,16 @@ public class HtmlTemplateExporter extends AbstractDataExporter {
         addToContext(DATA_CTX_OVERALL_FILTER, configuration.getSampleFilter(),
                 dataContext);
 
+        final int threads = getPropertyFromConfig(exportCfg, THREADS,
+                Integer.valueOf(Runtime.getRuntime().availableProcessors()),
+                Integer.class).intValue();
+        final boolean linkFiles = getPropertyFromConfig(exportCfg, LINK_FILES,
+                Boolean.FALSE, Boolean.class).booleanValue();
+
         // Walk template directory to copy files and process templated ones
         Configuration templateCfg = new Configuration(
                 Configuration.getVersion());
+        ExecutorService executor = null;
         try {
             templateCfg.setDirectoryForTemplateLoading(templateDirectory);
             templateCfg.setTemplateExceptionHandler(
@@ -494,12 +512,25 @@ public class HtmlTemplateExporter extends AbstractDataExporter {
                 log.info("Report will be generated in: {}, creating folder structure", outputDir.getAbsolutePath());
             }
             FileUtils.forceMkdir(outputDir);
+            if (threads > 1) {
+                executor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "HtmlTemplateExporter-" + THREAD_NUMBER.incrementAndGet()); // $NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
             TemplateVisitor visitor = new TemplateVisitor(
                     templateDirectory.toPath(), outputDir.toPath(), templateCfg,
-                    dataContext);
+                    dataContext, executor, linkFiles);
             Files.walkFileTree(templateDirectory.toPath(), visitor);
+            visitor.awaitCompletion();
         } catch (IOException ex) {
             throw new ExportException("Unable to process template files.", ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
 
         log.debug("End of template processing");
@@ -17,10 +17,8 @@
  */
 package org.apache.jmeter.report.dashboard;
 
-import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.jmeter.report.core.JsonUtil;
 import org.apache.jmeter.report.processor.ListResultData;
 import org.apache.jmeter.report.processor.MapResultData;
 import org.apache.jmeter.report.processor.ResultData;
@@ -30,11 +28,70 @@ import org.apache.jmeter.report.processor.ValueResultData;
 /**
  * The class JsonizerVisitor provides a visitor that can get json-like string
  * from ResultData.
+ * <p>
+ * The whole result tree is written to a single buffer, instead of building and
+ * concatenating the string of every nested result.
+ * </p>
  *
  * @since 3.0
  */
 public class JsonizerVisitor implements ResultDataVisitor<String> {
 
+    private static final String SEPARATOR = ", "; // $NON-NLS-1$
+
+    /**
+     * Appends the json-like string of the visited results to a buffer.
+     */
+    private static final class JsonWriter implements ResultDataVisitor<Void> {
+
+        private final StringBuilder buffer;
+
+        private JsonWriter(StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public Void visitListResult(ListResultData listResult) {
+            buffer.append('[');
+            int count = listResult.getSize();
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    buffer.append(SEPARATOR);
+                }
+                listResult.get(i).accept(this);
+            }
+            buffer.append(']');
+            return null;
+        }
+
+        @Override
+        public Void visitMapResult(MapResultData mapResult) {
+            buffer.append('{');
+            boolean first = true;
+            for (Map.Entry<String, ResultData> entry : mapResult.entrySet()) {
+                if (!first) {
+                    buffer.append(SEPARATOR);
+                }
+                first = false;
+                buffer.append('"').append(entry.getKey()).append("\": "); // $NON-NLS-1$
+                entry.getValue().accept(this);
+            }
+            buffer.append('}');
+            return null;
+        }
+
+        @Override
+        public Void visitValueResult(ValueResultData valueResult) {
+            Object value = valueResult.getValue();
+            if (value instanceof String) {
+                buffer.append('"').append((String) value).append('"');
+            } else {
+                buffer.append(value);
+            }
+            return null;
+        }
+    }
+
     /**
      * Instantiates a new jsonizer visitor.
      */
@@ -52,12 +109,9 @@ public class JsonizerVisitor implements ResultDataVisitor<String> {
     public String visitListResult(ListResultData listResult) {
         String result = "";
         if (listResult != null) {
-            int count = listResult.getSize();
-            String[] items = new String[count];
-            for (int i = 0; i < count; i++) {
-                items[i] = listResult.get(i).accept(this);
-            }
-            result = JsonUtil.toJsonArray(items);
+            StringBuilder buffer = new StringBuilder();
+            new JsonWriter(buffer).visitListResult(listResult);
+            result = buffer.toString();
         }
         return result;
     }
@@ -73,11 +127,9 @@ public class JsonizerVisitor implements ResultDataVisitor<String> {
     public String visitMapResult(MapResultData mapResult) {
         String result = "";
         if (mapResult != null) {
-            HashMap<String, String> map = new HashMap<>();
-            for (Map.Entry<String, ResultData> entry : mapResult.entrySet()) {
-                map.put(entry.getKey(), entry.getValue().accept(this));
-            }
-            result = JsonUtil.toJsonObject(map);
+            StringBuilder buffer = new StringBuilder();
+            new JsonWriter(buffer).visitMapResult(mapResult);
+            result = buffer.toString();
         }
         return result;
     }
@@ -22,6 +22,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Matcher;
@@ -44,7 +47,9 @@ import org.apache.jmeter.report.processor.ApdexThresholdsInfo;
 import org.apache.jmeter.report.processor.CsvFileSampleSource;
 import org.apache.jmeter.report.processor.ErrorsSummaryConsumer;
 import org.apache.jmeter.report.processor.FilterConsumer;
+import org.apache.jmeter.report.processor.LabelCardinalityLimiter;
 import org.apache.jmeter.report.processor.MaxAggregator;
+import org.apache.jmeter.report.processor.MergedCsvFileSampleSource;
 import org.apache.jmeter.report.processor.MinAggregator;
 import org.apache.jmeter.report.processor.NormalizerSampleConsumer;
 import org.apache.jmeter.report.processor.RequestsSummaryConsumer;
@@ -100,6 +105,7 @@ public class ReportGenerator {
     private static final Pattern POTENTIAL_CAMEL_CASE_PATTERN = Pattern.compile("_(.)");
 
     private final File testFile;
+    private final List<File> testFiles;
     private final ReportGeneratorConfiguration configuration;
 
     /**
@@ -118,29 +124,59 @@ public class ReportGenerator {
      */
     public ReportGenerator(String resultsFile, ResultCollector resultCollector)
             throws ConfigurationException {
+        this(Collections.singletonList(resultsFile), resultCollector);
+    }
+
+    /**
+     * Instantiates a new report generator from several test results files,
+     * like the files saved by each injector of a distributed test.
+     * <p>
+     * The samples of the files are merged, see
+     * {@link MergedCsvFileSampleSource}.
+     * </p>
+     *
+     * @param resultsFiles
+     *            the test results files (must not be empty)
+     * @throws ConfigurationException when loading configuration from file fails
+     */
+    public ReportGenerator(List<String> resultsFiles)
+            throws ConfigurationException {
+        this(resultsFiles, null);
+    }
+
+    private ReportGenerator(List<String> resultsFiles, ResultCollector resultCollector)
+            throws ConfigurationException {
         if (!CSV_OUTPUT_FORMAT) {
             throw new IllegalArgumentException(
                     "Report generation requires csv output format, check 'jmeter.save.saveservice.output_format' property");
         }
+        if (resultsFiles.isEmpty()) {
+            throw new IllegalArgumentException("No test results file");
+        }
 
         log.info("ReportGenerator will use for Parsing the separator: '{}'", CSV_DEFAULT_SEPARATOR);
 
-        File file = new File(resultsFile);
-        if (resultCollector == null) {
-            if (!(file.isFile() && file.canRead())) {
-                throw new IllegalArgumentException(String.format(
-                        "Cannot read test results file : %s", file));
-            }
-            log.info("Will only generate report from results file: {}", resultsFile);
-        } else {
-            if (file.exists() && file.length() > 0) {
-                throw new IllegalArgumentException("Results file:"
-                        + resultsFile + " is not empty");
+        List<File> files = new ArrayList<>(resultsFiles.size());
+        for (String resultsFile : resultsFiles) {
+            File file = new File(resultsFile);
+            if (resultCollector == null) {
+                if (!(file.isFile() && file.canRead())) {
+                    throw new IllegalArgumentException(String.format(
+                            "Cannot read test results file : %s", file));
+                }
+                log.info("Will only generate report from results file: {}", resultsFile);
+            } else {
+                if (file.exists() && file.length() > 0) {
+                    throw new IllegalArgumentException("Results file:"
+                            + resultsFile + " is not empty");
+                }
+                log.info("Will generate report at end of test from  results file: {}", resultsFile);
             }
-            log.info("Will generate report at end of test from  results file: {}", resultsFile);
+            files.add(file);
         }
         this.resultCollector = resultCollector;
-        this.testFile = file;
+        this.testFiles = files;
+        this.testFile = files.get(0);
         final Properties merged = new Properties();
         File rgp = new File(JMeterUtils.getJMeterBinDir(), REPORTGENERATOR_PROPERTIES);
         if(log.isInfoEnabled()) {
@@ -205,11 +241,13 @@ public class ReportGenerator {
         // Build consumers chain
         SampleContext sampleContext = new SampleContext();
         sampleContext.setWorkingDirectory(tmpDir);
-        SampleSource source = new CsvFileSampleSource(testFile, CSV_DEFAULT_SEPARATOR);
+        List<File> inputFiles = new ArrayList<>();
+        SampleSource source = createSampleSource(inputFiles);
         source.setSampleContext(sampleContext);
 
         NormalizerSampleConsumer normalizer = new NormalizerSampleConsumer();
         normalizer.setName(NORMALIZER_CONSUMER_NAME);
+        normalizer.setLabelLimiter(createLabelLimiter(inputFiles));
         
         FilterConsumer dateRangeConsumer = createFilterByDateRange();
         dateRangeConsumer.addSampleConsumer(createBeginDateConsumer());
@@ -297,6 +335,49 @@ public class ReportGenerator {
         return dateRangeFilter;
     }
 
+    /**
+     * @param inputFiles
+     *            filled with the files read by the source
+     * @return the source of the samples of the test results files: the files
+     *         are merged if there are several of them
+     * @throws GenerationException
+     *             when the files cannot be read or their columns differ
+     */
+    private SampleSource createSampleSource(List<File> inputFiles) throws GenerationException {
+        try {
+            if (testFiles.size() == 1) {
+                CsvFileSampleSource source = new CsvFileSampleSource(testFile, CSV_DEFAULT_SEPARATOR);
+                inputFiles.addAll(source.getInputFiles());
+                return source;
+            }
+            MergedCsvFileSampleSource source = new MergedCsvFileSampleSource(testFiles,
+                    CSV_DEFAULT_SEPARATOR, configuration.isMergeInOrder());
+            inputFiles.addAll(source.getInputFiles());
+            return source;
+        } catch (SampleException ex) {
+            throw new GenerationException("Error while reading test results files:" + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @param inputFiles the files read by the source of the samples
+     * @return the limiter applied to sample labels, {@code null} if labels are
+     *         neither normalized nor limited
+     */
+    private LabelCardinalityLimiter createLabelLimiter(List<File> inputFiles) {
+        Map<String, String> rules = configuration.getLabelNormalization();
+        int maxLabels = configuration.getMaxLabels();
+        if (rules.isEmpty() && maxLabels <= 0) {
+            return null;
+        }
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(rules,
+                maxLabels, configuration.getOtherLabel());
+        if (maxLabels > 0) {
+            limiter.selectLabels(inputFiles, CSV_DEFAULT_SEPARATOR);
+        }
+        return limiter;
+    }
+
     private void removeTempDir(File tmpDir, boolean tmpDirCreated) {
         if (tmpDirCreated) {
             try {
@@ -20,6 +20,7 @@ package org.apache.jmeter.report.dashboard;
 import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
@@ -30,10 +31,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.jmeter.report.core.DataContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import freemarker.template.Configuration;
 import freemarker.template.Template;
@@ -42,17 +50,27 @@ import freemarker.template.TemplateException;
 /**
  * The class TemplateVisitor visits files in a template directory to copy
  * regular files and process templated ones.
+ * <p>
+ * Directories are created while they are visited. If an executor is given,
+ * files are then processed or copied by its threads, and
+ * {@link #awaitCompletion()} must be called once the walk is over.
+ * </p>
  *
  * @since 3.0
  */
 public class TemplateVisitor extends SimpleFileVisitor<Path> {
 
+    private static final Logger log = LoggerFactory.getLogger(TemplateVisitor.class);
+
     public static final String TEMPLATED_FILE_EXT = "fmkr";
 
     private final Path source;
     private final Path target;
     private final Configuration configuration;
     private final DataContext data;
+    private final ExecutorService executor;
+    private final boolean linkFiles;
+    private final List<Future<Void>> tasks = new ArrayList<>();
 
     /**
      * Instantiates a new template visitor.
@@ -68,10 +86,37 @@ public class TemplateVisitor extends SimpleFileVisitor<Path> {
      */
     public TemplateVisitor(Path source, Path target,
             Configuration configuration, DataContext data) {
+        this(source, target, configuration, data, null, false);
+    }
+
+    /**
+     * Instantiates a new template visitor.
+     *
+     * @param source
+     *            the source directory
+     * @param target
+     *            the target directory
+     * @param configuration
+     *            the freemarker configuration
+     * @param data
+     *            the data to inject, which must not be modified until
+     *            {@link #awaitCompletion()} returns
+     * @param executor
+     *            the executor processing the files, {@code null} to process
+     *            them while they are visited
+     * @param linkFiles
+     *            whether regular files are hard linked instead of copied, when
+     *            the file system supports it
+     */
+    public TemplateVisitor(Path source, Path target,
+            Configuration configuration, DataContext data,
+            ExecutorService executor, boolean linkFiles) {
         this.source = source;
         this.target = target;
         this.configuration = configuration;
         this.data = data;
+        this.executor = executor;
+        this.linkFiles = linkFiles;
     }
 
     /*
@@ -103,7 +148,46 @@ public class TemplateVisitor extends SimpleFileVisitor<Path> {
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
             throws IOException {
+        if (executor == null) {
+            processFile(file);
+        } else {
+            tasks.add(executor.submit(() -> {
+                processFile(file);
+                return null;
+            }));
+        }
+        return FileVisitResult.CONTINUE;
+    }
 
+    /**
+     * Waits until all the files submitted to the executor are processed.
+     *
+     * @throws IOException
+     *             if a file could not be processed or the wait was interrupted
+     */
+    public void awaitCompletion() throws IOException {
+        try {
+            for (Future<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing template files");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<Void> task : tasks) {
+                task.cancel(false);
+            }
+            tasks.clear();
+        }
+    }
+
+    private void processFile(Path file) throws IOException {
         // Depending on file extension, copy or process file
         String extension = FilenameUtils.getExtension(file.toString());
         if (TEMPLATED_FILE_EXT.equalsIgnoreCase(extension)) {
@@ -123,8 +207,23 @@ public class TemplateVisitor extends SimpleFileVisitor<Path> {
         } else {
             // Copy regular file
             Path newFile = target.resolve(source.relativize(file));
-            Files.copy(file, newFile, StandardCopyOption.REPLACE_EXISTING);
+            if (!linkFiles || !createLink(file, newFile)) {
+                Files.copy(file, newFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * @return true if the file has been linked, false if it must be copied
+     */
+    private static boolean createLink(Path file, Path newFile) {
+        try {
+            Files.deleteIfExists(newFile);
+            Files.createLink(newFile, file);
+            return true;
+        } catch (UnsupportedOperationException | IOException | SecurityException ex) {
+            log.debug("Could not link {} to {}, copying it: {}", newFile, file, ex.toString());
+            return false;
         }
-        return FileVisitResult.CONTINUE;
     }
 }
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a CSV result file in records and fields at the byte level, keeping
+ * track of the offset of every record so that it can be read again later.
+ * <p>
+ * Quoting follows {@link org.apache.jmeter.save.CSVSaveService#csvReadFile}:
+ * a field starting with a double quote ends at the next double quote that is
+ * not doubled, and can contain separators and line breaks. Records end with
+ * LF, CR or CRLF. The charset of the file must encode the separator, the double
+ * quote, CR and LF on a single byte, like UTF-8 and ISO-8859-1.
+ * </p>
+ * This class is not thread safe.
+ *
+ * @since 4.0
+ */
+class CsvRecordScanner {
+
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    private static final byte QUOTE = '"';
+
+    private static final byte CR = '\r';
+
+    private static final byte LF = '\n';
+
+    private final InputStream in;
+
+    private final byte separator;
+
+    private byte[] buffer;
+
+    /** Index of the first byte of the buffer not yet read */
+    private int position;
+
+    /** Index following the last valid byte of the buffer */
+    private int limit;
+
+    /** Offset in the file of the first byte of the buffer */
+    private long bufferOffset;
+
+    private boolean eof;
+
+    /** Whether a LF following a CR ending the previous record has to be skipped */
+    private boolean skipLf;
+
+    private int recordStart;
+
+    private int recordEnd;
+
+    private int fieldCount;
+
+    private int[] fieldStarts = new int[32];
+
+    private int[] fieldEnds = new int[32];
+
+    private boolean[] quotedFields = new boolean[32];
+
+    /**
+     * @param in
+     *            the stream to read, positioned at offset <code>offset</code>
+     *            of the file
+     * @param offset
+     *            the offset of the first byte of the stream in the file
+     * @param separator
+     *            the field separator
+     */
+    CsvRecordScanner(InputStream in, long offset, char separator) {
+        this(in, offset, separator, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvRecordScanner(InputStream in, long offset, char separator, int bufferSize) {
+        this.in = in;
+        this.bufferOffset = offset;
+        this.separator = (byte) separator;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return false if the end of the stream is reached
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    boolean next() throws IOException {
+        if (skipLf) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == LF) {
+                position++;
+            }
+            skipLf = false;
+        }
+        if (position == limit && !fill()) {
+            return false;
+        }
+        recordStart = position;
+        fieldCount = 0;
+        int fieldStart = position;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        boolean quotePending = false;
+        int i = position;
+        while (true) {
+            if (i == limit) {
+                int shift = recordStart;
+                boolean filled = fill();
+                shift -= recordStart;
+                i -= shift;
+                fieldStart -= shift;
+                for (int f = 0; f < fieldCount; f++) {
+                    fieldStarts[f] -= shift;
+                    fieldEnds[f] -= shift;
+                }
+                if (!filled) {
+                    // Last record without line break
+                    addField(fieldStart, i, quoted);
+                    recordEnd = i;
+                    position = i;
+                    return true;
+                }
+            }
+            byte b = buffer[i];
+            if (inQuotes) {
+                if (quotePending) {
+                    quotePending = false;
+                    if (b == QUOTE) {
+                        // Doubled quote
+                        i++;
+                        continue;
+                    }
+                    inQuotes = false;
+                    // b is processed as an unquoted byte
+                } else {
+                    if (b == QUOTE) {
+                        quotePending = true;
+                    }
+                    i++;
+                    continue;
+                }
+            }
+            if (b == QUOTE && i == fieldStart) {
+                quoted = true;
+                inQuotes = true;
+                i++;
+            } else if (b == separator) {
+                addField(fieldStart, i, quoted);
+                quoted = false;
+                fieldStart = ++i;
+            } else if (b == LF || b == CR) {
+                addField(fieldStart, i, quoted);
+                recordEnd = i;
+                position = i + 1;
+                skipLf = b == CR;
+                return true;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Moves the current record to the start of the buffer, growing it if
+     * needed, and reads more bytes.
+     *
+     * @return false if the end of the stream is reached
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int keep = position == limit ? 0 : limit - recordStart;
+        int from = position == limit ? limit : recordStart;
+        if (keep > 0 && from > 0) {
+            System.arraycopy(buffer, from, buffer, 0, keep);
+        } else if (keep == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        bufferOffset += from;
+        recordStart -= from;
+        position -= from;
+        limit = keep;
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            quotedFields = Arrays.copyOf(quotedFields, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        quotedFields[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    /**
+     * @return the offset in the file of the first byte of the current record
+     */
+    long getRecordOffset() {
+        return bufferOffset + recordStart;
+    }
+
+    /**
+     * @return the offset in the file following the current record, line break
+     *         excluded
+     */
+    long getRecordEndOffset() {
+        return bufferOffset + recordEnd;
+    }
+
+    /**
+     * @return the number of fields of the current record
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the current record, without its line break
+     */
+    String getRecord(Charset charset) {
+        return new String(buffer, recordStart, recordEnd - recordStart, charset);
+    }
+
+    /**
+     * @param field
+     *            the index of the field
+     * @param charset
+     *            the charset of the file
+     * @return the unquoted value of the field
+     */
+    String getString(int field, Charset charset) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (!quotedFields[field]) {
+            return new String(buffer, start, end - start, charset);
+        }
+        // Remove the enclosing quotes, then undouble the quotes
+        start++;
+        if (end > start && buffer[end - 1] == QUOTE) {
+            end--;
+        }
+        String value = new String(buffer, start, end - start, charset);
+        return value.indexOf('"') < 0 ? value : value.replace("\"\"", "\""); // $NON-NLS-1$ $NON-NLS-2$
+    }
+
+    /**
+     * Parses a field as a decimal long, without creating a string.
+     *
+     * @param field
+     *            the index of the field
+     * @return the value of the field
+     * @throws NumberFormatException
+     *             if the field is not a decimal long
+     */
+    long getLong(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (quotedFields[field] || start == end) {
+            throw new NumberFormatException("Not a number in field " + field);
+        }
+        boolean negative = buffer[start] == '-';
+        if (negative) {
+            start++;
+            if (start == end) {
+                throw new NumberFormatException("Not a number in field " + field);
+            }
+        }
+        if (end - start > 18) {
+            // Could overflow, let Long check it
+            return Long.parseLong(getString(field, StandardCharsets.US_ASCII));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number in field " + field);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @param field
+     *            the index of the field
+     * @return true if the field is <code>true</code>, ignoring case
+     */
+    boolean getBoolean(int field) {
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != 4) {
+            return false;
+        }
+        return (buffer[start] | 0x20) == 't' && (buffer[start + 1] | 0x20) == 'r'
+                && (buffer[start + 2] | 0x20) == 'u' && (buffer[start + 3] | 0x20) == 'e';
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import org.apache.jorphan.math.LongHistogram;
+
+/**
+ * Aggregated statistics of the samples of a label, as returned by
+ * {@link ResultsIndex#query(long, long, java.util.regex.Pattern)}.
+ * <p>
+ * Percentiles are computed from a histogram whose relative error is lower than
+ * 2%.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class LabelStatistics {
+
+    /** Precision of the histograms of the elapsed times */
+    static final int PRECISION_BITS = 6;
+
+    private final String label;
+
+    private final LongHistogram histogram = new LongHistogram(PRECISION_BITS);
+
+    private long count;
+
+    private long errorCount;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max = Long.MIN_VALUE;
+
+    private long firstTimestamp = Long.MAX_VALUE;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param label
+     *            the label of the samples
+     */
+    LabelStatistics(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param timestamp
+     *            the time stamp of the sample
+     * @param elapsed
+     *            the elapsed time of the sample
+     * @param success
+     *            whether the sample is successful
+     */
+    void add(long timestamp, long elapsed, boolean success) {
+        count++;
+        if (!success) {
+            errorCount++;
+        }
+        sum += elapsed;
+        min = Math.min(min, elapsed);
+        max = Math.max(max, elapsed);
+        firstTimestamp = Math.min(firstTimestamp, timestamp);
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+        histogram.record(elapsed);
+    }
+
+    /**
+     * Adds the samples summarized by the entry of a block.
+     *
+     * @param entry
+     *            the summary of the samples of this label in a block
+     */
+    void add(ResultsIndex.Entry entry) {
+        count += entry.count;
+        errorCount += entry.errorCount;
+        sum += entry.sum;
+        min = Math.min(min, entry.min);
+        max = Math.max(max, entry.max);
+        firstTimestamp = Math.min(firstTimestamp, entry.firstTimestamp);
+        lastTimestamp = Math.max(lastTimestamp, entry.lastTimestamp);
+        for (int i = 0; i < entry.bucketValues.length; i++) {
+            histogram.record(entry.bucketValues[i], entry.bucketCounts[i]);
+        }
+    }
+
+    /**
+     * Adds the samples of other statistics.
+     *
+     * @param other
+     *            the statistics to add
+     */
+    void add(LabelStatistics other) {
+        count += other.count;
+        errorCount += other.errorCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        firstTimestamp = Math.min(firstTimestamp, other.firstTimestamp);
+        lastTimestamp = Math.max(lastTimestamp, other.lastTimestamp);
+        histogram.add(other.histogram);
+    }
+
+    /**
+     * Forgets all the samples.
+     */
+    void reset() {
+        count = 0;
+        errorCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        firstTimestamp = Long.MAX_VALUE;
+        lastTimestamp = Long.MIN_VALUE;
+        histogram.reset();
+    }
+
+    long getSum() {
+        return sum;
+    }
+
+    LongHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the label of the samples
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the number of samples
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of failed samples
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the percentage of failed samples, 0 if there is no sample
+     */
+    public double getErrorPercentage() {
+        return count == 0 ? 0d : errorCount * 100d / count;
+    }
+
+    /**
+     * @return the lowest elapsed time, 0 if there is no sample
+     */
+    public long getMin() {
+        return count == 0 ? 0L : min;
+    }
+
+    /**
+     * @return the highest elapsed time, 0 if there is no sample
+     */
+    public long getMax() {
+        return count == 0 ? 0L : max;
+    }
+
+    /**
+     * @return the mean elapsed time, 0 if there is no sample
+     */
+    public double getMean() {
+        return count == 0 ? 0d : (double) sum / count;
+    }
+
+    /**
+     * @param percent
+     *            the percentile, between 0 and 100
+     * @return the elapsed time below which the given percent of the samples
+     *         fall, 0 if there is no sample
+     */
+    public long getPercentile(double percent) {
+        return histogram.getPercentile(percent);
+    }
+
+    /**
+     * @return the time stamp of the first sample, 0 if there is no sample
+     */
+    public long getFirstTimestamp() {
+        return count == 0 ? 0L : firstTimestamp;
+    }
+
+    /**
+     * @return the time stamp of the last sample, 0 if there is no sample
+     */
+    public long getLastTimestamp() {
+        return count == 0 ? 0L : lastTimestamp;
+    }
+
+    /**
+     * @return the number of samples per second between the first and the last
+     *         time stamps, 0 if they are equal
+     */
+    public double getThroughput() {
+        long duration = getLastTimestamp() - getFirstTimestamp();
+        return duration <= 0 ? 0d : count * 1000d / duration;
+    }
+}
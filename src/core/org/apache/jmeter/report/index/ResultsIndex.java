@@ -0,0 +1,522 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+
+/**
+ * Index of a CSV result file, allowing to compute the statistics of some
+ * labels over a time range without reading the whole file.
+ * <p>
+ * The result file is cut in blocks of consecutive samples covering a time
+ * window of fixed duration. For each block, the index stores its offsets in the
+ * result file, the range of its time stamps and, for each label, the number of
+ * samples and errors, the sum, minimum and maximum of the elapsed times and a
+ * histogram of the elapsed times.
+ * </p>
+ * <p>
+ * A query uses the summaries of the blocks whose samples are all in the
+ * requested time range, and only reads again from the result file the samples
+ * of the blocks which overlap the bounds of the range.
+ * </p>
+ * <p>
+ * The index is built by {@link #build(File, File, char, long)} and stored next
+ * to the result file (see {@link #getIndexFile(File)}). It records the length
+ * and the modification date of the result file, see {@link #isUpToDate()}.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class ResultsIndex {
+
+    /** Extension appended to the name of the result file to name its index */
+    public static final String INDEX_EXTENSION = ".index"; // $NON-NLS-1$
+
+    /** Default duration of the time window of a block, in milliseconds */
+    public static final long DEFAULT_BLOCK_DURATION = 60000L;
+
+    static final int MAGIC = 0x4A4D4958; // JMIX
+
+    static final int VERSION = 1;
+
+    static final int BLOCK_MARKER = 1;
+
+    static final int END_MARKER = 0;
+
+    /**
+     * Summary of the samples of one label in a block.
+     */
+    static final class Entry {
+        int label;
+        long count;
+        long errorCount;
+        long sum;
+        long min;
+        long max;
+        long firstTimestamp;
+        long lastTimestamp;
+        long[] bucketValues;
+        long[] bucketCounts;
+    }
+
+    /**
+     * Consecutive samples of the result file.
+     */
+    static final class Block {
+        long startOffset;
+        long endOffset;
+        long minTimestamp;
+        long maxTimestamp;
+        long sampleCount;
+        Entry[] entries;
+    }
+
+    /**
+     * Columns of the result file and how to parse them.
+     */
+    static final class Columns {
+        final Charset charset;
+        final char separator;
+        final String timestampFormat;
+        final int timestamp;
+        final int elapsed;
+        final int label;
+        final int success;
+        final int minFieldCount;
+        private final SimpleDateFormat dateFormat;
+
+        Columns(Charset charset, char separator, String timestampFormat,
+                int timestamp, int elapsed, int label, int success) {
+            this.charset = charset;
+            this.separator = separator;
+            this.timestampFormat = timestampFormat;
+            this.timestamp = timestamp;
+            this.elapsed = elapsed;
+            this.label = label;
+            this.success = success;
+            this.minFieldCount = Math.max(Math.max(timestamp, elapsed), Math.max(label, success)) + 1;
+            this.dateFormat = SampleSaveConfiguration.MILLISECONDS.equalsIgnoreCase(timestampFormat)
+                    ? null : new SimpleDateFormat(timestampFormat);
+        }
+
+        /**
+         * @return the time stamp of the current record
+         * @throws NumberFormatException
+         *             if the time stamp cannot be parsed
+         */
+        long getTimestamp(CsvRecordScanner scanner) {
+            if (dateFormat == null) {
+                return scanner.getLong(timestamp);
+            }
+            try {
+                return dateFormat.parse(scanner.getString(timestamp, charset)).getTime();
+            } catch (ParseException e) {
+                throw new NumberFormatException(e.getMessage());
+            }
+        }
+    }
+
+    private final File results;
+
+    private final long resultsLength;
+
+    private final long resultsLastModified;
+
+    private final long blockDuration;
+
+    private final Columns columns;
+
+    private final List<Block> blocks;
+
+    private final List<String> labels;
+
+    ResultsIndex(File results, long resultsLength, long resultsLastModified,
+            long blockDuration, Columns columns, List<Block> blocks, List<String> labels) {
+        this.results = results;
+        this.resultsLength = resultsLength;
+        this.resultsLastModified = resultsLastModified;
+        this.blockDuration = blockDuration;
+        this.columns = columns;
+        this.blocks = blocks;
+        this.labels = labels;
+    }
+
+    /**
+     * @param results
+     *            the result file
+     * @return the default index file of the result file
+     */
+    public static File getIndexFile(File results) {
+        return new File(results.getPath() + INDEX_EXTENSION);
+    }
+
+    /**
+     * Builds the index of a CSV result file.
+     *
+     * @param results
+     *            the CSV result file
+     * @param index
+     *            the index file to write
+     * @param separator
+     *            the separator of the result file
+     * @param blockDuration
+     *            the duration of the time window of a block, in milliseconds
+     * @return the index
+     * @throws IOException
+     *             if the result file cannot be read or the index cannot be
+     *             written
+     */
+    public static ResultsIndex build(File results, File index, char separator,
+            long blockDuration) throws IOException {
+        return new ResultsIndexBuilder(results, separator, blockDuration).build(index);
+    }
+
+    /**
+     * Loads the index of a result file.
+     *
+     * @param results
+     *            the result file
+     * @param index
+     *            the index file
+     * @return the index
+     * @throws IOException
+     *             if the index cannot be read or is not valid
+     */
+    public static ResultsIndex load(File results, File index) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(index)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a result index: " + index);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of result index: " + index);
+            }
+            long resultsLength = in.readLong();
+            long resultsLastModified = in.readLong();
+            long blockDuration = in.readLong();
+            Charset charset = Charset.forName(in.readUTF());
+            char separator = in.readChar();
+            String timestampFormat = in.readUTF();
+            Columns columns = new Columns(charset, separator, timestampFormat,
+                    in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            List<Block> blocks = new ArrayList<>();
+            while (in.readByte() == BLOCK_MARKER) {
+                blocks.add(readBlock(in));
+            }
+            int labelCount = in.readInt();
+            List<String> labels = new ArrayList<>(labelCount);
+            for (int i = 0; i < labelCount; i++) {
+                labels.add(in.readUTF());
+            }
+            return new ResultsIndex(results, resultsLength, resultsLastModified,
+                    blockDuration, columns, blocks, labels);
+        } catch (EOFException e) {
+            throw new IOException("Truncated result index: " + index, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid result index: " + index, e);
+        }
+    }
+
+    /**
+     * Loads the index of a result file, building it first if it does not exist
+     * or is out of date.
+     *
+     * @param results
+     *            the result file
+     * @param index
+     *            the index file
+     * @param separator
+     *            the separator of the result file
+     * @param blockDuration
+     *            the duration of the time window of a block, in milliseconds,
+     *            if the index is built
+     * @return the index
+     * @throws IOException
+     *             if the index cannot be read or built
+     */
+    public static ResultsIndex loadOrBuild(File results, File index, char separator,
+            long blockDuration) throws IOException {
+        if (index.isFile()) {
+            ResultsIndex resultsIndex = load(results, index);
+            if (resultsIndex.isUpToDate()) {
+                return resultsIndex;
+            }
+        }
+        return build(results, index, separator, blockDuration);
+    }
+
+    /**
+     * @return true if the result file has not been modified since the index
+     *         was built
+     */
+    public boolean isUpToDate() {
+        return results.length() == resultsLength
+                && results.lastModified() == resultsLastModified;
+    }
+
+    /**
+     * @return the result file
+     */
+    public File getResults() {
+        return results;
+    }
+
+    /**
+     * @return the duration of the time window of a block, in milliseconds
+     */
+    public long getBlockDuration() {
+        return blockDuration;
+    }
+
+    /**
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * @return the number of indexed samples
+     */
+    public long getSampleCount() {
+        long count = 0;
+        for (Block block : blocks) {
+            count += block.sampleCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the lowest time stamp of the samples, 0 if there is no sample
+     */
+    public long getMinTimestamp() {
+        long min = Long.MAX_VALUE;
+        for (Block block : blocks) {
+            min = Math.min(min, block.minTimestamp);
+        }
+        return blocks.isEmpty() ? 0L : min;
+    }
+
+    /**
+     * @return the highest time stamp of the samples, 0 if there is no sample
+     */
+    public long getMaxTimestamp() {
+        long max = Long.MIN_VALUE;
+        for (Block block : blocks) {
+            max = Math.max(max, block.maxTimestamp);
+        }
+        return blocks.isEmpty() ? 0L : max;
+    }
+
+    /**
+     * @return the labels of the samples, in the order they were first seen
+     */
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * Computes the statistics of the samples of some labels over a time range.
+     *
+     * @param from
+     *            the lowest time stamp of the samples, inclusive
+     * @param to
+     *            the highest time stamp of the samples, exclusive
+     * @param labelPattern
+     *            the pattern the whole label of the samples must match,
+     *            {@code null} for all labels
+     * @return the statistics by label, sorted by label
+     * @throws IOException
+     *             if the result file cannot be read
+     */
+    public Map<String, LabelStatistics> query(long from, long to, Pattern labelPattern)
+            throws IOException {
+        Map<String, LabelStatistics> statistics = new TreeMap<>();
+        Map<String, Boolean> matches = new HashMap<>();
+        boolean[] indexedMatches = new boolean[labels.size()];
+        for (int i = 0; i < indexedMatches.length; i++) {
+            indexedMatches[i] = matches(labels.get(i), labelPattern, matches);
+        }
+        List<Block> partialBlocks = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block.maxTimestamp < from || block.minTimestamp >= to) {
+                continue;
+            }
+            if (block.minTimestamp >= from && block.maxTimestamp < to) {
+                for (Entry entry : block.entries) {
+                    if (indexedMatches[entry.label]) {
+                        String label = labels.get(entry.label);
+                        statistics.computeIfAbsent(label, LabelStatistics::new).add(entry);
+                    }
+                }
+            } else {
+                partialBlocks.add(block);
+            }
+        }
+        if (!partialBlocks.isEmpty()) {
+            try (FileChannel channel = FileChannel.open(results.toPath(), StandardOpenOption.READ)) {
+                for (Block block : partialBlocks) {
+                    channel.position(block.startOffset);
+                    InputStream in = new BoundedInputStream(Channels.newInputStream(channel),
+                            block.endOffset - block.startOffset);
+                    scanBlock(new CsvRecordScanner(in, block.startOffset, columns.separator),
+                            from, to, labelPattern, matches, statistics);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    private void scanBlock(CsvRecordScanner scanner, long from, long to, Pattern labelPattern,
+            Map<String, Boolean> matches, Map<String, LabelStatistics> statistics) throws IOException {
+        while (scanner.next()) {
+            if (scanner.getFieldCount() < columns.minFieldCount) {
+                continue;
+            }
+            long timestamp;
+            long elapsed;
+            try {
+                timestamp = columns.getTimestamp(scanner);
+                elapsed = scanner.getLong(columns.elapsed);
+            } catch (NumberFormatException e) {
+                // Skipped when the index was built
+                continue;
+            }
+            if (timestamp < from || timestamp >= to) {
+                continue;
+            }
+            String label = scanner.getString(columns.label, columns.charset);
+            if (matches(label, labelPattern, matches)) {
+                statistics.computeIfAbsent(label, LabelStatistics::new)
+                        .add(timestamp, elapsed, scanner.getBoolean(columns.success));
+            }
+        }
+    }
+
+    private static boolean matches(String label, Pattern labelPattern, Map<String, Boolean> matches) {
+        if (labelPattern == null) {
+            return true;
+        }
+        return matches.computeIfAbsent(label,
+                l -> Boolean.valueOf(labelPattern.matcher(l).matches())).booleanValue();
+    }
+
+    /**
+     * Merges statistics, e.g. to compute the statistics of all the labels
+     * returned by {@link #query(long, long, Pattern)}.
+     *
+     * @param label
+     *            the label of the merged statistics
+     * @param statistics
+     *            the statistics to merge
+     * @return the merged statistics
+     */
+    public static LabelStatistics merge(String label, Iterable<LabelStatistics> statistics) {
+        LabelStatistics merged = new LabelStatistics(label);
+        for (LabelStatistics s : statistics) {
+            merged.add(s);
+        }
+        return merged;
+    }
+
+    private static Block readBlock(DataInput in) throws IOException {
+        Block block = new Block();
+        block.startOffset = readVarLong(in);
+        block.endOffset = block.startOffset + readVarLong(in);
+        block.minTimestamp = in.readLong();
+        block.maxTimestamp = block.minTimestamp + readVarLong(in);
+        block.sampleCount = readVarLong(in);
+        int entryCount = (int) readVarLong(in);
+        block.entries = new Entry[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            Entry entry = new Entry();
+            entry.label = (int) readVarLong(in);
+            entry.count = readVarLong(in);
+            entry.errorCount = readVarLong(in);
+            entry.sum = readVarLong(in);
+            entry.min = readVarLong(in);
+            entry.max = readVarLong(in);
+            entry.firstTimestamp = block.minTimestamp + readVarLong(in);
+            entry.lastTimestamp = block.minTimestamp + readVarLong(in);
+            int bucketCount = (int) readVarLong(in);
+            entry.bucketValues = new long[bucketCount];
+            entry.bucketCounts = new long[bucketCount];
+            long value = 0;
+            for (int j = 0; j < bucketCount; j++) {
+                value += readVarLong(in);
+                entry.bucketValues[j] = value;
+                entry.bucketCounts[j] = readVarLong(in);
+            }
+            block.entries[i] = entry;
+        }
+        return block;
+    }
+
+    /**
+     * Writes a long on 1 to 10 bytes, small absolute values using less bytes.
+     */
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63); // zigzag
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable length long");
+            }
+            b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.jmeter.report.core.SampleException;
+import org.apache.jmeter.report.core.SampleMetaDataParser;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.math.LongHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds a {@link ResultsIndex} by reading a CSV result file once.
+ * <p>
+ * A block is closed when a sample time stamp reaches the end of its time
+ * window; samples whose time stamp precedes the window, as saved by threads
+ * that ended late, stay in the current block.
+ * </p>
+ * <p>
+ * Blocks are byte ranges of the file, so compressed result files cannot be
+ * indexed and must be decompressed first.
+ * </p>
+ *
+ * @since 4.0
+ */
+class ResultsIndexBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultsIndexBuilder.class);
+
+    private static final String TIMESTAMP_FORMAT = JMeterUtils.getPropDefault(
+            "jmeter.save.saveservice.timestamp_format", // $NON-NLS-1$
+            SampleSaveConfiguration.MILLISECONDS);
+
+    private final File results;
+
+    private final char separator;
+
+    private final long blockDuration;
+
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    private final List<String> labels = new ArrayList<>();
+
+    /** Statistics of the current block, by label id */
+    private final List<LabelStatistics> blockStatistics = new ArrayList<>();
+
+    private final List<ResultsIndex.Block> blocks = new ArrayList<>();
+
+    private long blockStart = -1L;
+
+    private long windowEnd;
+
+    private long blockSamples;
+
+    private long blockMin;
+
+    private long blockMax;
+
+    private long skippedRows;
+
+    ResultsIndexBuilder(File results, char separator, long blockDuration) {
+        if (blockDuration <= 0) {
+            throw new IllegalArgumentException("Block duration must be positive: " + blockDuration);
+        }
+        this.results = results;
+        this.separator = separator;
+        this.blockDuration = blockDuration;
+    }
+
+    ResultsIndex build(File index) throws IOException {
+        if (BlockGzip.isCompressed(results.getName())) {
+            throw new IOException("Compressed result files cannot be indexed, decompress " + results
+                    + " first, e.g. with gunzip");
+        }
+        long length = results.length();
+        long lastModified = results.lastModified();
+        Charset charset = Charset.forName(SaveService.getFileEncoding(StandardCharsets.UTF_8.name()));
+        if (("\r\n\"" + separator).getBytes(charset).length != 4) { // $NON-NLS-1$
+            throw new IOException("Result files encoded in " + charset + " cannot be indexed");
+        }
+        log.info("Indexing result file {} in blocks of {} ms", results, Long.valueOf(blockDuration));
+        File tmp = new File(index.getPath() + ".tmp"); // $NON-NLS-1$
+        ResultsIndex.Columns columns;
+        try (InputStream in = new BoundedInputStream(new FileInputStream(results), length);
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tmp), 65536))) {
+            CsvRecordScanner scanner = new CsvRecordScanner(in, 0L, separator);
+            if (!scanner.next()) {
+                throw new IOException("Result file is empty: " + results);
+            }
+            String first = scanner.getRecord(charset);
+            boolean hasHeader = CSVSaveService.getSampleSaveConfiguration(first,
+                    results.getAbsolutePath()) != null;
+            SampleMetadata metadata = hasHeader
+                    ? new SampleMetaDataParser(separator).parse(first)
+                    : new SampleMetadata(SampleSaveConfiguration.staticConfig());
+            try {
+                columns = new ResultsIndex.Columns(charset, separator, TIMESTAMP_FORMAT,
+                        metadata.ensureIndexOf(CSVSaveService.TIME_STAMP),
+                        metadata.ensureIndexOf(CSVSaveService.CSV_ELAPSED),
+                        metadata.ensureIndexOf(CSVSaveService.LABEL),
+                        metadata.ensureIndexOf(CSVSaveService.SUCCESSFUL));
+            } catch (SampleException e) {
+                throw new IOException("Result file cannot be indexed: " + results, e);
+            }
+            writeHeader(out, length, lastModified, columns);
+            boolean read = hasHeader ? scanner.next() : true;
+            while (read) {
+                addRecord(scanner, columns, out);
+                read = scanner.next();
+            }
+            closeBlock(length, out);
+            out.writeByte(ResultsIndex.END_MARKER);
+            out.writeInt(labels.size());
+            for (String label : labels) {
+                out.writeUTF(label);
+            }
+        }
+        Files.move(tmp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (skippedRows > 0) {
+            log.warn("Skipped {} rows of {} whose time stamp or elapsed time could not be parsed",
+                    Long.valueOf(skippedRows), results);
+        }
+        log.info("Indexed {} labels in {} blocks in {}", Integer.valueOf(labels.size()),
+                Integer.valueOf(blocks.size()), index);
+        return new ResultsIndex(results, length, lastModified, blockDuration, columns,
+                blocks, labels);
+    }
+
+    private void writeHeader(DataOutputStream out, long length, long lastModified,
+            ResultsIndex.Columns columns) throws IOException {
+        out.writeInt(ResultsIndex.MAGIC);
+        out.writeInt(ResultsIndex.VERSION);
+        out.writeLong(length);
+        out.writeLong(lastModified);
+        out.writeLong(blockDuration);
+        out.writeUTF(columns.charset.name());
+        out.writeChar(columns.separator);
+        out.writeUTF(columns.timestampFormat);
+        out.writeInt(columns.timestamp);
+        out.writeInt(columns.elapsed);
+        out.writeInt(columns.label);
+        out.writeInt(columns.success);
+    }
+
+    private void addRecord(CsvRecordScanner scanner, ResultsIndex.Columns columns,
+            DataOutputStream out) throws IOException {
+        if (scanner.getFieldCount() < columns.minFieldCount) {
+            skippedRows++;
+            return;
+        }
+        long timestamp;
+        long elapsed;
+        try {
+            timestamp = columns.getTimestamp(scanner);
+            elapsed = scanner.getLong(columns.elapsed);
+        } catch (NumberFormatException e) {
+            skippedRows++;
+            return;
+        }
+        if (blockStart < 0 || timestamp >= windowEnd) {
+            long offset = scanner.getRecordOffset();
+            closeBlock(offset, out);
+            blockStart = offset;
+            windowEnd = timestamp - Math.floorMod(timestamp, blockDuration) + blockDuration;
+            blockMin = Long.MAX_VALUE;
+            blockMax = Long.MIN_VALUE;
+        }
+        blockSamples++;
+        blockMin = Math.min(blockMin, timestamp);
+        blockMax = Math.max(blockMax, timestamp);
+        String label = scanner.getString(columns.label, columns.charset);
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = Integer.valueOf(labels.size());
+            labelIds.put(label, id);
+            labels.add(label);
+            blockStatistics.add(new LabelStatistics(label));
+        }
+        blockStatistics.get(id.intValue()).add(timestamp, elapsed,
+                scanner.getBoolean(columns.success));
+    }
+
+    private void closeBlock(long endOffset, DataOutputStream out) throws IOException {
+        if (blockSamples == 0) {
+            return;
+        }
+        ResultsIndex.Block block = new ResultsIndex.Block();
+        block.startOffset = blockStart;
+        block.endOffset = endOffset;
+        block.minTimestamp = blockMin;
+        block.maxTimestamp = blockMax;
+        block.sampleCount = blockSamples;
+        List<ResultsIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < blockStatistics.size(); i++) {
+            LabelStatistics statistics = blockStatistics.get(i);
+            if (statistics.getCount() > 0) {
+                entries.add(toEntry(i, statistics));
+                statistics.reset();
+            }
+        }
+        block.entries = entries.toArray(new ResultsIndex.Entry[entries.size()]);
+        writeBlock(out, block);
+        blocks.add(block);
+        blockSamples = 0;
+    }
+
+    private static ResultsIndex.Entry toEntry(int label, LabelStatistics statistics) {
+        ResultsIndex.Entry entry = new ResultsIndex.Entry();
+        entry.label = label;
+        entry.count = statistics.getCount();
+        entry.errorCount = statistics.getErrorCount();
+        entry.sum = statistics.getSum();
+        entry.min = statistics.getMin();
+        entry.max = statistics.getMax();
+        entry.firstTimestamp = statistics.getFirstTimestamp();
+        entry.lastTimestamp = statistics.getLastTimestamp();
+        int[] size = new int[1];
+        LongHistogram histogram = statistics.getHistogram();
+        histogram.forEachBucket((value, count) -> size[0]++);
+        entry.bucketValues = new long[size[0]];
+        entry.bucketCounts = new long[size[0]];
+        size[0] = 0;
+        histogram.forEachBucket((value, count) -> {
+            entry.bucketValues[size[0]] = value;
+            entry.bucketCounts[size[0]] = count;
+            size[0]++;
+        });
+        return entry;
+    }
+
+    private static void writeBlock(DataOutputStream out, ResultsIndex.Block block) throws IOException {
+        out.writeByte(ResultsIndex.BLOCK_MARKER);
+        ResultsIndex.writeVarLong(out, block.startOffset);
+        ResultsIndex.writeVarLong(out, block.endOffset - block.startOffset);
+        out.writeLong(block.minTimestamp);
+        ResultsIndex.writeVarLong(out, block.maxTimestamp - block.minTimestamp);
+        ResultsIndex.writeVarLong(out, block.sampleCount);
+        ResultsIndex.writeVarLong(out, block.entries.length);
+        for (ResultsIndex.Entry entry : block.entries) {
+            ResultsIndex.writeVarLong(out, entry.label);
+            ResultsIndex.writeVarLong(out, entry.count);
+            ResultsIndex.writeVarLong(out, entry.errorCount);
+            ResultsIndex.writeVarLong(out, entry.sum);
+            ResultsIndex.writeVarLong(out, entry.min);
+            ResultsIndex.writeVarLong(out, entry.max);
+            ResultsIndex.writeVarLong(out, entry.firstTimestamp - block.minTimestamp);
+            ResultsIndex.writeVarLong(out, entry.lastTimestamp - block.minTimestamp);
+            ResultsIndex.writeVarLong(out, entry.bucketValues.length);
+            long previous = 0;
+            for (int i = 0; i < entry.bucketValues.length; i++) {
+                ResultsIndex.writeVarLong(out, entry.bucketValues[i] - previous);
+                ResultsIndex.writeVarLong(out, entry.bucketCounts[i]);
+                previous = entry.bucketValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.avalon.CLArgsParser;
+import org.apache.commons.cli.avalon.CLOption;
+import org.apache.commons.cli.avalon.CLOptionDescriptor;
+import org.apache.commons.cli.avalon.CLUtil;
+import org.apache.jmeter.NewDriver;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Command line tool building the {@link ResultsIndex} of a CSV result file and
+ * printing the statistics of its labels over a time range.
+ * <p>
+ * The index is built if it does not exist or if the result file has been
+ * modified since it was built. Run with <code>-?</code> for the list of
+ * options, e.g.:
+ * </p>
+ * <pre>
+ * resultsindex.sh -r results.jtl -f +10m -t +20m -l "Login.*"
+ * </pre>
+ *
+ * @since 4.0
+ */
+public final class ResultsIndexTool {
+
+    private static final int OPTIONS_OPT = '?';// $NON-NLS-1$
+    private static final int RESULTS_OPT = 'r';// $NON-NLS-1$
+    private static final int INDEX_OPT = 'x';// $NON-NLS-1$
+    private static final int BUILD_OPT = 'b';// $NON-NLS-1$
+    private static final int BLOCK_DURATION_OPT = 'd';// $NON-NLS-1$
+    private static final int FROM_OPT = 'f';// $NON-NLS-1$
+    private static final int TO_OPT = 't';// $NON-NLS-1$
+    private static final int LABEL_OPT = 'l';// $NON-NLS-1$
+
+    private static final CLOptionDescriptor[] OPTIONS = {
+            new CLOptionDescriptor("?", CLOptionDescriptor.ARGUMENT_DISALLOWED, OPTIONS_OPT,
+                    "print command line options and exit"),
+            new CLOptionDescriptor("results", CLOptionDescriptor.ARGUMENT_REQUIRED, RESULTS_OPT,
+                    "the CSV result file (required)"),
+            new CLOptionDescriptor("index", CLOptionDescriptor.ARGUMENT_REQUIRED, INDEX_OPT,
+                    "the index file, defaults to the result file name followed by "
+                            + ResultsIndex.INDEX_EXTENSION),
+            new CLOptionDescriptor("build", CLOptionDescriptor.ARGUMENT_DISALLOWED, BUILD_OPT,
+                    "build the index even if it is up to date"),
+            new CLOptionDescriptor("blockduration", CLOptionDescriptor.ARGUMENT_REQUIRED, BLOCK_DURATION_OPT,
+                    "the duration of the time window of an index block in ms, when the index is built"),
+            new CLOptionDescriptor("from", CLOptionDescriptor.ARGUMENT_REQUIRED, FROM_OPT,
+                    "the lowest time stamp of the samples (inclusive): epoch ms, yyyy-MM-dd'T'HH:mm:ss"
+                            + " or an offset from the first sample like +90s, +10m or +1h"),
+            new CLOptionDescriptor("to", CLOptionDescriptor.ARGUMENT_REQUIRED, TO_OPT,
+                    "the highest time stamp of the samples (exclusive), same formats as from"),
+            new CLOptionDescriptor("label", CLOptionDescriptor.ARGUMENT_REQUIRED, LABEL_OPT,
+                    "regular expression the whole label of the samples must match"),
+    };
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss"; // $NON-NLS-1$
+
+    private static final String ROW_FORMAT =
+            "%-40s %10s %8s %8s %8s %8s %8s %8s %8s %10s%n"; // $NON-NLS-1$
+
+    private static final String TOTAL_LABEL = "TOTAL"; // $NON-NLS-1$
+
+    private ResultsIndexTool() {
+        // NOOP
+    }
+
+    public static void main(String[] args) throws IOException {
+        initializeProperties();
+        int status = run(args, System.out, System.err);// NOSONAR
+        if (status != 0) {
+            System.exit(status);// NOSONAR
+        }
+    }
+
+    private static void initializeProperties() throws IOException {
+        String home = NewDriver.getJMeterDir();
+        JMeterUtils.setJMeterHome(home);
+        JMeterUtils.loadJMeterProperties(new File(home, "bin/jmeter.properties").getPath()); // $NON-NLS-1$
+        String userProp = JMeterUtils.getPropDefault("user.properties", ""); //$NON-NLS-1$
+        if (userProp.length() > 0) {
+            File file = JMeterUtils.findFile(userProp);
+            if (file.canRead()) {
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    Properties tmp = new Properties();
+                    tmp.load(fis);
+                    JMeterUtils.getJMeterProperties().putAll(tmp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the tool.
+     *
+     * @param args
+     *            the command line arguments
+     * @param out
+     *            the stream the statistics are printed to
+     * @param err
+     *            the stream errors are printed to
+     * @return the exit status, 0 on success
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        CLArgsParser parser = new CLArgsParser(args, OPTIONS);
+        String error = parser.getErrorString();
+        if (error != null || parser.getArgumentById(OPTIONS_OPT) != null
+                || parser.getArgumentById(RESULTS_OPT) == null) {
+            if (error != null) {
+                err.println("Error: " + error);
+            }
+            err.println(CLUtil.describeOptions(OPTIONS).toString());
+            return error == null && parser.getArgumentById(OPTIONS_OPT) != null ? 0 : 1;
+        }
+        try {
+            File results = new File(parser.getArgumentById(RESULTS_OPT).getArgument());
+            CLOption indexOption = parser.getArgumentById(INDEX_OPT);
+            File index = indexOption == null ? ResultsIndex.getIndexFile(results)
+                    : new File(indexOption.getArgument());
+            CLOption durationOption = parser.getArgumentById(BLOCK_DURATION_OPT);
+            long blockDuration = durationOption == null ? ResultsIndex.DEFAULT_BLOCK_DURATION
+                    : Long.parseLong(durationOption.getArgument());
+            char separator = JMeterUtils.getDelimiter(JMeterUtils.getJMeterProperties().getProperty(
+                    SampleSaveConfiguration.DEFAULT_DELIMITER_PROP,
+                    SampleSaveConfiguration.DEFAULT_DELIMITER)).charAt(0);
+            ResultsIndex resultsIndex = parser.getArgumentById(BUILD_OPT) != null
+                    ? ResultsIndex.build(results, index, separator, blockDuration)
+                    : ResultsIndex.loadOrBuild(results, index, separator, blockDuration);
+
+            long first = resultsIndex.getMinTimestamp();
+            CLOption fromOption = parser.getArgumentById(FROM_OPT);
+            CLOption toOption = parser.getArgumentById(TO_OPT);
+            long from = fromOption == null ? Long.MIN_VALUE : parseTime(fromOption.getArgument(), first);
+            long to = toOption == null ? Long.MAX_VALUE : parseTime(toOption.getArgument(), first);
+            CLOption labelOption = parser.getArgumentById(LABEL_OPT);
+            Pattern labelPattern = labelOption == null ? null : Pattern.compile(labelOption.getArgument());
+
+            Map<String, LabelStatistics> statistics = resultsIndex.query(from, to, labelPattern);
+            print(out, statistics);
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * @param time
+     *            epoch milliseconds, a local date time or an offset from the
+     *            first sample
+     * @param first
+     *            the time stamp of the first sample
+     * @return the time in epoch milliseconds
+     */
+    static long parseTime(String time, long first) {
+        if (time.startsWith("+")) { // $NON-NLS-1$
+            String value = time.substring(1, time.length() - 1);
+            long unit;
+            switch (time.charAt(time.length() - 1)) {
+            case 's':
+                unit = 1000L;
+                break;
+            case 'm':
+                unit = 60000L;
+                break;
+            case 'h':
+                unit = 3600000L;
+                break;
+            default:
+                value = time.substring(1);
+                unit = 1L;
+                break;
+            }
+            return first + Long.parseLong(value) * unit;
+        }
+        if (time.indexOf('T') > 0) {
+            try {
+                return new SimpleDateFormat(DATE_FORMAT).parse(time).getTime();
+            } catch (ParseException e) {
+                throw new IllegalArgumentException("Invalid time '" + time + "', expected " + DATE_FORMAT, e);
+            }
+        }
+        return Long.parseLong(time);
+    }
+
+    private static void print(PrintStream out, Map<String, LabelStatistics> statistics) {
+        out.printf(ROW_FORMAT, "Label", "# Samples", "Error %", "Average", "Min", "Max", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$ $NON-NLS-5$ $NON-NLS-6$
+                "90th pct", "95th pct", "99th pct", "Throughput"); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+        for (LabelStatistics s : statistics.values()) {
+            printRow(out, s);
+        }
+        printRow(out, ResultsIndex.merge(TOTAL_LABEL, statistics.values()));
+    }
+
+    private static void printRow(PrintStream out, LabelStatistics s) {
+        out.printf(ROW_FORMAT, s.getLabel(), Long.toString(s.getCount()),
+                String.format("%.2f%%", Double.valueOf(s.getErrorPercentage())), // $NON-NLS-1$
+                String.format("%.1f", Double.valueOf(s.getMean())), // $NON-NLS-1$
+                Long.toString(s.getMin()), Long.toString(s.getMax()),
+                Long.toString(s.getPercentile(90)), Long.toString(s.getPercentile(95)),
+                Long.toString(s.getPercentile(99)),
+                String.format("%.2f/s", Double.valueOf(s.getThroughput()))); // $NON-NLS-1$
+    }
+}
@@ -25,6 +25,7 @@ import java.util.TreeMap;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
 import org.slf4j.Logger;
@@ -234,6 +235,19 @@ public abstract class AbstractSampleConsumer extends AbstractSampleProcessor
         }
     }
 
+    @Override
+    public void produce(SampleBatch batch, int channel) {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.consume(batch, channel);
+                producedSampleCount += batch.size();
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
     @Override
     public void stopProducing() {
         for (SampleConsumer consumer : this.sampleConsumers) {
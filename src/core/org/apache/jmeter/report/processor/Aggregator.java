@@ -46,6 +46,22 @@ public interface Aggregator {
      */
     void addValue(double value);
 
+    /**
+     * Adds the specified value to the storage of the current aggregator as
+     * many times as specified, e.g. for a sample standing for several samples.
+     *
+     * @param value
+     *            the value to aggregate
+     * @param count
+     *            the number of times the value is aggregated
+     * @since 4.0
+     */
+    default void addValue(double value, long count) {
+        for (long i = 0; i < count; i++) {
+            addValue(value);
+        }
+    }
+
     /**
      * Reset the state of the aggregator.
      */
@@ -119,31 +119,32 @@ public class ApdexSummaryConsumer extends
         }
 
         // Increment the total count of samples with the current name
-        data.incTotalCount();
+        int sampleCount = sample.getSampleCount();
+        data.incTotalCount(sampleCount);
 
         // Increment the total count of samples
-        overallData.incTotalCount();
+        overallData.incTotalCount(sampleCount);
 
         // Process only succeeded samples
         if (sample.getSuccess()) {
-            long elapsedTime = sample.getElapsedTime();
+            long elapsedTime = sample.getMeanElapsedTime();
 
             // Increment the counters depending on the elapsed time.
             ApdexThresholdsInfo thresholdsInfo = data.getApdexThresholdInfo();
             if (elapsedTime <= thresholdsInfo.getSatisfiedThreshold()) {
-                data.incSatisfiedCount();
+                data.incSatisfiedCount(sampleCount);
             } else if (elapsedTime <= thresholdsInfo.getToleratedThreshold()) {
-                data.incToleratedCount();
+                data.incToleratedCount(sampleCount);
             }
 
             // Increment the overall counters depending on the elapsed time.
             ApdexThresholdsInfo overallThresholdsInfo = overallData
                     .getApdexThresholdInfo();
             if (elapsedTime <= overallThresholdsInfo.getSatisfiedThreshold()) {
-                overallData.incSatisfiedCount();
+                overallData.incSatisfiedCount(sampleCount);
             } else if (elapsedTime <= overallThresholdsInfo
                     .getToleratedThreshold()) {
-                overallData.incToleratedCount();
+                overallData.incToleratedCount(sampleCount);
             }
         }
 
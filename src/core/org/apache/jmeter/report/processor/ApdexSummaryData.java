@@ -107,4 +107,16 @@ public class ApdexSummaryData {
     public void incTotalCount() {
         totalCount++;
     }
+
+    public void incSatisfiedCount(long count) {
+        satisfiedCount += count;
+    }
+
+    public void incToleratedCount(long count) {
+        toleratedCount += count;
+    }
+
+    public void incTotalCount(long count) {
+        totalCount += count;
+    }
 }
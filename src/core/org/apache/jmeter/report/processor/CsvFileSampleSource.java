@@ -25,10 +25,11 @@ import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.jmeter.report.core.CsvSampleReader;
-import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
 import org.apache.jmeter.report.core.SampleException;
-import org.apache.jmeter.report.core.SampleMetadata;
 import org.apache.jmeter.report.core.TimeHelper;
+import org.apache.jmeter.save.BlockGzip;
+import org.apache.jmeter.save.RolledFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +59,10 @@ import org.slf4j.LoggerFactory;
  * <li>If the input file is named <code>results.csv</code> then it will
  * be produced on the channel 0.</li>
  * </ul>
+ * Files rolled from an input file (<code>results.1.csv</code>, <code>results.2.csv</code>,
+ * see {@link RolledFiles}) are produced on the channel of the input file, before it.
+ * Input files may be gzip compressed, with a <code>.gz</code> extension
+ * (<code>results.csv.gz</code>, <code>results-1.csv.gz</code>...).<br>
  *
  * @since 3.0
  */
@@ -68,14 +73,22 @@ public class CsvFileSampleSource extends AbstractSampleSource {
 
     private static final Logger LOG = LoggerFactory.getLogger(CsvFileSampleSource.class);
 
+    /** number of samples read at once from the input files */
+    private static final int BATCH_SIZE = 1024;
+
     /** input csv files to be produced */
     private File[] inputFiles;
 
     /** csv readers corresponding to the input files */
     private CsvSampleReader[] csvReaders;
 
+    /** files rolled from the input files, oldest first */
+    private List<List<File>> rolledFiles;
+
+    private final char separator;
+
     /** mock producer to produce samples to its consumers */
-    private PrivateProducer producer;
+    private DelegatingSampleProducer producer;
 
     /**
      * Build a sample source from the specified input file and character
@@ -88,6 +101,7 @@ public class CsvFileSampleSource extends AbstractSampleSource {
      *            columns
      */
     public CsvFileSampleSource(final File inputFile, final char separator) {
+        this.separator = separator;
         final String inputRootName = getFileRootName(inputFile.getName());
         final String inputExtension = getFileExtension(inputFile.getName());
 
@@ -118,11 +132,28 @@ public class CsvFileSampleSource extends AbstractSampleSource {
             csvReaders[k] = new CsvSampleReader(input, separator, true);
             inputFiles[k] = secondaryInputs[k - 1];
         }
-        producer = new PrivateProducer();
+        rolledFiles = new ArrayList<>(inputFiles.length);
+        for (File input : inputFiles) {
+            rolledFiles.add(RolledFiles.listRolledFiles(input));
+        }
+        producer = new DelegatingSampleProducer();
+    }
+
+    /**
+     * @return the files read by this source: each input file preceded by the
+     *         files rolled from it
+     */
+    public List<File> getInputFiles() {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < inputFiles.length; i++) {
+            files.addAll(rolledFiles.get(i));
+            files.add(inputFiles[i]);
+        }
+        return files;
     }
 
     private static String getFileRootName(String fName) {
-        int idx = fName.lastIndexOf('.');
+        int idx = getExtensionIndex(fName);
         if (idx < 0) {
             return fName;
         }
@@ -130,7 +161,7 @@ public class CsvFileSampleSource extends AbstractSampleSource {
     }
 
     private static String getFileExtension(String fName) {
-        int idx = fName.lastIndexOf('.');
+        int idx = getExtensionIndex(fName);
         if (idx < 0) {
             return "";
         }
@@ -140,6 +171,18 @@ public class CsvFileSampleSource extends AbstractSampleSource {
         return "";
     }
 
+    /**
+     * @return the index of the dot starting the extension, which includes <code>.gz</code>
+     *         and the extension before it for compressed files
+     */
+    private static int getExtensionIndex(String fName) {
+        if (BlockGzip.isCompressed(fName)) {
+            int idx = fName.lastIndexOf('.', fName.length() - BlockGzip.EXTENSION.length() - 1);
+            return idx < 0 ? fName.length() - BlockGzip.EXTENSION.length() : idx;
+        }
+        return fName.lastIndexOf('.');
+    }
+
     /**
      * Get the current time in milliseconds
      */
@@ -176,11 +219,12 @@ public class CsvFileSampleSource extends AbstractSampleSource {
                     inputFiles[i]);
             producer.startProducing();
             try {
-                Sample s = null;
-                while ((s = csvReader.readSample()) != null) {
-                    producer.produce(s, i);
-                    sampleCount++;
+                for (File rolled : rolledFiles.get(i)) {
+                    try (CsvSampleReader rolledReader = new CsvSampleReader(rolled, separator, true)) {
+                        sampleCount += produce(rolledReader, i);
+                    }
                 }
+                sampleCount += produce(csvReader, i);
             } finally {
                 producer.stopProducing();
                 csvReader.close();
@@ -192,6 +236,16 @@ public class CsvFileSampleSource extends AbstractSampleSource {
         }
     }
 
+    private long produce(CsvSampleReader csvReader, int channel) {
+        long sampleCount = 0;
+        SampleBatch batch = null;
+        while ((batch = csvReader.readBatch(BATCH_SIZE)) != null) {
+            producer.produce(batch, channel);
+            sampleCount += batch.size();
+        }
+        return sampleCount;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -237,112 +291,4 @@ public class CsvFileSampleSource extends AbstractSampleSource {
     public void run() {
         produce();
     }
-
-    private class PrivateProducer extends AbstractSampleProcessor implements
-            SampleProducer {
-
-        private List<SampleConsumer> sampleConsumers = new ArrayList<>();
-
-        /**
-         * Set the consumers for the samples that are to be consumed
-         *
-         * @param consumers
-         *            list of consumers for the samples (must not be
-         *            {@code null})
-         */
-        public void setSampleConsumers(List<SampleConsumer> consumers) {
-            Validate.notNull(consumers, "consumers must not be null");
-
-            this.sampleConsumers = consumers;
-        }
-
-        public void addSampleConsumer(SampleConsumer consumer) {
-            if (consumer == null) {
-                return;
-            }
-            this.sampleConsumers.add(consumer);
-        }
-
-        public void removeSampleConsumer(SampleConsumer consumer) {
-            if (consumer == null) {
-                return;
-            }
-            this.sampleConsumers.remove(consumer);
-        }
-
-        @Override
-        public void setSampleContext(SampleContext context) {
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.setSampleContext(context);
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-
-        @Override
-        public void setProducedMetadata(SampleMetadata metadata, int channel) {
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.setConsumedMetadata(metadata, channel);
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-
-        @Override
-        public void setChannelAttribute(int channel, String key, Object value) {
-            super.setChannelAttribute(channel, key, value);
-            // propagate to this mock producer's consumers
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.setChannelAttribute(channel, key, value);
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-
-        @Override
-        public void startProducing() {
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.startConsuming();
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-
-        @Override
-        public void produce(Sample s, int channel) {
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.consume(s, channel);
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-
-        @Override
-        public void stopProducing() {
-            for (SampleConsumer consumer : this.sampleConsumers) {
-                try {
-                    consumer.stopConsuming();
-                } catch (Exception e) {
-                    throw new SampleException("Consumer failed with message :"
-                            + e.getMessage(), e);
-                }
-            }
-        }
-    }
-
 }
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
+import org.apache.jmeter.report.core.SampleException;
+import org.apache.jmeter.report.core.SampleMetadata;
+
+/**
+ * Producer forwarding the samples of a sample source to the consumers
+ * registered on the source.
+ *
+ * @since 4.0
+ */
+final class DelegatingSampleProducer extends AbstractSampleProcessor implements
+    SampleProducer {
+
+    private List<SampleConsumer> sampleConsumers = new ArrayList<>();
+
+    /**
+     * Set the consumers for the samples that are to be consumed
+     *
+     * @param consumers
+     *            list of consumers for the samples (must not be
+     *            {@code null})
+     */
+    public void setSampleConsumers(List<SampleConsumer> consumers) {
+        Validate.notNull(consumers, "consumers must not be null");
+
+        this.sampleConsumers = consumers;
+    }
+
+    public void addSampleConsumer(SampleConsumer consumer) {
+        if (consumer == null) {
+            return;
+        }
+        this.sampleConsumers.add(consumer);
+    }
+
+    public void removeSampleConsumer(SampleConsumer consumer) {
+        if (consumer == null) {
+            return;
+        }
+        this.sampleConsumers.remove(consumer);
+    }
+
+    @Override
+    public void setSampleContext(SampleContext context) {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.setSampleContext(context);
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void setProducedMetadata(SampleMetadata metadata, int channel) {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.setConsumedMetadata(metadata, channel);
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void setChannelAttribute(int channel, String key, Object value) {
+        super.setChannelAttribute(channel, key, value);
+        // propagate to this mock producer's consumers
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.setChannelAttribute(channel, key, value);
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void startProducing() {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.startConsuming();
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void produce(Sample s, int channel) {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.consume(s, channel);
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void produce(SampleBatch batch, int channel) {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.consume(batch, channel);
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stopProducing() {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            try {
+                consumer.stopConsuming();
+            } catch (Exception e) {
+                throw new SampleException("Consumer failed with message :"
+                        + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -119,17 +119,18 @@ public class ErrorsSummaryConsumer extends AbstractSummaryConsumer<Long> {
         if (overallData == null) {
             overallData = ZERO;
         }
-        overallInfo.setData(Long.valueOf(overallData.longValue() + 1));
+        overallInfo.setData(Long.valueOf(overallData.longValue() + sample.getSampleCount()));
 
         // Process only failed samples
         if (!sample.getSuccess()) {
-            errorCount++;
+            int sampleErrors = sample.getErrorCount();
+            errorCount += sampleErrors;
 
             Long data = info.getData();
             if (data == null) {
                 data = ZERO;
             }
-            info.setData(Long.valueOf(data.longValue() + 1));
+            info.setData(Long.valueOf(data.longValue() + sampleErrors));
         }
     }
 
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import org.apache.jorphan.math.LongHistogram;
+
+/**
+ * The class HistogramPercentileAggregator is used to get percentile from samples,
+ * using bounded memory whatever the number of samples.
+ * <p>
+ * Values are rounded to the nearest integer and counted in a {@link LongHistogram}
+ * with its default precision, whose buckets are allocated by power of two range.
+ * The result is the highest value of the bucket holding the percentile, bounded by the
+ * minimum and maximum values, so its relative error is lower than 1% and it is exact
+ * for values lower than 128.
+ * A series of response times from 1 ms to 1 min uses at most 16 ranges of 1 KB.
+ * <p>
+ * Unlike {@link PercentileAggregator}, the percentile is computed over all the values,
+ * and aggregators can be merged with {@link #add(HistogramPercentileAggregator)}.
+ *
+ * @since 4.0
+ */
+public class HistogramPercentileAggregator implements Aggregator {
+
+    private final double percentileIndex;
+
+    private final LongHistogram histogram = new LongHistogram();
+
+    /**
+     * Instantiates a new histogram percentile aggregator.
+     *
+     * @param index
+     *            the index of the percentile, between 0 and 100
+     */
+    public HistogramPercentileAggregator(double index) {
+        percentileIndex = index;
+    }
+
+    /**
+     * Copy constructor
+     *
+     * @param other
+     *            the aggregator to copy
+     */
+    public HistogramPercentileAggregator(HistogramPercentileAggregator other) {
+        this(other.percentileIndex);
+        add(other);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#getCount()
+     */
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    /**
+     * Gets the percentile of the aggregated values at the index given at creation.
+     *
+     * @return the percentile, or NaN if no value was aggregated
+     */
+    @Override
+    public double getResult() {
+        return getPercentile(percentileIndex);
+    }
+
+    /**
+     * Gets a percentile of the aggregated values
+     *
+     * @param index
+     *            the index of the percentile, between 0 and 100
+     * @return the percentile, or NaN if no value was aggregated
+     */
+    public double getPercentile(double index) {
+        if (histogram.getCount() == 0) {
+            return Double.NaN;
+        }
+        return histogram.getPercentile(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double)
+     */
+    @Override
+    public void addValue(double value) {
+        addValue(value, 1L);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(double value, long count) {
+        histogram.record(Math.round(value), count);
+    }
+
+    /**
+     * Adds the values aggregated by another aggregator to this one.
+     *
+     * @param other
+     *            the aggregator whose values are added
+     */
+    public void add(HistogramPercentileAggregator other) {
+        histogram.add(other.histogram);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#reset()
+     */
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+}
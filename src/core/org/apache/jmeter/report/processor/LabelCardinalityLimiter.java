@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.jmeter.report.core.CsvSampleReader;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jorphan.math.HeavyHitters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounds the number of distinct sample labels seen by the report consumers,
+ * which keep aggregators for each label.
+ * <p>
+ * Labels are first rewritten by the normalization rules: the first rule whose
+ * pattern is found in a label replaces all its matches by the rule replacement
+ * (which can refer to groups with <code>$n</code>).
+ * </p>
+ * <p>
+ * When a maximum number of labels is set, only the most frequent normalized
+ * labels are kept and the others are replaced by the "other" label. The most
+ * frequent labels are estimated in fixed memory by
+ * {@link #selectLabels(List, char)}, which reads the labels of the result files
+ * before they are processed. If it has not been called, the first labels seen
+ * are kept.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class LabelCardinalityLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LabelCardinalityLimiter.class);
+
+    /** Default label of the samples whose label is not kept */
+    public static final String DEFAULT_OTHER_LABEL = "Other labels"; // $NON-NLS-1$
+
+    /** Number of labels counted by the sketch for each kept label */
+    private static final int SKETCH_FACTOR = 4;
+
+    private static final int MIN_SKETCH_CAPACITY = 1024;
+
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    private final List<String> replacements = new ArrayList<>();
+
+    private final int maxLabels;
+
+    private final String otherLabel;
+
+    private final Set<String> keptLabels = new HashSet<>();
+
+    private boolean labelsSelected;
+
+    /**
+     * @param rules
+     *            the normalization rules, pattern to replacement, in the order
+     *            they are tried
+     * @param maxLabels
+     *            the maximum number of labels kept, 0 or less for no limit
+     * @param otherLabel
+     *            the label of the samples whose label is not kept
+     */
+    public LabelCardinalityLimiter(Map<String, String> rules, int maxLabels,
+            String otherLabel) {
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            patterns.add(Pattern.compile(rule.getKey()));
+            replacements.add(rule.getValue());
+        }
+        this.maxLabels = maxLabels;
+        this.otherLabel = otherLabel;
+    }
+
+    /**
+     * @return the maximum number of labels kept, 0 or less for no limit
+     */
+    public int getMaxLabels() {
+        return maxLabels;
+    }
+
+    /**
+     * @return the label of the samples whose label is not kept
+     */
+    public String getOtherLabel() {
+        return otherLabel;
+    }
+
+    /**
+     * Applies the normalization rules to a label.
+     *
+     * @param label
+     *            the sample label
+     * @return the label rewritten by the first matching rule, or the label
+     *         itself if no rule matches
+     */
+    public String normalize(String label) {
+        for (int i = 0; i < patterns.size(); i++) {
+            Matcher matcher = patterns.get(i).matcher(label);
+            if (matcher.find()) {
+                return matcher.replaceAll(replacements.get(i));
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Gets the label under which a sample is reported.
+     *
+     * @param label
+     *            the sample label
+     * @return the normalized label if it is kept, otherwise the "other" label
+     */
+    public String map(String label) {
+        String normalized = normalize(label);
+        if (maxLabels <= 0 || keptLabels.contains(normalized)) {
+            return normalized;
+        }
+        if (!labelsSelected && keptLabels.size() < maxLabels) {
+            keptLabels.add(normalized);
+            return normalized;
+        }
+        return otherLabel;
+    }
+
+    /**
+     * Keeps the most frequent normalized labels of the specified files.
+     *
+     * @param files
+     *            the CSV result files
+     * @param separator
+     *            the separator of the files
+     */
+    public void selectLabels(List<File> files, char separator) {
+        if (maxLabels <= 0) {
+            return;
+        }
+        HeavyHitters<String> sketch = new HeavyHitters<>(
+                Math.max(MIN_SKETCH_CAPACITY, maxLabels * SKETCH_FACTOR));
+        for (File file : files) {
+            try (CsvSampleReader reader = new CsvSampleReader(file, separator, true)) {
+                Sample sample;
+                while ((sample = reader.readSample()) != null) {
+                    sketch.add(normalize(sample.getName()));
+                }
+            }
+        }
+        selectLabels(sketch);
+    }
+
+    /**
+     * Keeps the most frequent labels counted by a sketch.
+     *
+     * @param sketch
+     *            the counts of the normalized labels
+     */
+    void selectLabels(HeavyHitters<String> sketch) {
+        keptLabels.clear();
+        keptLabels.addAll(sketch.getTop(maxLabels));
+        labelsSelected = true;
+        if (sketch.size() > maxLabels) {
+            log.info("Keeping the {} most frequent labels, others are reported as '{}'",
+                    maxLabels, otherLabel);
+        }
+    }
+
+    /**
+     * @return the labels kept so far
+     */
+    public Set<String> getKeptLabels() {
+        return Collections.unmodifiableSet(keptLabels);
+    }
+}
@@ -17,8 +17,6 @@
  */
 package org.apache.jmeter.report.processor;
 
-import org.apache.commons.math3.stat.descriptive.moment.Mean;
-
 /**
  * The class MeanAggregator is used to get mean from samples.
  * 
@@ -26,7 +24,9 @@ import org.apache.commons.math3.stat.descriptive.moment.Mean;
  */
 public class MeanAggregator implements Aggregator {
 
-    private Mean mean = new Mean();
+    // Incremental mean, as computed by commons-math Mean, extended to weighted values
+    private long count = 0L;
+    private double mean = Double.NaN;
 
     /*
      * (non-Javadoc)
@@ -35,7 +35,7 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public long getCount() {
-        return mean.getN();
+        return count;
     }
 
     /*
@@ -45,7 +45,7 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public double getResult() {
-        return mean.getResult();
+        return mean;
     }
 
     /*
@@ -55,7 +55,24 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public void addValue(double value) {
-        mean.increment(value);
+        addValue(value, 1L);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(double value, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (this.count == 0) {
+            mean = 0.0;
+        }
+        this.count += count;
+        mean += (value - mean) * count / this.count;
     }
 
     /*
@@ -65,7 +82,8 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public void reset() {
-        mean.clear();
+        count = 0L;
+        mean = Double.NaN;
     }
 
 }
@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.report.core.CsvSampleReader;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
+import org.apache.jmeter.report.core.SampleException;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.core.TimeHelper;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.RolledFiles;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read several csv result files, like the files saved by each injector of a
+ * distributed test, and produce their samples as a single stream on channel 0
+ * to the registered <code>SampleConsumer</code>s.
+ * <p>
+ * The headers of all the files, and of the files rolled from them (see
+ * {@link RolledFiles}), are read when the source is built: they must describe
+ * the same columns, so that the consumers are given the metadata once.
+ * </p>
+ * <p>
+ * Each input file, preceded by its rolled files, is parsed by its own thread
+ * into batches of samples, at most a few batches ahead of the consumers. The
+ * samples are produced to the consumers by the thread running the source.
+ * </p>
+ * <p>
+ * By default the batches are produced as soon as they are read, so the
+ * samples of the different files are interleaved in no particular order. This
+ * is enough for consumers which aggregate samples by label or by time interval,
+ * which is the case of all the dashboard consumers. When the source is built
+ * <i>in order</i>, the files are merged by time stamp instead, with a
+ * streaming k-way merge: the samples are then produced in time stamp order
+ * provided each file is itself in time stamp order.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class MergedCsvFileSampleSource extends AbstractSampleSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MergedCsvFileSampleSource.class);
+
+    private static final String TIMESTAMP_FORMAT =
+            JMeterUtils.getPropDefault(
+                    "jmeter.save.saveservice.timestamp_format", // $NON-NLS-1$
+                    SampleSaveConfiguration.MILLISECONDS);
+
+    /** number of samples read at once from the input files */
+    private static final int BATCH_SIZE = 1024;
+
+    /** number of batches an input file can be read ahead of the consumers */
+    private static final int BATCHES_AHEAD = 4;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /** Marks the end of an input file in the queues */
+    private static final Chunk END = new Chunk(null, null);
+
+    /** input csv files to be produced */
+    private final List<File> inputFiles;
+
+    /** files rolled from the input files, oldest first */
+    private final List<List<File>> rolledFiles;
+
+    private final char separator;
+
+    private final boolean inOrder;
+
+    /** metadata shared by all the input files */
+    private SampleMetadata metadata;
+
+    /** mock producer to produce samples to its consumers */
+    private final DelegatingSampleProducer producer = new DelegatingSampleProducer();
+
+    /**
+     * Build a sample source from the specified input files and character
+     * separator.
+     *
+     * @param inputFiles
+     *            The input sample files (CSV files) (must not be empty)
+     * @param separator
+     *            The character separator to be used for delimiting samples
+     *            columns
+     * @param inOrder
+     *            {@code true} to merge the samples of the files in time stamp
+     *            order, {@code false} to produce them as they are read
+     * @throws SampleException
+     *             if a file cannot be read or its columns differ from the
+     *             columns of the first file
+     */
+    public MergedCsvFileSampleSource(List<File> inputFiles, char separator, boolean inOrder) {
+        Validate.notEmpty(inputFiles, "inputFiles must not be empty");
+        this.inputFiles = new ArrayList<>(inputFiles);
+        this.separator = separator;
+        this.inOrder = inOrder;
+        rolledFiles = new ArrayList<>(inputFiles.size());
+        for (File input : inputFiles) {
+            rolledFiles.add(RolledFiles.listRolledFiles(input));
+        }
+        File first = null;
+        for (File file : getInputFiles()) {
+            try (CsvSampleReader reader = new CsvSampleReader(file, separator, true)) {
+                SampleMetadata fileMetadata = reader.getMetadata();
+                if (metadata == null) {
+                    metadata = fileMetadata;
+                    first = file;
+                } else if (!metadata.equals(fileMetadata)) {
+                    throw new SampleException(String.format(
+                            "Columns <%s> of file %s differ from columns <%s> of file %s",
+                            fileMetadata, file, metadata, first));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the files read by this source: each input file preceded by the
+     *         files rolled from it
+     */
+    public List<File> getInputFiles() {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < inputFiles.size(); i++) {
+            files.addAll(rolledFiles.get(i));
+            files.add(inputFiles.get(i));
+        }
+        return files;
+    }
+
+    /**
+     * @return the metadata shared by all the input files
+     */
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public void setSampleConsumers(List<SampleConsumer> consumers) {
+        producer.setSampleConsumers(consumers);
+    }
+
+    @Override
+    public void addSampleConsumer(SampleConsumer consumer) {
+        producer.addSampleConsumer(consumer);
+    }
+
+    @Override
+    public void removeSampleConsumer(SampleConsumer consumer) {
+        producer.removeSampleConsumer(consumer);
+    }
+
+    /**
+     * Run this sample source.<br>
+     * This sample source will start reading all inputs CSV files and produce
+     * their samples to this sample source registered sample consumers.
+     */
+    @Override
+    public void run() {
+        SampleContext context = getSampleContext();
+        Validate.validState(context != null, "Set a sample context before producing samples.");
+
+        long start = System.currentTimeMillis();
+        int count = inputFiles.size();
+        List<BlockingQueue<Chunk>> queues = new ArrayList<>(count);
+        if (inOrder) {
+            for (int i = 0; i < count; i++) {
+                queues.add(new ArrayBlockingQueue<>(BATCHES_AHEAD));
+            }
+        } else {
+            BlockingQueue<Chunk> shared = new ArrayBlockingQueue<>(BATCHES_AHEAD * count);
+            for (int i = 0; i < count; i++) {
+                queues.add(shared);
+            }
+        }
+        // One thread per file, as a merge needs all files to progress
+        ExecutorService executor = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "MergedCsvFileSampleSource-" + THREAD_NUMBER.incrementAndGet()); // $NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sampleCount;
+        producer.setSampleContext(context);
+        producer.setProducedMetadata(metadata, 0);
+        producer.setChannelAttribute(0, CsvFileSampleSource.SOURCE_FILE_ATTRIBUTE,
+                inputFiles.get(0));
+        producer.startProducing();
+        try {
+            for (int i = 0; i < count; i++) {
+                executor.execute(new InputReader(i, queues.get(i)));
+            }
+            sampleCount = inOrder ? produceInOrder(queues) : produceAsRead(queues.get(0), count);
+        } finally {
+            executor.shutdownNow();
+            producer.stopProducing();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("run(): {} samples of {} files produced {}in {}", sampleCount,
+                    count, inOrder ? "in time stamp order " : "",
+                    TimeHelper.time(System.currentTimeMillis() - start));
+        }
+    }
+
+    private long produceAsRead(BlockingQueue<Chunk> queue, int count) {
+        long sampleCount = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            SampleBatch batch = take(queue);
+            if (batch == null) {
+                remaining--;
+            } else {
+                producer.produce(batch, 0);
+                sampleCount += batch.size();
+            }
+        }
+        return sampleCount;
+    }
+
+    private long produceInOrder(List<BlockingQueue<Chunk>> queues) {
+        TimestampParser parser = new TimestampParser(metadata);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(queues.size());
+        for (int i = 0; i < queues.size(); i++) {
+            Cursor cursor = new Cursor(i, queues.get(i), parser);
+            if (cursor.next()) {
+                heads.add(cursor);
+            }
+        }
+        long sampleCount = 0;
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            Cursor following = heads.peek();
+            // Produce the run of samples preceding the head of the other files
+            boolean hasNext;
+            do {
+                producer.produce(cursor.sample, 0);
+                sampleCount++;
+                hasNext = cursor.next();
+            } while (hasNext && (following == null || cursor.compareTo(following) <= 0));
+            if (hasNext) {
+                heads.add(cursor);
+            }
+        }
+        return sampleCount;
+    }
+
+    /**
+     * @return the next batch of the queue, {@code null} at the end of a file
+     */
+    private static SampleBatch take(BlockingQueue<Chunk> queue) {
+        Chunk chunk;
+        try {
+            chunk = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SampleException("Interrupted while reading samples", e);
+        }
+        if (chunk.error != null) {
+            throw new SampleException(chunk.error.getMessage(), chunk.error);
+        }
+        return chunk.batch;
+    }
+
+    /** Batch read from a file, or error, or end of a file */
+    private static final class Chunk {
+        private final SampleBatch batch;
+        private final RuntimeException error;
+
+        Chunk(SampleBatch batch, RuntimeException error) {
+            this.batch = batch;
+            this.error = error;
+        }
+    }
+
+    /** Reads the batches of an input file and its rolled files into a queue */
+    private final class InputReader implements Runnable {
+        private final int input;
+        private final BlockingQueue<Chunk> queue;
+
+        InputReader(int input, BlockingQueue<Chunk> queue) {
+            this.input = input;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    for (File file : rolledFiles.get(input)) {
+                        read(file);
+                    }
+                    read(inputFiles.get(input));
+                } catch (RuntimeException e) {
+                    queue.put(new Chunk(null, e));
+                    return;
+                }
+                queue.put(END);
+            } catch (InterruptedException e) { // NOSONAR The source is stopped
+                LOG.debug("Stopped reading {}", inputFiles.get(input));
+            }
+        }
+
+        private void read(File file) throws InterruptedException {
+            try (CsvSampleReader reader = new CsvSampleReader(file, separator, true)) {
+                SampleBatch batch;
+                while ((batch = reader.readBatch(BATCH_SIZE)) != null) {
+                    queue.put(new Chunk(batch, null));
+                }
+            }
+        }
+    }
+
+    /** Current sample of an input file during a merge */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final int input;
+        private final BlockingQueue<Chunk> queue;
+        private final TimestampParser parser;
+        private SampleBatch batch;
+        private int index;
+        private Sample sample;
+        private long timestamp;
+
+        Cursor(int input, BlockingQueue<Chunk> queue, TimestampParser parser) {
+            this.input = input;
+            this.queue = queue;
+            this.parser = parser;
+        }
+
+        /**
+         * @return {@code false} at the end of the file
+         */
+        boolean next() {
+            index++;
+            if (batch == null || index >= batch.size()) {
+                batch = take(queue);
+                if (batch == null) {
+                    sample = null;
+                    return false;
+                }
+                index = 0;
+            }
+            sample = batch.getSample(index);
+            timestamp = parser.getTimestamp(sample, batch);
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int result = Long.compare(timestamp, other.timestamp);
+            return result != 0 ? result : Integer.compare(input, other.input);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return input;
+        }
+    }
+
+    /** Reads the time stamp of the samples, whatever its format */
+    private static final class TimestampParser {
+        private final int column;
+        private final SimpleDateFormat dateFormat;
+
+        TimestampParser(SampleMetadata metadata) {
+            column = metadata.ensureIndexOf(CSVSaveService.TIME_STAMP);
+            dateFormat = SampleSaveConfiguration.MILLISECONDS.equalsIgnoreCase(TIMESTAMP_FORMAT)
+                    ? null : new SimpleDateFormat(TIMESTAMP_FORMAT);
+        }
+
+        long getTimestamp(Sample sample, SampleBatch batch) {
+            if (batch.hasTimestamps()) {
+                return sample.getTimestamp();
+            }
+            String value = sample.getData(column);
+            try {
+                return dateFormat == null ? Long.parseLong(value) : dateFormat.parse(value).getTime();
+            } catch (NumberFormatException | ParseException e) {
+                throw new SampleException("Could not parse time stamp <" + value
+                        + "> of sample:" + sample, e);
+            }
+        }
+    }
+}
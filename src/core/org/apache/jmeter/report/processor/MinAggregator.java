@@ -58,6 +58,17 @@ public class MinAggregator implements Aggregator {
         count++;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(double value, long count) {
+        this.value = Math.min(this.value, value);
+        this.count += count;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -21,6 +21,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
@@ -32,6 +33,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Consume samples using the JMeter timestamp property (defaulting to {@link SampleSaveConfiguration#MILLISECONDS}) and reproduce them as a long
  * value (for faster treatment later in the consuming chain).
+ * <p>
+ * If a {@link LabelCardinalityLimiter} is set, sample labels are also replaced
+ * by the label it maps them to.
+ * </p>
  * 
  * @since 3.0
  */
@@ -64,10 +69,28 @@ public class NormalizerSampleConsumer extends AbstractSampleConsumer {
 
     private SampleMetadata sampleMetadata;
 
+    /**
+     * index of the label column
+     */
+    private int label;
+
+    private LabelCardinalityLimiter labelLimiter;
+
+    /**
+     * Sets the limiter applied to sample labels.
+     *
+     * @param labelLimiter
+     *            the limiter, {@code null} to leave labels unchanged
+     */
+    public void setLabelLimiter(LabelCardinalityLimiter labelLimiter) {
+        this.labelLimiter = labelLimiter;
+    }
+
     @Override
     public void startConsuming() {
         sampleMetadata = getConsumedMetadata(0);
         timestamp = sampleMetadata.ensureIndexOf(CSVSaveService.TIME_STAMP);
+        label = sampleMetadata.indexOf(CSVSaveService.LABEL);
         super.setProducedMetadata(sampleMetadata, 0);
         startProducing();
     }
@@ -112,6 +135,8 @@ public class NormalizerSampleConsumer extends AbstractSampleConsumer {
         for (int i = 0; i < cc; i++) {
             if (i == timestamp) {
                 data[i] = Long.toString(time);
+            } else if (i == label && labelLimiter != null) {
+                data[i] = labelLimiter.map(s.getData(i));
             } else {
                 data[i] = s.getData(i);
             }
@@ -120,6 +145,21 @@ public class NormalizerSampleConsumer extends AbstractSampleConsumer {
         super.produce(rewritten, 0);
     }
 
+    /**
+     * Time stamps of a batch read with the millisecond format are already
+     * parsed, so the batch is produced as is instead of rewriting each sample,
+     * unless labels have to be mapped.
+     */
+    @Override
+    public void consume(SampleBatch batch, int channel) {
+        if (isMillisFormat && labelLimiter == null && batch.hasTimestamps()
+                && sampleMetadata.equals(batch.getMetadata())) {
+            super.produce(batch, 0);
+        } else {
+            super.consume(batch, channel);
+        }
+    }
+
     @Override
     public void stopConsuming() {
         super.stopProducing();
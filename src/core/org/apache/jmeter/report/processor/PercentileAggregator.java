@@ -84,6 +84,22 @@ public class PercentileAggregator implements Aggregator {
         statistics.addValue(value);
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(double value, long count) {
+        // A bounded window only keeps its last values
+        int windowSize = statistics.getWindowSize();
+        long times = windowSize == DescriptiveStatistics.INFINITE_WINDOW
+                ? count : Math.min(count, windowSize);
+        for (long i = 0; i < times; i++) {
+            statistics.addValue(value);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
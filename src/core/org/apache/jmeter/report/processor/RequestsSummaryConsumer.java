@@ -55,9 +55,9 @@ public class RequestsSummaryConsumer extends AbstractSampleConsumer {
     @Override
     public void consume(Sample sample, int channel) {
         if(!sample.isController()) {
-            count++;
+            count += sample.getSampleCount();
             if (!sample.getSuccess()) {
-                errorCount++;
+                errorCount += sample.getErrorCount();
             }
         }
         super.produce(sample, channel);
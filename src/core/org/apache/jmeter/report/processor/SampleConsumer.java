@@ -18,6 +18,7 @@
 package org.apache.jmeter.report.processor;
 
 import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
 import org.apache.jmeter.report.core.SampleMetadata;
 
 /**
@@ -82,6 +83,25 @@ public interface SampleConsumer extends SampleProcessor {
      */
     void consume(Sample s, int channel);
 
+    /**
+     * Consumes a batch of samples on the specified channel.
+     * <p>
+     * The default implementation consumes each sample of the batch in order.
+     * Consumers that can work on the columns of the batch directly may
+     * override it.
+     * </p>
+     *
+     * @param batch
+     *            The samples to be consumed
+     * @param channel
+     *            The channel on which the samples are consumed
+     */
+    default void consume(SampleBatch batch, int channel) {
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            consume(batch.getSample(i), channel);
+        }
+    }
+
     /**
      * Stops the consuming process. No sample will be processed after this
      * service has been called.
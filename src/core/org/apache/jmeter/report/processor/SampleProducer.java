@@ -18,6 +18,7 @@
 package org.apache.jmeter.report.processor;
 
 import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleBatch;
 import org.apache.jmeter.report.core.SampleMetadata;
 
 /**
@@ -73,6 +74,23 @@ public interface SampleProducer extends SampleProcessor {
      */
     void produce(Sample s, int channel);
 
+    /**
+     * Produce a batch of samples on the specified channel.
+     * <p>
+     * The default implementation produces each sample of the batch in order.
+     * </p>
+     *
+     * @param batch
+     *            The samples to produce
+     * @param channel
+     *            The channel on which to produce the samples
+     */
+    default void produce(SampleBatch batch, int channel) {
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            produce(batch.getSample(i), channel);
+        }
+    }
+
     /**
      * Stop producing samples, no <code>produce()</code> call should occur after
      * this service has been called.
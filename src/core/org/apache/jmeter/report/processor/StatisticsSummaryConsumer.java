@@ -66,19 +66,21 @@ public class StatisticsSummaryConsumer extends
         if(isOverall && sample.isController()) {
             return;
         }
-        data.incTotal();
+        // A sample can stand for several samples, its bytes and elapsed time are sums
+        int sampleCount = sample.getSampleCount();
+        data.incTotal(sampleCount);
         data.incBytes(sample.getReceivedBytes());
         data.incSentBytes(sample.getSentBytes());
 
         if (!sample.getSuccess()) {
-            data.incErrors();
+            data.incErrors(sample.getErrorCount());
         }
 
-        long elapsedTime = sample.getElapsedTime();
-        data.getPercentile1().addValue(elapsedTime);
-        data.getPercentile2().addValue(elapsedTime);
-        data.getPercentile3().addValue(elapsedTime);
-        data.getMean().addValue(elapsedTime);
+        long elapsedTime = sample.getMeanElapsedTime();
+        data.getPercentile1().addValue(elapsedTime, sampleCount);
+        data.getPercentile2().addValue(elapsedTime, sampleCount);
+        data.getPercentile3().addValue(elapsedTime, sampleCount);
+        data.getMean().addValue(elapsedTime, sampleCount);
         data.setMin(elapsedTime);
         data.setMax(elapsedTime);
 
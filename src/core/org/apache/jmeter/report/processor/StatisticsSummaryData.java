@@ -33,9 +33,9 @@ public class StatisticsSummaryData {
     private long errors = 0L;
     private long total = 0L;
     private final MeanAggregator mean;
-    private final PercentileAggregator percentile1;
-    private final PercentileAggregator percentile2;
-    private final PercentileAggregator percentile3;
+    private final HistogramPercentileAggregator percentile1;
+    private final HistogramPercentileAggregator percentile2;
+    private final HistogramPercentileAggregator percentile3;
     private long min = Long.MAX_VALUE;
     private long max = Long.MIN_VALUE;
 
@@ -163,7 +163,7 @@ public class StatisticsSummaryData {
     /**
      * @return the percentile1
      */
-    public final PercentileAggregator getPercentile1() {
+    public final HistogramPercentileAggregator getPercentile1() {
         return percentile1;
     }
 
@@ -172,7 +172,7 @@ public class StatisticsSummaryData {
      *
      * @return the percentile2
      */
-    public final PercentileAggregator getPercentile2() {
+    public final HistogramPercentileAggregator getPercentile2() {
         return percentile2;
     }
 
@@ -181,7 +181,7 @@ public class StatisticsSummaryData {
      *
      * @return the percentile3
      */
-    public final PercentileAggregator getPercentile3() {
+    public final HistogramPercentileAggregator getPercentile3() {
         return percentile3;
     }
 
@@ -193,9 +193,9 @@ public class StatisticsSummaryData {
      */
     public StatisticsSummaryData(long percentileIndex1, long percentileIndex2,
             long percentileIndex3) {
-        percentile1 = new PercentileAggregator(percentileIndex1);
-        percentile2 = new PercentileAggregator(percentileIndex2);
-        percentile3 = new PercentileAggregator(percentileIndex3);
+        percentile1 = new HistogramPercentileAggregator(percentileIndex1);
+        percentile2 = new HistogramPercentileAggregator(percentileIndex2);
+        percentile3 = new HistogramPercentileAggregator(percentileIndex3);
         mean = new MeanAggregator();
     }
 
@@ -230,6 +230,14 @@ public class StatisticsSummaryData {
         total++;
     }
 
+    /**
+     * Increment the number of samples
+     * @param count number of samples to add
+     */
+    public void incTotal(long count) {
+        total += count;
+    }
+
     /**
      * Increment received bytes
      * @param value bytes
@@ -252,6 +260,14 @@ public class StatisticsSummaryData {
         errors++;
     }
 
+    /**
+     * Increment the number of errors
+     * @param count number of errors to add
+     */
+    public void incErrors(long count) {
+        errors += count;
+    }
+
     /**
      * @return the mean response times
      */
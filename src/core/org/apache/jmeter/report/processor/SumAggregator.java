@@ -58,6 +58,17 @@ public class SumAggregator implements Aggregator {
         sum += value;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(double value, long count) {
+        this.count += count;
+        sum += value * count;
+    }
+
     /*
      * (non-Javadoc)
      * 
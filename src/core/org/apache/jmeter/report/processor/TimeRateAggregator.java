@@ -74,6 +74,17 @@ public class TimeRateAggregator implements Aggregator {
         this.value += value;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.jmeter.report.processor.Aggregator#addValue(double, long)
+     */
+    @Override
+    public void addValue(final double value, long count) {
+        this.count += count;
+        this.value += value * count;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -55,10 +55,11 @@ public class Top5ErrorsBySamplerConsumer extends
         }
         
         if(!sample.getSuccess()) {
-            data.registerError(ErrorsSummaryConsumer.getErrorKey(sample));
-            data.incErrors();
+            int sampleErrors = sample.getErrorCount();
+            data.registerError(ErrorsSummaryConsumer.getErrorKey(sample), sampleErrors);
+            data.incErrors(sampleErrors);
         }
-        data.incTotal();
+        data.incTotal(sample.getSampleCount());
     }
 
     /*
@@ -52,14 +52,35 @@ public class Top5ErrorsSummaryData {
         }
     }
 
+    /**
+     * Stores the provided error message and adds the number of times it
+     * occurred to its count.
+     *
+     * @param errorMessage String error message to register
+     * @param count number of occurrences of the error
+     */
+    public void registerError(String errorMessage, long count) {
+        Long value = countPerError.get(errorMessage);
+        countPerError.put(errorMessage,
+                Long.valueOf(value == null ? count : value.longValue() + count));
+    }
+
     public void incErrors() {
         errors++;
     }
 
+    public void incErrors(long count) {
+        errors += count;
+    }
+
     public void incTotal() {
         total++;
     }
 
+    public void incTotal(long count) {
+        total += count;
+    }
+
     public long getTotal() {
         return total;
     }
@@ -389,7 +389,7 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
      * Aggregate a value to the aggregator defined by the specified parameters.
      */
     private void aggregateValue(AggregatorFactory factory, SeriesData data,
-            Double key, double value) {
+            Double key, double value, long weight) {
         Map<Double, Aggregator> aggInfo = data.getAggregatorInfo();
 
         // Get or create aggregator
@@ -400,21 +400,21 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
         }
 
         // Add the value to the aggregator
-        aggregator.addValue(value);
+        aggregator.addValue(value, weight);
 
         // Increment the count of sample for this series
-        data.incrementCount();
+        data.incrementCount(weight);
 
         // Aggregate keys if needed (if aggregated keys series is set)
         Aggregator keysAgg = data.getKeysAggregator();
         if (keysAgg != null) {
-            keysAgg.addValue(key.doubleValue());
+            keysAgg.addValue(key.doubleValue(), weight);
         }
 
         // Aggregate values if needed (if aggregated keys series is set)
         Aggregator valuesAgg = data.getValuesAggregator();
         if (valuesAgg != null) {
-            valuesAgg.addValue(value);
+            valuesAgg.addValue(value, weight);
         }
     }
 
@@ -510,10 +510,12 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
                 Double value = groupInfo.getValueSelector().select(seriesName,
                         sample);
                 if(value != null) {
-                    aggregateValue(factory, seriesData, key, value);
+                    long weight = groupInfo.getValueSelector().selectWeight(
+                            seriesName, sample);
+                    aggregateValue(factory, seriesData, key, value, weight);
                     if (overallSeries) {
                         SeriesData overallData = groupData.getOverallSeries();
-                        aggregateValue(factory, overallData, key, value);
+                        aggregateValue(factory, overallData, key, value, weight);
                     }
                 }
             }
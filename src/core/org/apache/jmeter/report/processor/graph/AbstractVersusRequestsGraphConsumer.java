@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.jmeter.report.core.CsvSampleReader;
@@ -30,20 +31,32 @@ import org.apache.jmeter.report.core.SampleBuilder;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
 import org.apache.jmeter.report.processor.AbstractSampleConsumer;
+import org.apache.jmeter.report.processor.Aggregator;
+import org.apache.jmeter.report.processor.AggregatorFactory;
+import org.apache.jmeter.report.processor.HistogramPercentileAggregator;
 import org.apache.jmeter.report.processor.MapResultData;
 import org.apache.jmeter.report.processor.ValueResultData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The class AbstractOverTimeGraphConsumer provides a base class for over time
- * graphs.
+ * The class AbstractVersusRequestsGraphConsumer provides a base class for
+ * graphs whose keys are the number of requests per second of the time interval
+ * of each sample.
+ * <p>
+ * The key of a sample is only known once all the samples of its interval have
+ * been counted. When all the groups aggregate their values with
+ * {@link HistogramPercentileAggregator}s and have no aggregated keys series,
+ * the values are aggregated by time interval as they arrive, whatever their
+ * order, and the histograms of each interval are merged under their key at the
+ * end. Otherwise the samples are buffered on disk and consumed again once the
+ * intervals are counted.
+ * </p>
  *
  * @since 3.0
  */
 public abstract class AbstractVersusRequestsGraphConsumer extends
         AbstractGraphConsumer {
-    private static final Long ONE = Long.valueOf(1L);
     public static final String RESULT_CTX_GRANULARITY = "granularity";
     public static final String TIME_INTERVAL_LABEL = "Interval";
 
@@ -55,6 +68,12 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
      */
     private final TimeCountConsumer embeddedConsumer;
 
+    /** true if values are aggregated by time interval instead of buffered */
+    private boolean bucketed;
+
+    /** Data of each time interval, when bucketed */
+    private final Map<Long, IntervalData> intervals = new HashMap<>();
+
     /**
      * Gets the granularity.
      *
@@ -92,7 +111,28 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
      */
     @Override
     public void startConsuming() {
-        embeddedConsumer.startConsuming();
+        bucketed = supportsBucketing();
+        if (bucketed) {
+            intervals.clear();
+            int channelCount = embeddedConsumer.getConsumedChannelCount();
+            for (int i = 0; i < channelCount; i++) {
+                setConsumedMetadataBase(embeddedConsumer.getConsumedMetadata(i), i);
+            }
+            startConsumingBase();
+        } else {
+            embeddedConsumer.startConsuming();
+        }
+    }
+
+    private boolean supportsBucketing() {
+        for (GroupInfo groupInfo : getGroupInfos().values()) {
+            if (groupInfo.enablesAggregatedKeysSeries()
+                    || !(groupInfo.getAggregatorFactory().createValueAggregator()
+                            instanceof HistogramPercentileAggregator)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void startConsumingBase() {
@@ -125,7 +165,39 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
      */
     @Override
     public void consume(Sample sample, int channel) {
-        embeddedConsumer.consume(sample, channel);
+        if (!bucketed) {
+            embeddedConsumer.consume(sample, channel);
+            return;
+        }
+        Long interval = getTimeInterval(sample, granularity);
+        IntervalData intervalData = intervals.get(interval);
+        if (intervalData == null) {
+            intervalData = new IntervalData();
+            intervals.put(interval, intervalData);
+        }
+        intervalData.count += sample.getSampleCount();
+        for (Map.Entry<String, GroupInfo> entryGroup : getGroupInfos().entrySet()) {
+            GroupInfo groupInfo = entryGroup.getValue();
+            Map<String, SeriesData> seriesInfo = groupInfo.getGroupData().getSeriesInfo();
+            for (String seriesName : groupInfo.getSeriesSelector().select(sample)) {
+                if (!seriesInfo.containsKey(seriesName)) {
+                    seriesInfo.put(seriesName, new SeriesData(
+                            groupInfo.getAggregatorFactory(), false,
+                            groupInfo.getSeriesSelector().allowsControllersDiscrimination()
+                                    && sample.isController(),
+                            false));
+                }
+                Double value = groupInfo.getValueSelector().select(seriesName, sample);
+                if (value != null) {
+                    long weight = groupInfo.getValueSelector().selectWeight(seriesName, sample);
+                    intervalData.addValue(entryGroup.getKey(), seriesName, value.doubleValue(), weight);
+                    if (groupInfo.enablesOverallSeries()) {
+                        intervalData.addValue(entryGroup.getKey(), null, value.doubleValue(), weight);
+                    }
+                }
+            }
+        }
+        produce(sample, channel);
     }
 
     private void consumeBase(Sample sample, int channel) {
@@ -141,7 +213,61 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
      */
     @Override
     public void stopConsuming() {
-        embeddedConsumer.stopConsuming();
+        if (!bucketed) {
+            embeddedConsumer.stopConsuming();
+            return;
+        }
+        for (IntervalData intervalData : intervals.values()) {
+            Double key = Double.valueOf(
+                    getRequestsPerSecond(intervalData.count, granularity));
+            for (Map.Entry<String, Map<String, HistogramPercentileAggregator>> entryGroup
+                    : intervalData.histograms.entrySet()) {
+                GroupInfo groupInfo = getGroupInfos().get(entryGroup.getKey());
+                GroupData groupData = groupInfo.getGroupData();
+                for (Map.Entry<String, HistogramPercentileAggregator> entrySeries
+                        : entryGroup.getValue().entrySet()) {
+                    SeriesData seriesData = entrySeries.getKey() == null
+                            ? groupData.getOverallSeries()
+                            : groupData.getSeriesInfo().get(entrySeries.getKey());
+                    mergeValues(groupInfo.getAggregatorFactory(), seriesData,
+                            key, entrySeries.getValue());
+                }
+            }
+        }
+        intervals.clear();
+        stopConsumingBase();
+    }
+
+    private static void mergeValues(AggregatorFactory factory,
+            SeriesData seriesData, Double key,
+            HistogramPercentileAggregator values) {
+        Map<Double, Aggregator> aggInfo = seriesData.getAggregatorInfo();
+        Aggregator aggregator = aggInfo.get(key);
+        if (aggregator == null) {
+            aggregator = factory.createValueAggregator();
+            aggInfo.put(key, aggregator);
+        }
+        ((HistogramPercentileAggregator) aggregator).add(values);
+        seriesData.incrementCount(values.getCount());
+    }
+
+    private static Long getTimeInterval(Sample sample, long granularity) {
+        long time = sample.getEndTime();
+        return Long.valueOf(time - (time % granularity));
+    }
+
+    /**
+     * Gets the key of the samples of a time interval.
+     *
+     * @param count
+     *            the number of samples of the interval
+     * @param granularity
+     *            the length of the interval
+     * @return the number of requests per second
+     */
+    private static long getRequestsPerSecond(long count, long granularity) {
+        long requestsPerGranularity = count % granularity;
+        return requestsPerGranularity * 1000 / granularity;
     }
 
     public void stopConsumingBase() {
@@ -160,6 +286,31 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
                 Long.valueOf(granularity)));
     }
 
+    /**
+     * Number of samples and histograms of the values of a time interval, by
+     * group and series. The overall series of a group is stored under the
+     * {@code null} series name.
+     */
+    private static final class IntervalData {
+        private long count;
+        private final Map<String, Map<String, HistogramPercentileAggregator>> histograms = new HashMap<>();
+
+        private void addValue(String group, String series, double value, long weight) {
+            Map<String, HistogramPercentileAggregator> groupHistograms = histograms.get(group);
+            if (groupHistograms == null) {
+                groupHistograms = new HashMap<>();
+                histograms.put(group, groupHistograms);
+            }
+            HistogramPercentileAggregator histogram = groupHistograms.get(series);
+            if (histogram == null) {
+                // The percentile index is only used by the aggregators the histograms are merged into
+                histogram = new HistogramPercentileAggregator(50);
+                groupHistograms.put(series, histogram);
+            }
+            histogram.addValue(value, weight);
+        }
+    }
+
     private static class TimeCountConsumer extends AbstractSampleConsumer {
 
         private static final Logger log = LoggerFactory.getLogger(TimeCountConsumer.class);
@@ -212,8 +363,7 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
         }
 
         private Long getTimeInterval(Sample sample) {
-            long time = sample.getEndTime();
-            return Long.valueOf(time - (time % parent.getGranularity()));
+            return AbstractVersusRequestsGraphConsumer.getTimeInterval(sample, parent.getGranularity());
         }
 
         // Adds a new field in the sample metadata for each channel
@@ -306,9 +456,9 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
             Long time = getTimeInterval(sample);
             Long count = counts.get(time);
             if (count != null) {
-                counts.put(time, Long.valueOf(count.longValue() + 1));
+                counts.put(time, Long.valueOf(count.longValue() + sample.getSampleCount()));
             } else {
-                counts.put(time, ONE);
+                counts.put(time, Long.valueOf(sample.getSampleCount()));
             }
             fileInfos.get(channel).getWriter().write(sample);
         }
@@ -335,9 +485,9 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
                     while (reader.hasNext()) {
                         Sample sample = reader.readSample();
                         // Ask parent to consume the altered sample
-                        Long requestsPerGranularity = counts.get(getTimeInterval(sample)).longValue()
-                                % parent.getGranularity();
-                        Long requestsPerSecond = requestsPerGranularity * 1000 / parent.getGranularity();
+                        long requestsPerSecond = getRequestsPerSecond(
+                                counts.get(getTimeInterval(sample)).longValue(),
+                                parent.getGranularity());
                         parent.consumeBase(
                                 createIndexedSample(sample, i, requestsPerSecond), i);
                     }
@@ -46,11 +46,11 @@ public class ConnectTimeValueSelector extends AbstractGraphValueSelector {
     public Double select(String series, Sample sample) {        
         if(isIgnoreTransactionController()) {
             if(!sample.isController()) {
-                return Double.valueOf(sample.getConnectTime());
+                return Double.valueOf(sample.getMeanConnectTime());
             }
         } else {
             if(!sample.isEmptyController()) {
-                return Double.valueOf(sample.getConnectTime());
+                return Double.valueOf(sample.getMeanConnectTime());
             }
         }
         return null;
@@ -45,11 +45,11 @@ public class ElapsedTimeValueSelector extends AbstractGraphValueSelector {
     public Double select(String series, Sample sample) {
         if(isIgnoreTransactionController()) {
             if(!sample.isController()) {
-                return Double.valueOf(sample.getElapsedTime());
+                return Double.valueOf(sample.getMeanElapsedTime());
             }
         } else {
             if(!sample.isEmptyController()) {
-                return Double.valueOf(sample.getElapsedTime());
+                return Double.valueOf(sample.getMeanElapsedTime());
             }
         }
         return null;
@@ -38,4 +38,20 @@ public interface GraphValueSelector {
      * @return the value to aggregate or null if value should be ignored
      */
     Double select(String series, Sample sample);
+
+    /**
+     * Gets the number of samples the value selected for the specified series
+     * stands for, i.e. the number of times it is aggregated.
+     *
+     * @param series
+     *            the series where the value will be aggregated
+     * @param sample
+     *            the sample
+     * @return the weight of the value, the sample count of the sample by
+     *         default
+     * @since 4.0
+     */
+    default long selectWeight(String series, Sample sample) {
+        return sample.getSampleCount();
+    }
 }
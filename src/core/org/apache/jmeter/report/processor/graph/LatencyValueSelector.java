@@ -46,11 +46,11 @@ public class LatencyValueSelector extends AbstractGraphValueSelector {
     public Double select(String series, Sample sample) {        
         if(isIgnoreTransactionController()) {
             if(!sample.isController()) {
-                return Double.valueOf(sample.getLatency());
+                return Double.valueOf(sample.getMeanLatency());
             }
         } else {
             if(!sample.isEmptyController()) {
-                return Double.valueOf(sample.getLatency());
+                return Double.valueOf(sample.getMeanLatency());
             }
         }
         return null;
@@ -40,7 +40,7 @@ public class SuccessfulElapsedTimeValueSelector extends ElapsedTimeValueSelector
     @Override
     public Double select(String series, Sample sample) {
         if(!sample.isController() && sample.getSuccess()) {
-            return Double.valueOf(sample.getElapsedTime());
+            return Double.valueOf(sample.getMeanElapsedTime());
         } else {
             return null;
         }
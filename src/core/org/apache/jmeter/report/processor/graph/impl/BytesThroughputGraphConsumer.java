@@ -87,6 +87,12 @@ public class BytesThroughputGraphConsumer extends AbstractOverTimeGraphConsumer
                             return null;
                         }
                     }
+
+                    @Override
+                    public long selectWeight(String series, Sample sample) {
+                        // Bytes of a sample standing for several samples are already summed
+                        return 1L;
+                    }
                 }, false, false));
         return groupInfos;
     }
@@ -71,7 +71,7 @@ public class ResponseTimeDistributionGraphConsumer extends
 
             @Override
             public Double select(Sample sample) {
-                long elapsed = sample.getElapsedTime();
+                long elapsed = sample.getMeanElapsedTime();
                 return Double.valueOf((double) elapsed - elapsed % granularity);
             }
         };
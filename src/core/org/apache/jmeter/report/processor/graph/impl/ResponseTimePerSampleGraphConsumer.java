@@ -20,9 +20,9 @@ package org.apache.jmeter.report.processor.graph.impl;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.jmeter.report.processor.HistogramPercentileAggregatorFactory;
 import org.apache.jmeter.report.processor.ListResultData;
 import org.apache.jmeter.report.processor.MapResultData;
-import org.apache.jmeter.report.processor.PercentileAggregatorFactory;
 import org.apache.jmeter.report.processor.ValueResultData;
 import org.apache.jmeter.report.processor.graph.AbstractGraphConsumer;
 import org.apache.jmeter.report.processor.graph.ElapsedTimeValueSelector;
@@ -73,7 +73,7 @@ public class ResponseTimePerSampleGraphConsumer extends AbstractGraphConsumer {
      */
     private GroupInfo createGroupInfo(String propertyKey, int defaultValue) {
         int property = JMeterUtils.getPropDefault(propertyKey, defaultValue);
-        PercentileAggregatorFactory factory = new PercentileAggregatorFactory();
+        HistogramPercentileAggregatorFactory factory = new HistogramPercentileAggregatorFactory();
         factory.setPercentileIndex(property);
         StaticSeriesSelector seriesSelector = new StaticSeriesSelector();
         seriesSelector.setSeriesName(String.format(
@@ -56,7 +56,7 @@ public class ResponseTimePercentilesGraphConsumer extends AbstractGraphConsumer
 
             @Override
             public Double select(Sample sample) {
-                return Double.valueOf(sample.getElapsedTime());
+                return Double.valueOf(sample.getMeanElapsedTime());
             }
         };
     }
@@ -20,9 +20,9 @@ package org.apache.jmeter.report.processor.graph.impl;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.jmeter.report.processor.HistogramPercentileAggregatorFactory;
 import org.apache.jmeter.report.processor.MaxAggregatorFactory;
 import org.apache.jmeter.report.processor.MinAggregatorFactory;
-import org.apache.jmeter.report.processor.PercentileAggregatorFactory;
 import org.apache.jmeter.report.processor.graph.AbstractOverTimeGraphConsumer;
 import org.apache.jmeter.report.processor.graph.GroupInfo;
 import org.apache.jmeter.report.processor.graph.StaticSeriesSelector;
@@ -67,7 +67,7 @@ public class ResponseTimePercentilesOverTimeGraphConsumer extends
      */
     private GroupInfo createPercentileGroupInfo(String propertyKey, int defaultValue, String serieName) {
         int property = JMeterUtils.getPropDefault(propertyKey, defaultValue);
-        PercentileAggregatorFactory factory = new PercentileAggregatorFactory();
+        HistogramPercentileAggregatorFactory factory = new HistogramPercentileAggregatorFactory();
         factory.setPercentileIndex(property);
         StaticSeriesSelector seriesSelector = new StaticSeriesSelector();
         seriesSelector.setSeriesName(serieName);
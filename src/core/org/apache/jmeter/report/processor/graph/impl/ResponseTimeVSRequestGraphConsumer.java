@@ -21,7 +21,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.jmeter.report.core.Sample;
-import org.apache.jmeter.report.processor.MedianAggregatorFactory;
+import org.apache.jmeter.report.processor.HistogramPercentileAggregatorFactory;
 import org.apache.jmeter.report.processor.graph.AbstractGraphConsumer;
 import org.apache.jmeter.report.processor.graph.AbstractVersusRequestsGraphConsumer;
 import org.apache.jmeter.report.processor.graph.ElapsedTimeValueSelector;
@@ -65,7 +65,7 @@ public class ResponseTimeVSRequestGraphConsumer extends
     protected Map<String, GroupInfo> createGroupInfos() {
         HashMap<String, GroupInfo> groupInfos = new HashMap<>(1);
         groupInfos.put(AbstractGraphConsumer.DEFAULT_GROUP, new GroupInfo(
-                new MedianAggregatorFactory(), new StatusSeriesSelector(),
+                new HistogramPercentileAggregatorFactory(50), new StatusSeriesSelector(),
                 // We ignore Transaction Controller results
                 new ElapsedTimeValueSelector(true), false, false));
         return groupInfos;
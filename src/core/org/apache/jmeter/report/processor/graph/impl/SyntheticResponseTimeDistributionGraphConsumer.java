@@ -56,7 +56,7 @@ public class SyntheticResponseTimeDistributionGraphConsumer extends
             if(!sample.getSuccess()) {
                 return Arrays.asList(FAILED_LABEL);
             } else {
-                long elapsedTime = sample.getElapsedTime();
+                long elapsedTime = sample.getMeanElapsedTime();
                 if(elapsedTime<=getSatisfiedThreshold()) {
                     return Arrays.asList(SATISFIED_LABEL.format(new Object[] {Long.valueOf(getSatisfiedThreshold())}));
                 } else if(elapsedTime <= getToleratedThreshold()) {
@@ -80,7 +80,7 @@ public class SyntheticResponseTimeDistributionGraphConsumer extends
             @Override
             public Double select(Sample sample) {
                 if(sample.getSuccess()) {
-                    long elapsedTime = sample.getElapsedTime();
+                    long elapsedTime = sample.getMeanElapsedTime();
                     if(elapsedTime<=satisfiedThreshold) {
                         return Double.valueOf(0);
                     } else if(elapsedTime <= toleratedThreshold) {
@@ -18,31 +18,30 @@
 
 package org.apache.jmeter.reporters;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
+import java.io.Reader;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.gui.GuiPackage;
+import org.apache.jmeter.samplers.BatchSampleListener;
 import org.apache.jmeter.samplers.Clearable;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
 import org.apache.jmeter.save.CSVSaveService;
 import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.services.FileServer;
@@ -50,6 +49,7 @@ import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.ObjectProperty;
 import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.visualizers.GuiSampleBus;
 import org.apache.jmeter.visualizers.Visualizer;
 import org.apache.jorphan.util.JMeterError;
 import org.slf4j.Logger;
@@ -59,7 +59,7 @@ import org.slf4j.LoggerFactory;
  * This class handles all saving of samples.
  * The class must be thread-safe because it is shared between threads (NoThreadClone).
  */
-public class ResultCollector extends AbstractListenerElement implements SampleListener, Clearable, Serializable,
+public class ResultCollector extends AbstractListenerElement implements BatchSampleListener, Clearable, Serializable,
         TestStateListener, Remoteable, NoThreadClone {
     /**
      * Keep track of the file writer and the configuration,
@@ -67,11 +67,28 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * them. This means one cannot use the saved PrintWriter or use getSaveConfig()
      */
     private static class FileEntry{
-        final PrintWriter pw;
+        final ResultFileWriter pw;
         final SampleSaveConfiguration config;
-        FileEntry(PrintWriter _pw, SampleSaveConfiguration _config){
+        final ResultSampler sampler; // null if sampling is disabled
+        FileEntry(ResultFileWriter _pw, SampleSaveConfiguration _config, ResultSampler _sampler){
             pw =_pw;
             config = _config;
+            sampler = _sampler;
+        }
+
+        /**
+         * Save the results held by the sampler, if any
+         */
+        void flushSampler() {
+            if (sampler != null) {
+                for (SampleEvent event : sampler.flush()) {
+                    try {
+                        saveSample(event, config, pw, null);
+                    } catch (Exception err) {
+                        log.error("Error trying to record a sample", err);
+                    }
+                }
+            }
         }
     }
     
@@ -118,6 +135,11 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
     /** AutoFlush on each line */
     private static final boolean SAVING_AUTOFLUSH = JMeterUtils.getPropDefault("jmeter.save.saveservice.autoflush", false); //$NON-NLS-1$
 
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /** In GUI mode, pass samples to the visualizers through the {@link GuiSampleBus} rather than in the sampler threads */
+    private static final boolean GUI_SAMPLE_BUS = JMeterUtils.getPropDefault("jmeter.gui.sample_bus", true); //$NON-NLS-1$
+
     // Static variables
 
     // Lock used to guard static mutable variables
@@ -139,7 +161,9 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
     private static int instanceCount; // Keep track of how many instances are active
 
     // Instance variables (guarded by volatile)
-    private transient volatile PrintWriter out;
+    private transient volatile ResultFileWriter out;
+
+    private transient volatile ResultSampler sampler;
 
     /**
      * Is a test running ?
@@ -320,8 +344,12 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             try {
                 if (out == null) {
                     try {
-                        // Note: getFileWriter ignores a null filename
-                        out = getFileWriter(getFilename(), getSaveConfig());
+                        // Note: getFileEntry ignores a null filename
+                        FileEntry entry = getFileEntry(getFilename(), getSaveConfig());
+                        if (entry != null) {
+                            sampler = entry.sampler;
+                            out = entry.pw;
+                        }
                     } catch (FileNotFoundException e) {
                         out = null;
                     }
@@ -368,7 +396,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         String filename = getFilename();
         File file = new File(filename);
         if (file.exists()) {
-            try ( FileReader fr = new FileReader(file); 
+            try ( Reader fr = new InputStreamReader(BlockGzip.newInputStream(file), StandardCharsets.UTF_8);
                     BufferedReader dataReader = new BufferedReader(fr, 300)){
                 // Get the first line, and see if it is XML
                 String line = dataReader.readLine();
@@ -380,8 +408,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
                         CSVSaveService.processSamples(filename, visualizer, this);
                         parsedOK = true;
                     } else { // We are processing XML
-                        try ( FileInputStream fis = new FileInputStream(file);
-                                BufferedInputStream bufferedInputStream = new BufferedInputStream(fis); ){ // Assume XStream
+                        try ( InputStream bufferedInputStream = BlockGzip.newInputStream(file) ){ // Assume XStream
                             SaveService.loadTestResults(bufferedInputStream,
                                     new ResultCollectorHelper(this, visualizer));
                             parsedOK = true;
@@ -408,7 +435,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
-    private static void writeFileStart(PrintWriter writer, SampleSaveConfiguration saveConfig) {
+    static void writeFileStart(PrintWriter writer, SampleSaveConfiguration saveConfig) {
         if (saveConfig.saveAsXml()) {
             writer.print(XML_HEADER);
             // Write the EOL separately so we generate LF line ends on Unix and Windows
@@ -429,7 +456,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
-    private static void writeFileEnd(PrintWriter pw, SampleSaveConfiguration saveConfig) {
+    static void writeFileEnd(PrintWriter pw, SampleSaveConfiguration saveConfig) {
         if (saveConfig.saveAsXml()) {
             pw.print("\n"); // $NON-NLS-1$
             pw.print(TESTRESULTS_END);
@@ -437,7 +464,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
-    private static PrintWriter getFileWriter(final String pFilename, SampleSaveConfiguration saveConfig)
+    private static FileEntry getFileEntry(final String pFilename, SampleSaveConfiguration pSaveConfig)
             throws IOException {
         if (pFilename == null || pFilename.length() == 0) {
             return null;
@@ -448,11 +475,15 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         String filename = FileServer.resolveBaseRelativeName(pFilename);
         filename = new File(filename).getCanonicalPath(); // try to ensure uniqueness (Bug 60822)
         FileEntry fe = files.get(filename);
-        PrintWriter writer = null;
+        SampleSaveConfiguration saveConfig = pSaveConfig;
         boolean trimmed = true;
 
         if (fe == null) {
-            if (saveConfig.saveAsXml()) {
+            if (saveConfig.saveAsXml() && BlockGzip.isCompressed(filename)) {
+                // The end of a compressed XML file can not be trimmed to append to it
+                ResultFileWriter.rollExisting(new File(filename));
+                trimmed = false;
+            } else if (saveConfig.saveAsXml()) {
                 trimmed = trimLastLine(filename);
             } else {
                 trimmed = new File(filename).exists();
@@ -471,20 +502,22 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
                     log.warn("Error creating directories for {}", pdir);
                 }
             }
-            writer = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(filename,
-                    trimmed)), SaveService.getFileEncoding(StandardCharsets.UTF_8.name())), SAVING_AUTOFLUSH);
+            ResultSampler resultSampler = ResultSampler.create(new File(filename), saveConfig);
+            if (resultSampler != null) {
+                saveConfig = resultSampler.getSaveConfig();
+            }
+            ResultFileWriter writer = new ResultFileWriter(new File(filename), trimmed, saveConfig, SAVING_AUTOFLUSH);
             if(log.isDebugEnabled()) {
                 log.debug("Opened file: {} in thread {}", filename, Thread.currentThread().getName());
             }
-            files.put(filename, new FileEntry(writer, saveConfig));
-        } else {
-            writer = fe.pw;
+            fe = new FileEntry(writer, saveConfig, resultSampler);
+            files.put(filename, fe);
         }
         if (!trimmed) {
             log.debug("Writing header to file: {}", filename);
-            writeFileStart(writer, saveConfig);
+            writeFileStart(fe.pw, saveConfig);
         }
-        return writer;
+        return fe;
     }
 
     // returns false if the file did not contain the terminator
@@ -541,34 +574,105 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      */
     @Override
     public void sampleOccurred(SampleEvent event) {
-        SampleResult result = event.getResult();
+        ResultFileWriter writer = out; // read once, testEnded may clear it meanwhile
+        recordSample(event, writer, null);
+        if (writer != null) {
+            writer.rollIfDue();
+        }
 
-        if (isSampleWanted(result.isSuccessful())) {
-            sendToVisualizer(result);
-            if (out != null && !isResultMarked(result) && !this.isStats) {
-                SampleSaveConfiguration config = getSaveConfig();
-                result.setSaveConfig(config);
-                try {
-                    if (config.saveAsXml()) {
-                        SaveService.saveSampleResult(event, out);
-                    } else { // !saveAsXml
-                        String savee = CSVSaveService.resultToDelimitedString(event);
-                        out.println(savee);
+        if(summariser != null) {
+            summariser.sampleOccurred(event);
+        }
+    }
+
+    /**
+     * When several test results are received, display them and save them.
+     * CSV lines are written to the file in one call.
+     * <p>
+     * Subclasses receive each sample through {@link #sampleOccurred(SampleEvent)},
+     * which they may override.
+     *
+     * @param events
+     *            the sample events that were received
+     */
+    @Override
+    public void sampleOccurredBatch(List<SampleEvent> events) {
+        if (getClass() != ResultCollector.class) {
+            for (SampleEvent event : events) {
+                sampleOccurred(event);
+            }
+            return;
+        }
+        ResultFileWriter writer = out; // read once, testEnded may clear it meanwhile
+        StringBuilder lines = new StringBuilder(events.size() * 128);
+        for (SampleEvent event : events) {
+            recordSample(event, writer, lines);
+        }
+        if (writer != null) {
+            if (lines.length() > 0) {
+                writer.print(lines);
+            }
+            writer.rollIfDue();
+        }
+
+        if(summariser != null) {
+            summariser.sampleOccurredBatch(events);
+        }
+    }
+
+    /**
+     * Display a test result if it is wanted, and save it, or the results sampled from it, to the result file.
+     *
+     * @param event the sample event that was received
+     * @param writer the result file, null if none
+     * @param lines buffer to append CSV lines to, null to print them at once
+     */
+    private void recordSample(SampleEvent event, ResultFileWriter writer, StringBuilder lines) {
+        SampleResult result = event.getResult();
+        if (!isSampleWanted(result.isSuccessful())) {
+            return;
+        }
+        sendToVisualizer(result);
+        if (writer != null && !isResultMarked(result) && !this.isStats) {
+            ResultSampler resultSampler = sampler;
+            SampleSaveConfiguration config = resultSampler != null ? resultSampler.getSaveConfig() : getSaveConfig();
+            result.setSaveConfig(config);
+            try {
+                if (resultSampler == null) {
+                    saveSample(event, config, writer, lines);
+                } else {
+                    for (SampleEvent saved : resultSampler.sample(event)) {
+                        saveSample(saved, config, writer, lines);
                     }
-                } catch (Exception err) {
-                    log.error("Error trying to record a sample", err); // should throw exception back to caller
                 }
+            } catch (Exception err) {
+                log.error("Error trying to record a sample", err); // should throw exception back to caller
             }
         }
+    }
 
-        if(summariser != null) {
-            summariser.sampleOccurred(event);
+    /**
+     * Save a sample event to a result file
+     */
+    private static void saveSample(SampleEvent event, SampleSaveConfiguration config, PrintWriter writer,
+            StringBuilder lines) throws Exception {
+        if (config.saveAsXml()) {
+            SaveService.saveSampleResult(event, writer);
+        } else if (lines == null) { // !saveAsXml
+            writer.println(CSVSaveService.resultToDelimitedString(event));
+        } else {
+            lines.append(CSVSaveService.resultToDelimitedString(event)).append(LINE_SEPARATOR);
         }
     }
 
     protected final void sendToVisualizer(SampleResult r) {
-        if (getVisualizer() != null) {
-            getVisualizer().add(r);
+        Visualizer visualizer = getVisualizer();
+        if (visualizer != null) {
+            if (GUI_SAMPLE_BUS && GuiPackage.getInstance() != null) {
+                GuiSampleBus.getInstance().publish(visualizer, r);
+            } else {
+                visualizer.add(r);
+            }
         }
     }
 
@@ -586,9 +690,10 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * Flush PrintWriter to synchronize file contents
      */
     public void flushFile() {
-        if (out != null) {
+        ResultFileWriter writer = out;
+        if (writer != null) {
             log.info("forced flush through ResultCollector#flushFile");
-            out.flush();
+            writer.flush();
         }
     }
 
@@ -600,6 +705,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             String key = me.getKey();
             ResultCollector.FileEntry value = me.getValue();
             log.debug("Flushing: {}", key);
+            value.flushSampler();
             value.pw.flush();
             if (value.pw.checkError()){
                 log.warn("Problem detected during use of {}", key);
@@ -613,6 +719,10 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             ResultCollector.FileEntry value = me.getValue();
             try {
                 log.debug("Closing: {}", key);
+                value.flushSampler();
+                if (value.sampler != null) {
+                    value.sampler.close();
+                }
                 writeFileEnd(value.pw, value.config);
                 value.pw.close();
                 if (value.pw.checkError()){
@@ -624,6 +734,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
         files.clear();
         out = null;
+        sampler = null;
     }
 
     /**
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
+import org.apache.jmeter.save.BlockGzipOutputStream;
+import org.apache.jmeter.save.RolledFiles;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writer of a result file, shared by the {@link ResultCollector}s saving to this file.
+ * <p>
+ * Files whose name ends with <code>.gz</code> are compressed with a {@link BlockGzipOutputStream}.
+ * <p>
+ * The file is rolled when it exceeds <code>jmeter.save.saveservice.rolling.size</code> bytes
+ * (counting the bytes that left the write buffers),
+ * or when it was opened more than <code>jmeter.save.saveservice.rolling.interval</code> seconds ago:
+ * it is renamed by {@link RolledFiles#nextRolledFile(File)}, completed, and a new file is started.
+ * If it cannot be renamed, the results go on in the same file and it is not rolled again.
+ */
+class ResultFileWriter extends PrintWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultFileWriter.class);
+
+    private static final int BLOCK_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.compression.block_size", 1024 * 1024); // $NON-NLS-1$
+
+    private static final int COMPRESSION_THREADS =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.compression.threads", 1); // $NON-NLS-1$
+
+    private static final long ROLLING_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.rolling.size", 0L); // $NON-NLS-1$
+
+    private static final long ROLLING_INTERVAL =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.rolling.interval", 0L); // $NON-NLS-1$
+
+    /** The file being written and the stream counting its bytes */
+    private static final class Target {
+        final Writer writer;
+        final CountingOutputStream counter;
+        final long initialLength;
+        final long openedAt = System.currentTimeMillis();
+
+        Target(File file, boolean append) throws IOException {
+            initialLength = append ? file.length() : 0L;
+            counter = new CountingOutputStream(new FileOutputStream(file, append));
+            OutputStream out = new BufferedOutputStream(counter);
+            if (BlockGzip.isCompressed(file.getName())) {
+                out = new BlockGzipOutputStream(out, BLOCK_SIZE, COMPRESSION_THREADS);
+            }
+            writer = new OutputStreamWriter(out, SaveService.getFileEncoding(StandardCharsets.UTF_8.name()));
+        }
+
+        long size() {
+            return initialLength + counter.getByteCount();
+        }
+    }
+
+    private final File file;
+
+    private final SampleSaveConfiguration config;
+
+    private final long rollingSize;
+
+    private final long rollingIntervalMs;
+
+    private volatile Target target;
+
+    /** Set if the file could not be renamed, to avoid trying again on each sample */
+    private volatile boolean rollingFailed;
+
+    /**
+     * @param file the file to write
+     * @param append true to append to an existing file
+     * @param config the save configuration of the file
+     * @param autoFlush true to flush after each line, ignored for compressed files
+     * @throws IOException if the file can not be opened
+     */
+    ResultFileWriter(File file, boolean append, SampleSaveConfiguration config, boolean autoFlush)
+            throws IOException {
+        this(new Target(file, append), file, config, autoFlush, ROLLING_SIZE, ROLLING_INTERVAL * 1000L);
+    }
+
+    /**
+     * Constructor for tests, with explicit rolling settings
+     */
+    ResultFileWriter(File file, boolean append, SampleSaveConfiguration config,
+            long rollingSize, long rollingIntervalMs) throws IOException {
+        this(new Target(file, append), file, config, false, rollingSize, rollingIntervalMs);
+    }
+
+    private ResultFileWriter(Target target, File file, SampleSaveConfiguration config, boolean autoFlush,
+            long rollingSize, long rollingIntervalMs) {
+        // Compressing each line in its own block would defeat compression
+        super(target.writer, autoFlush && !BlockGzip.isCompressed(file.getName()));
+        this.target = target;
+        this.file = file;
+        this.config = config;
+        this.rollingSize = rollingSize;
+        this.rollingIntervalMs = rollingIntervalMs;
+    }
+
+    /**
+     * @return true if the file should be rolled
+     */
+    boolean isRollDue() {
+        if (rollingFailed) {
+            return false;
+        }
+        Target current = target;
+        return (rollingSize > 0 && current.size() >= rollingSize)
+                || (rollingIntervalMs > 0 && System.currentTimeMillis() - current.openedAt >= rollingIntervalMs);
+    }
+
+    /**
+     * Roll the file if it is due.
+     * Must be called between samples, the file is completed with the end of the results document.
+     */
+    void rollIfDue() {
+        if (!isRollDue()) {
+            return;
+        }
+        synchronized (lock) {
+            if (out == null || !isRollDue()) {
+                return;
+            }
+            File rolled = RolledFiles.nextRolledFile(file);
+            boolean moved = false;
+            try {
+                out.close();
+                Files.move(file.toPath(), rolled.toPath());
+                moved = true;
+                log.info("Rolled result file {} to {}", file, rolled);
+            } catch (IOException e) {
+                log.error("Error rolling result file {} to {}, continuing in the same file", file, rolled, e);
+                rollingFailed = true;
+                setError();
+            }
+            if (moved) {
+                writeEnd(rolled);
+            }
+            try {
+                // If the file could not be moved, its results go on without a new start of document
+                target = new Target(file, !moved);
+                out = target.writer;
+            } catch (IOException e) {
+                log.error("Error opening result file {}", file, e);
+                out = null;
+                setError();
+                return;
+            }
+            if (moved) {
+                ResultCollector.writeFileStart(this, config);
+            }
+        }
+    }
+
+    /**
+     * Complete a rolled file with the end of the results document, if it has one.
+     */
+    private void writeEnd(File rolled) {
+        if (!config.saveAsXml()) {
+            return;
+        }
+        try (PrintWriter end = new PrintWriter(new Target(rolled, true).writer)) {
+            ResultCollector.writeFileEnd(end, config);
+            if (end.checkError()) {
+                log.error("Error completing rolled result file {}", rolled);
+            }
+        } catch (IOException e) {
+            log.error("Error completing rolled result file {}", rolled, e);
+        }
+    }
+
+    /**
+     * Move an existing file that can not be appended to, such as a compressed XML file, out of the way.
+     *
+     * @param file the result file
+     * @return true if the file existed and was moved
+     */
+    static boolean rollExisting(File file) {
+        if (!file.exists()) {
+            return false;
+        }
+        File rolled = RolledFiles.nextRolledFile(file);
+        try {
+            Files.move(file.toPath(), rolled.toPath());
+            log.info("Moved existing result file {} to {}", file, rolled);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not move existing result file {} to {}", file, rolled, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.CharUtils;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the results saved to a result file when sampling is enabled,
+ * for tests whose throughput makes saving every result too costly.
+ * <p>
+ * Failed results are saved as they occur.
+ * Successful results are grouped by interval of their end time and by label,
+ * and the ones to save are chosen when their interval is complete:
+ * <code>jmeter.save.saveservice.sampling.reservoir_size</code> results drawn uniformly
+ * if it is positive, otherwise each result with probability <code>jmeter.save.saveservice.sampling.rate</code>
+ * (keeping at least one).
+ * Saved successes are copies whose sample count is the number of successes they stand for,
+ * so the sample counts of an interval and label add up to its exact number of successes.
+ * Like the results of the Statistical mode, their elapsed time, latency and connect time are
+ * their own multiplied by that count, and their bytes are the sum of the bytes of these successes.
+ * <p>
+ * The exact count, errors, elapsed times and bytes of each interval and label are written
+ * to a companion CSV file, see {@link #getAggregatesFile(File)}.
+ * They are not written to the result file, where they would be counted twice.
+ * <p>
+ * The instance is shared by the collectors saving to the same file.
+ */
+final class ResultSampler {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSampler.class);
+
+    private static final float RATE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.sampling.rate", 1.0f); // $NON-NLS-1$
+
+    private static final int RESERVOIR_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.sampling.reservoir_size", 0); // $NON-NLS-1$
+
+    private static final long INTERVAL =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.sampling.interval", 1000L); // $NON-NLS-1$
+
+    private static final boolean AGGREGATES =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.sampling.aggregates", true); // $NON-NLS-1$
+
+    private static final String AGGREGATES_SUFFIX = ".aggregates.csv"; // $NON-NLS-1$
+
+    private static final String[] AGGREGATES_COLUMNS = {
+            CSVSaveService.TIME_STAMP, CSVSaveService.LABEL, "count", "errors", // $NON-NLS-1$ // $NON-NLS-2$
+            "totalElapsed", "minElapsed", "maxElapsed", // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$
+            CSVSaveService.CSV_BYTES, CSVSaveService.CSV_SENT_BYTES };
+
+    /** Results of an interval with the same label */
+    private static final class Bucket {
+        private long count;
+        private long errors;
+        private long totalElapsed;
+        private long minElapsed = Long.MAX_VALUE;
+        private long maxElapsed = Long.MIN_VALUE;
+        private long bytes;
+        private long sentBytes;
+        /** Number, bytes and sent bytes of the successes subject to sampling */
+        private long successes;
+        private long successBytes;
+        private long successSentBytes;
+        private final List<SampleEvent> kept = new ArrayList<>();
+        /** Last success not kept, saved if no other is */
+        private SampleEvent fallback;
+    }
+
+    private final SampleSaveConfiguration saveConfig;
+
+    private final float rate;
+
+    private final int reservoirSize;
+
+    private final long interval;
+
+    private final char[] specials;
+
+    private final String delimiter;
+
+    /** Open intervals by index, buckets by label */
+    private final TreeMap<Long, Map<String, Bucket>> intervals = new TreeMap<>();
+
+    private final PrintWriter aggregates;
+
+    /**
+     * @param saveConfig the configuration of the result file, the results are saved with their sample count
+     * @param rate probability of saving a success if there is no reservoir
+     * @param reservoirSize maximum number of successes saved by interval and label, 0 to use the rate
+     * @param interval length of the intervals in milliseconds
+     * @param aggregatesFile companion file of the aggregates, may be null to not write them
+     * @throws IOException if the aggregates file can not be opened
+     */
+    ResultSampler(SampleSaveConfiguration saveConfig, float rate, int reservoirSize, long interval,
+            File aggregatesFile) throws IOException {
+        this.saveConfig = (SampleSaveConfiguration) saveConfig.clone();
+        this.saveConfig.setSampleCount(true);
+        this.rate = rate;
+        this.reservoirSize = reservoirSize;
+        this.interval = Math.max(1L, interval);
+        this.delimiter = this.saveConfig.getDelimiter();
+        this.specials = new char[] { delimiter.charAt(0), CSVSaveService.QUOTING_CHAR,
+                CharUtils.CR, CharUtils.LF };
+        if (aggregatesFile == null) {
+            aggregates = null;
+        } else {
+            boolean append = aggregatesFile.length() > 0;
+            aggregates = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(aggregatesFile, append),
+                    SaveService.getFileEncoding(StandardCharsets.UTF_8.name()))));
+            if (!append) {
+                writeAggregatesLine((Object[]) AGGREGATES_COLUMNS);
+            }
+        }
+    }
+
+    /**
+     * Creates the sampler of a result file, if sampling is enabled by properties.
+     *
+     * @param resultFile the result file
+     * @param saveConfig the configuration of the result file
+     * @return the sampler of the file or null if sampling is disabled
+     * @throws IOException if the aggregates file can not be opened
+     */
+    static ResultSampler create(File resultFile, SampleSaveConfiguration saveConfig) throws IOException {
+        if (RATE >= 1.0f && RESERVOIR_SIZE <= 0) {
+            return null;
+        }
+        File aggregatesFile = AGGREGATES && !saveConfig.saveAsXml() ? getAggregatesFile(resultFile) : null;
+        log.info("Sampling successful results saved to {}, rate: {}, reservoir size: {}, interval: {} ms, aggregates: {}",
+                resultFile, RATE, RESERVOIR_SIZE, INTERVAL, aggregatesFile);
+        return new ResultSampler(saveConfig, RATE, RESERVOIR_SIZE, INTERVAL, aggregatesFile);
+    }
+
+    /**
+     * @param resultFile a result file
+     * @return the file of its aggregates, named after the result file without its extensions,
+     *  e.g. <code>results.aggregates.csv</code> for <code>results.csv.gz</code>
+     */
+    static File getAggregatesFile(File resultFile) {
+        String name = resultFile.getName();
+        if (BlockGzip.isCompressed(name)) {
+            name = name.substring(0, name.length() - BlockGzip.EXTENSION.length());
+        }
+        return new File(resultFile.getParentFile(), FilenameUtils.removeExtension(name) + AGGREGATES_SUFFIX);
+    }
+
+    /**
+     * @return the configuration to save the results with, which saves their sample count
+     */
+    SampleSaveConfiguration getSaveConfig() {
+        return saveConfig;
+    }
+
+    /**
+     * Records a result and returns the events to save now:
+     * the result itself if it failed or stands for several samples,
+     * and the successes chosen in the intervals completed by this result.
+     *
+     * @param event the event of the result
+     * @return the events to save, in order
+     */
+    synchronized List<SampleEvent> sample(SampleEvent event) {
+        SampleResult result = event.getResult();
+        long index = result.getEndTime() / interval;
+        Map<String, Bucket> buckets = intervals.get(Long.valueOf(index));
+        if (buckets == null) {
+            buckets = new LinkedHashMap<>();
+            intervals.put(Long.valueOf(index), buckets);
+        }
+        String label = result.getSampleLabel();
+        Bucket bucket = buckets.get(label);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(label, bucket);
+        }
+        aggregate(bucket, result);
+
+        List<SampleEvent> saved = Collections.emptyList();
+        // Statistical results are already aggregated
+        if (!result.isSuccessful() || result.getSampleCount() > 1) {
+            saved = new ArrayList<>();
+            saved.add(event);
+        } else {
+            keep(bucket, event);
+        }
+        // Keep the previous interval open for results that end there but arrive late
+        Iterator<Map.Entry<Long, Map<String, Bucket>>> it =
+                intervals.headMap(Long.valueOf(index - 1)).entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Map<String, Bucket>> entry = it.next();
+            if (saved.isEmpty()) {
+                saved = new ArrayList<>();
+            }
+            complete(entry.getKey().longValue(), entry.getValue(), saved);
+            it.remove();
+        }
+        return saved;
+    }
+
+    /**
+     * Completes all open intervals.
+     *
+     * @return the events of the chosen successes, to save
+     */
+    synchronized List<SampleEvent> flush() {
+        List<SampleEvent> saved = new ArrayList<>();
+        for (Map.Entry<Long, Map<String, Bucket>> entry : intervals.entrySet()) {
+            complete(entry.getKey().longValue(), entry.getValue(), saved);
+        }
+        intervals.clear();
+        if (aggregates != null) {
+            aggregates.flush();
+        }
+        return saved;
+    }
+
+    /**
+     * Closes the aggregates file, after the open intervals have been completed by {@link #flush()}.
+     */
+    synchronized void close() {
+        if (aggregates != null) {
+            aggregates.close();
+            if (aggregates.checkError()) {
+                log.warn("Problem detected while writing sampled results aggregates");
+            }
+        }
+    }
+
+    private static void aggregate(Bucket bucket, SampleResult result) {
+        long elapsed = result.getTime();
+        int sampleCount = result.getSampleCount();
+        // The elapsed time of an aggregated result (Statistical mode) is the sum over its samples
+        long meanElapsed = sampleCount > 1 ? Math.round((double) elapsed / sampleCount) : elapsed;
+        bucket.count += sampleCount;
+        bucket.errors += result.getErrorCount();
+        bucket.totalElapsed += elapsed;
+        bucket.minElapsed = Math.min(bucket.minElapsed, meanElapsed);
+        bucket.maxElapsed = Math.max(bucket.maxElapsed, meanElapsed);
+        bucket.bytes += result.getBytesAsLong();
+        bucket.sentBytes += result.getSentBytes();
+    }
+
+    private void keep(Bucket bucket, SampleEvent event) {
+        SampleResult result = event.getResult();
+        bucket.successes++;
+        bucket.successBytes += result.getBytesAsLong();
+        bucket.successSentBytes += result.getSentBytes();
+        List<SampleEvent> kept = bucket.kept;
+        if (reservoirSize > 0) {
+            if (kept.size() < reservoirSize) {
+                kept.add(event);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(bucket.successes);
+                if (slot < reservoirSize) {
+                    kept.set((int) slot, event);
+                }
+            }
+        } else if (ThreadLocalRandom.current().nextFloat() < rate) {
+            kept.add(event);
+        } else {
+            bucket.fallback = event;
+        }
+    }
+
+    private void complete(long index, Map<String, Bucket> buckets, List<SampleEvent> saved) {
+        long timeStamp = index * interval;
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            List<SampleEvent> kept = bucket.kept;
+            if (kept.isEmpty() && bucket.fallback != null) {
+                kept.add(bucket.fallback);
+            }
+            // Spread the successes and their bytes over the kept results, so that they add up exactly
+            int size = kept.size();
+            long counted = 0;
+            long countedBytes = 0;
+            long countedSentBytes = 0;
+            for (int i = 0; i < size; i++) {
+                long weight = bucket.successes / size + (i < bucket.successes % size ? 1 : 0);
+                counted += weight;
+                long bytes = bucket.successBytes * counted / bucket.successes;
+                long sentBytes = bucket.successSentBytes * counted / bucket.successes;
+                SampleEvent event = kept.get(i);
+                SampleResult copy = (SampleResult) event.getResult().clone();
+                copy.setWeightedSampleCount((int) weight);
+                copy.setHeadersSize(0);
+                copy.setBodySize(0L);
+                copy.setBytes(bytes - countedBytes);
+                copy.setSentBytes(sentBytes - countedSentBytes);
+                countedBytes = bytes;
+                countedSentBytes = sentBytes;
+                saved.add(event.withResult(copy));
+            }
+            if (aggregates != null) {
+                writeAggregatesLine(Long.valueOf(timeStamp), entry.getKey(),
+                        Long.valueOf(bucket.count), Long.valueOf(bucket.errors),
+                        Long.valueOf(bucket.totalElapsed), Long.valueOf(bucket.minElapsed),
+                        Long.valueOf(bucket.maxElapsed), Long.valueOf(bucket.bytes),
+                        Long.valueOf(bucket.sentBytes));
+            }
+        }
+    }
+
+    private void writeAggregatesLine(Object... values) {
+        StringBuilder line = new StringBuilder(100);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(delimiter);
+            }
+            line.append(CSVSaveService.quoteDelimiters(String.valueOf(values[i]), specials));
+        }
+        aggregates.println(line);
+    }
+}
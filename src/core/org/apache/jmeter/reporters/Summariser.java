@@ -20,6 +20,9 @@ package org.apache.jmeter.reporters;
 
 import java.io.Serializable;
 import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -27,9 +30,9 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jmeter.control.TransactionController;
 import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.BatchSampleListener;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestStateListener;
@@ -60,7 +63,7 @@ import org.slf4j.LoggerFactory;
  *
  */
 public class Summariser extends AbstractTestElement
-    implements Serializable, SampleListener, TestStateListener, NoThreadClone, Remoteable {
+    implements Serializable, BatchSampleListener, TestStateListener, NoThreadClone, Remoteable {
 
     /*
      * N.B. NoThreadClone is used to ensure that the testStarted() methods will share the same
@@ -84,6 +87,10 @@ public class Summariser extends AbstractTestElement
     /** Ignore TC generated SampleResult in summary */
     private static final boolean IGNORE_TC_GENERATED_SAMPLERESULT = JMeterUtils.getPropDefault("summariser.ignore_transaction_controller_sample_result", true); //$NON-NLS-1$
 
+    /** Percentiles of sample times to report, none if empty */
+    private static final double[] PERCENTILES =
+            parsePercentiles(JMeterUtils.getPropDefault("summariser.percentiles", "50,90,95,99")); //$NON-NLS-1$ //$NON-NLS-2$
+
     /*
      * Ensure that a report is not skipped if we are slightly late in checking
      * the time.
@@ -147,9 +154,9 @@ public class Summariser extends AbstractTestElement
         /** Time of last summary (to prevent double reporting) */
         private long last = 0;
 
-        private final SummariserRunningSample delta = new SummariserRunningSample("DELTA");
+        private final SummariserRunningSample delta = new SummariserRunningSample("DELTA", PERCENTILES.length > 0);
 
-        private final SummariserRunningSample total = new SummariserRunningSample("TOTAL");
+        private final SummariserRunningSample total = new SummariserRunningSample("TOTAL", PERCENTILES.length > 0);
 
         /**
          * Add the delta values to the total values and clear the delta
@@ -167,13 +174,25 @@ public class Summariser extends AbstractTestElement
      * @see org.apache.jmeter.samplers.SampleListener#sampleOccurred(org.apache.jmeter.samplers.SampleEvent)
      */
     @Override
-    @SuppressWarnings("SynchronizeOnNonFinalField")
     public void sampleOccurred(SampleEvent e) {
         SampleResult s = e.getResult();
         if(IGNORE_TC_GENERATED_SAMPLERESULT && TransactionController.isFromTransactionController(s)) {
             return;
         }
+        addSamples(Collections.singletonList(e));
+    }
 
+    /**
+     * Accumulates the samples like {@link #sampleOccurred(SampleEvent)},
+     * but takes the totals lock only once for the whole batch.
+     */
+    @Override
+    public void sampleOccurredBatch(List<SampleEvent> events) {
+        addSamples(events);
+    }
+
+    @SuppressWarnings("SynchronizeOnNonFinalField")
+    private void addSamples(List<SampleEvent> events) {
         long now = System.currentTimeMillis() / 1000;// in seconds
 
         SummariserRunningSample myDelta = null;
@@ -187,8 +206,12 @@ public class Summariser extends AbstractTestElement
          */
         
         synchronized (myTotals) {
-            if (s != null) {
-                myTotals.delta.addSample(s);
+            for (SampleEvent e : events) {
+                SampleResult s = e.getResult();
+                if (s != null && !(IGNORE_TC_GENERATED_SAMPLERESULT
+                        && TransactionController.isFromTransactionController(s))) {
+                    myTotals.delta.addSample(s);
+                }
             }
 
             if ((now > myTotals.last + INTERVAL_WINDOW) && (now % INTERVAL <= INTERVAL_WINDOW)) {
@@ -366,6 +389,14 @@ public class Summariser extends AbstractTestElement
         sb.append(" (");
         sb.append(summariserRunningSample.getErrorPercentageString());
         sb.append(')');
+        if (summariserRunningSample.hasPercentiles() && summariserRunningSample.getNumSamples() > 0) {
+            for (double percent : PERCENTILES) {
+                sb.append(" p");
+                sb.append(formatPercent(percent));
+                sb.append(": ");
+                sb.append(summariserRunningSample.getPercentile(percent));
+            }
+        }
         if ("+".equals(type)) {
             ThreadCounts tc = JMeterContextService.getThreadCounts();
             sb.append(" Active: ");
@@ -378,4 +409,40 @@ public class Summariser extends AbstractTestElement
         return sb.toString();
     }
 
+    /**
+     * @param percent a percentile
+     * @return the percentile without decimals if it is an integer, e.g. 99 or 99.9
+     */
+    private static String formatPercent(double percent) {
+        if (percent == Math.rint(percent)) {
+            return Long.toString((long) percent);
+        }
+        return Double.toString(percent);
+    }
+
+    /**
+     * @param percentiles comma separated list of percentiles
+     * @return the valid percentiles, between 0 and 100
+     */
+    static double[] parsePercentiles(String percentiles) {
+        String[] values = JOrphanUtils.split(percentiles, ",", true); // $NON-NLS-1$
+        double[] result = new double[values.length];
+        int count = 0;
+        for (String value : values) {
+            if (value.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                double percent = Double.parseDouble(value.trim());
+                if (percent > 0 && percent <= 100) {
+                    result[count++] = percent;
+                    continue;
+                }
+            } catch (NumberFormatException e) { // NOSONAR Reported below
+                // NOOP
+            }
+            log.warn("Ignoring invalid percentile '{}' in property summariser.percentiles", value);
+        }
+        return Arrays.copyOf(result, count);
+    }
 }
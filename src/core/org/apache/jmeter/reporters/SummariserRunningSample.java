@@ -21,6 +21,7 @@ package org.apache.jmeter.reporters;
 import java.text.DecimalFormat;
 
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jorphan.math.LongHistogram;
 
 /**
  * <p>
@@ -33,10 +34,18 @@ import org.apache.jmeter.samplers.SampleResult;
  * The calling class is responsible for ensuring thread safety if required.
  * The caller needs to synchronize access in order to ensure that variables are consistent.
  * </p>
+ * <p>
+ * Percentiles of the sample times can be computed if the instance was created with a
+ * fixed memory histogram of the times (see {@link #SummariserRunningSample(String, boolean)}).
+ * Histograms are merged by {@link #addSample(SummariserRunningSample)}.
+ * </p>
  * @since 2.13
  */
 class SummariserRunningSample {
 
+    /** Precision of the histogram, relative error of percentiles is lower than 2% */
+    private static final int PRECISION_BITS = 6;
+
     private final DecimalFormat errorFormatter = new DecimalFormat("#0.00%"); // $NON-NLS-1$
 
     private long counter;
@@ -55,11 +64,23 @@ class SummariserRunningSample {
 
     private final String label;
 
+    /** Histogram of sample times, null if percentiles are not computed */
+    private final LongHistogram histogram;
+
     /**
      * @param label the label of this component
      */
     public SummariserRunningSample(String label) {
+        this(label, false);
+    }
+
+    /**
+     * @param label the label of this component
+     * @param withPercentiles true to keep a histogram of the sample times, to compute their percentiles
+     */
+    public SummariserRunningSample(String label, boolean withPercentiles) {
         this.label = label;
+        this.histogram = withPercentiles ? new LongHistogram(PRECISION_BITS) : null;
         init();
     }
 
@@ -76,6 +97,12 @@ class SummariserRunningSample {
         max = src.max;
         min = src.min;
         runningSum = src.runningSum;
+        if (src.histogram != null) {
+            histogram = new LongHistogram(PRECISION_BITS);
+            histogram.add(src.histogram);
+        } else {
+            histogram = null;
+        }
     }
 
     private void init() { // WARNING: called from ctor so must not be overridden (i.e. must be private or final)
@@ -86,6 +113,9 @@ class SummariserRunningSample {
         errorCount = 0L;
         startTime = System.currentTimeMillis();
         endTime = startTime;
+        if (histogram != null) {
+            histogram.reset();
+        }
     }
 
     /**
@@ -109,6 +139,9 @@ class SummariserRunningSample {
         if (min > rs.min) {
             min = rs.min;
         }
+        if (histogram != null && rs.histogram != null) {
+            histogram.add(rs.histogram);
+        }
         // We want end time to be current time so sample rates reflect real time
         endTime = System.currentTimeMillis();
     }
@@ -128,6 +161,15 @@ class SummariserRunningSample {
         if (aTimeInMillis < min) {
             min = aTimeInMillis;
         }
+        if (histogram != null) {
+            int sampleCount = res.getSampleCount();
+            if (sampleCount > 1) {
+                // Time of an aggregated sample is the total of its samples
+                histogram.record(aTimeInMillis / sampleCount, sampleCount);
+            } else {
+                histogram.record(aTimeInMillis);
+            }
+        }
         // We want end time to be current time so sample rates reflect real time
         endTime = System.currentTimeMillis();
     }
@@ -238,6 +280,24 @@ class SummariserRunningSample {
         return min;
     }
 
+    /**
+     * @return true if percentiles of the sample times are computed
+     */
+    public boolean hasPercentiles() {
+        return histogram != null;
+    }
+
+    /**
+     * Returns the time in milliseconds below which the given percent of samples ran,
+     * with a relative error lower than 2%.
+     *
+     * @param percent the percentile to compute, between 0 and 100
+     * @return the percentile of sample times, 0 if there are no samples or percentiles are not computed
+     */
+    public long getPercentile(double percent) {
+        return histogram == null ? 0L : histogram.getPercentile(percent);
+    }
+
     /**
      * Set end time
      */
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.samplers;
+
+import java.util.List;
+
+/**
+ * {@link SampleListener} that can process several samples in one call, to share
+ * the cost of locks and I/O between them.
+ * <p>
+ * Used when samples arrive in batches, for example from the servers of a distributed test
+ * (see {@link RemoteSampleListenerImpl}), or through
+ * {@link org.apache.jmeter.threads.ListenerNotifier#notifyListeners(List, List)}.
+ * Samples that occur one by one are still passed to {@link #sampleOccurred(SampleEvent)}.
+ * @since 4.0
+ */
+public interface BatchSampleListener extends SampleListener {
+
+    /**
+     * Several samples have occurred. Must have the same effect as calling
+     * {@link #sampleOccurred(SampleEvent)} for each of them, in order.
+     *
+     * @param events the samples, never {@code null} nor empty
+     */
+    void sampleOccurredBatch(List<SampleEvent> events);
+
+    /**
+     * Pass samples to a listener, in one call if it is a {@link BatchSampleListener}
+     *
+     * @param listener the listener
+     * @param events the samples
+     */
+    static void sampleOccurred(SampleListener listener, List<SampleEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (listener instanceof BatchSampleListener) {
+            ((BatchSampleListener) listener).sampleOccurredBatch(events);
+        } else {
+            for (SampleEvent event : events) {
+                listener.sampleOccurred(event);
+            }
+        }
+    }
+}
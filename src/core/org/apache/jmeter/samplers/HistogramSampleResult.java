@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jorphan.math.LongHistogram;
+
+/**
+ * Aggregates sample results for use by the Histogram remote mode.
+ * <p>
+ * In addition to the sums kept by {@link StatisticalSampleResult}, keeps a histogram
+ * of the elapsed times and the number of failed samples per response code.
+ * Results can be merged exactly with {@link #add(SampleResult)}, so percentiles
+ * computed from the merged histogram keep the precision of the histograms.
+ * @since 4.0
+ */
+public class HistogramSampleResult extends StatisticalSampleResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LongHistogram elapsedHistogram;
+
+    private final Map<String, Long> errorCodes = new HashMap<>();
+
+    public HistogramSampleResult() {// May be called by XStream
+        this(LongHistogram.DEFAULT_PRECISION_BITS);
+    }
+
+    private HistogramSampleResult(int precisionBits) {
+        super();
+        elapsedHistogram = new LongHistogram(precisionBits);
+        setSampleCount(0);
+    }
+
+    /**
+     * Create a histogram sample result from an ordinary sample result.
+     *
+     * @param res the sample result giving the label and thread name
+     * @param precisionBits precision of the histogram, see {@link LongHistogram#LongHistogram(int)}
+     */
+    public HistogramSampleResult(SampleResult res, int precisionBits) {
+        super(res);
+        elapsedHistogram = new LongHistogram(precisionBits);
+    }
+
+    /**
+     * Add a sample result, or merge another histogram result with the same precision.
+     *
+     * @param res the result to add
+     */
+    @Override
+    public void add(SampleResult res) {
+        int errors = getErrorCount();
+        super.add(res);
+        setErrorCount(errors + res.getErrorCount());
+        if (res instanceof HistogramSampleResult) {
+            HistogramSampleResult other = (HistogramSampleResult) res;
+            elapsedHistogram.add(other.elapsedHistogram);
+            other.errorCodes.forEach(this::addErrors);
+        } else {
+            int count = res.getSampleCount();
+            if (count > 1) {
+                elapsedHistogram.record(res.getTime() / count, count);
+            } else {
+                elapsedHistogram.record(res.getTime());
+            }
+            if (res.getErrorCount() > 0) {
+                addErrors(res.getResponseCode(), Long.valueOf(res.getErrorCount()));
+            }
+        }
+    }
+
+    private void addErrors(String code, Long count) {
+        errorCodes.merge(code, count, Long::sum);
+    }
+
+    /**
+     * @return the histogram of the elapsed times of the aggregated samples
+     */
+    public LongHistogram getElapsedHistogram() {
+        return elapsedHistogram;
+    }
+
+    /**
+     * @return number of failed samples per response code
+     */
+    public Map<String, Long> getErrorCodes() {
+        return Collections.unmodifiableMap(errorCodes);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.math.LongHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends, every interval, one {@link HistogramSampleResult} per sample label and
+ * thread group (or thread name) instead of the samples.
+ * <p>
+ * Unlike {@link StatisticalSampleSender}, the aggregated results carry a histogram
+ * of the elapsed times, so the percentiles computed by the client are accurate,
+ * and the number of failed samples per response code.
+ * @since 4.0
+ */
+public class HistogramSampleSender extends AbstractSampleSender implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(HistogramSampleSender.class);
+
+    private static final long DEFAULT_INTERVAL = 5000L;
+
+    // Static fields are set by the server when the class is constructed
+
+    private static final long INTERVAL_MS =
+            JMeterUtils.getPropDefault("histogram.interval", DEFAULT_INTERVAL); // $NON-NLS-1$
+
+    private static final int PRECISION_BITS =
+            JMeterUtils.getPropDefault("histogram.precision_bits", LongHistogram.DEFAULT_PRECISION_BITS); // $NON-NLS-1$
+
+    private static final boolean KEY_ON_THREADNAME = JMeterUtils.getPropDefault("key_on_threadname", false); // $NON-NLS-1$
+
+    // Instance fields are constructed by the client when the instance is create in the test plan
+    // and the field values are then transferred to the server copy by RMI serialisation/deserialisation
+
+    private final long clientConfiguredIntervalMs =
+            JMeterUtils.getPropDefault("histogram.interval", DEFAULT_INTERVAL); // $NON-NLS-1$
+
+    private final int clientConfiguredPrecisionBits =
+            JMeterUtils.getPropDefault("histogram.precision_bits", LongHistogram.DEFAULT_PRECISION_BITS); // $NON-NLS-1$
+
+    private final boolean clientConfiguredKeyOnThreadName = JMeterUtils.getPropDefault("key_on_threadname", false); // $NON-NLS-1$
+
+    private final RemoteSampleListener listener;
+
+    private final List<SampleEvent> sampleStore = new ArrayList<>();
+
+    private final Map<String, HistogramSampleResult> sampleTable = new HashMap<>();
+
+    // Settings; readResolve sets these from the server/client values as appropriate
+    private transient long intervalMs;
+
+    private transient int precisionBits;
+
+    private transient boolean keyOnThreadName;
+
+    private transient long batchSendTime = -1; // @GuardedBy("sampleStore")
+
+    /**
+     * Constructor, only called by client code.
+     *
+     * @param listener that the List of sample events will be sent to.
+     */
+    HistogramSampleSender(RemoteSampleListener listener) {
+        this.listener = listener;
+        if (isClientConfigured()) {
+            log.info("Using HistogramSampleSender (client settings) for this run."
+                    + " Interval: {}, precision bits: {}. Key uses ThreadName: {}",
+                    clientConfiguredIntervalMs, clientConfiguredPrecisionBits, clientConfiguredKeyOnThreadName);
+        } else {
+            log.info("Using HistogramSampleSender (server settings) for this run.");
+        }
+    }
+
+    /**
+     * Sends the histograms of the current interval and informs the listener that the test ended.
+     *
+     * @param host the hostname that the test has ended on.
+     */
+    @Override
+    public void testEnded(String host) {
+        log.info("Test Ended on {}", host);
+        try {
+            synchronized (sampleStore) {
+                sendBatch();
+            }
+            listener.testEnded(host);
+        } catch (RemoteException err) {
+            log.warn("testEnded(hostname)", err);
+        }
+    }
+
+    /**
+     * Adds the sample to the histogram of its label, and sends all
+     * histograms once the interval has elapsed.
+     *
+     * @param e a Sample Event
+     */
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        synchronized (sampleStore) {
+            String key = StatisticalSampleResult.getKey(e, keyOnThreadName);
+            HistogramSampleResult histogramResult = sampleTable.get(key);
+            if (histogramResult == null) {
+                histogramResult = new HistogramSampleResult(e.getResult(), precisionBits);
+                sampleTable.put(key, histogramResult);
+                sampleStore.add(new SampleEvent(histogramResult, e.getThreadGroup()));
+            }
+            histogramResult.add(e.getResult());
+            long now = System.currentTimeMillis();
+            if (batchSendTime == -1) {
+                batchSendTime = now + intervalMs;
+            }
+            if (batchSendTime <= now) {
+                try {
+                    sendBatch();
+                } catch (RemoteException err) {
+                    log.warn("sampleOccurred", err);
+                }
+                batchSendTime = now + intervalMs;
+            }
+        } // synchronized(sampleStore)
+    }
+
+    private void sendBatch() throws RemoteException {
+        if (!sampleStore.isEmpty()) {
+            listener.processBatch(sampleStore);
+            sampleStore.clear();
+            sampleTable.clear();
+        }
+    }
+
+    /**
+     * Processed by the RMI server code; acts as testStarted().
+     * @return this
+     * @throws ObjectStreamException never
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        if (isClientConfigured()) {
+            intervalMs = clientConfiguredIntervalMs;
+            precisionBits = clientConfiguredPrecisionBits;
+            keyOnThreadName = clientConfiguredKeyOnThreadName;
+        } else {
+            intervalMs = INTERVAL_MS;
+            precisionBits = PRECISION_BITS;
+            keyOnThreadName = KEY_ON_THREADNAME;
+        }
+        log.info("Using HistogramSampleSender for this run. {} config: Interval: {}, precision bits: {}."
+                + " Key uses ThreadName: {}", isClientConfigured() ? "Client" : "Server", // $NON-NLS-1$ $NON-NLS-2$
+                intervalMs, precisionBits, keyOnThreadName);
+        return this;
+    }
+}
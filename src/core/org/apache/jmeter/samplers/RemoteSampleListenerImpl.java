@@ -20,12 +20,17 @@ package org.apache.jmeter.samplers;
 
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.util.JMeterUtils;
 
 /**
- * Implementation of remote sampler listener, also supports TestStateListener
+ * Implementation of remote sampler listener, also supports TestStateListener.
+ * <p>
+ * Unless property <code>client.listener.queue.size</code> is 0, samples are delivered to the
+ * listener by a {@link SampleDispatchQueue}, so that a slow listener does not delay the others.
  */
 public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObject 
     implements RemoteSampleListener, SampleListener, TestStateListener {
@@ -35,6 +40,12 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
     private final TestStateListener testListener;
 
     private final SampleListener sampleListener;
+
+    // null if samples are delivered on the RMI threads
+    private final SampleDispatchQueue dispatchQueue;
+
+    // Number of servers that started the test and have not ended it yet
+    private final AtomicInteger runningHosts = new AtomicInteger();
     
     private static final int DEFAULT_LOCAL_PORT = 
         JMeterUtils.getPropDefault("client.rmi.localport", 0); // $NON-NLS-1$
@@ -51,6 +62,30 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
         } else {
             sampleListener = null;
         }
+        if (sampleListener != null && SampleDispatchQueue.isEnabled()) {
+            String name = listener instanceof TestElement
+                    ? ((TestElement) listener).getName() : listener.getClass().getSimpleName();
+            dispatchQueue = new SampleDispatchQueue(sampleListener, name);
+        } else {
+            dispatchQueue = null;
+        }
+    }
+
+    /**
+     * Deliver the queued samples before telling the listener that the test ended,
+     * and close the queue once no server runs the test anymore
+     *
+     * @param last true if no server runs the test anymore
+     */
+    private void flush(boolean last) {
+        if (dispatchQueue == null) {
+            return;
+        }
+        if (last) {
+            dispatchQueue.close();
+        } else {
+            dispatchQueue.flush();
+        }
     }
 
     @Override
@@ -62,6 +97,7 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
 
     @Override
     public void testStarted(String host) {
+        runningHosts.incrementAndGet();
         if (testListener != null) {
             testListener.testStarted(host);
         }
@@ -69,6 +105,7 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
 
     @Override
     public void testEnded() {
+        flush(true);
         if (testListener != null) {
             testListener.testEnded();
         }
@@ -76,6 +113,7 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
 
     @Override
     public void testEnded(String host) {
+        flush(runningHosts.decrementAndGet() <= 0);
         if (testListener != null) {
             testListener.testEnded(host);
         }
@@ -91,16 +129,18 @@ public class RemoteSampleListenerImpl extends java.rmi.server.UnicastRemoteObjec
      */
     @Override
     public void processBatch(List<SampleEvent> samples) {
-        if (samples != null && sampleListener != null) {
-            for (SampleEvent e : samples) {
-                sampleListener.sampleOccurred(e);                
-            }
+        if (samples != null && dispatchQueue != null) {
+            dispatchQueue.addAll(samples);
+        } else if (samples != null && sampleListener != null) {
+            BatchSampleListener.sampleOccurred(sampleListener, samples);
         }
     }
 
     @Override
     public void sampleOccurred(SampleEvent e) {
-        if (sampleListener != null) {
+        if (dispatchQueue != null) {
+            dispatchQueue.add(e);
+        } else if (sampleListener != null) {
             sampleListener.sampleOccurred(e);
         }
     }
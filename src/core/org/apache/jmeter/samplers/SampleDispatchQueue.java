@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.samplers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded queue between the RMI threads receiving samples from the servers and one listener of the client.
+ * <p>
+ * Samples are delivered to the listener by a dedicated thread, so each listener is called in parallel with
+ * the others and a slow listener (a visualizer, a result file on a slow disk...) does not delay the reception
+ * of samples for the other listeners. When the queue is full, the RMI thread either waits for room
+ * (<code>client.listener.queue.overflow=block</code>, the default, no sample is lost)
+ * or drops the sample (<code>drop</code>). Counters are exposed through {@link SampleDispatchQueueMBean},
+ * registered when the first sample is queued, and logged when the queue is closed.
+ * <p>
+ * There is at most one delivery thread at a time, so the listener is never called concurrently:
+ * samples received after a flush (e.g. from a server that has not ended yet) are delivered by the same
+ * thread if it has not ended, or by a new one started once it has.
+ * @since 4.0
+ */
+public class SampleDispatchQueue implements SampleDispatchQueueMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleDispatchQueue.class);
+
+    private static final int QUEUE_SIZE =
+            JMeterUtils.getPropDefault("client.listener.queue.size", 10000); // $NON-NLS-1$
+
+    private static final boolean DROP_ON_OVERFLOW =
+            "drop".equalsIgnoreCase(JMeterUtils.getPropDefault("client.listener.queue.overflow", "block")); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+
+    private static final int MAX_BATCH = 1000;
+
+    private final SampleListener listener;
+
+    private final String listenerName;
+
+    private final BlockingQueue<SampleEvent> queue;
+
+    private final boolean dropOnOverflow;
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong overflows = new AtomicLong();
+
+    // Notified when samples are delivered
+    private final Object deliveryLock = new Object();
+
+    // @GuardedBy("this"), cleared by the worker itself when it ends
+    private Thread worker;
+
+    // Cleared to let the worker end once the queue is empty, without interrupting a listener doing I/O
+    // @GuardedBy("this")
+    private boolean running;
+
+    // @GuardedBy("this")
+    private ObjectName mbeanName;
+
+    // Set once the MBean was registered or closed, so that it is registered at most once
+    // @GuardedBy("this")
+    private boolean registered;
+
+    // @GuardedBy("this")
+    private boolean closed;
+
+    /**
+     * @return true if samples should be delivered through a queue, see property <code>client.listener.queue.size</code>
+     */
+    public static boolean isEnabled() {
+        return QUEUE_SIZE > 0;
+    }
+
+    /**
+     * @param listener the listener to deliver the samples to
+     * @param listenerName name of the listener, for logs and JMX
+     */
+    public SampleDispatchQueue(SampleListener listener, String listenerName) {
+        this(listener, listenerName, QUEUE_SIZE, DROP_ON_OVERFLOW);
+    }
+
+    SampleDispatchQueue(SampleListener listener, String listenerName, int capacity, boolean dropOnOverflow) {
+        this.listener = listener;
+        this.listenerName = listenerName;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropOnOverflow = dropOnOverflow;
+    }
+
+    /**
+     * Queue a sample for delivery, waiting for room or dropping it if the queue is full
+     *
+     * @param event the sample
+     */
+    public void add(SampleEvent event) {
+        ensureStarted();
+        received.incrementAndGet();
+        if (!queue.offer(event)) {
+            overflows.incrementAndGet();
+            if (dropOnOverflow) {
+                dropped.incrementAndGet();
+                notifyDelivery();
+                return;
+            }
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                dropped.incrementAndGet();
+                notifyDelivery();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // The worker may have been stopped and have ended since it was started above
+        ensureStarted();
+    }
+
+    /**
+     * Queue samples for delivery
+     *
+     * @param events the samples
+     */
+    public void addAll(List<SampleEvent> events) {
+        for (SampleEvent event : events) {
+            add(event);
+        }
+    }
+
+    /**
+     * Wait until all queued samples are delivered, then stop the delivery thread.
+     * Called before the listener is told that a server ended the test.
+     * Samples queued afterwards are delivered by a new thread.
+     */
+    public void flush() {
+        synchronized (deliveryLock) {
+            while (isWorkerRunning() && delivered.get() + dropped.get() < received.get()) {
+                try {
+                    deliveryLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        stop();
+    }
+
+    /**
+     * Flush the queue, unregister its MBean and log its counters.
+     * Called once the listener is told that the last server ended the test.
+     */
+    public void close() {
+        flush();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            registered = true;
+            unregisterMBean();
+        }
+        if (dropped.get() > 0) {
+            log.warn("Listener {}: {} samples received, {} delivered, {} dropped as the queue was full",
+                    listenerName, received.get(), delivered.get(), dropped.get());
+        } else {
+            log.info("Listener {}: {} samples received and delivered, queue was full {} times",
+                    listenerName, received.get(), overflows.get());
+        }
+    }
+
+    private synchronized boolean isWorkerRunning() {
+        return worker != null;
+    }
+
+    /**
+     * Start the worker, or keep it running if it was stopped and has not ended yet
+     */
+    private synchronized void ensureStarted() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (!registered) {
+            registered = true;
+            registerMBean();
+        }
+        if (worker == null) {
+            worker = new Thread(this::deliver, "SampleDispatch " + listenerName); // $NON-NLS-1$
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Let the worker end once the queue is empty
+     */
+    private synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+    }
+
+    private void deliver() {
+        List<SampleEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            SampleEvent first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (ended()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return true if the worker was stopped and there is nothing left to deliver,
+     * in which case it is forgotten so that the next sample starts a new one
+     */
+    private synchronized boolean ended() {
+        if (running || !queue.isEmpty()) {
+            return false;
+        }
+        worker = null;
+        return true;
+    }
+
+    private void deliver(List<SampleEvent> batch) {
+        if (listener instanceof BatchSampleListener) {
+            try {
+                ((BatchSampleListener) listener).sampleOccurredBatch(batch);
+            } catch (RuntimeException e) {
+                log.error("Error delivering samples to listener {}", listenerName, e);
+            }
+        } else {
+            deliverEach(batch);
+        }
+        delivered.addAndGet(batch.size());
+        notifyDelivery();
+    }
+
+    private void deliverEach(List<SampleEvent> batch) {
+        for (SampleEvent event : batch) {
+            try {
+                listener.sampleOccurred(event);
+            } catch (RuntimeException e) {
+                log.error("Error delivering sample to listener {}", listenerName, e);
+            }
+        }
+    }
+
+    private void notifyDelivery() {
+        synchronized (deliveryLock) {
+            deliveryLock.notifyAll();
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("org.apache.jmeter:type=SampleDispatchQueue,name=" // $NON-NLS-1$
+                    + ObjectName.quote(listenerName + "@" + Integer.toHexString(System.identityHashCode(this)))); // $NON-NLS-1$
+            server.registerMBean(this, name);
+            mbeanName = name;
+        } catch (Exception e) { // NOSONAR The MBean is optional
+            log.warn("Could not register MBean for listener {}", listenerName, e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (mbeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (Exception e) { // NOSONAR The MBean is optional
+            log.warn("Could not unregister MBean {}", mbeanName, e);
+        }
+        mbeanName = null;
+    }
+
+    @Override
+    public String getListenerName() {
+        return listenerName;
+    }
+
+    @Override
+    public long getReceivedSamples() {
+        return received.get();
+    }
+
+    @Override
+    public long getDeliveredSamples() {
+        return delivered.get();
+    }
+
+    @Override
+    public long getDroppedSamples() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.samplers;
+
+/**
+ * Management interface of {@link SampleDispatchQueue}, registered on the client as
+ * <code>org.apache.jmeter:type=SampleDispatchQueue,name=&lt;listener name&gt;</code>
+ * while samples are delivered
+ * @since 4.0
+ */
+public interface SampleDispatchQueueMBean {
+
+    /**
+     * @return name of the listener the samples are delivered to
+     */
+    String getListenerName();
+
+    /**
+     * @return number of samples received from the servers
+     */
+    long getReceivedSamples();
+
+    /**
+     * @return number of samples delivered to the listener
+     */
+    long getDeliveredSamples();
+
+    /**
+     * @return number of samples dropped as the queue was full
+     */
+    long getDroppedSamples();
+
+    /**
+     * @return number of times a server had to wait as the queue was full
+     */
+    long getOverflows();
+
+    /**
+     * @return number of samples waiting to be delivered
+     */
+    int getQueueSize();
+}
@@ -135,6 +135,18 @@ public class SampleEvent implements Serializable {
         this.isTransactionSampleEvent = isTransactionSampleEvent;
     }
 
+    /**
+     * Used by {@link SampleEventCodec} to rebuild an event received from a remote engine.
+     */
+    SampleEvent(SampleResult result, String threadGroup, String hostname, String[] values,
+            boolean isTransactionSampleEvent) {
+        this.result = result;
+        this.threadGroup = threadGroup;
+        this.hostname = hostname;
+        this.values = values;
+        this.isTransactionSampleEvent = isTransactionSampleEvent;
+    }
+
     /**
      * @param result
      *            The SampleResult to be associated with this event
@@ -228,4 +240,18 @@ public class SampleEvent implements Serializable {
         return isTransactionSampleEvent;
     }
 
+    /**
+     * Creates an event for another result of the same sample, e.g. a copy
+     * saved with a different sample count, keeping the thread group, host
+     * name and variable values of this event.
+     *
+     * @param otherResult
+     *            the {@link SampleResult} of the new event
+     * @return the new event
+     * @since 4.0
+     */
+    public SampleEvent withResult(SampleResult otherResult) {
+        return new SampleEvent(otherResult, threadGroup, hostname, values, isTransactionSampleEvent);
+    }
+
 }
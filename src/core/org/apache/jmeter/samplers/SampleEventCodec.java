@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact binary encoding of {@link SampleEvent}s, used by {@link StreamSampleSender}
+ * to send results from a remote engine to the controller.
+ * <p>
+ * Compared to Java serialization:
+ * <ul>
+ * <li>numbers are written as variable length integers, start times as deltas
+ * from the previous sample of the stream</li>
+ * <li>short strings that repeat (labels, thread names, response codes...) are
+ * sent once and then referenced by index in a per stream symbol table</li>
+ * <li>no class descriptors are sent</li>
+ * </ul>
+ * Fields declared by sub-classes of {@link SampleResult} are encoded if they are
+ * Strings or primitives, otherwise the result cannot be encoded, see {@link #canEncode(SampleResult)}.
+ * Java serialization is never used, so decoding only creates the sub-classes of
+ * {@link SampleResult} named by the stream, through their no-argument constructor.
+ * <p>
+ * An {@link Encoder} and its {@link Decoder} are stateful: the batches must be decoded
+ * in the order they were encoded. Neither is thread-safe.
+ * @since 4.0
+ */
+public final class SampleEventCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleEventCodec.class);
+
+    /** Maximum number of entries of the symbol table of a stream */
+    static final int MAX_SYMBOLS = 65536;
+
+    /** Longer strings are never added to the symbol table */
+    static final int MAX_SYMBOL_LENGTH = 256;
+
+    // String markers
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int NEW_SYMBOL = 2;
+    private static final int SYMBOL_OFFSET = 3;
+
+    // Result flags
+    private static final int SUCCESS = 1;
+    private static final int STOP_THREAD = 1 << 1;
+    private static final int STOP_TEST = 1 << 2;
+    private static final int STOP_TEST_NOW = 1 << 3;
+    private static final int START_NEXT_THREAD_LOOP = 1 << 4;
+    private static final int TRANSACTION_EVENT = 1 << 5;
+
+    // Assertion flags
+    private static final int FAILURE = 1;
+    private static final int ERROR = 1 << 1;
+
+    private static final Map<Class<?>, ResultClass> RESULT_CLASSES = new ConcurrentHashMap<>();
+
+    private SampleEventCodec() {
+        // NOOP
+    }
+
+    /**
+     * @param res the result to check
+     * @return true if the result and its sub-results can be encoded: their classes
+     *         have a no-argument constructor, and their non transient fields declared
+     *         by sub-classes of {@link SampleResult} are Strings or primitives that are not final
+     */
+    public static boolean canEncode(SampleResult res) {
+        if (!resultClass(res.getClass()).encodable) {
+            return false;
+        }
+        for (SampleResult subResult : res.getSubResults()) {
+            if (!canEncode(subResult)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes batches of events, one encoder per stream.
+     */
+    public static final class Encoder {
+        private final Map<String, Integer> symbols = new HashMap<>();
+
+        private long lastStartTime;
+
+        /**
+         * @param events the events to encode
+         * @param out where to write the events
+         * @throws IOException if writing fails
+         */
+        public void encode(List<SampleEvent> events, DataOutput out) throws IOException {
+            for (SampleEvent event : events) {
+                encode(event, out);
+            }
+        }
+
+        private void encode(SampleEvent event, DataOutput out) throws IOException {
+            // Checked before writing anything, so that the stream stays valid
+            if (!canEncode(event.getResult())) {
+                throw new IOException("Result of class " + event.getResult().getClass().getName()
+                        + " cannot be encoded");
+            }
+            out.writeByte(event.isTransactionSampleEvent() ? TRANSACTION_EVENT : 0);
+            writeSymbol(event.getThreadGroup(), out);
+            writeSymbol(event.getHostname(), out);
+            int varCount = SampleEvent.getVarCount();
+            writeVarInt(varCount, out);
+            for (int i = 0; i < varCount; i++) {
+                writeString(event.getVarValue(i), out);
+            }
+            writeResult(event.getResult(), out);
+        }
+
+        private void writeResult(SampleResult res, DataOutput out) throws IOException {
+            ResultClass resultClass = resultClass(res.getClass());
+            writeSymbol(resultClass.name, out);
+            writeSymbol(res.getSampleLabel(), out);
+            writeSymbol(res.getThreadName(), out);
+            writeSymbol(res.getResponseCode(), out);
+            writeSymbol(res.getResponseMessage(), out);
+            writeSymbol(res.getDataType(), out);
+            writeSymbol(res.getDataEncodingNoDefault(), out);
+            writeSymbol(res.getContentType(), out);
+            writeSymbol(res.getResultFileName(), out);
+            writeSymbol(res.getUrlAsString(), out);
+            int flags = res.isSuccessful() ? SUCCESS : 0;
+            flags |= res.isStopThread() ? STOP_THREAD : 0;
+            flags |= res.isStopTest() ? STOP_TEST : 0;
+            flags |= res.isStopTestNow() ? STOP_TEST_NOW : 0;
+            flags |= res.isStartNextThreadLoop() ? START_NEXT_THREAD_LOOP : 0;
+            out.writeByte(flags);
+
+            long start = res.getStartTime();
+            writeVarLong(zigZag(start - lastStartTime), out);
+            lastStartTime = start;
+            writeVarLong(zigZag(res.getEndTime() - start), out);
+            writeVarLong(zigZag(res.getIdleTime()), out);
+            writeVarLong(zigZag(res.getTime()), out);
+            writeVarLong(zigZag(res.getTimeStamp() - start), out);
+            writeVarLong(zigZag(res.getLatency()), out);
+            writeVarLong(zigZag(res.getConnectTime()), out);
+            writeVarLong(zigZag(res.getSampleCount()), out);
+            writeVarLong(zigZag(res.getBytesAsLong()), out);
+            writeVarLong(zigZag(res.getSentBytes()), out);
+            writeVarLong(zigZag(res.getHeadersSize()), out);
+            writeVarLong(zigZag(res.getBodySizeAsLong()), out);
+            writeVarLong(zigZag(res.getGroupThreads()), out);
+            writeVarLong(zigZag(res.getAllThreads()), out);
+
+            writeString(res.getSamplerData(), out);
+            writeString(res.getRequestHeaders(), out);
+            writeString(res.getResponseHeaders(), out);
+            byte[] data = res.getResponseData();
+            writeVarInt(data.length, out);
+            out.write(data);
+
+            for (Field field : resultClass.fields) {
+                writeField(field, res, out);
+            }
+
+            AssertionResult[] assertions = res.getAssertionResults();
+            writeVarInt(assertions.length, out);
+            for (AssertionResult assertion : assertions) {
+                writeSymbol(assertion.getName(), out);
+                out.writeByte((assertion.isFailure() ? FAILURE : 0) | (assertion.isError() ? ERROR : 0));
+                writeString(assertion.getFailureMessage(), out);
+            }
+
+            SampleResult[] subResults = res.getSubResults();
+            writeVarInt(subResults.length, out);
+            for (SampleResult subResult : subResults) {
+                writeResult(subResult, out);
+            }
+        }
+
+        private void writeField(Field field, SampleResult res, DataOutput out) throws IOException {
+            try {
+                Class<?> type = field.getType();
+                if (type == String.class) {
+                    writeSymbol((String) field.get(res), out);
+                } else if (type == boolean.class) {
+                    out.writeBoolean(field.getBoolean(res));
+                } else if (type == float.class) {
+                    out.writeFloat(field.getFloat(res));
+                } else if (type == double.class) {
+                    out.writeDouble(field.getDouble(res));
+                } else if (type == char.class) {
+                    writeVarInt(field.getChar(res), out);
+                } else {
+                    // byte, short, int, long
+                    writeVarLong(zigZag(field.getLong(res)), out);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException("Could not read field " + field, e);
+            }
+        }
+
+        private void writeSymbol(String value, DataOutput out) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL_STRING, out);
+                return;
+            }
+            Integer index = symbols.get(value);
+            if (index != null) {
+                writeVarInt(SYMBOL_OFFSET + index.intValue(), out);
+            } else if (symbols.size() < MAX_SYMBOLS && value.length() <= MAX_SYMBOL_LENGTH) {
+                symbols.put(value, Integer.valueOf(symbols.size()));
+                writeVarInt(NEW_SYMBOL, out);
+                writeLiteral(value, out);
+            } else {
+                writeVarInt(LITERAL_STRING, out);
+                writeLiteral(value, out);
+            }
+        }
+
+        private static void writeString(String value, DataOutput out) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL_STRING, out);
+            } else {
+                writeVarInt(LITERAL_STRING, out);
+                writeLiteral(value, out);
+            }
+        }
+
+        private static void writeLiteral(String value, DataOutput out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length, out);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Decodes the batches written by an {@link Encoder}, one decoder per stream.
+     */
+    public static final class Decoder {
+        private final List<String> symbols = new ArrayList<>();
+
+        private long lastStartTime;
+
+        // Bounds the lengths and counts read, so that invalid data cannot exhaust the memory
+        private int maxLength;
+
+        /**
+         * @param in where to read the events from
+         * @param count the number of events to read
+         * @param length the number of bytes of the events
+         * @return the decoded events
+         * @throws IOException if reading fails or the data is invalid
+         */
+        public List<SampleEvent> decode(DataInput in, int count, int length) throws IOException {
+            if (count < 0 || count > length) {
+                throw new IOException("Invalid count of events: " + count + " in " + length + " bytes");
+            }
+            maxLength = length;
+            List<SampleEvent> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(decode(in));
+            }
+            return events;
+        }
+
+        private int readLength(DataInput in) throws IOException {
+            int length = readVarInt(in);
+            if (length > maxLength) {
+                throw new IOException("Invalid length or count: " + length + " exceeds " + maxLength);
+            }
+            return length;
+        }
+
+        private SampleEvent decode(DataInput in) throws IOException {
+            int flags = in.readByte();
+            String threadGroup = readSymbol(in);
+            String hostname = readSymbol(in);
+            String[] values = new String[readLength(in)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString(in);
+            }
+            SampleResult result = readResult(in);
+            return new SampleEvent(result, threadGroup, hostname, values, (flags & TRANSACTION_EVENT) != 0);
+        }
+
+        private SampleResult readResult(DataInput in) throws IOException {
+            ResultClass resultClass = resultClass(readSymbol(in));
+            SampleResult res = resultClass.newInstance();
+            res.setSampleLabel(readSymbol(in));
+            res.setThreadName(readSymbol(in));
+            res.setResponseCode(readSymbol(in));
+            res.setResponseMessage(readSymbol(in));
+            res.setDataType(readSymbol(in));
+            res.setDataEncoding(readSymbol(in));
+            res.setContentType(readSymbol(in));
+            res.setResultFileName(readSymbol(in));
+            res.setURL(toURL(readSymbol(in)));
+            int flags = in.readByte();
+            res.setSuccessful((flags & SUCCESS) != 0);
+            res.setStopThread((flags & STOP_THREAD) != 0);
+            res.setStopTest((flags & STOP_TEST) != 0);
+            res.setStopTestNow((flags & STOP_TEST_NOW) != 0);
+            res.setStartNextThreadLoop((flags & START_NEXT_THREAD_LOOP) != 0);
+
+            long start = lastStartTime + unZigZag(readVarLong(in));
+            lastStartTime = start;
+            long end = start + unZigZag(readVarLong(in));
+            long idle = unZigZag(readVarLong(in));
+            long elapsed = unZigZag(readVarLong(in));
+            long stamp = start + unZigZag(readVarLong(in));
+            res.restoreTimes(start, end, idle, elapsed, stamp);
+            res.setLatency(unZigZag(readVarLong(in)));
+            res.setConnectTime(unZigZag(readVarLong(in)));
+            res.setSampleCount((int) unZigZag(readVarLong(in)));
+            res.setBytes(unZigZag(readVarLong(in)));
+            res.setSentBytes(unZigZag(readVarLong(in)));
+            res.setHeadersSize((int) unZigZag(readVarLong(in)));
+            res.setBodySize(unZigZag(readVarLong(in)));
+            res.setGroupThreads((int) unZigZag(readVarLong(in)));
+            res.setAllThreads((int) unZigZag(readVarLong(in)));
+
+            res.setSamplerData(readString(in));
+            res.setRequestHeaders(readString(in));
+            res.setResponseHeaders(readString(in));
+            byte[] data = new byte[readLength(in)];
+            in.readFully(data);
+            res.setResponseData(data);
+
+            for (Field field : resultClass.fields) {
+                readField(field, res, in);
+            }
+
+            int assertionCount = readLength(in);
+            for (int i = 0; i < assertionCount; i++) {
+                AssertionResult assertion = new AssertionResult(readSymbol(in));
+                int assertionFlags = in.readByte();
+                assertion.setFailure((assertionFlags & FAILURE) != 0);
+                assertion.setError((assertionFlags & ERROR) != 0);
+                assertion.setFailureMessage(readString(in));
+                res.addAssertionResult(assertion);
+            }
+
+            int subResultCount = readLength(in);
+            for (int i = 0; i < subResultCount; i++) {
+                res.storeSubResult(readResult(in));
+            }
+            return res;
+        }
+
+        private void readField(Field field, SampleResult res, DataInput in) throws IOException {
+            try {
+                Class<?> type = field.getType();
+                if (type == String.class) {
+                    field.set(res, readSymbol(in));
+                } else if (type == boolean.class) {
+                    field.setBoolean(res, in.readBoolean());
+                } else if (type == float.class) {
+                    field.setFloat(res, in.readFloat());
+                } else if (type == double.class) {
+                    field.setDouble(res, in.readDouble());
+                } else if (type == char.class) {
+                    field.setChar(res, (char) readVarInt(in));
+                } else {
+                    long value = unZigZag(readVarLong(in));
+                    if (type == long.class) {
+                        field.setLong(res, value);
+                    } else if (type == int.class) {
+                        field.setInt(res, (int) value);
+                    } else if (type == short.class) {
+                        field.setShort(res, (short) value);
+                    } else {
+                        field.setByte(res, (byte) value);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException("Could not set field " + field, e);
+            }
+        }
+
+        private String readSymbol(DataInput in) throws IOException {
+            int marker = readVarInt(in);
+            switch (marker) {
+            case NULL_STRING:
+                return null;
+            case LITERAL_STRING:
+                return readLiteral(in);
+            case NEW_SYMBOL:
+                if (symbols.size() >= MAX_SYMBOLS) {
+                    throw new IOException("Too many symbols");
+                }
+                String value = readLiteral(in);
+                symbols.add(value);
+                return value;
+            default:
+                int index = marker - SYMBOL_OFFSET;
+                if (index >= symbols.size()) {
+                    throw new IOException("Unknown symbol: " + index);
+                }
+                return symbols.get(index);
+            }
+        }
+
+        private String readString(DataInput in) throws IOException {
+            int marker = readVarInt(in);
+            if (marker == NULL_STRING) {
+                return null;
+            }
+            if (marker != LITERAL_STRING) {
+                throw new IOException("Unexpected string marker: " + marker);
+            }
+            return readLiteral(in);
+        }
+
+        private String readLiteral(DataInput in) throws IOException {
+            byte[] bytes = new byte[readLength(in)];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static URL toURL(String url) {
+            if (url == null || url.isEmpty()) {
+                return null;
+            }
+            try {
+                return new URL(url);
+            } catch (MalformedURLException e) {
+                log.debug("Could not rebuild URL {}", url, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * How results of a class are encoded: the fields declared by sub-classes
+     * of {@link SampleResult}, if all of them are Strings or primitives.
+     */
+    private static final class ResultClass {
+        private final String name;
+        private final Constructor<? extends SampleResult> constructor;
+        private final Field[] fields;
+        private final boolean encodable;
+
+        private ResultClass(Class<? extends SampleResult> clazz) {
+            this.name = clazz.getName();
+            List<Field> declared = new ArrayList<>();
+            boolean encodable = true;
+            for (Class<?> c = clazz; c != SampleResult.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                        continue;
+                    }
+                    Class<?> type = field.getType();
+                    if ((type != String.class && !type.isPrimitive()) || Modifier.isFinal(modifiers)) {
+                        encodable = false;
+                    }
+                    field.setAccessible(true);
+                    declared.add(field);
+                }
+            }
+            Constructor<? extends SampleResult> ctor = null;
+            try {
+                ctor = clazz.getDeclaredConstructor();
+                ctor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                encodable = false;
+            }
+            this.constructor = ctor;
+            this.fields = declared.toArray(new Field[declared.size()]);
+            this.encodable = encodable;
+        }
+
+        private SampleResult newInstance() throws IOException {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new IOException("Could not create " + name, e);
+            }
+        }
+    }
+
+    private static ResultClass resultClass(Class<? extends SampleResult> clazz) {
+        return RESULT_CLASSES.computeIfAbsent(clazz, c -> new ResultClass(clazz));
+    }
+
+    private static ResultClass resultClass(String className) throws IOException {
+        if (className == null) {
+            throw new IOException("Missing result class name");
+        }
+        try {
+            // Not initialized before it is known to be a SampleResult
+            Class<?> clazz = Class.forName(className, false, classLoader());
+            if (!SampleResult.class.isAssignableFrom(clazz)) {
+                throw new IOException("Not a SampleResult: " + className);
+            }
+            ResultClass resultClass = resultClass(clazz.asSubclass(SampleResult.class));
+            if (!resultClass.encodable) {
+                throw new IOException("Results of class " + className + " cannot be decoded");
+            }
+            return resultClass;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown result class " + className, e);
+        }
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : SampleEventCodec.class.getClassLoader();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarInt(int value, DataOutput out) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL, out);
+    }
+
+    static void writeVarLong(long value, DataOutput out) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length or count: " + value);
+        }
+        return (int) value;
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
@@ -132,6 +132,12 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
     private static final long NANOTHREAD_SLEEP = 
             JMeterUtils.getPropDefault("sampleresult.nanoThreadSleep", 5000);  // $NON-NLS-1$
 
+    /**
+     * Offset of the local clock to the clock of the controller, set by a coordinated distributed start,
+     * so that sample times of all servers are expressed in controller time
+     */
+    private static volatile long clockOffset = 0L;
+
     static {
         if (START_TIMESTAMP) {
             log.info("Note: Sample TimeStamps are START times");
@@ -450,9 +456,32 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
             if (nanoTimeOffset == Long.MIN_VALUE){
                 throw new RuntimeException("Invalid call; nanoTimeOffset as not been set");
             }
-            return sampleNsClockInMs() + nanoTimeOffset;            
+            return sampleNsClockInMs() + nanoTimeOffset - clockOffset;
         }
-        return System.currentTimeMillis();
+        return System.currentTimeMillis() - clockOffset;
+    }
+
+    /**
+     * Set the offset of the local clock to the clock of the controller of a distributed test.
+     * It is subtracted from the times returned by {@link #currentTimeInMillis()}, hence from the
+     * times set by {@link #sampleStart()}, {@link #sampleEnd()} and the other methods timing the sample
+     * themselves, and from the start time of the test.
+     * Times given explicitly, for example to {@link #setStampAndTime(long, long)}, {@link #setTimeStamp(long)},
+     * {@link #setStartTime(long)} or {@link #setEndTime(long)}, are used as they are: samplers and listeners
+     * computing them from {@link System#currentTimeMillis()} stay on the local clock.
+     *
+     * @param offset offset in milliseconds, positive if the local clock is ahead of the controller one
+     */
+    public static void setClockOffset(long offset) {
+        clockOffset = offset;
+    }
+
+    /**
+     * @return the offset of the local clock to the clock of the controller in milliseconds
+     * @see #setClockOffset(long)
+     */
+    public static long getClockOffset() {
+        return clockOffset;
     }
 
     // Helper method to maintain timestamp relationships
@@ -1062,6 +1091,18 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         idleTime = idle;
     }
 
+    /**
+     * Restore the times of a result decoded by {@link SampleEventCodec},
+     * bypassing the call sequence checks of the public setters.
+     */
+    void restoreTimes(long start, long end, long idle, long elapsed, long stamp) {
+        startTime = start;
+        endTime = end;
+        idleTime = idle;
+        elapsedTime = elapsed;
+        timeStamp = stamp;
+    }
+
     private void setTimes(long start, long end) {
         setStartTime(start);
         setEndTime(end);
@@ -1148,6 +1189,23 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         sampleCount = count;
     }
 
+    /**
+     * Makes this result stand for <code>count</code> samples like it, the way
+     * the results of the Statistical mode do: sets its sample count, and
+     * multiplies its elapsed time, latency and connect time by <code>count</code>
+     * so that they are sums over these samples.
+     * Start and end times are unchanged: readers of such a result get them from
+     * its time stamp and its elapsed time divided by its sample count.
+     *
+     * @param count number of samples represented by this instance
+     */
+    public void setWeightedSampleCount(int count) {
+        sampleCount = count;
+        elapsedTime *= count;
+        latency *= count;
+        connectTime *= count;
+    }
+
     /**
      * return the sample count. by default, the value is 1.
      *
@@ -34,6 +34,8 @@ public class SampleSenderFactory {
 
     private static final String MODE_STATISTICAL = "Statistical"; // $NON-NLS-1$
 
+    private static final String MODE_HISTOGRAM = "Histogram"; // $NON-NLS-1$
+
     private static final String MODE_STRIPPED = "Stripped"; // $NON-NLS-1$
 
     private static final String MODE_STRIPPED_BATCH = "StrippedBatch"; // $NON-NLS-1$
@@ -46,6 +48,14 @@ public class SampleSenderFactory {
 
     private static final String MODE_STRIPPED_DISKSTORE = "StrippedDiskStore"; // $NON-NLS-1$
 
+    private static final String MODE_SPILL = "Spill"; // $NON-NLS-1$
+
+    private static final String MODE_STRIPPED_SPILL = "StrippedSpill"; // $NON-NLS-1$
+
+    private static final String MODE_STREAM = "Stream"; // $NON-NLS-1$
+
+    private static final String MODE_STRIPPED_STREAM = "StrippedStream"; // $NON-NLS-1$
+
     /**
      * Checks for the JMeter property mode and returns the required class.
      *
@@ -63,6 +73,8 @@ public class SampleSenderFactory {
             return new DataStrippingSampleSender(new BatchSampleSender(listener));
         } else if (type.equalsIgnoreCase(MODE_STATISTICAL)) {
             return new StatisticalSampleSender(listener);
+        } else if (type.equalsIgnoreCase(MODE_HISTOGRAM)) {
+            return new HistogramSampleSender(listener);
         } else if (type.equalsIgnoreCase(MODE_STANDARD)) {
             return new StandardSampleSender(listener);
         } else if(type.equalsIgnoreCase(MODE_STRIPPED)){
@@ -75,6 +87,14 @@ public class SampleSenderFactory {
             return new DiskStoreSampleSender(listener);
         } else if(type.equalsIgnoreCase(MODE_STRIPPED_DISKSTORE)){
             return new DataStrippingSampleSender(new DiskStoreSampleSender(listener));
+        } else if(type.equalsIgnoreCase(MODE_SPILL)){
+            return new SpillingSampleSender(listener);
+        } else if(type.equalsIgnoreCase(MODE_STRIPPED_SPILL)){
+            return new DataStrippingSampleSender(new SpillingSampleSender(listener));
+        } else if(type.equalsIgnoreCase(MODE_STREAM)){
+            return new StreamSampleSender(listener);
+        } else if(type.equalsIgnoreCase(MODE_STRIPPED_STREAM)){
+            return new DataStrippingSampleSender(new StreamSampleSender(listener));
         } else {
             // should be a user provided class name
             SampleSender s = null;
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controller side of the {@link StreamSampleSender} transport.
+ * <p>
+ * Listens on port <code>client.stream.port</code> (0, the default, means any free port)
+ * of address <code>client.stream.address</code>, by default the address given to the engines,
+ * and reads the sample streams opened by the remote engines, one thread per connection.
+ * Decoded batches are given directly to the local {@link RemoteSampleListener}
+ * the stream was opened for, without going through RMI.
+ * <p>
+ * Each listener is registered with a random token, which the engines receive with their
+ * {@link StreamSampleSender} over RMI and must send back in the handshake:
+ * streams with an unknown listener or a wrong token are closed before reading any sample.
+ * Each registration serves a single stream: it is removed once its engine has connected,
+ * and registrations of listeners that were collected before their engine connected are pruned
+ * on the next registration.
+ * <p>
+ * Frames of a stream:
+ * <pre>
+ * handshake: MAGIC (int), VERSION (int), listener id (int), token (long), engine host (UTF)
+ * samples:   FRAME_SAMPLES (byte), flags (byte), count (int), raw length (int), length (int), payload
+ * end:       FRAME_END (byte), answered by ACK (byte) once all samples have been processed
+ * </pre>
+ * @since 4.0
+ */
+public final class SampleStreamServer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleStreamServer.class);
+
+    static final int MAGIC = 0x4A4D5353; // "JMSS"
+
+    static final int VERSION = 2;
+
+    static final int FRAME_SAMPLES = 1;
+
+    static final int FRAME_END = 2;
+
+    /** Flag of a samples frame whose payload is deflated */
+    static final int FLAG_DEFLATED = 1;
+
+    static final int ACK = 1;
+
+    private static final int PORT = JMeterUtils.getPropDefault("client.stream.port", 0); // $NON-NLS-1$
+
+    private static final String ADDRESS = JMeterUtils.getProperty("client.stream.address"); // $NON-NLS-1$
+
+    private static final int MAX_FRAME_SIZE =
+            JMeterUtils.getPropDefault("client.stream.max_frame_size", 64 * 1024 * 1024); // $NON-NLS-1$
+
+    private static SampleStreamServer instance;
+
+    private final ServerSocket serverSocket;
+
+    private final String host;
+
+    private final Map<Integer, Registration> listeners = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SampleStreamServer(int port) throws IOException {
+        String rmiHost = System.getProperty("java.rmi.server.hostname"); // $NON-NLS-1$
+        host = rmiHost != null ? rmiHost : JMeterUtils.getLocalHostIP();
+        String address = ADDRESS != null && !ADDRESS.trim().isEmpty() ? ADDRESS.trim() : host;
+        serverSocket = new ServerSocket(port, 0, InetAddress.getByName(address));
+    }
+
+    /**
+     * A listener engines can stream samples to, and the token they must send to do so
+     */
+    static final class Registration {
+        private final int id;
+
+        private final long token;
+
+        // Weak reference, so that listeners of finished tests can be collected
+        private final WeakReference<RemoteSampleListener> listener;
+
+        private Registration(int id, long token, RemoteSampleListener listener) {
+            this.id = id;
+            this.token = token;
+            this.listener = new WeakReference<>(listener);
+        }
+
+        /**
+         * @return the id the engines must send in their handshake
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * @return the token the engines must send in their handshake
+         */
+        long getToken() {
+            return token;
+        }
+    }
+
+    /**
+     * @return the server, started on first call
+     * @throws IOException if the server socket could not be created
+     */
+    public static synchronized SampleStreamServer getInstance() throws IOException {
+        if (instance == null) {
+            SampleStreamServer server = new SampleStreamServer(PORT);
+            Thread acceptor = new Thread(server, "SampleStreamServer"); // $NON-NLS-1$
+            acceptor.setDaemon(true);
+            acceptor.start();
+            log.info("Listening for sample streams on {}:{}", server.host, server.getPort());
+            instance = server;
+        }
+        return instance;
+    }
+
+    /**
+     * Register a listener that remote engines can stream samples to.
+     * @param listener the local listener
+     * @return the id and token the engines must send in their handshake
+     */
+    Registration register(RemoteSampleListener listener) {
+        listeners.values().removeIf(r -> r.listener.get() == null);
+        Registration registration = new Registration(nextId.incrementAndGet(), random.nextLong(), listener);
+        listeners.put(Integer.valueOf(registration.getId()), registration);
+        return registration;
+    }
+
+    /**
+     * @return the address engines should connect to
+     */
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port engines should connect to
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread reader = new Thread(new Connection(socket),
+                        "SampleStream-" + socket.getRemoteSocketAddress()); // $NON-NLS-1$
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.error("Error accepting sample stream connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the frames of one engine
+     */
+    private final class Connection implements Runnable {
+        private final Socket socket;
+
+        private Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            String engine = String.valueOf(socket.getRemoteSocketAddress());
+            long samples = 0;
+            Inflater inflater = new Inflater();
+            try (Socket s = socket;
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 65536));
+                    DataOutputStream out = new DataOutputStream(s.getOutputStream())) {
+                if (in.readInt() != MAGIC) {
+                    log.error("Invalid sample stream from {}, closing it", engine);
+                    return;
+                }
+                int version = in.readInt();
+                if (version != VERSION) {
+                    log.error("Unsupported sample stream version {} from {}, closing it", version, engine);
+                    return;
+                }
+                int id = in.readInt();
+                long token = in.readLong();
+                engine = in.readUTF();
+                Registration registration = listeners.get(Integer.valueOf(id));
+                RemoteSampleListener listener = registration != null ? registration.listener.get() : null;
+                if (listener == null) {
+                    log.error("Sample stream from {} refers to unknown listener {}, closing it", engine, id);
+                    return;
+                }
+                if (token != registration.getToken()) {
+                    log.error("Sample stream from {} sent a wrong token for listener {}, closing it",
+                            socket.getRemoteSocketAddress(), id);
+                    return;
+                }
+                // Only one stream per registration
+                if (!listeners.remove(Integer.valueOf(id), registration)) {
+                    log.error("Sample stream from {} refers to listener {} already streamed to, closing it", engine, id);
+                    return;
+                }
+                log.info("Receiving samples from {}", engine);
+                SampleEventCodec.Decoder decoder = new SampleEventCodec.Decoder();
+                byte[] payload = new byte[0];
+                byte[] raw = new byte[0];
+                while (true) {
+                    int type = in.read();
+                    if (type == FRAME_END) {
+                        out.writeByte(ACK);
+                        out.flush();
+                        log.info("Sample stream from {} ended, {} samples received", engine, samples);
+                        return;
+                    }
+                    if (type != FRAME_SAMPLES) {
+                        log.error("Sample stream from {} closed unexpectedly (frame type: {}), {} samples received",
+                                engine, type, samples);
+                        return;
+                    }
+                    int flags = in.readByte();
+                    int count = in.readInt();
+                    int rawLength = in.readInt();
+                    int length = in.readInt();
+                    boolean deflated = (flags & FLAG_DEFLATED) != 0;
+                    if (rawLength < 0 || rawLength > MAX_FRAME_SIZE || length < 0 || length > MAX_FRAME_SIZE
+                            || (!deflated && length != rawLength)) {
+                        log.error("Sample stream from {} sent an invalid frame (length: {}, raw length: {},"
+                                + " client.stream.max_frame_size: {}), closing it, {} samples received",
+                                engine, length, rawLength, MAX_FRAME_SIZE, samples);
+                        return;
+                    }
+                    if (payload.length < length) {
+                        payload = new byte[length];
+                    }
+                    in.readFully(payload, 0, length);
+                    byte[] data = payload;
+                    if (deflated) {
+                        if (raw.length < rawLength) {
+                            raw = new byte[rawLength];
+                        }
+                        inflate(inflater, payload, length, raw, rawLength);
+                        data = raw;
+                    }
+                    List<SampleEvent> events = decoder.decode(
+                            new DataInputStream(new ByteArrayInputStream(data, 0, rawLength)), count, rawLength);
+                    samples += count;
+                    try {
+                        listener.processBatch(events);
+                    } catch (Exception e) { // NOSONAR Keep reading the stream
+                        log.error("Error processing samples from {}", engine, e);
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                log.error("Sample stream from {} closed unexpectedly, {} samples received", engine, samples, e);
+            } catch (IOException | DataFormatException | RuntimeException e) {
+                log.error("Error reading sample stream from {}, {} samples received", engine, samples, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void inflate(Inflater inflater, byte[] input, int length, byte[] output, int rawLength)
+            throws DataFormatException, IOException {
+        inflater.reset();
+        inflater.setInput(input, 0, length);
+        int offset = 0;
+        while (offset < rawLength && !inflater.finished()) {
+            int n = inflater.inflate(output, offset, rawLength - offset);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            offset += n;
+        }
+        if (offset != rawLength) {
+            throw new IOException("Truncated frame: expected " + rawLength + " bytes, got " + offset);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.jorphan.util.JOrphanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of sample events, split in segment files.
+ * <p>
+ * Events are appended to the active segment, which is closed once it reaches the
+ * segment size. Closed segments are read in order, then deleted.
+ * Each segment is encoded with its own {@link SampleEventCodec.Encoder}, so it can
+ * be decoded on its own.
+ * <p>
+ * Segments are deleted by {@link #close()}, which also runs on JVM shutdown if the
+ * log was not closed.
+ * <p>
+ * This class is threadsafe.
+ * @since 4.0
+ */
+class SpillLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpillLog.class);
+
+    private final File directory;
+
+    private final long segmentSize;
+
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+
+    private Segment active;
+
+    private long pending; // events appended and not yet read
+
+    private long bytesOnDisk;
+
+    private final Thread shutdownHook = new Thread(this::close, "SpillLog cleanup"); // $NON-NLS-1$
+
+    /**
+     * A closed segment file and the number of events it contains
+     */
+    static final class Segment {
+        private final File file;
+        private int count;
+        private long size;
+        private DataOutputStream out;
+        private SampleEventCodec.Encoder encoder;
+
+        private Segment(File file) {
+            this.file = file;
+        }
+
+        int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Reads the events of a closed segment, batch by batch
+     */
+    final class SegmentReader implements Closeable {
+        private final Segment segment;
+        private final DataInputStream in;
+        private final SampleEventCodec.Decoder decoder = new SampleEventCodec.Decoder();
+        private int remaining;
+
+        private SegmentReader(Segment segment) throws IOException {
+            this.segment = segment;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file), 65536));
+            this.remaining = segment.count;
+        }
+
+        /**
+         * @param max maximum number of events to read
+         * @return the next events, empty once the whole segment has been read
+         * @throws IOException if the segment cannot be read
+         */
+        List<SampleEvent> read(int max) throws IOException {
+            if (remaining == 0) {
+                return Collections.emptyList();
+            }
+            int n = Math.min(max, remaining);
+            List<SampleEvent> events = decoder.decode(in, n, (int) Math.min(segment.size, Integer.MAX_VALUE));
+            remaining -= n;
+            synchronized (SpillLog.this) {
+                pending -= n;
+            }
+            return events;
+        }
+
+        /**
+         * Close and delete the segment, forgetting the events not read
+         */
+        @Override
+        public void close() {
+            JOrphanUtils.closeQuietly(in);
+            synchronized (SpillLog.this) {
+                pending -= remaining;
+                bytesOnDisk -= segment.size;
+            }
+            remaining = 0;
+            delete(segment.file);
+        }
+    }
+
+    /**
+     * @param directory where segment files are created
+     * @param segmentSize size in bytes after which a segment is closed
+     */
+    SpillLog(File directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Append an event to the active segment, creating it if needed.
+     *
+     * @param event the event to append
+     * @throws IOException if the event cannot be written
+     */
+    synchronized void append(SampleEvent event) throws IOException {
+        if (active == null) {
+            File file = File.createTempFile("jmeter-spill-", ".seg", directory); // $NON-NLS-1$ $NON-NLS-2$
+            Segment segment = new Segment(file);
+            segment.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+            segment.encoder = new SampleEventCodec.Encoder();
+            active = segment;
+        }
+        int before = active.out.size();
+        active.encoder.encode(Collections.singletonList(event), active.out);
+        int written = active.out.size() - before;
+        active.count++;
+        active.size += written;
+        bytesOnDisk += written;
+        pending++;
+        if (active.size >= segmentSize) {
+            closeActive();
+        }
+    }
+
+    /**
+     * Open the oldest segment for reading. If there is no closed segment,
+     * the active segment is closed and returned.
+     *
+     * @return reader of the oldest segment, or {@code null} if the log is empty
+     * @throws IOException if the segment cannot be opened
+     */
+    synchronized SegmentReader next() throws IOException {
+        if (closedSegments.isEmpty() && active != null) {
+            closeActive();
+        }
+        Segment segment = closedSegments.poll();
+        if (segment == null) {
+            return null;
+        }
+        try {
+            return new SegmentReader(segment);
+        } catch (IOException e) {
+            // Forget the segment, so the log can still be drained
+            pending -= segment.count;
+            bytesOnDisk -= segment.size;
+            delete(segment.file);
+            throw e;
+        }
+    }
+
+    private void closeActive() throws IOException {
+        Segment segment = active;
+        active = null;
+        segment.out.close();
+        segment.out = null;
+        segment.encoder = null;
+        closedSegments.add(segment);
+    }
+
+    /**
+     * @return number of events appended and not yet read
+     */
+    synchronized long getPending() {
+        return pending;
+    }
+
+    /**
+     * @return size of the segment files not yet deleted
+     */
+    synchronized long getBytesOnDisk() {
+        return bytesOnDisk;
+    }
+
+    /**
+     * Delete all segments
+     */
+    @Override
+    public synchronized void close() {
+        removeShutdownHook();
+        if (active != null) {
+            JOrphanUtils.closeQuietly(active.out);
+            closedSegments.add(active);
+            active = null;
+        }
+        for (Segment segment : closedSegments) {
+            delete(segment.file);
+        }
+        closedSegments.clear();
+        pending = 0;
+        bytesOnDisk = 0;
+    }
+
+    private void removeShutdownHook() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) { // NOSONAR called by the hook itself
+            // JVM is shutting down
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            log.warn("Could not delete spill segment {}", file.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.util.JMeterError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous sender which never makes sampling threads wait for the controller.
+ * <p>
+ * Samples are queued in memory, as with {@link AsynchSampleSender}. When the queue is full,
+ * samples are appended to a {@link SpillLog} on local disk instead, and keep going there until
+ * the worker thread has sent the whole log to the controller. So memory is bounded and the order
+ * of samples is kept. Samples that {@link SampleEventCodec} cannot encode are never spilled,
+ * they are sent right away instead.
+ * <p>
+ * The backlog and the rate at which it is caught up are exposed by
+ * {@link SpillingSampleSenderMBean} and logged when spilling starts and ends.
+ * @since 4.0
+ */
+public class SpillingSampleSender extends AbstractSampleSender implements Serializable, SpillingSampleSenderMBean {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(SpillingSampleSender.class);
+
+    private static final String MBEAN_NAME = "org.apache.jmeter:type=SampleSender,name=Spilling"; // $NON-NLS-1$
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int SERVER_CONFIGURED_QUEUE_SIZE =
+            JMeterUtils.getPropDefault("spill.queue.size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    private static final int SERVER_CONFIGURED_BATCH_SIZE =
+            JMeterUtils.getPropDefault("spill.batch.size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    // Disk settings always come from the server
+    private static final String SPILL_DIRECTORY =
+            JMeterUtils.getPropDefault("spill.directory", System.getProperty("java.io.tmpdir")); // $NON-NLS-1$ $NON-NLS-2$
+
+    private static final long SEGMENT_SIZE =
+            JMeterUtils.getPropDefault("spill.segment.size", 16L * 1024 * 1024); // $NON-NLS-1$
+
+    private final int clientConfiguredQueueSize =
+            JMeterUtils.getPropDefault("spill.queue.size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    private final int clientConfiguredBatchSize =
+            JMeterUtils.getPropDefault("spill.batch.size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    // created by client
+    private final RemoteSampleListener listener;
+
+    // created by server in readResolve method
+    private transient BlockingQueue<SampleEvent> queue;
+
+    private transient SpillLog spillLog;
+
+    private transient Worker worker;
+
+    // true while samples go to the spill log, @GuardedBy("spillLog") for writes
+    private transient volatile boolean spilling;
+
+    private transient volatile boolean ended;
+
+    private transient AtomicLong received;
+
+    private transient AtomicLong spilled;
+
+    private transient volatile long sent;
+
+    private transient volatile double catchUpRate;
+
+    // Created by SampleSenderFactory
+    protected SpillingSampleSender(RemoteSampleListener listener) {
+        this.listener = listener;
+        log.info("Using Spilling Remote Sampler for this test run, queue size: {}", // client log file
+                clientConfiguredQueueSize);
+    }
+
+    /**
+     * Processed by the RMI server code.
+     *
+     * @return this
+     * @throws ObjectStreamException never
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        int capacity = isClientConfigured() ? clientConfiguredQueueSize : SERVER_CONFIGURED_QUEUE_SIZE;
+        int batchSize = isClientConfigured() ? clientConfiguredBatchSize : SERVER_CONFIGURED_BATCH_SIZE;
+        log.info("Using queue size: {}, batch size: {}, spilling to {} in segments of {} bytes", // server log file
+                capacity, batchSize, SPILL_DIRECTORY, SEGMENT_SIZE);
+        queue = new ArrayBlockingQueue<>(capacity);
+        spillLog = new SpillLog(new File(SPILL_DIRECTORY), SEGMENT_SIZE);
+        received = new AtomicLong();
+        spilled = new AtomicLong();
+        registerMBean();
+        worker = new Worker(Math.max(1, batchSize));
+        worker.setDaemon(true);
+        worker.start();
+        return this;
+    }
+
+    @Override
+    public void testEnded(String host) {
+        log.debug("Test Ended on {}", host);
+        ended = true;
+        try {
+            worker.join();
+            listener.testEnded(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("testEnded(host) interrupted", e);
+        } catch (Exception ex) {
+            log.warn("testEnded(host)", ex);
+        } finally {
+            spillLog.close();
+            unregisterMBean();
+        }
+        log.info("Samples received: {}, spilled to disk: {}, sent: {}", received.get(), spilled.get(), sent);
+    }
+
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        received.incrementAndGet();
+        if (!spilling && queue.offer(e)) {
+            return;
+        }
+        if (!SampleEventCodec.canEncode(e.getResult())) {
+            // Cannot be spilled, so sent now as in Standard mode
+            try {
+                listener.sampleOccurred(e);
+            } catch (RemoteException err) {
+                log.error("sampleOccurred; failed to send the sample", err);
+            }
+            return;
+        }
+        synchronized (spillLog) {
+            if (!spilling) {
+                spilling = true;
+                log.info("Sample queue is full, spilling samples to disk");
+            }
+            try {
+                spillLog.append(e);
+                spilled.incrementAndGet();
+            } catch (IOException err) {
+                log.error("sampleOccurred; failed to spill the sample", err);
+            }
+        }
+    }
+
+    @Override
+    public long getReceivedSamples() {
+        return received.get();
+    }
+
+    @Override
+    public long getSentSamples() {
+        return sent;
+    }
+
+    @Override
+    public long getSpilledSamples() {
+        return spilled.get();
+    }
+
+    @Override
+    public long getBacklog() {
+        return queue.size() + spillLog.getPending();
+    }
+
+    @Override
+    public long getBytesOnDisk() {
+        return spillLog.getBytesOnDisk();
+    }
+
+    @Override
+    public double getCatchUpRate() {
+        return catchUpRate;
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception e) { // NOSONAR The MBean is optional
+            log.warn("Could not register MBean {}", MBEAN_NAME, e);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) { // NOSONAR The MBean is optional
+            log.warn("Could not unregister MBean {}", MBEAN_NAME, e);
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final int batchSize;
+
+        private long rateTime = System.nanoTime();
+
+        private long rateBacklog;
+
+        private long spillStart;
+
+        private Worker(int batchSize) {
+            super("SpillingSampleSender"); // $NON-NLS-1$
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<SampleEvent> l = new ArrayList<>(batchSize);
+                while (true) {
+                    // Memory first, it holds the oldest samples
+                    SampleEvent e = queue.poll(100, TimeUnit.MILLISECONDS);
+                    while (e != null) {
+                        l.add(e);
+                        if (l.size() >= batchSize) {
+                            send(l);
+                        }
+                        e = queue.poll();
+                    }
+                    send(l);
+                    if (spilling && queue.isEmpty()) {
+                        drainSpillLog(l);
+                    } else if (ended && queue.isEmpty()) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.debug("Worker ended");
+        }
+
+        /**
+         * Send the spill log, until it is empty
+         */
+        private void drainSpillLog(List<SampleEvent> l) throws InterruptedException {
+            if (spillStart == 0) {
+                spillStart = System.nanoTime();
+            }
+            try {
+                SpillLog.SegmentReader reader = spillLog.next();
+                if (reader != null) {
+                    try {
+                        List<SampleEvent> events;
+                        while (!(events = reader.read(batchSize)).isEmpty()) {
+                            l.addAll(events);
+                            send(l);
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                }
+            } catch (IOException err) {
+                log.error("Failed to read spilled samples, they are lost", err);
+            }
+            synchronized (spillLog) {
+                if (spillLog.getPending() == 0) {
+                    // New samples can go to memory again
+                    spilling = false;
+                    log.info("Spilled samples caught up in {} ms, {} samples spilled so far",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - spillStart), spilled.get());
+                    spillStart = 0;
+                }
+            }
+        }
+
+        private void send(List<SampleEvent> l) throws InterruptedException {
+            if (!l.isEmpty()) {
+                try {
+                    listener.processBatch(l);
+                } catch (RemoteException err) {
+                    if (err.getCause() instanceof java.net.ConnectException) {
+                        throw new JMeterError("Could not return sample", err);
+                    }
+                    log.error("Failed to return sample", err);
+                }
+                sent += l.size();
+                l.clear();
+            }
+            updateCatchUpRate();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        private void updateCatchUpRate() {
+            long now = System.nanoTime();
+            long elapsed = now - rateTime;
+            if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+                long backlog = getBacklog();
+                catchUpRate = (rateBacklog - backlog) * 1e9 / elapsed;
+                if (spilling) {
+                    log.info("Spill backlog: {} samples, {} bytes on disk, catch up rate: {} samples/s",
+                            backlog, spillLog.getBytesOnDisk(), Math.round(catchUpRate));
+                }
+                rateBacklog = backlog;
+                rateTime = now;
+            }
+        }
+    }
+}
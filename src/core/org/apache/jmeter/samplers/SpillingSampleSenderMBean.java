@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+/**
+ * Management interface of {@link SpillingSampleSender}, registered on the server as
+ * <code>org.apache.jmeter:type=SampleSender,name=Spilling</code>
+ * @since 4.0
+ */
+public interface SpillingSampleSenderMBean {
+
+    /**
+     * @return number of samples received from the sampling threads
+     */
+    long getReceivedSamples();
+
+    /**
+     * @return number of samples sent to the controller
+     */
+    long getSentSamples();
+
+    /**
+     * @return number of samples written to the spill log, as memory was full
+     */
+    long getSpilledSamples();
+
+    /**
+     * @return number of samples waiting to be sent, in memory and on disk
+     */
+    long getBacklog();
+
+    /**
+     * @return size in bytes of the spill log
+     */
+    long getBytesOnDisk();
+
+    /**
+     * @return samples per second by which the backlog shrank over the last second,
+     *  negative if it grew
+     */
+    double getCatchUpRate();
+}
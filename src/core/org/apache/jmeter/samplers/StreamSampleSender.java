@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.util.JMeterError;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams samples to the controller over a persistent TCP connection instead of RMI.
+ * <p>
+ * Created on the client, where it registers the listener with the {@link SampleStreamServer}.
+ * On the server, samples are queued and a worker thread sends them in batches encoded by
+ * {@link SampleEventCodec} and, by default, deflated.
+ * The queue is bounded: if the controller or the network cannot keep up, sampling threads
+ * wait, as with {@link AsynchSampleSender}.
+ * <p>
+ * If the stream cannot be opened or breaks, the remaining samples are sent using RMI,
+ * as are the results that {@link SampleEventCodec} cannot encode.
+ * @since 4.0
+ */
+public class StreamSampleSender extends AbstractSampleSender implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(StreamSampleSender.class);
+
+    // Create unique object as marker for end of queue
+    private static final transient SampleEvent FINAL_EVENT = new SampleEvent();
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int SERVER_CONFIGURED_QUEUE_SIZE =
+            JMeterUtils.getPropDefault("stream.queue.size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    private static final int SERVER_CONFIGURED_BATCH_SIZE =
+            JMeterUtils.getPropDefault("stream.batch.size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    private static final boolean SERVER_CONFIGURED_COMPRESS =
+            JMeterUtils.getPropDefault("stream.compress", true); // $NON-NLS-1$
+
+    private static final int CONNECT_TIMEOUT =
+            JMeterUtils.getPropDefault("stream.connect.timeout", 10000); // $NON-NLS-1$
+
+    private static final int END_TIMEOUT =
+            JMeterUtils.getPropDefault("stream.end.timeout", 60000); // $NON-NLS-1$
+
+    private final int clientConfiguredQueueSize =
+            JMeterUtils.getPropDefault("stream.queue.size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    private final int clientConfiguredBatchSize =
+            JMeterUtils.getPropDefault("stream.batch.size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    private final boolean clientConfiguredCompress =
+            JMeterUtils.getPropDefault("stream.compress", true); // $NON-NLS-1$
+
+    // created by client
+    private final RemoteSampleListener listener;
+
+    private final String controllerHost;
+
+    private final int controllerPort;
+
+    private final int listenerId;
+
+    private final long listenerToken;
+
+    private transient BlockingQueue<SampleEvent> queue; // created by server in readResolve method
+
+    private transient Worker worker;
+
+    private transient long queueWaits; // how many times we had to wait to queue a sample
+
+    private transient long queueWaitTime; // how long we had to wait (nanoSeconds)
+
+    // Created by SampleSenderFactory
+    protected StreamSampleSender(RemoteSampleListener listener) {
+        this.listener = listener;
+        SampleStreamServer server;
+        try {
+            server = SampleStreamServer.getInstance();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the sample stream server", e);
+        }
+        this.controllerHost = server.getHost();
+        this.controllerPort = server.getPort();
+        SampleStreamServer.Registration registration = server.register(listener);
+        this.listenerId = registration.getId();
+        this.listenerToken = registration.getToken();
+        log.info("Using Stream Remote Sampler for this test run, controller address {}:{}", // client log file
+                controllerHost, controllerPort);
+    }
+
+    /**
+     * Processed by the RMI server code.
+     *
+     * @return this
+     * @throws ObjectStreamException never
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        boolean clientConfigured = isClientConfigured();
+        int capacity = clientConfigured ? clientConfiguredQueueSize : SERVER_CONFIGURED_QUEUE_SIZE;
+        int batchSize = clientConfigured ? clientConfiguredBatchSize : SERVER_CONFIGURED_BATCH_SIZE;
+        boolean compress = clientConfigured ? clientConfiguredCompress : SERVER_CONFIGURED_COMPRESS;
+        log.info("Streaming samples to {}:{}, queue size: {}, batch size: {}, compress: {}", // server log file
+                controllerHost, controllerPort, capacity, batchSize, compress);
+        queue = new ArrayBlockingQueue<>(capacity);
+        worker = new Worker(queue, batchSize, compress);
+        worker.setDaemon(true);
+        worker.start();
+        return this;
+    }
+
+    @Override
+    public void testEnded(String host) {
+        log.debug("Test Ended on {}", host);
+        try {
+            queue.put(FINAL_EVENT);
+            // Wait for the controller to have processed all samples before notifying the end
+            worker.join();
+            listener.testEnded(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("testEnded(host) interrupted", e);
+        } catch (Exception ex) {
+            log.warn("testEnded(host)", ex);
+        }
+        if (queueWaits > 0) {
+            log.info("QueueWaits: {}; QueueWaitTime: {} (nanoseconds)", queueWaits, queueWaitTime);
+        }
+    }
+
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        try {
+            if (!queue.offer(e)) { // we failed to add the element first time
+                queueWaits++;
+                long t1 = System.nanoTime();
+                queue.put(e);
+                long t2 = System.nanoTime();
+                queueWaitTime += t2 - t1;
+            }
+        } catch (Exception err) {
+            log.error("sampleOccurred; failed to queue the sample", err);
+        }
+    }
+
+    /**
+     * Buffer giving access to its array, to avoid copies
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private Buffer() {
+            super(65536);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final BlockingQueue<SampleEvent> queue;
+
+        private final int batchSize;
+
+        private final Deflater deflater;
+
+        private final SampleEventCodec.Encoder encoder = new SampleEventCodec.Encoder();
+
+        private final Buffer buffer = new Buffer();
+
+        private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+
+        private byte[] compressed = new byte[0];
+
+        private Socket socket;
+
+        private DataOutputStream out;
+
+        private Worker(BlockingQueue<SampleEvent> queue, int batchSize, boolean compress) {
+            super("StreamSampleSender"); // $NON-NLS-1$
+            this.queue = queue;
+            this.batchSize = Math.max(1, batchSize);
+            this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        }
+
+        @Override
+        public void run() {
+            try {
+                connect();
+                boolean eof = false;
+                List<SampleEvent> l = new ArrayList<>(batchSize);
+                while (!eof) {
+                    SampleEvent e = queue.take();
+                    // try to process as many as possible, up to the batch size
+                    while (!(eof = (e == FINAL_EVENT)) && e != null) {
+                        l.add(e);
+                        if (l.size() >= batchSize) {
+                            send(l);
+                            l.clear();
+                        }
+                        e = queue.poll(); // returns null if nothing on queue currently
+                    }
+                    if (!l.isEmpty()) {
+                        send(l);
+                        l.clear();
+                    }
+                }
+                end();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+            log.debug("Worker ended");
+        }
+
+        private void connect() {
+            try {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(controllerHost, controllerPort), CONNECT_TIMEOUT);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+                out.writeInt(SampleStreamServer.MAGIC);
+                out.writeInt(SampleStreamServer.VERSION);
+                out.writeInt(listenerId);
+                out.writeLong(listenerToken);
+                out.writeUTF(JMeterUtils.getLocalHostName());
+                out.flush();
+            } catch (IOException e) {
+                log.error("Could not open sample stream to {}:{}, samples will be sent using RMI",
+                        controllerHost, controllerPort, e);
+                close();
+            }
+        }
+
+        private void send(List<SampleEvent> events) {
+            List<SampleEvent> remaining = events;
+            if (out != null) {
+                // Results the codec cannot encode are sent using RMI
+                List<SampleEvent> streamed = events;
+                List<SampleEvent> others = Collections.emptyList();
+                for (int i = 0; i < events.size(); i++) {
+                    if (!SampleEventCodec.canEncode(events.get(i).getResult())) {
+                        streamed = new ArrayList<>(events.subList(0, i));
+                        others = new ArrayList<>();
+                        for (SampleEvent event : events.subList(i, events.size())) {
+                            (SampleEventCodec.canEncode(event.getResult()) ? streamed : others).add(event);
+                        }
+                        break;
+                    }
+                }
+                try {
+                    if (!streamed.isEmpty()) {
+                        writeFrame(streamed);
+                    }
+                    if (others.isEmpty()) {
+                        return;
+                    }
+                    remaining = others;
+                } catch (IOException e) {
+                    // The controller did not decode this frame, so the encoder state is lost
+                    log.error("Sample stream to {}:{} failed, remaining samples will be sent using RMI",
+                            controllerHost, controllerPort, e);
+                    close();
+                }
+            }
+            try {
+                listener.processBatch(new ArrayList<>(remaining));
+            } catch (RemoteException err) {
+                if (err.getCause() instanceof java.net.ConnectException) {
+                    throw new JMeterError("Could not return sample", err);
+                }
+                log.error("Failed to return sample", err);
+            }
+        }
+
+        private void writeFrame(List<SampleEvent> events) throws IOException {
+            buffer.reset();
+            encoder.encode(events, bufferOut);
+            bufferOut.flush();
+            int rawLength = buffer.size();
+            byte[] payload = buffer.array();
+            int length = rawLength;
+            int flags = 0;
+            if (deflater != null) {
+                length = deflate(payload, rawLength);
+                payload = compressed;
+                flags = SampleStreamServer.FLAG_DEFLATED;
+            }
+            out.writeByte(SampleStreamServer.FRAME_SAMPLES);
+            out.writeByte(flags);
+            out.writeInt(events.size());
+            out.writeInt(rawLength);
+            out.writeInt(length);
+            out.write(payload, 0, length);
+            out.flush();
+        }
+
+        private int deflate(byte[] input, int length) {
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            if (compressed.length < length / 2 + 64) {
+                compressed = new byte[length / 2 + 64];
+            }
+            int offset = 0;
+            while (!deflater.finished()) {
+                if (offset == compressed.length) {
+                    byte[] larger = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, larger, 0, offset);
+                    compressed = larger;
+                }
+                offset += deflater.deflate(compressed, offset, compressed.length - offset);
+            }
+            return offset;
+        }
+
+        private void end() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.writeByte(SampleStreamServer.FRAME_END);
+                out.flush();
+                socket.setSoTimeout(END_TIMEOUT);
+                InputStream in = socket.getInputStream();
+                if (in.read() != SampleStreamServer.ACK) {
+                    log.warn("Sample stream to {}:{} ended without acknowledgement", controllerHost, controllerPort);
+                }
+            } catch (IOException e) {
+                log.warn("Could not end sample stream to {}:{}", controllerHost, controllerPort, e);
+            }
+        }
+
+        private void close() {
+            JOrphanUtils.closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Helpers to read result files, compressed or not,
+ * and to split the block gzip files written by {@link BlockGzipOutputStream}.
+ * @since 4.0
+ */
+public final class BlockGzip {
+
+    /** Extension of compressed result files */
+    public static final String EXTENSION = ".gz"; // $NON-NLS-1$
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    private static final int FLAG_EXTRA = 4;
+
+    /**
+     * Header of the gzip members: deflate, extra field <code>JM</code> of 4 bytes
+     * holding the member size (patched when the size is known), no timestamp, unknown OS
+     */
+    static final byte[] HEADER = {
+        (byte) GZIP_MAGIC_1, (byte) GZIP_MAGIC_2, 8, FLAG_EXTRA, 0, 0, 0, 0, 0, (byte) 0xff,
+        8, 0, 'J', 'M', 4, 0, 0, 0, 0, 0
+    };
+
+    static final int HEADER_LENGTH = HEADER.length;
+
+    static final int SIZE_OFFSET = 16;
+
+    private BlockGzip() {
+        // NOOP
+    }
+
+    /**
+     * @param filename the name of a result file
+     * @return true if the name denotes a compressed file
+     */
+    public static boolean isCompressed(String filename) {
+        return filename != null && filename.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Open a result file for reading, decompressing it if it starts with the gzip magic number
+     *
+     * @param file the file to read
+     * @return a buffered stream of the (uncompressed) content of the file
+     * @throws IOException if the file can not be opened
+     */
+    public static InputStream newInputStream(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(2);
+            boolean gzip = in.read() == GZIP_MAGIC_1 && in.read() == GZIP_MAGIC_2;
+            in.reset();
+            if (gzip) {
+                return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            return in;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Find the start of each block of a file written by {@link BlockGzipOutputStream}
+     * reading only the block headers.
+     *
+     * @param file the compressed file
+     * @return the offsets of the blocks, in file order
+     * @throws IOException if the file can not be read, or was not written by {@link BlockGzipOutputStream}
+     */
+    public static List<Long> blockOffsets(File file) throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        byte[] header = new byte[HEADER_LENGTH];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { // $NON-NLS-1$
+            long length = raf.length();
+            long position = 0;
+            while (position < length) {
+                raf.seek(position);
+                raf.readFully(header);
+                long size = blockSize(header);
+                if (size <= HEADER_LENGTH) {
+                    throw new IOException("No block size in gzip header at offset " + position + " of " + file);
+                }
+                offsets.add(Long.valueOf(position));
+                position += size;
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Open some consecutive blocks of a compressed file, for example to read parts of the file in parallel.
+     *
+     * @param file the compressed file
+     * @param start the offset of the first block, as returned by {@link #blockOffsets(File)}
+     * @param end the offset of the block following the last one to read, or the file length
+     * @return a buffered stream of the uncompressed content of the blocks
+     * @throws IOException if the file can not be read
+     */
+    public static InputStream openBlocks(File file, long start, long end) throws IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            fis.getChannel().position(start);
+            InputStream range = new BoundedInputStream(new BufferedInputStream(fis, BUFFER_SIZE), end - start);
+            return new BufferedInputStream(new GZIPInputStream(range, BUFFER_SIZE), BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            fis.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param header the first {@link #HEADER_LENGTH} bytes of a member
+     * @return the size of the member recorded in the header, or -1 if it has none
+     */
+    private static long blockSize(byte[] header) {
+        if ((header[0] & 0xff) != GZIP_MAGIC_1 || (header[1] & 0xff) != GZIP_MAGIC_2
+                || (header[3] & FLAG_EXTRA) == 0 || header[12] != 'J' || header[13] != 'M') {
+            return -1;
+        }
+        return (header[SIZE_OFFSET] & 0xffL)
+                | (header[SIZE_OFFSET + 1] & 0xffL) << 8
+                | (header[SIZE_OFFSET + 2] & 0xffL) << 16
+                | (header[SIZE_OFFSET + 3] & 0xffL) << 24;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream that writes a gzip file made of independent blocks.
+ * <p>
+ * Data is cut in blocks of about <code>blockSize</code> bytes, ending on a line end when possible,
+ * and each block is written as a separate gzip member. Blocks are compressed by background
+ * threads, in parallel if several threads are used, and written in order.
+ * <p>
+ * The result is a standard gzip file, readable by any gzip tool or {@link java.util.zip.GZIPInputStream}.
+ * The header of each member also records its compressed size (extra field <code>JM</code>),
+ * so that {@link BlockGzip#blockOffsets(java.io.File)} can split the file without decompressing it.
+ * <p>
+ * {@link #flush()} compresses the pending data as a (possibly small) block,
+ * so it should not be called after each line.
+ * This class is not thread-safe.
+ * @since 4.0
+ */
+public class BlockGzipOutputStream extends FilterOutputStream {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final int blockSize;
+
+    private final int maxPendingBlocks;
+
+    private final ExecutorService executor;
+
+    /** Blocks being compressed, in file order */
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] buffer;
+
+    private int count;
+
+    private boolean closed;
+
+    /**
+     * @param out the stream to write the compressed data to
+     * @param blockSize the size of uncompressed data in a block, in bytes
+     * @param threads the number of background threads compressing blocks
+     */
+    public BlockGzipOutputStream(OutputStream out, int blockSize, int threads) {
+        super(out);
+        if (blockSize <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("blockSize and threads must be positive, got "
+                    + blockSize + " and " + threads);
+        }
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = 2 * threads;
+        this.buffer = new byte[blockSize];
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "BlockGzip-" + THREAD_NUMBER.incrementAndGet()); // $NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        buffer[count++] = (byte) b;
+        if (count == blockSize) {
+            cutBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, blockSize - count);
+            System.arraycopy(b, offset, buffer, count, chunk);
+            count += chunk;
+            offset += chunk;
+            remaining -= chunk;
+            if (count == blockSize) {
+                cutBlock();
+            }
+        }
+    }
+
+    /**
+     * Compress the full buffer as a block, up to its last line end if any,
+     * and keep the rest for the next block.
+     */
+    private void cutBlock() throws IOException {
+        int end = count;
+        for (int i = count - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                end = i + 1;
+                break;
+            }
+        }
+        byte[] block = buffer;
+        buffer = new byte[blockSize];
+        count -= end;
+        System.arraycopy(block, end, buffer, 0, count);
+        submit(block, end);
+    }
+
+    private void submit(final byte[] block, final int length) throws IOException {
+        pending.add(executor.submit(() -> compress(block, length)));
+        while (pending.size() > maxPendingBlocks || (!pending.isEmpty() && pending.peek().isDone())) {
+            writeFirstPending();
+        }
+    }
+
+    private void writeFirstPending() throws IOException {
+        Future<byte[]> first = pending.poll();
+        try {
+            out.write(first.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing block");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not compress block", e.getCause());
+        }
+    }
+
+    /**
+     * Compress the data written so far and write all blocks to the underlying stream
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            byte[] block = Arrays.copyOf(buffer, count);
+            count = 0;
+            submit(block, block.length);
+        }
+        while (!pending.isEmpty()) {
+            writeFirstPending();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    /**
+     * @param data the uncompressed data
+     * @param length the length of data to compress
+     * @return a complete gzip member holding the data
+     */
+    static byte[] compress(byte[] data, int length) {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + BlockGzip.HEADER_LENGTH + 8);
+        member.write(BlockGzip.HEADER, 0, BlockGzip.HEADER_LENGTH);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                member.write(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(member, (int) crc.getValue());
+        writeInt(member, length);
+        byte[] result = member.toByteArray();
+        // Record the size of the member in its extra field
+        int size = result.length;
+        result[BlockGzip.SIZE_OFFSET] = (byte) size;
+        result[BlockGzip.SIZE_OFFSET + 1] = (byte) (size >>> 8);
+        result[BlockGzip.SIZE_OFFSET + 2] = (byte) (size >>> 16);
+        result[BlockGzip.SIZE_OFFSET + 3] = (byte) (size >>> 24);
+        return result;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
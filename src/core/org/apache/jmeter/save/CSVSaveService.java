@@ -19,8 +19,7 @@
 package org.apache.jmeter.save;
 
 import java.io.BufferedReader;
-import java.io.CharArrayWriter;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -140,7 +139,7 @@ public final class CSVSaveService {
             ResultCollector resultCollector) throws IOException {
         final boolean errorsOnly = resultCollector.isErrorLogging();
         final boolean successOnly = resultCollector.isSuccessOnlyLogging();
-        try (InputStream inStream = new FileInputStream(filename);
+        try (InputStream inStream = BlockGzip.newInputStream(new File(filename));
                 Reader inReader = new InputStreamReader(inStream,
                         SaveService.getFileEncoding(StandardCharsets.UTF_8.name()));
                 BufferedReader dataReader = new BufferedReader(inReader)) {
@@ -162,11 +161,12 @@ public final class CSVSaveService {
             }
             String[] parts;
             final char delim = saveConfig.getDelimiter().charAt(0);
+            CSVTokenizer tokenizer = new CSVTokenizer(dataReader, delim);
             // TODO: does it matter that an empty line will terminate the loop?
             // CSV output files should never contain empty lines, so probably
             // not
             // If so, then need to check whether the reader is at EOF
-            while ((parts = csvReadFile(dataReader, delim)).length != 0) {
+            while ((parts = tokenizer.next()).length != 0) {
                 lineNumber++;
                 SampleEvent event = CSVSaveService.makeResultFromDelimitedString(parts, saveConfig, lineNumber);
                 if (event != null) {
@@ -974,6 +974,9 @@ public final class CSVSaveService {
      * <p>
      * A blank line - or a quoted blank line - both return an array containing
      * a single empty String.
+     * <p>
+     * Readers that only read records should use a {@link CSVTokenizer}, which
+     * splits them in the same way without reading the input one character at a time.
      * @param infile
      *            input file - must support mark(1)
      * @param delim
@@ -987,7 +990,7 @@ public final class CSVSaveService {
         int ch;
         ParserState state = ParserState.INITIAL;
         List<String> list = new ArrayList<>();
-        CharArrayWriter baos = new CharArrayWriter(200);
+        StringBuilder field = new StringBuilder(200);
         boolean push = false;
         while (-1 != (ch = infile.read())) {
             push = false;
@@ -998,42 +1001,42 @@ public final class CSVSaveService {
                 } else if (isDelimOrEOL(delim, ch)) {
                     push = true;
                 } else {
-                    baos.write(ch);
+                    field.append((char) ch);
                     state = ParserState.PLAIN;
                 }
                 break;
             case PLAIN:
                 if (ch == QUOTING_CHAR) {
-                    baos.write(ch);
+                    field.append((char) ch);
                     throw new IOException(
                             "Cannot have quote-char in plain field:["
-                                    + baos.toString() + "]");
+                                    + field.toString() + "]");
                 } else if (isDelimOrEOL(delim, ch)) {
                     push = true;
                     state = ParserState.INITIAL;
                 } else {
-                    baos.write(ch);
+                    field.append((char) ch);
                 }
                 break;
             case QUOTED:
                 if (ch == QUOTING_CHAR) {
                     state = ParserState.EMBEDDEDQUOTE;
                 } else {
-                    baos.write(ch);
+                    field.append((char) ch);
                 }
                 break;
             case EMBEDDEDQUOTE:
                 if (ch == QUOTING_CHAR) {
-                    baos.write(QUOTING_CHAR); // doubled quote => quote
+                    field.append(QUOTING_CHAR); // doubled quote => quote
                     state = ParserState.QUOTED;
                 } else if (isDelimOrEOL(delim, ch)) {
                     push = true;
                     state = ParserState.INITIAL;
                 } else {
-                    baos.write(QUOTING_CHAR);
+                    field.append(QUOTING_CHAR);
                     throw new IOException(
                             "Cannot have single quote-char in quoted field:["
-                                    + baos.toString() + "]");
+                                    + field.toString() + "]");
                 }
                 break;
             default:
@@ -1047,9 +1050,9 @@ public final class CSVSaveService {
                                         // back
                     }
                 }
-                String s = baos.toString();
+                String s = field.toString();
                 list.add(s);
-                baos.reset();
+                field.setLength(0);
             }
             if ((ch == '\n' || ch == '\r') && state != ParserState.QUOTED) {
                 break;
@@ -1058,14 +1061,14 @@ public final class CSVSaveService {
         if (ch == -1) {// EOF (or end of string) so collect any remaining data
             if (state == ParserState.QUOTED) {
                 throw new IOException("Missing trailing quote-char in quoted field:[\""
-                        + baos.toString() + "]");
+                        + field.toString() + "]");
             }
             // Do we have some data, or a trailing empty field?
-            if (baos.size() > 0 // we have some data
+            if (field.length() > 0 // we have some data
                     || push // we've started a field
                     || state == ParserState.EMBEDDEDQUOTE // Just seen ""
             ) {
-                list.add(baos.toString());
+                list.add(field.toString());
             }
         }
         return list.toArray(new String[list.size()]);
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits delimited records read from a {@link Reader} into fields, with the
+ * same rules and errors as {@link CSVSaveService#csvReadFile(BufferedReader, char)}.
+ * <p>
+ * Characters are scanned in the tokenizer's own buffer instead of being read
+ * one at a time. The fields of a record without quote are returned as offsets
+ * in this buffer, and only records containing a quote are unquoted into a
+ * second, reused, buffer. Strings are only built when a field is requested,
+ * so the fields of a record are valid until the next call to {@link #nextRecord()}.
+ * </p>
+ * <p>
+ * The tokenizer reads ahead of the current record, so the reader must not be
+ * used by anything else once the tokenizer has been created. It is not closed
+ * by the tokenizer.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class CSVTokenizer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char QUOTE = CSVSaveService.QUOTING_CHAR;
+
+    private static final String[] NO_FIELDS = new String[0];
+
+    private enum State {INITIAL, PLAIN, QUOTED, EMBEDDEDQUOTE}
+
+    private final Reader reader;
+
+    private final char delim;
+
+    private char[] buf;
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    /** the last record ended with \r, a following \n belongs to it */
+    private boolean skipLf;
+
+    /** characters of the fields of the current record: buf or unquoted */
+    private char[] source;
+
+    private int[] starts = new int[32];
+
+    private int[] ends = new int[32];
+
+    private int fieldCount;
+
+    /** unquoted fields of the current record, when it contains a quote */
+    private char[] unquoted = new char[256];
+
+    private int unquotedLength;
+
+    /**
+     * @param reader
+     *            the reader of the records
+     * @param delim
+     *            the field delimiter (e.g. comma)
+     */
+    public CSVTokenizer(Reader reader, char delim) {
+        this(reader, delim, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param reader
+     *            the reader of the records
+     * @param delim
+     *            the field delimiter
+     * @param bufferSize
+     *            the initial size of the buffer, grown if a record is longer
+     */
+    CSVTokenizer(Reader reader, char delim, int bufferSize) {
+        this.reader = reader;
+        this.delim = delim;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return {@code false} at the end of the input
+     * @throws IOException
+     *             if the input cannot be read or has unexpected quote
+     *             characters
+     */
+    public boolean nextRecord() throws IOException {
+        if (skipLf) {
+            skipLf = false;
+            if ((pos < limit || fill(pos)) && buf[pos] == '\n') {
+                pos++;
+            }
+        }
+        if (!scanUnquoted()) {
+            scanQuoted();
+        }
+        return fieldCount > 0;
+    }
+
+    /**
+     * Reads the next record and returns all its fields.
+     *
+     * @return the fields of the record, empty at the end of the input
+     * @throws IOException
+     *             if the input cannot be read or has unexpected quote
+     *             characters
+     */
+    public String[] next() throws IOException {
+        return nextRecord() ? getFields() : NO_FIELDS;
+    }
+
+    /**
+     * @return the number of fields of the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @param index
+     *            the index of the field in the current record
+     * @return the field value
+     */
+    public String getField(int index) {
+        if (index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        return new String(source, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * @return the values of all the fields of the current record
+     */
+    public String[] getFields() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = new String(source, starts[i], ends[i] - starts[i]);
+        }
+        return fields;
+    }
+
+    /**
+     * Splits the record starting at pos if it contains no quote.
+     *
+     * @return {@code false} if a quote was found, pos is left unchanged
+     */
+    private boolean scanUnquoted() throws IOException {
+        source = buf;
+        while (true) {
+            fieldCount = 0;
+            int fieldStart = pos;
+            for (int i = pos; i < limit; i++) {
+                char c = buf[i];
+                if (c == delim) {
+                    addField(fieldStart, i);
+                    fieldStart = i + 1;
+                } else if (c == '\n' || c == '\r') {
+                    addField(fieldStart, i);
+                    pos = i + 1;
+                    skipLf = c == '\r';
+                    return true;
+                } else if (c == QUOTE) {
+                    fieldCount = 0;
+                    return false;
+                }
+            }
+            if (eof) {
+                // Last record, without line end
+                if (limit > pos) {
+                    addField(fieldStart, limit);
+                }
+                pos = limit;
+                return true;
+            }
+            // buf may be reallocated and the record moved to its start
+            fill(pos);
+            source = buf;
+        }
+    }
+
+    /**
+     * Splits the record starting at pos, unquoting its fields, in the same way
+     * as {@link CSVSaveService#csvReadFile(BufferedReader, char)}.
+     */
+    private void scanQuoted() throws IOException {
+        source = unquoted;
+        fieldCount = 0;
+        unquotedLength = 0;
+        int fieldStart = 0;
+        State state = State.INITIAL;
+        boolean push = false;
+        int ch;
+        while (-1 != (ch = read())) {
+            push = false;
+            switch (state) {
+            case INITIAL:
+                if (ch == QUOTE) {
+                    state = State.QUOTED;
+                } else if (isDelimOrEOL(ch)) {
+                    push = true;
+                } else {
+                    append(ch);
+                    state = State.PLAIN;
+                }
+                break;
+            case PLAIN:
+                if (ch == QUOTE) {
+                    append(ch);
+                    throw new IOException(
+                            "Cannot have quote-char in plain field:["
+                                    + currentField(fieldStart) + "]");
+                } else if (isDelimOrEOL(ch)) {
+                    push = true;
+                    state = State.INITIAL;
+                } else {
+                    append(ch);
+                }
+                break;
+            case QUOTED:
+                if (ch == QUOTE) {
+                    state = State.EMBEDDEDQUOTE;
+                } else {
+                    append(ch);
+                }
+                break;
+            case EMBEDDEDQUOTE:
+                if (ch == QUOTE) {
+                    append(QUOTE); // doubled quote => quote
+                    state = State.QUOTED;
+                } else if (isDelimOrEOL(ch)) {
+                    push = true;
+                    state = State.INITIAL;
+                } else {
+                    append(QUOTE);
+                    throw new IOException(
+                            "Cannot have single quote-char in quoted field:["
+                                    + currentField(fieldStart) + "]");
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state " + state);
+            }
+            if (push) {
+                skipLf = ch == '\r';
+                addField(fieldStart, unquotedLength);
+                fieldStart = unquotedLength;
+            }
+            if ((ch == '\n' || ch == '\r') && state != State.QUOTED) {
+                return;
+            }
+        }
+        // EOF so collect any remaining data
+        if (state == State.QUOTED) {
+            throw new IOException("Missing trailing quote-char in quoted field:[\""
+                    + currentField(fieldStart) + "]");
+        }
+        // Do we have some data, or a trailing empty field?
+        if (unquotedLength > fieldStart || push || state == State.EMBEDDEDQUOTE) {
+            addField(fieldStart, unquotedLength);
+        }
+    }
+
+    private boolean isDelimOrEOL(int ch) {
+        return ch == delim || ch == '\n' || ch == '\r';
+    }
+
+    private int read() throws IOException {
+        while (pos == limit) {
+            if (!fill(pos)) {
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    private void append(int ch) {
+        if (unquotedLength == unquoted.length) {
+            unquoted = Arrays.copyOf(unquoted, unquoted.length * 2);
+        }
+        unquoted[unquotedLength++] = (char) ch;
+    }
+
+    private String currentField(int fieldStart) {
+        return new String(unquoted, fieldStart, unquotedLength - fieldStart);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Reads more characters, keeping those from the specified index which are
+     * moved to the start of the buffer, as is pos.
+     *
+     * @param keepFrom
+     *            index of the first character to keep
+     * @return {@code true} if characters were read
+     */
+    private boolean fill(int keepFrom) throws IOException {
+        if (eof) {
+            return false;
+        }
+        int kept = limit - keepFrom;
+        if (keepFrom > 0) {
+            System.arraycopy(buf, keepFrom, buf, 0, kept);
+        } else if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        pos -= keepFrom;
+        limit = kept;
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Naming of the files rolled from a result file.
+ * <p>
+ * A rolled file has the name of the result file with an index inserted before its extension,
+ * <code>.gz</code> excluded: <code>results.jtl.gz</code> is rolled to <code>results.1.jtl.gz</code>,
+ * then <code>results.2.jtl.gz</code>..., the result file itself holding the most recent samples.
+ * <p>
+ * Rolled files are found by their name only: like the result file, which later runs append to,
+ * they are kept from one run to the next, and any file of the same folder named after the result file
+ * with an index is considered rolled from it, whichever run wrote it.
+ * Remove or move them to start a new series.
+ * @since 4.0
+ */
+public final class RolledFiles {
+
+    private static final Logger log = LoggerFactory.getLogger(RolledFiles.class);
+
+    private RolledFiles() {
+        // NOOP
+    }
+
+    /**
+     * @param file a result file
+     * @return the file to rename the result file to when rolling it, using the index following the highest existing one
+     */
+    public static File nextRolledFile(File file) {
+        int next = 1;
+        for (Integer index : findRolledFiles(file).keySet()) {
+            next = Math.max(next, index.intValue() + 1);
+        }
+        String[] parts = split(file.getName());
+        return new File(file.getAbsoluteFile().getParentFile(), parts[0] + "." + next + parts[1]); // $NON-NLS-1$
+    }
+
+    /**
+     * @param file a result file
+     * @return the files named as rolled from the result file, oldest first, including those of earlier runs
+     */
+    public static List<File> listRolledFiles(File file) {
+        List<File> rolled = new ArrayList<>(findRolledFiles(file).values());
+        if (!rolled.isEmpty()) {
+            log.info("Reading {} files rolled from {}: {}", rolled.size(), file, rolled);
+        }
+        return rolled;
+    }
+
+    private static TreeMap<Integer, File> findRolledFiles(File file) {
+        TreeMap<Integer, File> rolled = new TreeMap<>();
+        File dir = file.getAbsoluteFile().getParentFile();
+        String[] parts = split(file.getName());
+        Pattern pattern = Pattern.compile(Pattern.quote(parts[0] + ".") + "([0-9]{1,9})" // $NON-NLS-1$ $NON-NLS-2$
+                + Pattern.quote(parts[1]));
+        File[] candidates = dir == null ? null : dir.listFiles(File::isFile);
+        if (candidates != null) {
+            for (File candidate : candidates) {
+                Matcher matcher = pattern.matcher(candidate.getName());
+                if (matcher.matches()) {
+                    rolled.put(Integer.valueOf(matcher.group(1)), candidate);
+                }
+            }
+        }
+        return rolled;
+    }
+
+    /**
+     * @return the name without its extension, and the extension (with the dot, and <code>.gz</code> if present)
+     */
+    private static String[] split(String name) {
+        String suffix = "";
+        String base = name;
+        if (BlockGzip.isCompressed(name)) {
+            suffix = name.substring(name.length() - BlockGzip.EXTENSION.length());
+            base = name.substring(0, name.length() - suffix.length());
+        }
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) {
+            suffix = base.substring(dot) + suffix;
+            base = base.substring(0, dot);
+        }
+        return new String[] { base, suffix };
+    }
+}
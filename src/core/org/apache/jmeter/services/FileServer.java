@@ -29,10 +29,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
@@ -79,6 +81,9 @@ public class FileServer {
 
     private final Map<String, FileEntry> files = new HashMap<>();
 
+    // Record indexes of partitioned files, by canonical path
+    private final Map<String, LineOffsetIndex> indexes = new HashMap<>();
+
     private static final FileServer server = new FileServer();
 
     // volatile needed to ensure safe publication
@@ -256,16 +261,56 @@ public class FileServer {
      * @throws IllegalArgumentException if header could not be read or filename is null or empty
      */
     public synchronized String reserveFile(String filename, String charsetName, String alias, boolean hasHeader) {
+        return reserveFile(filename, charsetName, alias, hasHeader, 0, 1, false);
+    }
+
+    /**
+     * Creates an association between a filename and a File inputOutputObject which only reads
+     * a partition of the records of the file, and stores it for later use - unless it is already stored.
+     * Records are striped between partitions: partition <code>p</code> reads records
+     * <code>p, p + partitions, p + 2 * partitions...</code>, the header line being read by all partitions.
+     * <p>
+     * Partitions are read using an index of the offsets of the records, built once per file.
+     *
+     * @param filename - relative (to base) or absolute file name (must not be null or empty)
+     * @param charsetName - the character set encoding to use for the file (may be null)
+     * @param alias - the name to be used to access the object (must not be null)
+     * @param hasHeader true if the file has a header line describing the contents
+     * @param partition index of the partition to read, from 0 to <code>partitions - 1</code>
+     * @param partitions number of partitions, 1 to read all records
+     * @param quoted true if line breaks inside quoted values do not end a record
+     * @return the header line; may be null
+     * @throws IllegalArgumentException if header could not be read, filename is null or empty,
+     *  or the partition is not valid
+     * @since 4.0
+     */
+    public synchronized String reserveFile(String filename, String charsetName, String alias, boolean hasHeader,
+            int partition, int partitions, boolean quoted) {
         if (filename == null || filename.isEmpty()){
             throw new IllegalArgumentException("Filename must not be null or empty");
         }
         if (alias == null){
             throw new IllegalArgumentException("Alias must not be null");
         }
+        if (partitions < 1 || partition < 0 || partition >= partitions) {
+            throw new IllegalArgumentException("Invalid partition " + partition + " of " + partitions);
+        }
         FileEntry fileEntry = files.get(alias);
         if (fileEntry == null) {
             fileEntry = new FileEntry(resolveFileFromPath(filename), null, charsetName);
-            if (filename.equals(alias)){
+            if (partitions > 1) {
+                Charset charset = JOrphanUtils.isBlank(charsetName)
+                        ? Charset.defaultCharset() : Charset.forName(charsetName);
+                if (!LineOffsetIndex.isSupported(charset)) {
+                    throw new IllegalArgumentException("Encoding " + charset + " of file " + filename
+                            + " does not allow to partition it");
+                }
+                fileEntry.headerRecords = hasHeader ? 1 : 0;
+                fileEntry.partition = partition;
+                fileEntry.partitions = partitions;
+                fileEntry.quoted = quoted;
+                log.info("Stored: {} Alias: {} Partition: {}/{}", filename, alias, partition, partitions);
+            } else if (filename.equals(alias)){
                 log.info("Stored: {}", filename);
             } else {
                 log.info("Stored: {} Alias: {}", filename, alias);
@@ -427,7 +472,10 @@ public class FileServer {
         if (!fileEntry.file.canRead() || !fileEntry.file.isFile()) {
             throw new IllegalArgumentException("File "+ fileEntry.file.getName()+ " must exist and be readable");
         }
-        FileInputStream fis = new FileInputStream(fileEntry.file);
+        InputStream fis = fileEntry.partitions > 1
+                ? getIndex(fileEntry).openPartition(fileEntry.file,
+                        fileEntry.headerRecords, fileEntry.partition, fileEntry.partitions)
+                : new FileInputStream(fileEntry.file);
         InputStreamReader isr = null;
         // If file encoding is specified, read using that encoding, otherwise use default platform encoding
         String charsetName = fileEntry.charSetEncoding;
@@ -439,6 +487,19 @@ public class FileServer {
         return new BufferedReader(isr);
     }
 
+    private LineOffsetIndex getIndex(FileEntry fileEntry) throws IOException {
+        String key = fileEntry.file.getCanonicalPath() + (fileEntry.quoted ? "@quoted" : ""); // $NON-NLS-1$ $NON-NLS-2$
+        LineOffsetIndex index = indexes.get(key);
+        if (index == null) {
+            long start = System.currentTimeMillis();
+            index = LineOffsetIndex.build(fileEntry.file, fileEntry.quoted);
+            log.info("Indexed {} records of {} in {} ms", index.getCount(), fileEntry.file,
+                    System.currentTimeMillis() - start);
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
     public synchronized void write(String filename, String value) throws IOException {
         FileEntry fileEntry = files.get(filename);
         if (fileEntry != null) {
@@ -473,6 +534,7 @@ public class FileServer {
             closeFile(me.getKey(),me.getValue() );
         }
         files.clear();
+        indexes.clear();
     }
 
     /**
@@ -547,6 +609,11 @@ public class FileServer {
         private final File file;
         private Closeable inputOutputObject; 
         private final String charSetEncoding;
+        // Partition read by this entry, see reserveFile
+        private int headerRecords;
+        private int partition;
+        private int partitions = 1;
+        private boolean quoted;
         FileEntry(File f, Closeable o, String e){
             file=f;
             inputOutputObject=o;
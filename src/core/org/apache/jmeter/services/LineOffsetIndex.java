@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.services;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Byte offsets of the records of a text file, used to read only a partition of its records.
+ * <p>
+ * A record ends with a line feed. If the file is quoted, line feeds inside double quotes
+ * do not end a record, as parsed by {@link org.apache.jmeter.save.CSVSaveService#csvReadFile}.
+ * The file is scanned as bytes, so the encoding must represent line feed and double quote
+ * as their single ASCII byte, and never use those bytes inside other characters
+ * (true for UTF-8, ISO-8859-x and most legacy multi-byte encodings, not for UTF-16).
+ * <p>
+ * Only the offset of one record every {@link #RECORDS_PER_CHECKPOINT} is kept, so that
+ * the index of a file of 100 million records takes about 6 MB. The records in between
+ * are found by scanning the file from the previous checkpoint.
+ * @since 4.0
+ */
+final class LineOffsetIndex {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final int RECORDS_PER_CHECKPOINT = 128;
+
+    // checkpoints[i] is the start of record i * RECORDS_PER_CHECKPOINT
+    private final long[] checkpoints;
+
+    private final int count;
+
+    private final boolean quoted;
+
+    private LineOffsetIndex(long[] checkpoints, int count, boolean quoted) {
+        this.checkpoints = checkpoints;
+        this.count = count;
+        this.quoted = quoted;
+    }
+
+    /**
+     * Scan a file and index its records
+     *
+     * @param file the file to index
+     * @param quoted true if line feeds inside double quotes do not end a record
+     * @return the index
+     * @throws IOException if the file cannot be read
+     */
+    static LineOffsetIndex build(File file, boolean quoted) throws IOException {
+        long[] checkpoints = new long[1024];
+        int checkpointCount = 0;
+        int count = 0;
+        long position = 0;
+        boolean inQuotes = false;
+        boolean recordStarted = false;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (!recordStarted) {
+                        if (count % RECORDS_PER_CHECKPOINT == 0) {
+                            if (checkpointCount == checkpoints.length) {
+                                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                            }
+                            checkpoints[checkpointCount++] = position + i;
+                        }
+                        count++;
+                        recordStarted = true;
+                    }
+                    if (quoted && b == '"') {
+                        // An escaped quote toggles twice
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n' && !inQuotes) {
+                        recordStarted = false;
+                    }
+                }
+                position += read;
+            }
+        }
+        return new LineOffsetIndex(Arrays.copyOf(checkpoints, checkpointCount), count, quoted);
+    }
+
+    /**
+     * @param charset encoding of the file
+     * @return true if files in this encoding can be indexed
+     */
+    static boolean isSupported(Charset charset) {
+        return Arrays.equals(new byte[] { '\n', '"' }, "\n\"".getBytes(charset)); // $NON-NLS-1$
+    }
+
+    /**
+     * @return the number of records of the file
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Open a stream returning the header records, then every record of a partition
+     *
+     * @param file the indexed file
+     * @param headerRecords number of records at the start of the file that are not partitioned
+     * @param partition index of the partition, from 0 to <code>partitions - 1</code>
+     * @param partitions number of partitions
+     * @return stream of the bytes of the selected records
+     * @throws IOException if the file cannot be opened
+     */
+    InputStream openPartition(File file, int headerRecords, int partition, int partitions) throws IOException {
+        return new PartitionInputStream(file, headerRecords, partition, partitions);
+    }
+
+    /**
+     * Reads the header records, then records <code>headerRecords + partition + n * partitions</code>.
+     * Records are scanned from the last checkpoint before them, skipping the records of other partitions.
+     */
+    private final class PartitionInputStream extends InputStream {
+        private final RandomAccessFile input;
+        private final int headerRecords;
+        private final int firstRecord;
+        private final int partitions;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int bufferPosition;
+        private int bufferLength;
+        // Next record to start if atRecordStart, otherwise the record being scanned
+        private int record;
+        private boolean atRecordStart = true;
+        private boolean selected;
+        private boolean inQuotes;
+
+        private PartitionInputStream(File file, int headerRecords, int partition, int partitions) throws IOException {
+            this.input = new RandomAccessFile(file, "r"); // $NON-NLS-1$
+            this.headerRecords = Math.min(headerRecords, count);
+            this.firstRecord = this.headerRecords + partition;
+            this.partitions = partitions;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int copied = 0;
+            while (copied == 0) {
+                if (atRecordStart && !startRecord()) {
+                    return -1;
+                }
+                if (bufferPosition == bufferLength) {
+                    int read = input.read(buffer);
+                    if (read == -1) {
+                        return -1; // end of the last record, or file was truncated since it was indexed
+                    }
+                    bufferPosition = 0;
+                    bufferLength = read;
+                }
+                int start = bufferPosition;
+                int limit = selected ? Math.min(bufferLength, start + len) : bufferLength;
+                int i = start;
+                while (i < limit && !atRecordStart) {
+                    byte c = buffer[i++];
+                    if (quoted && c == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (c == '\n' && !inQuotes) {
+                        atRecordStart = true;
+                        record++;
+                    }
+                }
+                bufferPosition = i;
+                if (selected) {
+                    System.arraycopy(buffer, start, b, off, i - start);
+                    copied = i - start;
+                }
+            }
+            return copied;
+        }
+
+        /**
+         * Prepare to scan the next record, jumping to the checkpoint before the next
+         * selected record if it is after the current one
+         *
+         * @return false if there is no more record to read
+         * @throws IOException if the file cannot be read
+         */
+        private boolean startRecord() throws IOException {
+            long next = nextSelected(record);
+            if (next >= count) {
+                return false;
+            }
+            if (next - record >= RECORDS_PER_CHECKPOINT) {
+                int checkpoint = (int) (next / RECORDS_PER_CHECKPOINT);
+                input.seek(checkpoints[checkpoint]);
+                bufferPosition = 0;
+                bufferLength = 0;
+                record = checkpoint * RECORDS_PER_CHECKPOINT;
+            }
+            selected = record == next;
+            atRecordStart = false;
+            return true;
+        }
+
+        /**
+         * @return the first record of the header or of the partition from <code>from</code>
+         */
+        private long nextSelected(int from) {
+            if (from < headerRecords) {
+                return from;
+            }
+            if (from <= firstRecord) {
+                return firstRecord;
+            }
+            long stripes = (from - firstRecord + (long) partitions - 1) / partitions;
+            return firstRecord + stripes * partitions;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
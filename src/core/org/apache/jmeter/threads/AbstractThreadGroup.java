@@ -19,6 +19,8 @@
 package org.apache.jmeter.threads;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -258,6 +260,29 @@ public abstract class AbstractThreadGroup extends AbstractTestElement
      */
     public abstract int numberOfActiveThreads();
 
+    /**
+     * Whether {@link #getThreadNames()} lists the running threads of this group, so that they can be
+     * stopped one by one to reduce its number of threads while the test runs.
+     * Implementations that track their threads must override both methods.
+     *
+     * @return <code>true</code> if the threads of this group can be listed, <code>false</code> by default
+     * @since 4.0
+     */
+    public boolean canListThreads() {
+        return false;
+    }
+
+    /**
+     * Names of the running threads, which can be passed to {@link #stopThread(String, boolean)}.
+     * Implementations that do not track their threads, see {@link #canListThreads()}, return an empty list.
+     *
+     * @return the names of the threads of this group that have not finished yet
+     * @since 4.0
+     */
+    public List<String> getThreadNames() {
+        return Collections.emptyList();
+    }
+
     /**
      * Start the {@link ThreadGroup}
      * @param groupCount group number
@@ -275,6 +300,19 @@ public abstract class AbstractThreadGroup extends AbstractTestElement
      */
     public abstract JMeterThread addNewThread(int delay, StandardJMeterEngine engine);
 
+    /**
+     * Add a new {@link JMeterThread} to this {@link ThreadGroup} for engine,
+     * without changing its configured number of threads.
+     * Implementations that do not support it add the thread with {@link #addNewThread(int, StandardJMeterEngine)}.
+     * @param delay Delay in milliseconds
+     * @param engine {@link StandardJMeterEngine}
+     * @return {@link JMeterThread}
+     * @since 4.0
+     */
+    public JMeterThread addExtraThread(int delay, StandardJMeterEngine engine) {
+        return addNewThread(delay, engine);
+    }
+
     /**
      * @return true if threads were correctly stopped
      */
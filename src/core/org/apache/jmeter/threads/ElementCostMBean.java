@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+/**
+ * JMX view of the cost of a test element class or instance, see {@link ElementCosts}.
+ * Durations are in nanoseconds.
+ * @since 4.0
+ */
+public interface ElementCostMBean {
+
+    /**
+     * @return kind of element: PreProcessor, Timer, PostProcessor, Assertion or Listener
+     */
+    String getCategory();
+
+    /**
+     * @return class name for a class cost, element name and class for an element cost
+     */
+    String getName();
+
+    /**
+     * @return number of executions
+     */
+    long getCount();
+
+    /**
+     * @return total time spent in the element
+     */
+    long getTotalNanos();
+
+    /**
+     * @return mean time of an execution
+     */
+    double getMeanNanos();
+
+    /**
+     * @return max time of an execution
+     */
+    long getMaxNanos();
+
+    /**
+     * @return median time of an execution
+     */
+    long getMedianNanos();
+
+    /**
+     * @return 90th percentile of execution times
+     */
+    long getPercentile90Nanos();
+
+    /**
+     * @return 99th percentile of execution times
+     */
+    long getPercentile99Nanos();
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in measurement of the time spent by JMeter itself in the elements run around
+ * each sample: pre-processors, timers (computation of the delay, not the pause),
+ * post-processors, assertions and listeners (including result saving).
+ * <p>
+ * Enabled by property <code>jmeterengine.instrumentation</code>. Times are recorded in nanoseconds
+ * per element class and per element (name and class) in fixed memory histograms,
+ * registered as MBeans in domain <code>org.apache.jmeter</code> (type <code>ElementCost</code>)
+ * and logged at the end of the test.
+ * <p>
+ * Usage:
+ * <pre>
+ * long start = ElementCosts.start();
+ * postProcessor.process();
+ * ElementCosts.record(Category.POST_PROCESSOR, postProcessor, start);
+ * </pre>
+ * @since 4.0
+ */
+public final class ElementCosts {
+
+    private static final Logger log = LoggerFactory.getLogger(ElementCosts.class);
+
+    /** Kind of elements which are measured */
+    public enum Category {
+        PRE_PROCESSOR("PreProcessor"), // $NON-NLS-1$
+        TIMER("Timer"), // $NON-NLS-1$
+        POST_PROCESSOR("PostProcessor"), // $NON-NLS-1$
+        ASSERTION("Assertion"), // $NON-NLS-1$
+        LISTENER("Listener"); // $NON-NLS-1$
+
+        private final String label;
+
+        Category(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return name of the category used in MBean names and in the summary
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /** Value returned by {@link #start()} when instrumentation is disabled */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private static final String JMX_DOMAIN = "org.apache.jmeter"; // $NON-NLS-1$
+
+    private static final int SUMMARY_SIZE =
+            JMeterUtils.getPropDefault("jmeterengine.instrumentation.summary.size", 20); // $NON-NLS-1$
+
+    private static volatile boolean enabled =
+            JMeterUtils.getPropDefault("jmeterengine.instrumentation", false); // $NON-NLS-1$
+
+    private static final ConcurrentMap<String, ElementCost> CLASS_COSTS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, ElementCost> ELEMENT_COSTS = new ConcurrentHashMap<>();
+
+    private static final List<ObjectName> REGISTERED_NAMES = new ArrayList<>();
+
+    // Incremented by reset() to invalidate the per thread caches
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    /**
+     * Elements are cloned for each thread, so each thread keeps its own element to costs lookup.
+     * Identity is used as test elements equals() compares their properties.
+     */
+    private static final class ThreadCache {
+        private int generation = -1;
+        private final Map<Object, ElementCost[][]> costs = new IdentityHashMap<>();
+    }
+
+    private static final ThreadLocal<ThreadCache> THREAD_CACHE = ThreadLocal.withInitial(ThreadCache::new);
+
+    private ElementCosts() {
+        // NOOP
+    }
+
+    /**
+     * @return true if element costs are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Only for tests, the value is normally set from property <code>jmeterengine.instrumentation</code>
+     * @param enable flag whether costs should be recorded
+     */
+    static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * @return the current time to pass to {@link #record(Category, Object, long)},
+     * or {@link #NOT_STARTED} if instrumentation is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Record the time spent in an element since <code>start</code>
+     * @param category kind of element
+     * @param element the element which was run
+     * @param start value returned by {@link #start()} before running the element
+     */
+    public static void record(Category category, Object element, long start) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        ElementCost[] costs = costsOf(category, element);
+        costs[0].record(elapsed);
+        costs[1].record(elapsed);
+    }
+
+    private static ElementCost[] costsOf(Category category, Object element) {
+        ThreadCache cache = THREAD_CACHE.get();
+        int generation = GENERATION.get();
+        if (cache.generation != generation) {
+            cache.costs.clear();
+            cache.generation = generation;
+        }
+        ElementCost[][] byCategory = cache.costs.get(element);
+        if (byCategory == null) {
+            byCategory = new ElementCost[Category.values().length][];
+            cache.costs.put(element, byCategory);
+        }
+        ElementCost[] costs = byCategory[category.ordinal()];
+        if (costs == null) {
+            Class<?> clazz = element.getClass();
+            String elementName = element instanceof TestElement ? ((TestElement) element).getName() : null;
+            costs = new ElementCost[] {
+                    costOf(CLASS_COSTS, "Class", category, clazz.getName()), // $NON-NLS-1$
+                    costOf(ELEMENT_COSTS, "Element", category, // $NON-NLS-1$
+                            elementName + " (" + clazz.getSimpleName() + ")") // $NON-NLS-1$ // $NON-NLS-2$
+            };
+            byCategory[category.ordinal()] = costs;
+        }
+        return costs;
+    }
+
+    private static ElementCost costOf(ConcurrentMap<String, ElementCost> costs,
+            String scope, Category category, String name) {
+        String key = category.getLabel() + ' ' + name;
+        ElementCost cost = costs.get(key);
+        if (cost == null) {
+            cost = costs.computeIfAbsent(key, k -> register(scope, new ElementCost(category, name)));
+        }
+        return cost;
+    }
+
+    private static ElementCost register(String scope, ElementCost cost) {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ElementCost" // $NON-NLS-1$
+                    + ",scope=" + scope // $NON-NLS-1$
+                    + ",category=" + cost.getCategory() // $NON-NLS-1$
+                    + ",name=" + ObjectName.quote(cost.getName())); // $NON-NLS-1$
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            synchronized (REGISTERED_NAMES) {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(cost, objectName);
+                REGISTERED_NAMES.add(objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            log.warn("Could not register MBean for {} cost of {}", cost.getCategory(), cost.getName(), e);
+        }
+        return cost;
+    }
+
+    /**
+     * Forget all recorded costs and unregister their MBeans.
+     * Called by the engine when a test starts.
+     */
+    public static void reset() {
+        GENERATION.incrementAndGet();
+        CLASS_COSTS.clear();
+        ELEMENT_COSTS.clear();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (REGISTERED_NAMES) {
+            for (ObjectName objectName : REGISTERED_NAMES) {
+                try {
+                    if (server.isRegistered(objectName)) {
+                        server.unregisterMBean(objectName);
+                    }
+                } catch (JMException e) {
+                    log.warn("Could not unregister MBean {}", objectName, e);
+                }
+            }
+            REGISTERED_NAMES.clear();
+        }
+    }
+
+    /**
+     * @return the costs recorded per element class
+     */
+    public static Collection<ElementCost> getClassCosts() {
+        return new ArrayList<>(CLASS_COSTS.values());
+    }
+
+    /**
+     * @return the costs recorded per element (name and class)
+     */
+    public static Collection<ElementCost> getElementCosts() {
+        return new ArrayList<>(ELEMENT_COSTS.values());
+    }
+
+    /**
+     * Log the most expensive element classes and elements, by total time.
+     * Called by the engine when a test ends, does nothing if no cost was recorded.
+     */
+    public static void logSummary() {
+        if (CLASS_COSTS.isEmpty()) {
+            return;
+        }
+        log.info("Element costs by class, top {} by total time:\n{}", SUMMARY_SIZE, summary(getClassCosts()));
+        log.info("Element costs by element, top {} by total time:\n{}", SUMMARY_SIZE, summary(getElementCosts()));
+    }
+
+    /**
+     * @param costs the costs to summarize
+     * @return a table of the costs with the highest total time
+     */
+    static String summary(Collection<ElementCost> costs) {
+        List<ElementCost> sorted = new ArrayList<>(costs);
+        sorted.sort(Comparator.comparingLong(ElementCost::getTotalNanos).reversed());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-14s %10s %12s %10s %10s %10s %10s  %s%n", // $NON-NLS-1$
+                "Category", "Count", "Total ms", "Mean us", "90% us", "99% us", "Max us", "Name")); // $NON-NLS-1$
+        for (ElementCost cost : sorted.subList(0, Math.min(SUMMARY_SIZE, sorted.size()))) {
+            sb.append(String.format("%-14s %10d %12.1f %10.1f %10.1f %10.1f %10.1f  %s%n", // $NON-NLS-1$
+                    cost.getCategory(),
+                    cost.getCount(),
+                    cost.getTotalNanos() / 1e6,
+                    cost.getMeanNanos() / 1e3,
+                    cost.getPercentile90Nanos() / 1e3,
+                    cost.getPercentile99Nanos() / 1e3,
+                    cost.getMaxNanos() / 1e3,
+                    cost.getName()));
+        }
+        return sb.toString();
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.jmeter.threads;
 
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.util.JMeterUtils;
 
 /**
@@ -90,12 +91,14 @@ public final class JMeterContextService {
     /**
      * Method is called by the JMeterEngine class when a test run is started.
      * Zeroes numberOfActiveThreads.
-     * Saves current time in a field and in the JMeter property "TESTSTART.MS"
+     * Saves current time in a field and in the JMeter property "TESTSTART.MS",
+     * corrected by the clock offset of a coordinated distributed start
+     * @see SampleResult#setClockOffset(long)
      */
     public static synchronized void startTest() {
         if (testStart == 0) {
             numberOfActiveThreads = 0;
-            testStart = System.currentTimeMillis();
+            testStart = System.currentTimeMillis() - SampleResult.getClockOffset();
             JMeterUtils.setProperty("TESTSTART.MS",Long.toString(testStart));// $NON-NLS-1$
         }
     }
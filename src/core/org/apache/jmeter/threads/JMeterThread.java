@@ -28,6 +28,7 @@ import org.apache.jmeter.assertions.Assertion;
 import org.apache.jmeter.assertions.AssertionResult;
 import org.apache.jmeter.control.Controller;
 import org.apache.jmeter.control.TransactionSampler;
+import org.apache.jmeter.engine.InjectorHealthMonitor;
 import org.apache.jmeter.engine.StandardJMeterEngine;
 import org.apache.jmeter.engine.event.LoopIterationEvent;
 import org.apache.jmeter.engine.event.LoopIterationListener;
@@ -46,6 +47,7 @@ import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestIterationListener;
 import org.apache.jmeter.testelement.ThreadListener;
+import org.apache.jmeter.threads.ElementCosts.Category;
 import org.apache.jmeter.timers.Timer;
 import org.apache.jmeter.timers.TimerService;
 import org.apache.jmeter.util.JMeterUtils;
@@ -775,6 +777,7 @@ public class JMeterThread implements Runnable, Interruptible {
 
     private void checkAssertions(List<Assertion> assertions, SampleResult parent, JMeterContext threadContext) {
         for (Assertion assertion : assertions) {
+            long start = ElementCosts.start();
             TestBeanHelper.prepare((TestElement) assertion);
             if (assertion instanceof AbstractScopedAssertion) {
                 AbstractScopedAssertion scopedAssertion = (AbstractScopedAssertion) assertion;
@@ -805,6 +808,7 @@ public class JMeterThread implements Runnable, Interruptible {
             } else {
                 processAssertion(parent, assertion);
             }
+            ElementCosts.record(Category.ASSERTION, assertion, start);
         }
         threadContext.getVariables().put(LAST_SAMPLE_OK, Boolean.toString(parent.isSuccessful()));
     }
@@ -832,8 +836,10 @@ public class JMeterThread implements Runnable, Interruptible {
 
     private void runPostProcessors(List<PostProcessor> extractors) {
         for (PostProcessor ex : extractors) {
+            long start = ElementCosts.start();
             TestBeanHelper.prepare((TestElement) ex);
             ex.process();
+            ElementCosts.record(Category.POST_PROCESSOR, ex, start);
         }
     }
 
@@ -842,22 +848,26 @@ public class JMeterThread implements Runnable, Interruptible {
             if (log.isDebugEnabled()) {
                 log.debug("Running preprocessor: {}", ((AbstractTestElement) ex).getName());
             }
+            long start = ElementCosts.start();
             TestBeanHelper.prepare((TestElement) ex);
             ex.process();
+            ElementCosts.record(Category.PRE_PROCESSOR, ex, start);
         }
     }
 
     private void delay(List<Timer> timers) {
-        long totalDelay = 0;
+        long totalDelay = 0; // nanoseconds
         for (Timer timer : timers) {
+            long start = ElementCosts.start();
             TestBeanHelper.prepare((TestElement) timer);
-            long delay = timer.delay();
+            long delay = timer.delayNanos();
+            ElementCosts.record(Category.TIMER, timer, start);
             if (APPLY_TIMER_FACTOR && timer.isModifiable()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Applying TIMER_FACTOR:{} on timer:{} for thread:{}", TIMER_FACTOR,
                             ((TestElement) timer).getName(), getThreadName());
                 }
-                delay = Math.round(delay * TIMER_FACTOR);
+                delay = Math.round(delay * (double) TIMER_FACTOR);
             }
             totalDelay += delay;
         }
@@ -866,9 +876,13 @@ public class JMeterThread implements Runnable, Interruptible {
                 if (scheduler) {
                     // We reduce pause to ensure end of test is not delayed by a sleep ending after test scheduled end
                     // See Bug 60049
-                    totalDelay = TIMER_SERVICE.adjustDelay(totalDelay, endTime);
+                    totalDelay = TIMER_SERVICE.adjustDelayNanos(totalDelay, endTime);
+                }
+                if (totalDelay > 0) {
+                    long deadline = System.nanoTime() + totalDelay;
+                    TIMER_SERVICE.sleepUntil(deadline);
+                    InjectorHealthMonitor.recordTimerLag(System.nanoTime() - deadline);
                 }
-                TimeUnit.MILLISECONDS.sleep(totalDelay);
             } catch (InterruptedException e) {
                 log.warn("The delay timer was interrupted - probably did not wait as long as intended.");
                 Thread.currentThread().interrupt();
@@ -915,26 +929,26 @@ public class JMeterThread implements Runnable, Interruptible {
      */
     protected final void delayBy(long delay, String type) {
         if (delay > 0) {
-            long start = System.currentTimeMillis();
-            long end = start + delay;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.MILLISECONDS.toNanos(delay);
+            long granularity = TimeUnit.MILLISECONDS.toNanos(RAMPUP_GRANULARITY);
             long now;
-            long pause = RAMPUP_GRANULARITY;
-            while (running && (now = System.currentTimeMillis()) < end) {
-                long togo = end - now;
-                if (togo < pause) {
-                    pause = togo;
-                }
+            while (running && (now = System.nanoTime()) - end < 0) {
                 try {
-                    TimeUnit.MILLISECONDS.sleep(pause); // delay between checks
+                    // wake up at least every RAMPUP_GRANULARITY to check for shutdown
+                    TIMER_SERVICE.sleepUntil(end - now > granularity ? now + granularity : end);
                 } catch (InterruptedException e) {
                     if (running) { // NOSONAR running may have been changed from another thread 
                         log.warn("{} delay for {} was interrupted. Waited {} milli-seconds out of {}", type, threadName,
-                                now - start, delay);
+                                TimeUnit.NANOSECONDS.toMillis(now - start), delay);
                     }
                     Thread.currentThread().interrupt();
-                    break;
+                    return;
                 }
             }
+            if (running) {
+                InjectorHealthMonitor.recordTimerLag(System.nanoTime() - end);
+            }
         }
     }
 
@@ -18,6 +18,9 @@
 
 package org.apache.jmeter.threads;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,12 +33,40 @@ import org.apache.jmeter.util.JMeterUtils;
 /**
  * Class which defines JMeter variables.
  * These are similar to properties, but they are local to a single thread.
+ * <p>
+ * Variables are stored in a map. Variables whose name was registered in {@link VariableSlots}
+ * can also be accessed by slot: writing a variable by slot stores a holder of its value in the map,
+ * which is then read and written through an array indexed by slot, without hashing the name.
+ * Access by name is unchanged, it finds the holder in the map; writing or removing a variable by name
+ * drops its holder.
  */
 public class JMeterVariables {
+    private static final SlotValue[] NO_SLOT_VALUES = new SlotValue[0];
+
+    // Values are the values of the variables, or their SlotValue once accessed by slot
     private final Map<String, Object> variables = new HashMap<>();
 
+    // Holders of the variables written by slot, grown on demand
+    private SlotValue[] slotValues = NO_SLOT_VALUES;
+
+    // Number of holders in the map
+    private int slotValueCount;
+
     private int iteration = 0;
 
+    /**
+     * Value of a variable written by slot, shared by the map and the slot array
+     */
+    private static final class SlotValue {
+        private final int slot;
+        private Object value;
+
+        private SlotValue(int slot, Object value) {
+            this.slot = slot;
+            this.value = value;
+        }
+    }
+
     // Property names to preload into JMeter variables:
     private static final String [] PRE_LOAD = {
       "START.MS",     // $NON-NLS-1$
@@ -89,7 +120,18 @@ public class JMeterVariables {
      * @return the variable value, or {@code null} if there was no such variable
      */
     public Object remove(String key) {
-        return variables.remove(key);
+        return unwrap(variables.remove(key));
+    }
+
+    /**
+     * Remove a variable using its slot.
+     *
+     * @param slot the slot of the variable, see {@link VariableSlots#register(String)}
+     *
+     * @return the variable value, or {@code null} if there was no such variable
+     */
+    public Object remove(int slot) {
+        return unwrap(variables.remove(VariableSlots.nameOf(slot)));
     }
 
     /**
@@ -99,7 +141,17 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void put(String key, String value) {
-        variables.put(key, value);
+        putObject(key, value);
+    }
+
+    /**
+     * Creates or updates a variable with a String value, using its slot.
+     *
+     * @param slot the slot of the variable, see {@link VariableSlots#register(String)}
+     * @param value the variable value
+     */
+    public void put(int slot, String value) {
+        putObject(slot, value);
     }
 
     /**
@@ -109,7 +161,54 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void putObject(String key, Object value) {
-        variables.put(key, value);
+        unwrap(variables.put(key, value));
+    }
+
+    /**
+     * Creates or updates a variable with a value that does not have to be a String,
+     * using its slot.
+     *
+     * @param slot the slot of the variable, see {@link VariableSlots#register(String)}
+     * @param value the variable value
+     */
+    public void putObject(int slot, Object value) {
+        SlotValue holder = slotValueOf(slot);
+        if (holder != null) {
+            holder.value = value;
+            return;
+        }
+        if (slot >= slotValues.length) {
+            slotValues = Arrays.copyOf(slotValues, Math.max(slot + 1, VariableSlots.size()));
+        }
+        holder = new SlotValue(slot, value);
+        variables.put(VariableSlots.nameOf(slot), holder);
+        slotValues[slot] = holder;
+        slotValueCount++;
+    }
+
+    /**
+     * @return the holder of the variable of a slot, null if it was not written by slot
+     */
+    private SlotValue slotValueOf(int slot) {
+        return slot < slotValues.length ? slotValues[slot] : null;
+    }
+
+    /**
+     * @param value a value taken out of the map
+     * @return the value, or the value of the holder, which is forgotten
+     */
+    private Object unwrap(Object value) {
+        if (value instanceof SlotValue) {
+            SlotValue holder = (SlotValue) value;
+            slotValues[holder.slot] = null;
+            slotValueCount--;
+            return holder.value;
+        }
+        return value;
+    }
+
+    private static Object valueOf(Object value) {
+        return value instanceof SlotValue ? ((SlotValue) value).value : value;
     }
 
     /**
@@ -117,7 +216,9 @@ public class JMeterVariables {
      * @param vars map with the entries to be updated
      */
     public void putAll(Map<String, ?> vars) {
-        variables.putAll(vars);
+        for (Map.Entry<String, ?> entry : vars.entrySet()) {
+            putObject(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
@@ -125,7 +226,9 @@ public class JMeterVariables {
      * @param vars {@link JMeterVariables} with the entries to be updated
      */
     public void putAll(JMeterVariables vars) {
-        putAll(vars.variables);
+        for (Map.Entry<String, Object> entry : vars.variables.entrySet()) {
+            putObject(entry.getKey(), valueOf(entry.getValue()));
+        }
     }
 
     /**
@@ -135,7 +238,20 @@ public class JMeterVariables {
      * @return the value of the variable or a toString called on it if it's non String, or {@code null} if it does not exist
      */
     public String get(String key) {
-        Object o = variables.get(key);
+        return asString(getObject(key));
+    }
+
+    /**
+     * Gets the value of a variable using its slot, converted to a String.
+     *
+     * @param slot the slot of the variable, see {@link VariableSlots#register(String)}
+     * @return the value of the variable or a toString called on it if it's non String, or {@code null} if it does not exist
+     */
+    public String get(int slot) {
+        return asString(getObject(slot));
+    }
+
+    private static String asString(Object o) {
         if(o instanceof String) {
             return (String) o;
         } else if (o != null) {
@@ -152,7 +268,18 @@ public class JMeterVariables {
      * @return the value of the variable, or {@code null} if it does not exist
      */
     public Object getObject(String key) {
-        return variables.get(key);
+        return valueOf(variables.get(key));
+    }
+
+    /**
+     * Gets the value of a variable using its slot (not converted to String).
+     *
+     * @param slot the slot of the variable, see {@link VariableSlots#register(String)}
+     * @return the value of the variable, or {@code null} if it does not exist
+     */
+    public Object getObject(int slot) {
+        SlotValue holder = slotValueOf(slot);
+        return holder != null ? holder.value : valueOf(variables.get(VariableSlots.nameOf(slot)));
     }
 
     /**
@@ -161,7 +288,7 @@ public class JMeterVariables {
      * @return the iterator
      */
     public Iterator<Entry<String, Object>> getIterator(){
-        return Collections.unmodifiableMap(variables).entrySet().iterator() ;
+        return entrySet().iterator() ;
     }
 
     // Used by DebugSampler
@@ -169,6 +296,62 @@ public class JMeterVariables {
      * @return an unmodifiable view of the entries contained in {@link JMeterVariables}
      */
     public Set<Entry<String, Object>> entrySet(){
-        return Collections.unmodifiableMap(variables).entrySet();
+        return Collections.unmodifiableMap(asMap()).entrySet();
+    }
+
+    /**
+     * @return the variables map if no variable is held for a slot,
+     * otherwise a view of it giving the values of the holders
+     */
+    private Map<String, Object> asMap() {
+        if (slotValueCount == 0) {
+            return variables;
+        }
+        return new AbstractMap<String, Object>() {
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return new AbstractSet<Entry<String, Object>>() {
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+                        Iterator<Entry<String, Object>> entries = variables.entrySet().iterator();
+                        return new Iterator<Entry<String, Object>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return entries.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Object> next() {
+                                Entry<String, Object> entry = entries.next();
+                                if (entry.getValue() instanceof SlotValue) {
+                                    return new SimpleImmutableEntry<>(entry.getKey(), valueOf(entry.getValue()));
+                                }
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return variables.size();
+                    }
+                };
+            }
+
+            @Override
+            public Object get(Object key) {
+                return valueOf(variables.get(key));
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return variables.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return variables.size();
+            }
+        };
     }
 }
@@ -31,6 +31,7 @@ package org.apache.jmeter.threads;
 
 import java.util.List;
 
+import org.apache.jmeter.samplers.BatchSampleListener;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.testbeans.TestBeanHelper;
@@ -60,6 +61,7 @@ public class ListenerNotifier {
      */
     public void notifyListeners(SampleEvent res, List<SampleListener> listeners) {
         for (SampleListener sampleListener : listeners) {
+            long start = ElementCosts.start();
             try {
                 TestBeanHelper.prepare((TestElement) sampleListener);
                 sampleListener.sampleOccurred(res);
@@ -67,6 +69,35 @@ public class ListenerNotifier {
                 log.error("Detected problem in Listener.", e);
                 log.info("Continuing to process further listeners");
             }
+            ElementCosts.record(ElementCosts.Category.LISTENER, sampleListener, start);
+        }
+    }
+
+    /**
+     * Notify a list of listeners that several samples have occurred.
+     * Listeners implementing {@link BatchSampleListener} receive all the samples in one call.
+     *
+     * @param events
+     *            the sample events that have occurred, in order. Must be non-null.
+     * @param listeners
+     *            a list of the listeners which should be notified. This list
+     *            must not be null and must contain only SampleListener
+     *            elements.
+     */
+    public void notifyListeners(List<SampleEvent> events, List<SampleListener> listeners) {
+        if (events.isEmpty()) {
+            return;
+        }
+        for (SampleListener sampleListener : listeners) {
+            long start = ElementCosts.start();
+            try {
+                TestBeanHelper.prepare((TestElement) sampleListener);
+                BatchSampleListener.sampleOccurred(sampleListener, events);
+            } catch (RuntimeException e) {
+                log.error("Detected problem in Listener.", e);
+                log.info("Continuing to process further listeners");
+            }
+            ElementCosts.record(ElementCosts.Category.LISTENER, sampleListener, start);
         }
     }
 
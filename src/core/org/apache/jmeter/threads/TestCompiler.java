@@ -43,6 +43,7 @@ import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.timers.Timer;
 import org.apache.jorphan.collections.HashTree;
 import org.apache.jorphan.collections.HashTreeTraverser;
+import org.apache.jorphan.collections.SearchByClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,6 +88,29 @@ public class TestCompiler implements HashTreeTraverser {
         synchronized (PAIRING) {
             PAIRING.clear();
         }
+        VariableSlots.clear();
+    }
+
+    /**
+     * Assigns a {@link VariableSlots} slot to each variable name declared by
+     * the {@link VariablesDeclarer} elements of the test tree.
+     * Called by StandardJMeterEngine after {@link #initialize()} and before any thread is started,
+     * so all threads see the same slots.
+     *
+     * @param testTree the whole test tree
+     */
+    public static void registerDeclaredVariables(HashTree testTree) {
+        if (!VariableSlots.isEnabled()) {
+            return;
+        }
+        SearchByClass<VariablesDeclarer> searcher = new SearchByClass<>(VariablesDeclarer.class);
+        testTree.traverse(searcher);
+        for (VariablesDeclarer declarer : searcher.getSearchResults()) {
+            for (String name : declarer.getDeclaredVariableNames()) {
+                VariableSlots.register(name);
+            }
+        }
+        log.debug("Assigned {} variable slots", VariableSlots.size());
     }
 
     /**
@@ -20,6 +20,8 @@ package org.apache.jmeter.threads;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -78,6 +80,9 @@ public class ThreadGroup extends AbstractThreadGroup {
     
     private transient Object addThreadLock = new Object();
 
+    // Number of the next thread added by addExtraThread, guarded by addThreadLock
+    private transient int nextExtraThreadNumber;
+
     /** Is test (still) running? */
     private volatile boolean running = false;
 
@@ -315,6 +320,9 @@ public class ThreadGroup extends AbstractThreadGroup {
         synchronized (addThreadLock) {
             numThreads = getNumThreads();
             setNumThreads(numThreads + 1);
+            // Extra threads keep unique numbers
+            numThreads = Math.max(numThreads, nextExtraThreadNumber);
+            nextExtraThreadNumber = numThreads + 1;
         }
         newJmThread = startNewThread(notifier, threadGroupTree, engine, numThreads, context, now, delay);
         JMeterContextService.addTotalThreads( 1 );
@@ -322,6 +330,21 @@ public class ThreadGroup extends AbstractThreadGroup {
         return newJmThread;
     }
 
+    @Override
+    public JMeterThread addExtraThread(int delay, StandardJMeterEngine engine) {
+        long now = System.currentTimeMillis();
+        JMeterContext context = JMeterContextService.getContext();
+        int threadNumber;
+        synchronized (addThreadLock) {
+            threadNumber = Math.max(getNumThreads(), nextExtraThreadNumber);
+            nextExtraThreadNumber = threadNumber + 1;
+        }
+        JMeterThread newJmThread = startNewThread(notifier, threadGroupTree, engine, threadNumber, context, now, delay);
+        JMeterContextService.addTotalThreads( 1 );
+        log.info("Started extra thread in group {}", groupNumber);
+        return newJmThread;
+    }
+
     /**
      * Stop thread called threadName:
      * <ol>
@@ -345,6 +368,20 @@ public class ThreadGroup extends AbstractThreadGroup {
         return false;
     }
     
+    @Override
+    public boolean canListThreads() {
+        return true;
+    }
+
+    @Override
+    public List<String> getThreadNames() {
+        List<String> names = new ArrayList<>(allThreads.size());
+        for (JMeterThread jMeterThread : allThreads.keySet()) {
+            names.add(jMeterThread.getThreadName());
+        }
+        return names;
+    }
+
     /**
      * Hard Stop JMeterThread thrd and interrupt JVM Thread if interrupt is true
      * @param jmeterThread {@link JMeterThread}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Registry of the variable names known when the test is compiled.
+ * <p>
+ * Each registered name is given an integer slot, shared by all threads.
+ * Elements that write the same variable on every sample can cache the slot
+ * and use the int based accessors of {@link JMeterVariables} to avoid hashing
+ * the name. Access by name is not affected, all variables stay in the map
+ * of {@link JMeterVariables}.
+ * <p>
+ * Slots are only assigned if property <code>jmetervariables.slots</code> is true.
+ * @since 4.0
+ */
+public final class VariableSlots {
+
+    /** Slot value returned for names that have no slot */
+    public static final int NO_SLOT = -1;
+
+    private static volatile boolean enabled =
+            JMeterUtils.getPropDefault("jmetervariables.slots", false); // $NON-NLS-1$
+
+    private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<>();
+
+    // Written under the class lock, read without lock
+    private static volatile String[] names = new String[0];
+
+    private VariableSlots() {
+        // NOOP
+    }
+
+    /**
+     * @return true if slots are assigned to declared variable names
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Only for tests, the value is normally set from property <code>jmetervariables.slots</code>
+     * @param enable flag whether slots should be assigned
+     */
+    static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Register a variable name, if slots are enabled and the name is not dynamic
+     * (i.e. does not contain a function or variable reference).
+     *
+     * @param name the variable name
+     * @return the slot of the name, or {@link #NO_SLOT} if it could not be registered
+     */
+    public static int register(String name) {
+        if (!enabled || name == null || name.isEmpty() || name.contains("${")) { // $NON-NLS-1$
+            return NO_SLOT;
+        }
+        Integer slot = SLOTS.get(name);
+        if (slot != null) {
+            return slot.intValue();
+        }
+        synchronized (VariableSlots.class) {
+            slot = SLOTS.get(name);
+            if (slot == null) {
+                String[] current = names;
+                String[] newNames = Arrays.copyOf(current, current.length + 1);
+                newNames[current.length] = name;
+                // Publish the name before the slot, so any slot read can be resolved
+                names = newNames;
+                slot = Integer.valueOf(current.length);
+                SLOTS.put(name, slot);
+            }
+            return slot.intValue();
+        }
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the name, or {@link #NO_SLOT} if the name is not registered
+     */
+    public static int slotOf(String name) {
+        if (!enabled || name == null) {
+            return NO_SLOT;
+        }
+        Integer slot = SLOTS.get(name);
+        return slot == null ? NO_SLOT : slot.intValue();
+    }
+
+    /**
+     * @param slot a slot returned by {@link #register(String)}
+     * @return the name of the variable registered at this slot
+     */
+    public static String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * @return the number of slots assigned so far
+     */
+    public static int size() {
+        return names.length;
+    }
+
+    /**
+     * Forget all registered names.
+     * Called by {@link TestCompiler#initialize()} at the start of a test run.
+     */
+    static synchronized void clear() {
+        SLOTS.clear();
+        names = new String[0];
+    }
+}
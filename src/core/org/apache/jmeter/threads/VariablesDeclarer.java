@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.Collection;
+
+/**
+ * Implemented by test elements that know, when the test is compiled,
+ * the names of the variables they will write (extractor reference names,
+ * CSV columns, User Parameters...).
+ * <p>
+ * {@link TestCompiler} registers these names in {@link VariableSlots}.
+ * @since 4.0
+ */
+public interface VariablesDeclarer {
+
+    /**
+     * @return the names of the variables this element writes, never {@code null}
+     */
+    Collection<String> getDeclaredVariableNames();
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.timers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Deadline based pacing: computes the delays that make events happen at a given interval.
+ * <p>
+ * The schedule is kept in {@link System#nanoTime()} deadlines, independently of when
+ * the caller actually wakes up, so sleep overshoot and time spent between two events
+ * do not accumulate as drift. When the caller is late, following delays are zero until the
+ * schedule is caught up, so the configured rate is kept on average (debt compensation).
+ * The debt is bounded by <code>timer.pacing.max_debt</code> milliseconds, to avoid a burst after a long stall.
+ * <p>
+ * Threadsafe, so a schedule can be shared by several threads.
+ * @since 4.0
+ */
+public class PacingSchedule {
+
+    private static final long DEFAULT_MAX_DEBT_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            JMeterUtils.getPropDefault("timer.pacing.max_debt", 1000L)); // $NON-NLS-1$
+
+    private final long maxDebtNanos;
+
+    private boolean started;
+
+    private long lastDeadline;
+
+    /**
+     * Schedule with a debt bounded by property <code>timer.pacing.max_debt</code>
+     */
+    public PacingSchedule() {
+        this(DEFAULT_MAX_DEBT_NANOS);
+    }
+
+    /**
+     * @param maxDebtNanos maximum delay in nanoseconds that will be caught up when late,
+     * 0 to restart the schedule from the current time when late
+     */
+    public PacingSchedule(long maxDebtNanos) {
+        this.maxDebtNanos = Math.max(0L, maxDebtNanos);
+    }
+
+    /**
+     * Schedule the next event.
+     * The first event is scheduled immediately.
+     *
+     * @param intervalNanos interval between the previous event and this one in nanoseconds,
+     *  may change from one call to the next
+     * @return delay in nanoseconds until the event, 0 if it is due
+     */
+    public long nextDelayNanos(long intervalNanos) {
+        return nextDelayNanos(intervalNanos, System.nanoTime());
+    }
+
+    /**
+     * @param intervalNanos interval between the previous event and this one in nanoseconds
+     * @param now current value of {@link System#nanoTime()}
+     * @return delay in nanoseconds until the event, 0 if it is due
+     */
+    synchronized long nextDelayNanos(long intervalNanos, long now) {
+        long deadline;
+        if (started) {
+            deadline = lastDeadline + Math.max(0L, intervalNanos);
+            if (now - deadline > maxDebtNanos) {
+                deadline = now - maxDebtNanos; // forget the debt we will not catch up
+            }
+        } else {
+            deadline = now;
+            started = true;
+        }
+        lastDeadline = deadline;
+        return Math.max(0L, deadline - now);
+    }
+
+    /**
+     * Restart the schedule, next event will be scheduled immediately
+     */
+    public synchronized void reset() {
+        started = false;
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.jmeter.timers;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This interface defines those methods that must be implemented by timer
@@ -32,6 +33,17 @@ public interface Timer extends Serializable {
      * @return the computed delay value.
      */
     long delay();
+
+    /**
+     * Same as {@link #delay()} in nanoseconds, this is the method called by the engine.
+     * Timers which need a precision better than a millisecond override it.
+     *
+     * @return the computed delay value in nanoseconds
+     * @since 4.0
+     */
+    default long delayNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(delay());
+    }
     
     /**
      * @return true if factor can be applied to it
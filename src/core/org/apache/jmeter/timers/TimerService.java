@@ -18,15 +18,26 @@
 
 package org.apache.jmeter.timers;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.util.JMeterUtils;
 
 /**
  * Manages logic related to timers and pauses
  * @since 3.2
  */
 public class TimerService {
-    
+
+    /**
+     * Parking wakes up late by tens of microseconds, the end of the pause is spent
+     * spinning to be precise. 0 disables spinning.
+     */
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(
+            JMeterUtils.getPropDefault("timer.pacing.spin_micros", 0L)); // $NON-NLS-1$
+
     private TimerService() {
         super();
     }
@@ -71,4 +82,44 @@ public class TimerService {
         }
         return initialDelay;
     }
+
+    /**
+     * Adjust delay so that initialDelay does not exceed end of test
+     * @param initialDelayNanos initial delay in nanoseconds
+     * @param endTime End time of JMeterThread in milliseconds since epoch
+     * @return initialDelayNanos or adjusted delay in nanoseconds
+     */
+    public long adjustDelayNanos(final long initialDelayNanos, long endTime) {
+        if (endTime > 0) {
+            long toEnd = TimeUnit.MILLISECONDS.toNanos(endTime - System.currentTimeMillis());
+            if (initialDelayNanos > toEnd) {
+                return toEnd;
+            }
+        }
+        return initialDelayNanos;
+    }
+
+    /**
+     * Pause the current thread until a deadline.
+     * <p>
+     * The thread is parked, then spins during the last <code>timer.pacing.spin_micros</code>
+     * microseconds if this property is set, for sub-millisecond precision at the expense of CPU.
+     *
+     * @param deadlineNanos deadline, as a value of {@link System#nanoTime()}
+     * @throws InterruptedException if the thread is interrupted, its interrupted status is cleared
+     */
+    public void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        while (deadlineNanos - System.nanoTime() > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.visualizers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the samples of the listeners to their visualizers in GUI mode,
+ * off the sampler threads.
+ * <p>
+ * Sampler threads only append samples to a queue per visualizer, without
+ * taking any lock. A single daemon thread drains the queues every
+ * <code>jmeter.gui.refresh_period</code> ms and passes the samples of the
+ * period to each visualizer in one {@link Visualizer#addAll(List)} call, so
+ * that the data of the visualizers is only updated by this thread, and read
+ * by the event dispatch thread when they refresh.
+ * <p>
+ * At most <code>jmeter.gui.sample_bus.capacity</code> samples wait for each
+ * visualizer: further samples are dropped, and their number logged, rather
+ * than slowing down the sampler threads.
+ *
+ * @since 4.0
+ */
+public final class GuiSampleBus {
+
+    private static final Logger log = LoggerFactory.getLogger(GuiSampleBus.class);
+
+    private static final int REFRESH_PERIOD =
+            JMeterUtils.getPropDefault("jmeter.gui.refresh_period", 500); // $NON-NLS-1$
+
+    private static final int CAPACITY =
+            JMeterUtils.getPropDefault("jmeter.gui.sample_bus.capacity", 100000); // $NON-NLS-1$
+
+    /** Number of periods without sample after which the queue of a visualizer is released */
+    private static final int IDLE_PERIODS = 20;
+
+    private static final GuiSampleBus INSTANCE = new GuiSampleBus(CAPACITY);
+
+    /** Samples waiting for a visualizer */
+    private static final class Channel {
+        private final Queue<SampleResult> samples = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+        /** Set once the channel is removed from the bus */
+        private volatile boolean closed;
+        /** Only used by the delivering thread */
+        private int idlePeriods;
+
+        private boolean offer(SampleResult sample, int capacity) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                dropped.incrementAndGet();
+                return false;
+            }
+            samples.offer(sample);
+            return true;
+        }
+
+        private List<SampleResult> drain() {
+            List<SampleResult> batch = null;
+            SampleResult sample;
+            while ((sample = samples.poll()) != null) {
+                if (batch == null) {
+                    batch = new ArrayList<>(Math.max(16, size.get()));
+                }
+                batch.add(sample);
+                size.decrementAndGet();
+            }
+            return batch == null ? Collections.<SampleResult>emptyList() : batch;
+        }
+    }
+
+    private final int capacity;
+
+    private final Map<Visualizer, Channel> channels = new ConcurrentHashMap<>();
+
+    private volatile Thread deliveryThread;
+
+    /**
+     * @param capacity maximum number of samples waiting for a visualizer
+     */
+    GuiSampleBus(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the bus shared by the listeners of the GUI
+     */
+    public static GuiSampleBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a sample for a visualizer. Called by sampler threads, never blocks.
+     *
+     * @param visualizer
+     *            the visualizer of the listener that received the sample
+     * @param sample
+     *            the sample
+     */
+    public void publish(Visualizer visualizer, SampleResult sample) {
+        Channel channel = channels.get(visualizer);
+        if (channel == null) {
+            channel = channels.computeIfAbsent(visualizer, v -> new Channel());
+            startDelivery();
+        }
+        channel.offer(sample, capacity);
+        if (channel.closed) {
+            // The channel was released meanwhile: move the samples that were not delivered
+            SampleResult pending;
+            while ((pending = channel.samples.poll()) != null) {
+                channel.size.decrementAndGet();
+                publish(visualizer, pending);
+            }
+        }
+    }
+
+    /**
+     * Passes the waiting samples to their visualizers.
+     * Called periodically by the delivery thread.
+     */
+    void deliver() {
+        Iterator<Map.Entry<Visualizer, Channel>> it = channels.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Visualizer, Channel> entry = it.next();
+            Visualizer visualizer = entry.getKey();
+            Channel channel = entry.getValue();
+            long dropped = channel.dropped.getAndSet(0L);
+            if (dropped > 0 && log.isWarnEnabled()) {
+                log.warn("{} samples dropped for {}, more than {} samples were waiting",
+                        dropped, visualizer.getClass().getName(), capacity);
+            }
+            List<SampleResult> batch = channel.drain();
+            if (batch.isEmpty() && ++channel.idlePeriods >= IDLE_PERIODS) {
+                // Do not retain visualizers that may no longer be used
+                it.remove();
+                channel.closed = true;
+                batch = channel.drain();
+            } else if (!batch.isEmpty()) {
+                channel.idlePeriods = 0;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    visualizer.addAll(batch);
+                } catch (RuntimeException e) {
+                    log.error("Error delivering samples to {}", visualizer.getClass().getName(), e);
+                }
+            }
+        }
+    }
+
+    private void startDelivery() {
+        if (deliveryThread != null) {
+            return;
+        }
+        synchronized (this) {
+            if (deliveryThread == null) {
+                Thread thread = new Thread(this::runDelivery, "GuiSampleBus"); // $NON-NLS-1$
+                thread.setDaemon(true);
+                thread.start();
+                deliveryThread = thread;
+            }
+        }
+    }
+
+    private void runDelivery() {
+        try {
+            while (true) {
+                TimeUnit.MILLISECONDS.sleep(REFRESH_PERIOD);
+                deliver();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -18,6 +18,8 @@
 
 package org.apache.jmeter.visualizers;
 
+import java.util.List;
+
 import org.apache.jmeter.samplers.SampleResult;
 
 /**
@@ -32,13 +34,30 @@ import org.apache.jmeter.samplers.SampleResult;
 public interface Visualizer {
     /**
      * This method is called by sampling thread to inform the visualizer about
-     * the arrival of a new sample.
+     * the arrival of a new sample. In GUI mode, samples are passed by the
+     * {@link GuiSampleBus} to {@link #addAll(List)} instead.
      *
      * @param sample
      *            the newly arrived sample
      */
     void add(SampleResult sample);
 
+    /**
+     * This method is called by the {@link GuiSampleBus} with the samples
+     * that arrived during a refresh period, in their order of arrival.
+     * The default implementation calls {@link #add(SampleResult)} for each
+     * sample; visualizers can override it to update their data once per batch.
+     *
+     * @param samples
+     *            the newly arrived samples
+     * @since 4.0
+     */
+    default void addAll(List<SampleResult> samples) {
+        for (SampleResult sample : samples) {
+            add(sample);
+        }
+    }
+
     /**
      * This method is used to indicate a visualizer generates statistics.
      *
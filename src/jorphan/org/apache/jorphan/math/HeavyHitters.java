@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jorphan.math;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Fixed memory estimation of the most frequent values of a stream, using the
+ * Space-Saving algorithm.
+ * <p>
+ * At most <code>capacity</code> values are counted. When a value that is not
+ * counted arrives and the sketch is full, it replaces the value with the lowest
+ * count and inherits this count. Counts are therefore over-estimated by at most
+ * the number of values seen divided by the capacity, and every value more frequent
+ * than that is guaranteed to be counted.
+ * <p>
+ * This class is not threadsafe.
+ *
+ * @param <T> type of the counted values, must implement equals and hashCode
+ * @since 4.0
+ */
+public class HeavyHitters<T> {
+
+    private static final class Counter<T> implements Comparable<Counter<T>> {
+        private final T value;
+        private final long sequence;
+        private long count;
+
+        private Counter(T value, long sequence, long count) {
+            this.value = value;
+            this.sequence = sequence;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Counter<T> other) {
+            int result = Long.compare(count, other.count);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final int capacity;
+
+    private final Map<T, Counter<T>> counters = new HashMap<>();
+
+    // Counters by increasing count, the first one is replaced when full
+    private final TreeSet<Counter<T>> byCount = new TreeSet<>();
+
+    private long sequence;
+
+    private long total;
+
+    /**
+     * @param capacity maximum number of counted values, strictly positive
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be strictly positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Count one occurrence of a value.
+     * @param value the value, not null
+     */
+    public void add(T value) {
+        total++;
+        Counter<T> counter = counters.get(value);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count++;
+            byCount.add(counter);
+            return;
+        }
+        long count = 1;
+        if (counters.size() == capacity) {
+            Counter<T> lowest = byCount.pollFirst();
+            counters.remove(lowest.value);
+            count += lowest.count;
+        }
+        counter = new Counter<>(value, sequence++, count);
+        counters.put(value, counter);
+        byCount.add(counter);
+    }
+
+    /**
+     * @param value the value
+     * @return the estimated number of occurrences of the value, 0 if it is not counted
+     */
+    public long getCount(T value) {
+        Counter<T> counter = counters.get(value);
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * @param k maximum number of values to return
+     * @return the (at most) k values with the highest estimated counts, most frequent first
+     */
+    public List<T> getTop(int k) {
+        List<T> top = new ArrayList<>(Math.min(k, counters.size()));
+        for (Counter<T> counter : byCount.descendingSet()) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(counter.value);
+        }
+        return top;
+    }
+
+    /**
+     * @return the number of counted values
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * @return the number of occurrences added so far
+     */
+    public long getTotal() {
+        return total;
+    }
+}
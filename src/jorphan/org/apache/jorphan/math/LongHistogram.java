@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed memory histogram of positive long values (durations, sizes...).
+ * <p>
+ * Values are counted in log-linear buckets: each power of two range is split in
+ * <code>2^precisionBits</code> buckets, so the relative error of the percentiles is
+ * lower than <code>2^-precisionBits</code> (12.5% for 3 bits, 0.8% for 7 bits),
+ * whatever the number of recorded values. Values lower than <code>2^precisionBits</code>
+ * are counted exactly.
+ * <p>
+ * The buckets of a power of two range are allocated when a value first falls in it, so that
+ * a histogram of response times uses a few KB, and many histograms can be kept (e.g. one per
+ * label and time period).
+ * <p>
+ * Histograms with the same precision can be merged with {@link #add(LongHistogram)}.
+ * This class is threadsafe, {@link #record(long)} does not lock.
+ * <p>
+ * Only the non empty buckets are serialized.
+ * @since 4.0
+ */
+public class LongHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default precision, relative error is lower than 1% */
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    /**
+     * Receives the non empty buckets of a histogram
+     * @see LongHistogram#forEachBucket(BucketVisitor)
+     */
+    @FunctionalInterface
+    public interface BucketVisitor {
+        /**
+         * @param value highest value of the bucket, bounded by the recorded minimum and maximum
+         * @param count number of values counted in the bucket
+         */
+        void visit(long value, long count);
+    }
+
+    private final int precisionBits;
+
+    // Buckets of each power of two range, allocated on first use
+    private final AtomicReferenceArray<AtomicLongArray> ranges;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Histogram with {@link #DEFAULT_PRECISION_BITS}
+     */
+    public LongHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param precisionBits number of bits of the values which are kept, between 1 and 16.
+     *  Memory used is about <code>2^precisionBits * 8</code> bytes per power of two range of the recorded values
+     */
+    public LongHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 16, got " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.ranges = new AtomicReferenceArray<>(Long.SIZE - precisionBits);
+    }
+
+    /**
+     * @return the precision given at creation
+     */
+    public int getPrecisionBits() {
+        return precisionBits;
+    }
+
+    /**
+     * Record a value, negative values are counted as 0.
+     * @param value the value to record
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Record the same value several times
+     * @param value the value to record, negative values are counted as 0
+     * @param times number of occurrences of the value, ignored if not positive
+     */
+    public void record(long value, long times) {
+        if (times <= 0) {
+            return;
+        }
+        long v = Math.max(0L, value);
+        int index = indexOf(v);
+        rangeOf(index).addAndGet(index & bucketMask(), times);
+        count.addAndGet(times);
+        sum.addAndGet(v * times);
+        updateMin(v);
+        updateMax(v);
+    }
+
+    /**
+     * Add all the values recorded by another histogram to this one.
+     * @param other histogram to add, must have the same precision
+     */
+    public void add(LongHistogram other) {
+        if (other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("Cannot add histogram with precision "
+                    + other.precisionBits + " to histogram with precision " + precisionBits);
+        }
+        long otherCount = other.getCount();
+        if (otherCount == 0) {
+            return;
+        }
+        for (int r = 0; r < ranges.length(); r++) {
+            AtomicLongArray otherBuckets = other.ranges.get(r);
+            if (otherBuckets == null) {
+                continue;
+            }
+            AtomicLongArray buckets = null;
+            for (int b = 0; b < otherBuckets.length(); b++) {
+                long c = otherBuckets.get(b);
+                if (c != 0) {
+                    if (buckets == null) {
+                        buckets = rangeOf(r << precisionBits);
+                    }
+                    buckets.addAndGet(b, c);
+                }
+            }
+        }
+        count.addAndGet(otherCount);
+        sum.addAndGet(other.getSum());
+        updateMin(other.getMin());
+        updateMax(other.getMax());
+    }
+
+    /**
+     * Forget all values, keeping the allocated buckets.
+     * Values recorded concurrently may be partly lost.
+     */
+    public void reset() {
+        for (int r = 0; r < ranges.length(); r++) {
+            AtomicLongArray buckets = ranges.get(r);
+            if (buckets != null) {
+                for (int b = 0; b < buckets.length(); b++) {
+                    buckets.set(b, 0L);
+                }
+            }
+        }
+        count.set(0L);
+        sum.set(0L);
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return sum of recorded values
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * @return mean of recorded values, 0 if none
+     */
+    public double getMean() {
+        long c = count.get();
+        return c == 0 ? 0.0 : (double) sum.get() / c;
+    }
+
+    /**
+     * @return exact minimum of recorded values, 0 if none
+     */
+    public long getMin() {
+        return count.get() == 0 ? 0L : min.get();
+    }
+
+    /**
+     * @return exact maximum of recorded values, 0 if none
+     */
+    public long getMax() {
+        return count.get() == 0 ? 0L : max.get();
+    }
+
+    /**
+     * Get the value below which the given percent of the recorded values fall.
+     * The value returned is the highest value of the bucket containing the percentile,
+     * bounded by the recorded minimum and maximum.
+     *
+     * @param percent percentile to compute, between 0 and 100
+     * @return the percentile value, 0 if no value was recorded
+     */
+    public long getPercentile(double percent) {
+        long total = count.get();
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(100.0, percent)) / 100.0 * total);
+        rank = Math.max(1L, rank);
+        long seen = 0;
+        for (int r = 0; r < ranges.length(); r++) {
+            AtomicLongArray buckets = ranges.get(r);
+            if (buckets == null) {
+                continue;
+            }
+            for (int b = 0; b < buckets.length(); b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) {
+                    return Math.max(getMin(), Math.min(getMax(), highestValueOf((r << precisionBits) + b)));
+                }
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Visit the non empty buckets, in increasing order of values.
+     * The values given are those {@link #getPercentile(double)} would return.
+     * @param visitor receives the buckets
+     */
+    public void forEachBucket(BucketVisitor visitor) {
+        if (count.get() == 0) {
+            return;
+        }
+        long lowest = getMin();
+        long highest = getMax();
+        for (int r = 0; r < ranges.length(); r++) {
+            AtomicLongArray buckets = ranges.get(r);
+            if (buckets == null) {
+                continue;
+            }
+            for (int b = 0; b < buckets.length(); b++) {
+                long c = buckets.get(b);
+                if (c != 0) {
+                    visitor.visit(Math.max(lowest, Math.min(highest, highestValueOf((r << precisionBits) + b))), c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param index bucket index
+     * @return the buckets of the range of the index, allocated if needed
+     */
+    private AtomicLongArray rangeOf(int index) {
+        int range = index >>> precisionBits;
+        AtomicLongArray buckets = ranges.get(range);
+        if (buckets == null) {
+            ranges.compareAndSet(range, null, new AtomicLongArray(1 << precisionBits));
+            buckets = ranges.get(range);
+        }
+        return buckets;
+    }
+
+    private int bucketMask() {
+        return (1 << precisionBits) - 1;
+    }
+
+    /**
+     * @param value positive value
+     * @return index of the bucket where value is counted
+     */
+    int indexOf(long value) {
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        if (highestBit < precisionBits) {
+            return (int) value; // exact bucket
+        }
+        int shift = highestBit - precisionBits;
+        int subBucket = (int) (value >>> shift) - (1 << precisionBits);
+        return ((shift + 1) << precisionBits) + subBucket;
+    }
+
+    /**
+     * @param index bucket index
+     * @return highest value counted in the bucket
+     */
+    long highestValueOf(int index) {
+        int block = index >>> precisionBits;
+        if (block == 0) {
+            return index;
+        }
+        int shift = block - 1;
+        long subBucket = (index & ((1 << precisionBits) - 1)) + (1L << precisionBits);
+        long lowest = subBucket << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private void updateMin(long value) {
+        long current = min.get();
+        while (value < current && !min.compareAndSet(current, value)) {
+            current = min.get();
+        }
+    }
+
+    private void updateMax(long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("SerializedForm required");
+    }
+
+    /**
+     * Serialized form of a histogram: its non empty buckets only
+     */
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int precisionBits;
+        private final int[] indexes;
+        private final long[] counts;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        private SerializedForm(LongHistogram histogram) {
+            precisionBits = histogram.precisionBits;
+            int[] usedIndexes = new int[16];
+            long[] usedCounts = new long[16];
+            int used = 0;
+            for (int r = 0; r < histogram.ranges.length(); r++) {
+                AtomicLongArray buckets = histogram.ranges.get(r);
+                if (buckets == null) {
+                    continue;
+                }
+                for (int b = 0; b < buckets.length(); b++) {
+                    long c = buckets.get(b);
+                    if (c != 0) {
+                        if (used == usedIndexes.length) {
+                            usedIndexes = Arrays.copyOf(usedIndexes, used * 2);
+                            usedCounts = Arrays.copyOf(usedCounts, used * 2);
+                        }
+                        usedIndexes[used] = (r << precisionBits) + b;
+                        usedCounts[used] = c;
+                        used++;
+                    }
+                }
+            }
+            indexes = Arrays.copyOf(usedIndexes, used);
+            counts = Arrays.copyOf(usedCounts, used);
+            sum = histogram.sum.get();
+            min = histogram.min.get();
+            max = histogram.max.get();
+        }
+
+        /**
+         * Rebuild the histogram, checking the form as it may come from an untrusted stream
+         */
+        private Object readResolve() throws InvalidObjectException {
+            if (precisionBits < 1 || precisionBits > 16) {
+                throw new InvalidObjectException("Invalid precisionBits: " + precisionBits);
+            }
+            if (indexes == null || counts == null || indexes.length != counts.length) {
+                throw new InvalidObjectException("Bucket indexes and counts do not match");
+            }
+            LongHistogram histogram = new LongHistogram(precisionBits);
+            int maxIndex = histogram.ranges.length() << precisionBits;
+            long total = 0;
+            for (int i = 0; i < indexes.length; i++) {
+                int index = indexes[i];
+                // Written in increasing order, which also rules out duplicates
+                if (index < 0 || index >= maxIndex || (i > 0 && index <= indexes[i - 1])) {
+                    throw new InvalidObjectException("Invalid bucket index: " + index);
+                }
+                if (counts[i] <= 0 || counts[i] > Long.MAX_VALUE - total) {
+                    throw new InvalidObjectException("Invalid count of bucket " + index + ": " + counts[i]);
+                }
+                total += counts[i];
+                histogram.rangeOf(index).set(index & histogram.bucketMask(), counts[i]);
+            }
+            // Values are recorded as 0 or more, and min and max may be unset if written while recording
+            if (min < 0 || (max < 0 && max != Long.MIN_VALUE)
+                    || (min != Long.MAX_VALUE && max != Long.MIN_VALUE && min > max)) {
+                throw new InvalidObjectException("Invalid min " + min + " and max " + max);
+            }
+            histogram.count.set(total);
+            histogram.sum.set(sum);
+            if (total > 0) {
+                histogram.min.set(min);
+                histogram.max.set(max);
+            }
+            return histogram;
+        }
+    }
+}
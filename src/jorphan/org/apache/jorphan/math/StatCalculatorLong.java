@@ -46,6 +46,17 @@ public class StatCalculatorLong extends StatCalculator<Long> {
         super.addValue(Long.valueOf(val), sampleCount);
     }
 
+    /**
+     * Update the calculator with all the values of a histogram.
+     * Each bucket is counted as its highest value, so percentiles keep the
+     * precision of the histogram.
+     *
+     * @param histogram the values to add
+     */
+    public void addHistogram(LongHistogram histogram) {
+        histogram.forEachBucket((value, count) -> addEachValue(Long.valueOf(value), count));
+    }
+
     @Override
     protected Long divide(Long val, int n) {
         return Long.valueOf(val.longValue() / n);
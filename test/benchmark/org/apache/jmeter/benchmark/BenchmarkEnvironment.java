@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.benchmark;
+
+import java.io.File;
+import java.util.MissingResourceException;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Loads the JMeter properties before a benchmark runs.
+ * <p>
+ * Benchmarks are run from the <code>bin</code> directory by the <code>benchmark</code>
+ * Ant target, the project root and <code>bin/</code> are also tried.
+ */
+public final class BenchmarkEnvironment {
+
+    private BenchmarkEnvironment() {
+        // NOOP
+    }
+
+    /**
+     * Load the JMeter properties and set JMeter home, if not already done.
+     */
+    public static synchronized void initialize() {
+        if (JMeterUtils.getJMeterProperties() != null) {
+            return;
+        }
+        File properties = new File("jmeter.properties"); // $NON-NLS-1$
+        if (!properties.canRead()) {
+            properties = new File("bin", "jmeter.properties"); // $NON-NLS-1$ // $NON-NLS-2$
+        }
+        String home = properties.getAbsoluteFile().getParentFile().getParent();
+        JMeterUtils.setJMeterHome(home);
+        System.setProperty("jmeter.home", home); // $NON-NLS-1$
+        try {
+            new JMeterUtils().initializeProperties(properties.getPath());
+        } catch (MissingResourceException e) { // NOSONAR
+            System.out.println("** Can't find resources - continuing anyway **"); // NOSONAR
+        }
+        // Functions are found on the classpath in build/functions, not in lib/ext jars
+        JMeterUtils.setProperty("search_paths", "functions"); // $NON-NLS-1$ // $NON-NLS-2$
+    }
+}
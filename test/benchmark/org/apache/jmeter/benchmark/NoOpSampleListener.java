@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.benchmark;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.testelement.AbstractTestElement;
+
+/**
+ * Listener that only counts samples, used to measure the listener notification path.
+ */
+public class NoOpSampleListener extends AbstractTestElement implements SampleListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        count++;
+    }
+
+    @Override
+    public void sampleStarted(SampleEvent e) {
+        // NOOP
+    }
+
+    @Override
+    public void sampleStopped(SampleEvent e) {
+        // NOOP
+    }
+
+    /**
+     * @return the number of samples received
+     */
+    public long getCount() {
+        return count;
+    }
+}
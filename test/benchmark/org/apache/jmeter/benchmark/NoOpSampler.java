@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.benchmark;
+
+import org.apache.jmeter.samplers.AbstractSampler;
+import org.apache.jmeter.samplers.Entry;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Sampler that does no I/O and returns a small successful result,
+ * so that benchmarks measure only what JMeter does around the sample.
+ */
+public class NoOpSampler extends AbstractSampler {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte[] RESPONSE = "OK".getBytes(); // $NON-NLS-1$
+
+    public NoOpSampler() {
+        setName("NoOp"); // $NON-NLS-1$
+    }
+
+    @Override
+    public SampleResult sample(Entry e) {
+        SampleResult result = new SampleResult();
+        result.setSampleLabel(getName());
+        result.sampleStart();
+        result.setResponseData(RESPONSE);
+        result.setResponseCodeOK();
+        result.setResponseMessageOK();
+        result.setSuccessful(true);
+        result.sampleEnd();
+        return result;
+    }
+}
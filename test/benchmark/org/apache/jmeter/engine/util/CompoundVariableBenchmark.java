@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.functions.InvalidVariableException;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link CompoundVariable#execute()}, which is called for every
+ * property containing a variable or function reference on every sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompoundVariableBenchmark {
+
+    @Param({
+        "/api/items",                           // no reference, static string
+        "/api/items/${id}",                     // one variable
+        "/api/${path}/${id}?user=${user}",      // several variables
+        "/api/items/${__threadNum}",            // function without parameter
+        "${__jexl3(${id} + 1)}",                // function with nested variable
+    })
+    String expression;
+
+    private CompoundVariable compoundVariable;
+
+    @Setup
+    public void setup() throws InvalidVariableException {
+        BenchmarkEnvironment.initialize();
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("id", "42"); // $NON-NLS-1$ // $NON-NLS-2$
+        vars.put("path", "items"); // $NON-NLS-1$ // $NON-NLS-2$
+        vars.put("user", "jmeter"); // $NON-NLS-1$ // $NON-NLS-2$
+        JMeterContextService.getContext().setVariables(vars);
+        compoundVariable = new CompoundVariable(expression);
+        if (expression.contains("${__") && CompoundVariable.getFunctionNames().length == 0) { // $NON-NLS-1$
+            throw new IllegalStateException("No function found, check the search_paths property");
+        }
+    }
+
+    @Benchmark
+    public String execute() {
+        return compoundVariable.execute();
+    }
+}
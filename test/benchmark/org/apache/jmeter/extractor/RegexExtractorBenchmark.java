@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link RegexExtractor#process()} on a 10 KB HTML body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegexExtractorBenchmark {
+
+    /** Match number, -1 extracts all matches */
+    @Param({"1", "-1"})
+    int matchNumber;
+
+    private RegexExtractor extractor;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.initialize();
+        StringBuilder body = new StringBuilder("<html><body>"); // $NON-NLS-1$
+        int i = 0;
+        while (body.length() < 10 * 1024) {
+            body.append("<input type=\"hidden\" name=\"token").append(i) // $NON-NLS-1$
+                .append("\" value=\"").append(Integer.toHexString(i * 31)) // $NON-NLS-1$
+                .append("\"/><p>Some text</p>\n"); // $NON-NLS-1$
+            i++;
+        }
+        body.append("</body></html>"); // $NON-NLS-1$
+        SampleResult result = new SampleResult();
+        result.setResponseData(body.toString(), null);
+
+        JMeterContext context = JMeterContextService.getContext();
+        context.setVariables(new JMeterVariables());
+        context.setPreviousResult(result);
+
+        extractor = new RegexExtractor();
+        extractor.setThreadContext(context);
+        extractor.setRefName("token"); // $NON-NLS-1$
+        extractor.setRegex("name=\"token\\d+\" value=\"(\\w+)\""); // $NON-NLS-1$
+        extractor.setTemplate("$1$"); // $NON-NLS-1$
+        extractor.setMatchNumber(matchNumber);
+        extractor.setDefaultValue("NOT_FOUND"); // $NON-NLS-1$
+    }
+
+    @Benchmark
+    public void process() {
+        extractor.process();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.protocol.http.control;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link HC4CookieHandler} used through {@link CookieManager} by every HTTP sample:
+ * parsing a Set-Cookie header and building the Cookie header of the next request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HC4CookieHandlerBenchmark {
+
+    /** Number of cookies already stored in the manager */
+    @Param({"1", "20"})
+    int cookies;
+
+    private CookieManager manager;
+
+    private URL url;
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        BenchmarkEnvironment.initialize();
+        manager = new CookieManager();
+        manager.setImplementation(HC4CookieHandler.class.getName());
+        manager.setCookiePolicy(HC4CookieHandler.DEFAULT_POLICY_NAME);
+        manager.setThreadContext(JMeterContextService.getContext());
+        manager.testStarted();
+        url = new URL("http://example.com/app/page"); // $NON-NLS-1$
+        for (int i = 0; i < cookies; i++) {
+            manager.addCookieFromHeader("cookie" + i + "=value" + i + "; Path=/app", url); // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$
+        }
+    }
+
+    @Benchmark
+    public void addCookieFromHeader() {
+        manager.addCookieFromHeader("JSESSIONID=1A2B3C4D5E6F; Path=/app; HttpOnly", url); // $NON-NLS-1$
+    }
+
+    @Benchmark
+    public String getCookieHeaderForURL() {
+        return manager.getCookieHeaderForURL(url);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of creating and filling a {@link SampleResult}, as every sampler does once per sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SampleResultBenchmark {
+
+    private static final byte[] RESPONSE = new byte[1024];
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.initialize();
+    }
+
+    @Benchmark
+    public SampleResult construct() {
+        return new SampleResult();
+    }
+
+    @Benchmark
+    public SampleResult constructAndFill() {
+        SampleResult result = new SampleResult();
+        result.setSampleLabel("Home page"); // $NON-NLS-1$
+        result.sampleStart();
+        result.setResponseData(RESPONSE);
+        result.setResponseCodeOK();
+        result.setResponseMessageOK();
+        result.setContentType("text/html; charset=UTF-8"); // $NON-NLS-1$
+        result.setSuccessful(true);
+        result.sampleEnd();
+        return result;
+    }
+}
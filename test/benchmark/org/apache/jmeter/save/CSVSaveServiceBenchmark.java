@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of formatting a sample as a CSV line, done for every sample saved in a CSV JTL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CSVSaveServiceBenchmark {
+
+    private SampleEvent event;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.initialize();
+        SampleResult result = new SampleResult(System.currentTimeMillis(), 123);
+        result.setSampleLabel("Home page, with \"quotes\""); // $NON-NLS-1$
+        result.setResponseCodeOK();
+        result.setResponseMessageOK();
+        result.setThreadName("Thread Group 1-1"); // $NON-NLS-1$
+        result.setDataType(SampleResult.TEXT);
+        result.setSuccessful(true);
+        result.setBytes(10240L);
+        result.setSentBytes(512L);
+        result.setGroupThreads(10);
+        result.setAllThreads(10);
+        result.setLatency(100);
+        result.setConnectTime(20);
+        // Done by ResultCollector before saving
+        result.setSaveConfig(new SampleSaveConfiguration());
+        event = new SampleEvent(result, "Thread Group", new JMeterVariables()); // $NON-NLS-1$
+    }
+
+    @Benchmark
+    public String resultToDelimitedString() {
+        return CSVSaveService.resultToDelimitedString(event);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link CSVSaveService#csvReadFile(BufferedReader, char)} and {@link CSVTokenizer}
+ * reading a CSV JTL held in memory, so that only parsing is measured.
+ * <p>
+ * The lines are formatted by {@link CSVSaveService#resultToDelimitedString(SampleEvent)}
+ * with the default save configuration. The labels of a part of them contain the
+ * delimiter and quotes, so these lines are quoted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CSVTokenizerBenchmark {
+
+    private static final int LINES = 10000;
+
+    /** one line out of quotedEvery has a quoted label, 0 for none */
+    @Param({"0", "10"})
+    int quotedEvery;
+
+    private String jtl;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.initialize();
+        SampleSaveConfiguration saveConfig = new SampleSaveConfiguration();
+        StringBuilder sb = new StringBuilder();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < LINES; i++) {
+            SampleResult result = new SampleResult(start + i, 100 + i % 900);
+            if (quotedEvery > 0 && i % quotedEvery == 0) {
+                result.setSampleLabel("Search, with \"quotes\" " + (i % 20)); // $NON-NLS-1$
+            } else {
+                result.setSampleLabel("Home page " + (i % 20)); // $NON-NLS-1$
+            }
+            result.setResponseCodeOK();
+            result.setResponseMessageOK();
+            result.setThreadName("Thread Group 1-" + (i % 50)); // $NON-NLS-1$
+            result.setDataType(SampleResult.TEXT);
+            result.setSuccessful(true);
+            result.setBytes(10240L);
+            result.setSentBytes(512L);
+            result.setGroupThreads(50);
+            result.setAllThreads(50);
+            result.setLatency(50);
+            result.setConnectTime(20);
+            result.setSaveConfig(saveConfig);
+            sb.append(CSVSaveService.resultToDelimitedString(
+                    new SampleEvent(result, "Thread Group", new JMeterVariables()))) // $NON-NLS-1$
+                    .append('\n');
+        }
+        jtl = sb.toString();
+    }
+
+    @Benchmark
+    public void csvReadFile(Blackhole bh) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(jtl));
+        String[] fields;
+        while ((fields = CSVSaveService.csvReadFile(reader, ',')).length > 0) {
+            bh.consume(fields);
+        }
+    }
+
+    @Benchmark
+    public void tokenizerAllFields(Blackhole bh) throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(jtl), ',');
+        String[] fields;
+        while ((fields = tokenizer.next()).length > 0) {
+            bh.consume(fields);
+        }
+    }
+
+    /**
+     * Only the elapsed time and label are materialized, as a reader needing
+     * a few columns would do.
+     */
+    @Benchmark
+    public void tokenizerTwoFields(Blackhole bh) throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(jtl), ',');
+        while (tokenizer.nextRecord()) {
+            bh.consume(tokenizer.getField(1));
+            bh.consume(tokenizer.getField(2));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.benchmark.BenchmarkEnvironment;
+import org.apache.jmeter.benchmark.NoOpSampleListener;
+import org.apache.jmeter.benchmark.NoOpSampler;
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.engine.TurnElementsOn;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Engine overhead per sample: a {@link JMeterThread} runs a loop of {@link NoOpSampler},
+ * so the score is the cost of JMeterThread.processSampler (sampler configuration,
+ * result decoration and listener notification) for one sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JMeterThreadBenchmark {
+
+    private static final int SAMPLES = 1000;
+
+    /** Number of sample listeners in scope of the sampler */
+    @Param({"0", "1", "10"})
+    int listeners;
+
+    private JMeterThread thread;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchmarkEnvironment.initialize();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        LoopController loop = new LoopController();
+        loop.setLoops(SAMPLES);
+        loop.setContinueForever(false);
+        ThreadGroup threadGroup = new ThreadGroup();
+        threadGroup.setName("Benchmark"); // $NON-NLS-1$
+        threadGroup.setNumThreads(1);
+        threadGroup.setSamplerController(loop);
+
+        ListedHashTree tree = new ListedHashTree();
+        tree.add(threadGroup);
+        tree.add(threadGroup, new NoOpSampler());
+        for (int i = 0; i < listeners; i++) {
+            tree.add(threadGroup, new NoOpSampleListener());
+        }
+        tree.traverse(new TurnElementsOn());
+
+        thread = new JMeterThread(tree, t -> { /* NOOP */ }, new ListenerNotifier());
+        thread.setThreadGroup(threadGroup);
+        thread.setThreadName("Benchmark 1-1"); // $NON-NLS-1$
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void processSampler() {
+        thread.run();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares put/get throughput of {@link JMeterVariables} when variables are stored
+ * in its map (slots disabled, the historical behaviour) and in {@link VariableSlots} slots.
+ * <p>
+ * Each invocation writes then reads every variable once, as an extractor followed by
+ * a sampler referencing the extracted values would do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JMeterVariablesBenchmark {
+
+    private static final String VALUE = "value"; // $NON-NLS-1$
+
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({"8", "64"})
+        int count;
+
+        JMeterVariables vars;
+
+        String[] names;
+
+        @Setup
+        public void setup() {
+            VariableSlots.setEnabled(false);
+            VariableSlots.clear();
+            names = names(count, "known");
+            vars = new JMeterVariables();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SlotsState {
+        @Param({"8", "64"})
+        int count;
+
+        JMeterVariables vars;
+
+        String[] names;
+
+        String[] dynamicNames;
+
+        int[] slots;
+
+        @Setup
+        public void setup() {
+            VariableSlots.setEnabled(true);
+            VariableSlots.clear();
+            names = names(count, "known");
+            dynamicNames = names(count, "dynamic");
+            slots = new int[count];
+            for (int i = 0; i < count; i++) {
+                slots[i] = VariableSlots.register(names[i]);
+            }
+            vars = new JMeterVariables();
+        }
+    }
+
+    private static String[] names(int count, String prefix) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + "_var_" + i;
+        }
+        return names;
+    }
+
+    @Benchmark
+    public void mapByName(MapState state, Blackhole bh) {
+        JMeterVariables vars = state.vars;
+        for (String name : state.names) {
+            vars.put(name, VALUE);
+        }
+        for (String name : state.names) {
+            bh.consume(vars.get(name));
+        }
+    }
+
+    @Benchmark
+    public void slotsByName(SlotsState state, Blackhole bh) {
+        JMeterVariables vars = state.vars;
+        for (String name : state.names) {
+            vars.put(name, VALUE);
+        }
+        for (String name : state.names) {
+            bh.consume(vars.get(name));
+        }
+    }
+
+    @Benchmark
+    public void slotsBySlot(SlotsState state, Blackhole bh) {
+        JMeterVariables vars = state.vars;
+        for (int slot : state.slots) {
+            vars.put(slot, VALUE);
+        }
+        for (int slot : state.slots) {
+            bh.consume(vars.get(slot));
+        }
+    }
+
+    /**
+     * Names without slot when slots are enabled: measures the cost of the fallback to the map.
+     */
+    @Benchmark
+    public void slotsDynamicNames(SlotsState state, Blackhole bh) {
+        JMeterVariables vars = state.vars;
+        for (String name : state.dynamicNames) {
+            vars.put(name, VALUE);
+        }
+        for (String name : state.dynamicNames) {
+            bh.consume(vars.get(name));
+        }
+    }
+}
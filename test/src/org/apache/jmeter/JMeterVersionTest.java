@@ -121,8 +121,9 @@ public class JMeterVersionTest extends JMeterTestCase {
         propNames.remove("rat-tasks");
         versions.remove("rat-tasks");
         // remove optional hsqldb, jacoco and sonar jars (required for coverage reporting, not required for jmeter)
+        // and JMH jars (only required for benchmarks)
         for (String optLib : Arrays.asList("jacocoant", "sonarqube-ant-task", "hsqldb", "activemq-all",
-                "mina-core", "ftplet-api", "ftpserver-core")) {
+                "mina-core", "ftplet-api", "ftpserver-core", "jmh", "jopt-simple")) {
             propNames.remove(optLib);
             versions.remove(optLib);
         }
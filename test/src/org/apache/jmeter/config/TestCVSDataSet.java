@@ -28,11 +28,13 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 
+import org.apache.jmeter.engine.DistributedRunner;
 import org.apache.jmeter.junit.JMeterTestCase;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.util.JMeterStopThreadException;
 import org.junit.After;
 import org.junit.Before;
@@ -160,6 +162,27 @@ public class TestCVSDataSet extends JMeterTestCase {
         assertEquals("d2",threadVars.get("D|1"));
     }
     
+    @Test
+    public void testPartitionedBetweenEngines() {
+        JMeterUtils.setProperty(DistributedRunner.ENGINE_INDEX, "1");
+        JMeterUtils.setProperty(DistributedRunner.ENGINE_COUNT, "2");
+        try {
+            CSVDataSet csv = new CSVDataSet();
+            csv.setFilename(findTestPath("testfiles/testheader.csv"));
+            csv.setDelimiter("|");
+            csv.setPartitioned(true);
+            csv.iterationStart(null);
+            assertEquals("a2", threadVars.get("A"));
+            csv.iterationStart(null);
+            assertEquals("a4", threadVars.get("A"));
+            csv.iterationStart(null); // recycled
+            assertEquals("a2", threadVars.get("A"));
+        } finally {
+            JMeterUtils.getJMeterProperties().remove(DistributedRunner.ENGINE_INDEX);
+            JMeterUtils.getJMeterProperties().remove(DistributedRunner.ENGINE_COUNT);
+        }
+    }
+
     // Test CSV file with a header line and recycle is true
     @Test
     public void testHeaderOpenAndRecycle(){
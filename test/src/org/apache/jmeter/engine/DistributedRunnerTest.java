@@ -18,6 +18,8 @@
 
 package org.apache.jmeter.engine;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
@@ -122,20 +124,148 @@ public class DistributedRunnerTest {
         obj.exit(hosts);
     }
 
+    @Test
+    public void testCoordinatedStart() throws Exception {
+        createJmeterEnv();
+        JMeterUtils.setProperty(DistributedRunner.RETRIES_NUMBER, "1");
+        JMeterUtils.setProperty(DistributedRunner.CONTINUE_ON_FAIL, "false");
+        RemoteEngineEmul ahead = new RemoteEngineEmul(5000L);
+        RemoteEngineEmul behind = new RemoteEngineEmul(-3000L);
+        RemoteEngineEmul legacy = new RemoteEngineEmul(0L, false);
+        DistributedRunnerEmul obj = new DistributedRunnerEmul();
+        obj.engines.add(new ClientJMeterEngine("test1", ahead));
+        obj.engines.add(new ClientJMeterEngine("test2", behind));
+        obj.engines.add(new ClientJMeterEngine("test3", legacy));
+        List<String> hosts = Arrays.asList("test1", "test2", "test3");
+        obj.init(hosts, new HashTree());
+        long before = System.currentTimeMillis();
+        obj.start(hosts);
+
+        assertTrue(ahead.startTime > before);
+        assertEquals(ahead.startTime, behind.startTime);
+        // The emulated round trip is at most a few ms, so the estimate is close to the real offset
+        assertTrue("offset was " + ahead.clockOffset, Math.abs(ahead.clockOffset - 5000L) < 50);
+        assertTrue("offset was " + behind.clockOffset, Math.abs(behind.clockOffset + 3000L) < 50);
+        // Servers without coordinated start support are started at once
+        assertTrue(legacy.started);
+        assertEquals(0L, legacy.startTime);
+    }
+
+    @Test
+    public void testHealthMonitorEnabledOnlyWhenRebalancing() throws Exception {
+        for (boolean rebalance : new boolean[] { false, true }) {
+            createJmeterEnv();
+            JMeterUtils.setProperty(DistributedRunner.RETRIES_NUMBER, "1");
+            JMeterUtils.setProperty(DistributedRunner.CONTINUE_ON_FAIL, "false");
+            JMeterUtils.setProperty(LoadRebalancer.REBALANCE, Boolean.toString(rebalance));
+            RemoteEngineEmul engine1 = new RemoteEngineEmul(0L);
+            RemoteEngineEmul engine2 = new RemoteEngineEmul(0L);
+            DistributedRunnerEmul obj = new DistributedRunnerEmul();
+            obj.engines.add(new ClientJMeterEngine("test1", engine1));
+            obj.engines.add(new ClientJMeterEngine("test2", engine2));
+            List<String> hosts = Arrays.asList("test1", "test2");
+            obj.init(hosts, new HashTree());
+            obj.start(hosts);
+            obj.stop(hosts);
+            for (RemoteEngineEmul engine : new RemoteEngineEmul[] { engine1, engine2 }) {
+                assertEquals(rebalance ? "true" : null,
+                        engine.properties.getProperty(InjectorHealthMonitor.MONITOR_ENABLED));
+            }
+        }
+        JMeterUtils.getJMeterProperties().remove(LoadRebalancer.REBALANCE);
+    }
+
     private static class DistributedRunnerEmul extends DistributedRunner {
-        public List<EmulatorEngine> engines = new LinkedList<>();
+        public List<JMeterEngine> engines = new LinkedList<>();
 
         @Override
         protected JMeterEngine createEngine(String address) throws RemoteException, NotBoundException, MalformedURLException {
             if(engines.size()==0) {
                 throw new IllegalArgumentException("Throwing on Engine creation to simulate failure");
             }
-            EmulatorEngine engine = engines.remove(0);
-            engine.setHost(address);
+            JMeterEngine engine = engines.remove(0);
+            if (engine instanceof EmulatorEngine) {
+                ((EmulatorEngine) engine).setHost(address);
+            }
             return engine;
         }
     }
 
+    /**
+     * Server with a clock shifted from the local one
+     */
+    private static class RemoteEngineEmul implements RemoteJMeterEngine {
+        private final long offset;
+        private final boolean supportsCoordinatedStart;
+        private boolean started;
+        private long startTime;
+        private long clockOffset;
+        private Properties properties;
+
+        RemoteEngineEmul(long offset) {
+            this(offset, true);
+        }
+
+        RemoteEngineEmul(long offset, boolean supportsCoordinatedStart) {
+            this.offset = offset;
+            this.supportsCoordinatedStart = supportsCoordinatedStart;
+        }
+
+        @Override
+        public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) {
+            // NOOP
+        }
+
+        @Override
+        public void rrunTest() {
+            started = true;
+        }
+
+        @Override
+        public void rrunTestAt(long startTime, long clockOffset) {
+            this.startTime = startTime;
+            this.clockOffset = clockOffset;
+        }
+
+        @Override
+        public long rcurrentTimeMillis() throws RemoteException {
+            if (!supportsCoordinatedStart) {
+                throw new RemoteException("unrecognized method hash");
+            }
+            return System.currentTimeMillis() + offset;
+        }
+
+        @Override
+        public InjectorHealthMonitor.Health rgetHealth() {
+            return null;
+        }
+
+        @Override
+        public void rsetLoadShare(double share) {
+            // NOOP
+        }
+
+        @Override
+        public void rstopTest(boolean now) {
+            // NOOP
+        }
+
+        @Override
+        public void rreset() {
+            // NOOP
+        }
+
+        @Override
+        public void rsetProperties(Properties p) {
+            properties = p;
+        }
+
+        @Override
+        public void rexit() {
+            // NOOP
+        }
+    }
+
     private static class EmulatorEngine implements JMeterEngine {
         private static final Logger log = LoggerFactory.getLogger(EmulatorEngine.class);
         private String host;
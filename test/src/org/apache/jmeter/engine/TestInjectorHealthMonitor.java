@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class TestInjectorHealthMonitor extends JMeterTestCase {
+
+    @Test
+    public void testTimerLagRecordedOnlyWhileStarted() {
+        InjectorHealthMonitor monitor = new InjectorHealthMonitor(Collections.emptyList());
+        InjectorHealthMonitor.recordTimerLag(TimeUnit.MILLISECONDS.toNanos(500));
+        monitor.start();
+        try {
+            InjectorHealthMonitor.recordTimerLag(TimeUnit.MILLISECONDS.toNanos(1));
+            InjectorHealthMonitor.recordTimerLag(TimeUnit.MILLISECONDS.toNanos(200));
+            InjectorHealthMonitor.Health health = monitor.sample();
+            assertEquals(2, health.timerLagCount);
+            assertTrue(health.timerLagMaxMillis >= 190 && health.timerLagMaxMillis <= 200);
+            assertTrue(health.isTimerLagging());
+            assertTrue(health.isSaturated());
+            assertTrue(health.cpuPercent >= 0);
+            assertTrue(health.gcPercent >= 0);
+            assertTrue(health.allocationMBPerSecond >= 0);
+
+            health = monitor.sample();
+            assertEquals(0, health.timerLagCount);
+            assertFalse(health.isTimerLagging());
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    @Test
+    public void testCreateSample() {
+        SampleResult ok = InjectorHealthMonitor.createSample(1000L, InjectorHealthMonitor.LABEL_CPU, 42, true);
+        assertEquals(InjectorHealthMonitor.LABEL_CPU, ok.getSampleLabel());
+        assertEquals(42, ok.getTime());
+        assertEquals(1000L, ok.getTimeStamp());
+        assertTrue(ok.isSuccessful());
+        SampleResult ko = InjectorHealthMonitor.createSample(1000L, InjectorHealthMonitor.LABEL_GC, 50, false);
+        assertFalse(ko.isSuccessful());
+        assertEquals("500", ko.getResponseCode());
+    }
+}
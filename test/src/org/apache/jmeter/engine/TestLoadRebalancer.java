@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.math.LongHistogram;
+import org.junit.Test;
+
+public class TestLoadRebalancer {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testNoSaturationKeepsShares() {
+        double[] shares = {1.0, 1.0, 1.0};
+        assertArrayEquals(shares,
+                LoadRebalancer.computeShares(shares, new boolean[] {false, false, false}, 0.1, 0.5, 1.5), DELTA);
+        assertArrayEquals(shares,
+                LoadRebalancer.computeShares(shares, new boolean[] {true, true, true}, 0.1, 0.5, 1.5), DELTA);
+    }
+
+    @Test
+    public void testLoadMovesToUnsaturatedEngines() {
+        double[] next = LoadRebalancer.computeShares(
+                new double[] {1.0, 1.0, 1.0}, new boolean[] {true, false, false}, 0.2, 0.5, 1.5);
+        assertEquals(0.8, next[0], DELTA);
+        assertEquals(1.1, next[1], DELTA);
+        assertEquals(1.1, next[2], DELTA);
+        assertEquals(3.0, next[0] + next[1] + next[2], DELTA);
+    }
+
+    @Test
+    public void testSharesAreClamped() {
+        double[] next = LoadRebalancer.computeShares(
+                new double[] {0.5, 1.5}, new boolean[] {true, false}, 0.2, 0.5, 1.5);
+        assertEquals(0.5, next[0], DELTA);
+        assertEquals(1.5, next[1], DELTA);
+    }
+
+    @Test
+    public void testRebalanceSendsShares() {
+        RemoteEngine saturated = new RemoteEngine(99.0);
+        RemoteEngine idle = new RemoteEngine(10.0);
+        RemoteEngine silent = new RemoteEngine(-1);
+        LoadRebalancer rebalancer = new LoadRebalancer(Arrays.asList(
+                new ClientJMeterEngine("saturated", saturated),
+                new ClientJMeterEngine("idle", idle),
+                new ClientJMeterEngine("silent", silent)));
+        rebalancer.rebalance();
+        double[] shares = rebalancer.getShares();
+        assertTrue(shares[0] < 1.0);
+        assertEquals(2.0 - shares[0], shares[1], DELTA);
+        assertEquals(1.0, shares[2], DELTA);
+        assertEquals(shares[0], saturated.share, DELTA);
+        assertEquals(shares[1], idle.share, DELTA);
+        // No health, so left out
+        assertEquals(0.0, silent.share, DELTA);
+    }
+
+    private static class RemoteEngine implements RemoteJMeterEngine {
+        private final double cpu;
+        private double share;
+
+        RemoteEngine(double cpu) {
+            this.cpu = cpu;
+        }
+
+        @Override
+        public InjectorHealthMonitor.Health rgetHealth() {
+            return cpu < 0 ? null : new InjectorHealthMonitor.Health(cpu, 0.0, 0.0, new LongHistogram(4));
+        }
+
+        @Override
+        public void rsetLoadShare(double share) {
+            this.share = share;
+        }
+
+        @Override
+        public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) {
+            // NOOP
+        }
+
+        @Override
+        public void rrunTest() {
+            // NOOP
+        }
+
+        @Override
+        public void rrunTestAt(long startTime, long clockOffset) {
+            // NOOP
+        }
+
+        @Override
+        public long rcurrentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void rstopTest(boolean now) {
+            // NOOP
+        }
+
+        @Override
+        public void rreset() {
+            // NOOP
+        }
+
+        @Override
+        public void rsetProperties(Properties p) {
+            // NOOP
+        }
+
+        @Override
+        public void rexit() {
+            // NOOP
+        }
+    }
+}
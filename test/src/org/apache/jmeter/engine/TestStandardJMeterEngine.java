@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jmeter.testelement.TestStateListener;
+import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.Test;
+
+public class TestStandardJMeterEngine extends JMeterTestCase {
+
+    @Test
+    public void testCancelledTestOnlyNotifiesListeners() {
+        TestPlan plan = new TestPlan();
+        ThreadGroup group = new ThreadGroup();
+        group.setNumThreads(1);
+        Listener listener = new Listener();
+        ListedHashTree tree = new ListedHashTree();
+        tree.add(plan);
+        tree.add(plan, group);
+        tree.add(plan, listener);
+
+        StandardJMeterEngine engine = new StandardJMeterEngine();
+        engine.configure(tree);
+        engine.cancel();
+        engine.run();
+
+        assertEquals(1, listener.started);
+        assertEquals(1, listener.ended);
+        assertEquals(0, group.numberOfActiveThreads());
+        assertFalse(engine.isActive());
+    }
+
+    private static class Listener extends AbstractTestElement implements TestStateListener {
+        private static final long serialVersionUID = 1L;
+        private int started;
+        private int ended;
+
+        @Override
+        public void testStarted() {
+            started++;
+        }
+
+        @Override
+        public void testStarted(String host) {
+            started++;
+        }
+
+        @Override
+        public void testEnded() {
+            ended++;
+        }
+
+        @Override
+        public void testEnded(String host) {
+            ended++;
+        }
+    }
+}
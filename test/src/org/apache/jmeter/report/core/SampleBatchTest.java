@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SampleBatchTest extends JMeterTestCase {
+
+    private static final int NR_ROWS = 10;
+
+    private final SampleMetadata metadata = new SampleMetadata(',',
+            CSVSaveService.TIME_STAMP, CSVSaveService.CSV_ELAPSED,
+            CSVSaveService.LABEL, CSVSaveService.RESPONSE_CODE,
+            CSVSaveService.THREAD_NAME, CSVSaveService.SUCCESSFUL,
+            CSVSaveService.CSV_BYTES, CSVSaveService.CSV_THREAD_COUNT1,
+            CSVSaveService.CSV_THREAD_COUNT2, CSVSaveService.CSV_LATENCY);
+
+    private File tempCsv;
+
+    @Before
+    public void setUp() throws IOException {
+        tempCsv = File.createTempFile("samplebatch", ".csv");
+        try (CsvSampleWriter writer = new CsvSampleWriter(tempCsv, metadata)) {
+            writer.setSeparator(',');
+            for (long i = 0; i < NR_ROWS; i++) {
+                writer.write(new SampleBuilder(metadata).add(1000 + i).add(i)
+                        .add("label" + (i % 3)).add(i % 2 == 0 ? "200" : "500")
+                        .add("Thread Group 1-" + (i % 2))
+                        .add(Boolean.toString(i % 2 == 0)).add(i * 10)
+                        .add(2).add(4).add(i / 2).build());
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (tempCsv.exists()) {
+            tempCsv.delete();
+        }
+    }
+
+    @Test
+    public void testReadBatchesMatchSamples() {
+        try (CsvSampleReader batchReader = new CsvSampleReader(tempCsv, metadata);
+                CsvSampleReader sampleReader = new CsvSampleReader(tempCsv, metadata)) {
+            int total = 0;
+            SampleBatch batch;
+            while ((batch = batchReader.readBatch(4)) != null) {
+                assertTrue(batch.size() > 0 && batch.size() <= 4);
+                for (int i = 0; i < batch.size(); i++) {
+                    Sample expected = sampleReader.readSample();
+                    Sample actual = batch.getSample(i);
+                    assertEquals(expected.getSampleRow(), actual.getSampleRow());
+                    assertEquals(expected.getTimestamp(), actual.getTimestamp());
+                    assertEquals(expected.getElapsedTime(), actual.getElapsedTime());
+                    assertEquals(expected.getLatency(), actual.getLatency());
+                    assertEquals(expected.getReceivedBytes(), actual.getReceivedBytes());
+                    assertEquals(0L, actual.getSentBytes());
+                    assertEquals(0L, actual.getConnectTime());
+                    assertEquals(expected.getSuccess(), actual.getSuccess());
+                    assertEquals(expected.getGroupThreads(), actual.getGroupThreads());
+                    assertEquals(expected.getAllThreads(), actual.getAllThreads());
+                    assertEquals(expected.getName(), actual.getName());
+                    assertEquals(expected.getThreadName(), actual.getThreadName());
+                    assertEquals(expected.getResponseCode(), actual.getResponseCode());
+                    assertEquals(expected.toString(), actual.toString());
+                    total++;
+                }
+            }
+            assertEquals(NR_ROWS, total);
+            assertFalse(sampleReader.hasNext());
+            assertNull(batchReader.readBatch(4));
+        }
+    }
+
+    @Test
+    public void testDictionariesAreSharedByBatches() {
+        try (CsvSampleReader reader = new CsvSampleReader(tempCsv, metadata)) {
+            SampleBatch first = reader.readBatch(3);
+            SampleBatch second = reader.readBatch(3);
+            assertSame(first.getLabels(), second.getLabels());
+            // Rows 0 and 3 have the same label
+            assertEquals(first.getLabelCode(0), second.getLabelCode(0));
+            assertEquals("label0", first.getLabels().decode(first.getLabelCode(0)));
+            assertEquals(3, first.getLabels().size());
+            assertEquals(2, second.getThreadNames().size());
+            assertEquals(2, second.getResponseCodes().size());
+            assertEquals("500",
+                    second.getResponseCodes().decode(second.getResponseCodeCode(0)));
+        }
+    }
+
+    @Test
+    public void testUnparsableColumnFallsBackToSample() {
+        SampleBatch batch = new SampleBatch(metadata, 2,
+                new SampleBatch.Dictionary(), new SampleBatch.Dictionary(),
+                new SampleBatch.Dictionary());
+        batch.add(0, new String[] { "2017/01/01", "5", "l", "200", "t",
+                "true", "1", "1", "1", "0" });
+        batch.add(1, new String[] { "1000", "x", "l", "200", "t",
+                "true", "1", "1", "1", "0" });
+        assertTrue(batch.isFull());
+        assertFalse(batch.hasTimestamps());
+        try {
+            batch.getSample(0).getTimestamp();
+            fail("Expected SampleException");
+        } catch (SampleException expected) {
+            // OK
+        }
+        try {
+            batch.getSample(1).getElapsedTime();
+            fail("Expected SampleException");
+        } catch (SampleException expected) {
+            // OK
+        }
+        assertEquals(1L, batch.getSample(1).getReceivedBytes());
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.jmeter.report.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import org.junit.Test;
 
@@ -28,4 +29,14 @@ public class SampleMetadataTest {
         assertEquals("a,b", new SampleMetadata(',', "a", "b").toString());
     }
 
+    @Test
+    public void testEquals() {
+        SampleMetadata metadata = new SampleMetadata(',', "a", "b");
+        assertEquals(metadata, new SampleMetadata(',', "a", "b"));
+        assertEquals(metadata.hashCode(), new SampleMetadata(',', "a", "b").hashCode());
+        assertNotEquals(metadata, new SampleMetadata(';', "a", "b"));
+        assertNotEquals(metadata, new SampleMetadata(',', "b", "a"));
+        assertNotEquals(metadata, new SampleMetadata(',', "a"));
+    }
+
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.dashboard;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.jmeter.report.processor.ListResultData;
+import org.apache.jmeter.report.processor.MapResultData;
+import org.apache.jmeter.report.processor.ValueResultData;
+import org.junit.Test;
+
+public class JsonizerVisitorTest {
+
+    private final JsonizerVisitor jsonizer = new JsonizerVisitor();
+
+    @Test
+    public void testValues() {
+        assertEquals("\"text\"", new ValueResultData("text").accept(jsonizer));
+        assertEquals("12", new ValueResultData(Integer.valueOf(12)).accept(jsonizer));
+        assertEquals("true", new ValueResultData(Boolean.TRUE).accept(jsonizer));
+        assertEquals("null", new ValueResultData(null).accept(jsonizer));
+    }
+
+    @Test
+    public void testEmptyContainers() {
+        assertEquals("[]", new ListResultData().accept(jsonizer));
+        assertEquals("{}", new MapResultData().accept(jsonizer));
+    }
+
+    @Test
+    public void testNestedResults() {
+        ListResultData points = new ListResultData();
+        ListResultData point = new ListResultData();
+        point.addResult(new ValueResultData(Long.valueOf(1000L)));
+        point.addResult(new ValueResultData(Double.valueOf(2.5d)));
+        points.addResult(point);
+        points.addResult(new ListResultData());
+        MapResultData series = new MapResultData();
+        series.setResult("data", points);
+        ListResultData list = new ListResultData();
+        list.addResult(series);
+        list.addResult(new ValueResultData("label"));
+        assertEquals("[{\"data\": [[1000, 2.5], []]}, \"label\"]", list.accept(jsonizer));
+    }
+}
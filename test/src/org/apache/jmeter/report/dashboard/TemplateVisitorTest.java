@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.dashboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.jmeter.report.core.DataContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import freemarker.template.Configuration;
+import freemarker.template.TemplateExceptionHandler;
+
+public class TemplateVisitorTest {
+
+    private static final int FILES = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path source;
+
+    private Path target;
+
+    private Configuration configuration;
+
+    private DataContext data;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        source = folder.newFolder("template").toPath();
+        target = folder.newFolder("output").toPath();
+        Path content = Files.createDirectories(source.resolve("content"));
+        for (int i = 0; i < FILES; i++) {
+            write(content.resolve("page" + i + ".html.fmkr"), "<p>${title} " + i + "</p>");
+            write(content.resolve("asset" + i + ".js"), "var asset = " + i + ";");
+        }
+        configuration = new Configuration(Configuration.getVersion());
+        configuration.setDirectoryForTemplateLoading(source.toFile());
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        data = new DataContext();
+        data.put("title", "Dashboard");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private void checkOutput() throws IOException {
+        Path content = target.resolve("content");
+        for (int i = 0; i < FILES; i++) {
+            assertEquals("<p>Dashboard " + i + "</p>", read(content.resolve("page" + i + ".html")));
+            assertEquals("var asset = " + i + ";", read(content.resolve("asset" + i + ".js")));
+        }
+        assertEquals(2 * FILES, content.toFile().list().length);
+    }
+
+    @Test
+    public void testSequential() throws IOException {
+        TemplateVisitor visitor = new TemplateVisitor(source, target, configuration, data);
+        Files.walkFileTree(source, visitor);
+        visitor.awaitCompletion();
+        checkOutput();
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        TemplateVisitor visitor = new TemplateVisitor(source, target, configuration, data,
+                executor, false);
+        Files.walkFileTree(source, visitor);
+        visitor.awaitCompletion();
+        checkOutput();
+    }
+
+    @Test
+    public void testParallelWithLinks() throws IOException {
+        TemplateVisitor visitor = new TemplateVisitor(source, target, configuration, data,
+                executor, true);
+        Files.walkFileTree(source, visitor);
+        visitor.awaitCompletion();
+        checkOutput();
+    }
+
+    @Test
+    public void testParallelFailure() throws IOException {
+        write(source.resolve("content").resolve("broken.html.fmkr"), "${missing}");
+        TemplateVisitor visitor = new TemplateVisitor(source, target, configuration, data,
+                executor, false);
+        Files.walkFileTree(source, visitor);
+        try {
+            visitor.awaitCompletion();
+            fail("Expected an IOException for the missing variable");
+        } catch (IOException expected) {
+            assertTrue(new File(target.toFile(), "content").isDirectory());
+        }
+    }
+}
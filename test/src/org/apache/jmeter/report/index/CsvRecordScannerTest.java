@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class CsvRecordScannerTest {
+
+    private static final String CSV = "1000,12,\"a, \"\"quoted\"\"\nlabel\",true\r\n"
+            + "1001,-3,\u00e9t\u00e9,FALSE\r"
+            + "\n"
+            + "1002,7,last,true";
+
+    private static CsvRecordScanner scanner(String text, int bufferSize) {
+        return new CsvRecordScanner(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                100L, ',', bufferSize);
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        // Small buffers force records to be moved and the buffer to grow
+        for (int bufferSize : new int[] { 1, 2, 3, 7, 64 }) {
+            CsvRecordScanner scanner = scanner(CSV, bufferSize);
+            assertTrue(scanner.next());
+            assertEquals(100L, scanner.getRecordOffset());
+            assertEquals(4, scanner.getFieldCount());
+            assertEquals(1000L, scanner.getLong(0));
+            assertEquals(12L, scanner.getLong(1));
+            assertEquals("a, \"quoted\"\nlabel", scanner.getString(2, StandardCharsets.UTF_8));
+            assertTrue(scanner.getBoolean(3));
+
+            assertTrue(scanner.next());
+            assertEquals(100L + 36, scanner.getRecordOffset());
+            assertEquals(-3L, scanner.getLong(1));
+            assertEquals("\u00e9t\u00e9", scanner.getString(2, StandardCharsets.UTF_8));
+            assertFalse(scanner.getBoolean(3));
+            assertEquals("1001,-3,\u00e9t\u00e9,FALSE", scanner.getRecord(StandardCharsets.UTF_8));
+
+            assertTrue(scanner.next());
+            assertEquals(100L + 36 + 21, scanner.getRecordOffset());
+            assertEquals("last", scanner.getString(2, StandardCharsets.UTF_8));
+            assertFalse(scanner.next());
+        }
+    }
+
+    @Test
+    public void testEmptyRecords() throws IOException {
+        CsvRecordScanner scanner = scanner("\n,\n", 64);
+        assertTrue(scanner.next());
+        assertEquals(1, scanner.getFieldCount());
+        assertEquals("", scanner.getString(0, StandardCharsets.UTF_8));
+        assertTrue(scanner.next());
+        assertEquals(2, scanner.getFieldCount());
+        assertFalse(scanner.next());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidLong() throws IOException {
+        CsvRecordScanner scanner = scanner("12a,1\n", 64);
+        scanner.next();
+        scanner.getLong(0);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultsIndexTest extends JMeterTestCase {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,success,bytes";
+
+    private static final long START = 1500000000000L;
+
+    private static final int ROWS = 20000;
+
+    private static final String[] LABELS = { "home", "login", "search, \"quoted\"", "logout" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File results;
+
+    private long[] timestamps;
+
+    private long[] elapsed;
+
+    private int[] labels;
+
+    private boolean[] success;
+
+    @Before
+    public void setUp() throws IOException {
+        results = folder.newFile("results.jtl");
+        timestamps = new long[ROWS];
+        elapsed = new long[ROWS];
+        labels = new int[ROWS];
+        success = new boolean[ROWS];
+        Random random = new Random(12);
+        try (PrintWriter writer = new PrintWriter(results, StandardCharsets.UTF_8.name())) {
+            writer.print(HEADER + "\n");
+            long time = START;
+            for (int i = 0; i < ROWS; i++) {
+                time += random.nextInt(20);
+                // Samples are saved when they end, so time stamps are not sorted
+                timestamps[i] = time - random.nextInt(500);
+                elapsed[i] = random.nextInt(3000);
+                labels[i] = random.nextInt(LABELS.length);
+                success[i] = random.nextInt(20) != 0;
+                String label = LABELS[labels[i]];
+                if (label.indexOf(',') >= 0) {
+                    label = '"' + label.replace("\"", "\"\"") + '"';
+                }
+                writer.print(timestamps[i] + "," + elapsed[i] + "," + label + ",200,"
+                        + success[i] + ",100" + (i % 2 == 0 ? "\n" : "\r\n"));
+            }
+        }
+    }
+
+    private void assertQuery(ResultsIndex index, long from, long to, Pattern pattern) throws IOException {
+        Map<String, LabelStatistics> statistics = index.query(from, to, pattern);
+        for (int l = 0; l < LABELS.length; l++) {
+            long count = 0;
+            long errors = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ROWS; i++) {
+                if (labels[i] == l && timestamps[i] >= from && timestamps[i] < to) {
+                    count++;
+                    errors += success[i] ? 0 : 1;
+                    sum += elapsed[i];
+                    min = Math.min(min, elapsed[i]);
+                    max = Math.max(max, elapsed[i]);
+                }
+            }
+            LabelStatistics s = statistics.get(LABELS[l]);
+            if (count == 0 || (pattern != null && !pattern.matcher(LABELS[l]).matches())) {
+                assertEquals(null, s);
+                continue;
+            }
+            assertEquals(LABELS[l], count, s.getCount());
+            assertEquals(LABELS[l], errors, s.getErrorCount());
+            assertEquals(LABELS[l], (double) sum / count, s.getMean(), 1e-9);
+            assertEquals(LABELS[l], min, s.getMin());
+            assertEquals(LABELS[l], max, s.getMax());
+            long p90 = s.getPercentile(90);
+            assertTrue(p90 >= min && p90 <= max);
+        }
+    }
+
+    @Test
+    public void testQueries() throws IOException {
+        File indexFile = ResultsIndex.getIndexFile(results);
+        ResultsIndex index = ResultsIndex.build(results, indexFile, ',', 10000L);
+        assertEquals(ROWS, index.getSampleCount());
+        assertTrue(index.getBlockCount() > 10);
+        assertEquals(LABELS.length, index.getLabels().size());
+        assertTrue(index.getLabels().containsAll(Arrays.asList(LABELS)));
+
+        ResultsIndex loaded = ResultsIndex.load(results, indexFile);
+        assertTrue(loaded.isUpToDate());
+        assertEquals(index.getBlockCount(), loaded.getBlockCount());
+        for (ResultsIndex i : new ResultsIndex[] { index, loaded }) {
+            assertQuery(i, Long.MIN_VALUE, Long.MAX_VALUE, null);
+            assertQuery(i, START + 30000, START + 90000, null);
+            assertQuery(i, START + 12345, START + 67891, Pattern.compile("log.*"));
+            assertQuery(i, START + 12345, START + 12346, Pattern.compile("search.*"));
+        }
+    }
+
+    @Test
+    public void testLoadOrBuild() throws IOException {
+        File indexFile = ResultsIndex.getIndexFile(results);
+        assertFalse(indexFile.exists());
+        ResultsIndex index = ResultsIndex.loadOrBuild(results, indexFile, ',', 60000L);
+        assertTrue(indexFile.isFile());
+        assertEquals(ROWS, index.getSampleCount());
+        assertTrue(results.setLastModified(results.lastModified() - 10000L));
+        assertFalse(ResultsIndex.load(results, indexFile).isUpToDate());
+        assertTrue(ResultsIndex.loadOrBuild(results, indexFile, ',', 60000L).isUpToDate());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidIndex() throws IOException {
+        File indexFile = folder.newFile("invalid.index");
+        ResultsIndex.load(results, indexFile);
+    }
+
+    @Test
+    public void testCompressedResultsAreRejected() throws IOException {
+        File compressed = folder.newFile("results.jtl.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+            Files.copy(results.toPath(), out);
+        }
+        File indexFile = ResultsIndex.getIndexFile(compressed);
+        try {
+            ResultsIndex.build(compressed, indexFile, ',', 60000L);
+            fail("Compressed result files should not be indexed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Compressed"));
+        }
+        assertFalse(indexFile.exists());
+    }
+
+    @Test
+    public void testParseTime() {
+        assertEquals(START + 90000L, ResultsIndexTool.parseTime("+90s", START));
+        assertEquals(START + 600000L, ResultsIndexTool.parseTime("+10m", START));
+        assertEquals(START + 3600000L, ResultsIndexTool.parseTime("+1h", START));
+        assertEquals(START + 250L, ResultsIndexTool.parseTime("+250", START));
+        assertEquals(START, ResultsIndexTool.parseTime(Long.toString(START), 0L));
+    }
+}
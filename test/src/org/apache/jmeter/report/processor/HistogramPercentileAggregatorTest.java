@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+public class HistogramPercentileAggregatorTest {
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, Math.max(1.0, expected * 0.01));
+    }
+
+    @Test
+    public void testEmpty() {
+        HistogramPercentileAggregator aggregator = new HistogramPercentileAggregator(90);
+        assertEquals(0, aggregator.getCount());
+        assertTrue(Double.isNaN(aggregator.getResult()));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        HistogramPercentileAggregator aggregator = new HistogramPercentileAggregator(50);
+        for (int i = 1; i <= 99; i++) {
+            aggregator.addValue(i);
+        }
+        assertEquals(50, aggregator.getResult(), 0.0);
+        assertEquals(99, aggregator.getPercentile(100), 0.0);
+        assertEquals(1, aggregator.getPercentile(0), 0.0);
+    }
+
+    @Test
+    public void testWeightedValues() {
+        HistogramPercentileAggregator weighted = new HistogramPercentileAggregator(90);
+        HistogramPercentileAggregator repeated = new HistogramPercentileAggregator(90);
+        for (int i = 1; i <= 50; i++) {
+            weighted.addValue(i * 10, i);
+            for (int j = 0; j < i; j++) {
+                repeated.addValue(i * 10);
+            }
+        }
+        assertEquals(repeated.getCount(), weighted.getCount());
+        assertEquals(repeated.getResult(), weighted.getResult(), 0.0);
+        assertEquals(repeated.getPercentile(50), weighted.getPercentile(50), 0.0);
+    }
+
+    @Test
+    public void testAllValuesAreUsed() {
+        // More values than the default sliding window of PercentileAggregator
+        Random random = new Random(42);
+        HistogramPercentileAggregator aggregator = new HistogramPercentileAggregator(99);
+        DescriptiveStatistics statistics = new DescriptiveStatistics();
+        for (int i = 0; i < 100000; i++) {
+            // Latencies increase during the test
+            double value = random.nextInt(1000) + i / 10.0;
+            aggregator.addValue(value);
+            statistics.addValue(Math.round(value));
+        }
+        assertEquals(100000, aggregator.getCount());
+        assertClose(statistics.getPercentile(99), aggregator.getResult());
+        assertClose(statistics.getPercentile(50), aggregator.getPercentile(50));
+        assertClose(statistics.getPercentile(90), aggregator.getPercentile(90));
+    }
+
+    @Test
+    public void testAddAndReset() {
+        HistogramPercentileAggregator first = new HistogramPercentileAggregator(50);
+        HistogramPercentileAggregator second = new HistogramPercentileAggregator(50);
+        for (int i = 1; i <= 1000; i++) {
+            first.addValue(i);
+            second.addValue(i + 1000.0);
+        }
+        HistogramPercentileAggregator merged = new HistogramPercentileAggregator(first);
+        merged.add(second);
+        assertEquals(2000, merged.getCount());
+        assertClose(1000, merged.getResult());
+        assertClose(500, first.getResult());
+        merged.reset();
+        assertEquals(0, merged.getCount());
+        merged.addValue(3);
+        assertEquals(3, merged.getResult(), 0.0);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jorphan.math.HeavyHitters;
+import org.junit.Test;
+
+public class LabelCardinalityLimiterTest {
+
+    @Test
+    public void testNormalizeFirstMatchingRule() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put("^GET /users/[0-9]+$", "GET /users/{id}");
+        rules.put("/[0-9]+", "/{n}");
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(rules, 0,
+                LabelCardinalityLimiter.DEFAULT_OTHER_LABEL);
+        assertEquals("GET /users/{id}", limiter.normalize("GET /users/123"));
+        assertEquals("GET /orders/{n}/items/{n}", limiter.normalize("GET /orders/1/items/2"));
+        assertEquals("Home page", limiter.normalize("Home page"));
+    }
+
+    @Test
+    public void testReplacementWithGroups() {
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(
+                Collections.singletonMap("^(\\w+) .*$", "$1 request"), 0, "other");
+        assertEquals("POST request", limiter.map("POST /login?session=abc"));
+    }
+
+    @Test
+    public void testNoLimit() {
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(
+                Collections.emptyMap(), 0, "other");
+        for (int i = 0; i < 100; i++) {
+            assertEquals("label" + i, limiter.map("label" + i));
+        }
+    }
+
+    @Test
+    public void testFirstLabelsKeptWithoutSelection() {
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(
+                Collections.emptyMap(), 2, "other");
+        assertEquals("a", limiter.map("a"));
+        assertEquals("b", limiter.map("b"));
+        assertEquals("other", limiter.map("c"));
+        assertEquals("a", limiter.map("a"));
+        assertEquals(2, limiter.getKeptLabels().size());
+    }
+
+    @Test
+    public void testMostFrequentLabelsKeptAfterSelection() {
+        LabelCardinalityLimiter limiter = new LabelCardinalityLimiter(
+                Collections.emptyMap(), 2, "other");
+        HeavyHitters<String> sketch = new HeavyHitters<>(10);
+        for (String label : new String[] { "rare", "a", "b", "a", "b", "a" }) {
+            sketch.add(label);
+        }
+        limiter.selectLabels(sketch);
+        assertTrue(limiter.getKeptLabels().contains("a"));
+        assertTrue(limiter.getKeptLabels().contains("b"));
+        assertEquals("other", limiter.map("rare"));
+        assertEquals("other", limiter.map("unseen"));
+        assertEquals("a", limiter.map("a"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MergedCsvFileSampleSourceTest extends JMeterTestCase {
+
+    private static final String HEADER = "timeStamp,elapsed,label,threadName,success";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Collects the samples produced on channel 0 */
+    private static class Collector extends AbstractSampleConsumer {
+        private final List<Sample> samples = new ArrayList<>();
+        private int starts;
+
+        @Override
+        public void startConsuming() {
+            starts++;
+        }
+
+        @Override
+        public void consume(Sample s, int channel) {
+            assertEquals(0, channel);
+            samples.add(s);
+        }
+
+        @Override
+        public void stopConsuming() {
+            // NOOP
+        }
+    }
+
+    private File writeFile(String name, String header, long[] timestamps) throws IOException {
+        File file = tmp.newFile(name);
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println(header);
+            for (int i = 0; i < timestamps.length; i++) {
+                writer.println(timestamps[i] + "," + (i % 100) + "," + name + "," + name + " 1-1,true");
+            }
+        }
+        return file;
+    }
+
+    private List<File> writeFiles(int count, int samples, List<Long> allTimestamps) throws IOException {
+        Random random = new Random(count);
+        List<File> files = new ArrayList<>();
+        for (int f = 0; f < count; f++) {
+            long[] timestamps = new long[samples + f * 500];
+            long ts = 1_500_000_000_000L;
+            for (int i = 0; i < timestamps.length; i++) {
+                ts += random.nextInt(20);
+                timestamps[i] = ts;
+                allTimestamps.add(Long.valueOf(ts));
+            }
+            files.add(writeFile("results" + f + ".csv", HEADER, timestamps));
+        }
+        return files;
+    }
+
+    private static Collector run(MergedCsvFileSampleSource source) {
+        Collector collector = new Collector();
+        source.setSampleContext(new SampleContext());
+        source.addSampleConsumer(collector);
+        source.run();
+        return collector;
+    }
+
+    private static List<Long> timestamps(List<Sample> samples) {
+        List<Long> timestamps = new ArrayList<>();
+        for (Sample sample : samples) {
+            timestamps.add(Long.valueOf(sample.getTimestamp()));
+        }
+        return timestamps;
+    }
+
+    @Test
+    public void testProduceAsRead() throws IOException {
+        List<Long> expected = new ArrayList<>();
+        List<File> files = writeFiles(3, 3000, expected);
+        Collector collector = run(new MergedCsvFileSampleSource(files, ',', false));
+        assertEquals(1, collector.starts);
+        List<Long> actual = timestamps(collector.samples);
+        Collections.sort(actual);
+        Collections.sort(expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testProduceInOrder() throws IOException {
+        List<Long> expected = new ArrayList<>();
+        List<File> files = writeFiles(4, 2500, expected);
+        Collector collector = run(new MergedCsvFileSampleSource(files, ',', true));
+        assertEquals(1, collector.starts);
+        Collections.sort(expected);
+        assertEquals(expected, timestamps(collector.samples));
+        // Samples keep the data of their file
+        for (Sample sample : collector.samples) {
+            assertTrue(sample.getThreadName(), sample.getThreadName().startsWith(sample.getName()));
+        }
+    }
+
+    @Test
+    public void testRolledFilesAreRead() throws IOException {
+        File rolled = writeFile("results.1.csv", HEADER, new long[] { 1L, 2L });
+        File current = writeFile("results.csv", HEADER, new long[] { 3L });
+        File other = writeFile("other.csv", HEADER, new long[] { 1L, 4L });
+        MergedCsvFileSampleSource source = new MergedCsvFileSampleSource(
+                Arrays.asList(current, other), ',', true);
+        assertEquals(Arrays.asList(rolled, current, other), source.getInputFiles());
+        assertEquals(Arrays.asList(1L, 1L, 2L, 3L, 4L), timestamps(run(source).samples));
+    }
+
+    @Test
+    public void testDifferentColumnsAreRejected() throws IOException {
+        File first = writeFile("first.csv", HEADER, new long[] { 1L });
+        File second = writeFile("second.csv", "timeStamp,elapsed,label,threadName,success,bytes", new long[0]);
+        try {
+            new MergedCsvFileSampleSource(Arrays.asList(first, second), ',', false);
+            fail("Expected SampleException");
+        } catch (SampleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("second.csv"));
+        }
+    }
+}
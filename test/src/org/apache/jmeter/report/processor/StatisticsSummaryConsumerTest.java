@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.CsvSampleReader;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.samplers.StatisticalSampleResult;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StatisticsSummaryConsumerTest extends JMeterTestCase {
+
+    private static final int BATCHES = 20;
+
+    private static final int BATCH_SIZE = 10;
+
+    private static final int WEIGHTED_SAMPLES = 20000;
+
+    private static final long START = 1_500_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static SampleResult result(long end, long elapsed, boolean success) {
+        SampleResult result = SampleResult.createTestSample(end - elapsed, end);
+        result.setSampleLabel("a");
+        result.setSuccessful(success);
+        result.setLatency(elapsed / 2);
+        result.setBytes(100L);
+        return result;
+    }
+
+    /**
+     * Writes the same results to a result file, one by one or aggregated by
+     * batch like the Statistical mode does.
+     */
+    private File writeFile(String name, boolean statistical) throws IOException {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(false);
+        config.setSampleCount(true);
+        File file = tmp.newFile(name);
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println(CSVSaveService.printableFieldNamesToString(config));
+            long end = 1_500_000_000_000L;
+            for (int batch = 0; batch < BATCHES; batch++) {
+                long elapsed = 10L * (batch + 1);
+                StatisticalSampleResult aggregate = null;
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    end += 5L;
+                    SampleResult result = result(end, elapsed, i != 0 || batch % 4 != 0);
+                    result.setSaveConfig(config);
+                    if (statistical) {
+                        if (aggregate == null) {
+                            aggregate = new StatisticalSampleResult(result);
+                            aggregate.setSaveConfig(config);
+                        }
+                        aggregate.add(result);
+                    } else {
+                        writer.println(CSVSaveService.resultToDelimitedString(
+                                new SampleEvent(result, "tg")));
+                    }
+                }
+                if (aggregate != null) {
+                    writer.println(CSVSaveService.resultToDelimitedString(
+                            new SampleEvent(aggregate, "tg")));
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Writes results of a steady load, keeping one result every <code>weight</code>
+     * and making it stand for the results it replaces, like a sampled result file does.
+     */
+    private File writeWeightedFile(String name, int weight) throws IOException {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(false);
+        config.setSampleCount(true);
+        File file = tmp.newFile(name);
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println(CSVSaveService.printableFieldNamesToString(config));
+            for (int i = 0; i < WEIGHTED_SAMPLES; i += weight) {
+                long elapsed = 100L + i % 7;
+                SampleResult result = result(START + i * 5L + elapsed, elapsed, true);
+                result.setSaveConfig(config);
+                result.setWeightedSampleCount(weight);
+                writer.println(CSVSaveService.resultToDelimitedString(new SampleEvent(result, "tg")));
+            }
+        }
+        return file;
+    }
+
+    private static StatisticsSummaryData summarize(File file) {
+        StatisticsSummaryConsumer consumer = new StatisticsSummaryConsumer();
+        AbstractSummaryConsumer<StatisticsSummaryData>.SummaryInfo info =
+                consumer.new SummaryInfo(false);
+        try (CsvSampleReader reader = new CsvSampleReader(file, ',', false)) {
+            while (reader.hasNext()) {
+                Sample sample = reader.readSample();
+                consumer.updateData(info, sample);
+            }
+        }
+        return info.getData();
+    }
+
+    @Test
+    public void testStatisticalResultsGiveSameStatistics() throws IOException {
+        StatisticsSummaryData expected = summarize(writeFile("results.csv", false));
+        StatisticsSummaryData actual = summarize(writeFile("statistical.csv", true));
+
+        assertEquals(BATCHES * BATCH_SIZE, expected.getTotal());
+        assertEquals(expected.getTotal(), actual.getTotal());
+        assertEquals(expected.getErrors(), actual.getErrors());
+        assertEquals(expected.getBytes(), actual.getBytes());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        assertEquals(expected.getMean().getResult(), actual.getMean().getResult(), 0.001);
+        assertEquals(expected.getPercentile1().getResult(), actual.getPercentile1().getResult(), 0.001);
+        assertEquals(expected.getPercentile2().getResult(), actual.getPercentile2().getResult(), 0.001);
+        assertEquals(expected.getPercentile3().getResult(), actual.getPercentile3().getResult(), 0.001);
+    }
+
+    @Test
+    public void testStatisticalRowIsCountedWithItsMeanElapsedTime() throws IOException {
+        StatisticsSummaryData actual = summarize(writeFile("statistical.csv", true));
+        assertEquals(10L, actual.getMin());
+        assertEquals(10L * BATCHES, actual.getMax());
+        assertEquals(5.0 * (BATCHES + 1), actual.getMean().getResult(), 0.001);
+    }
+
+    @Test
+    public void testWeightedResultsKeepTheirTimes() throws IOException {
+        StatisticsSummaryData expected = summarize(writeWeightedFile("results.csv", 1));
+        StatisticsSummaryData actual = summarize(writeWeightedFile("sampled.csv", 100));
+
+        assertEquals(WEIGHTED_SAMPLES, actual.getTotal());
+        assertEquals(START, expected.getFirstTime());
+        assertEquals(expected.getFirstTime(), actual.getFirstTime());
+        // The last kept result ends at most 99 intervals of 5 ms before the last result
+        assertEquals(expected.getEndTime(), actual.getEndTime(), 500.0);
+        assertEquals(expected.getThroughput(), actual.getThroughput(), expected.getThroughput() / 100);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.processor.ListResultData;
+import org.apache.jmeter.report.processor.MapResultData;
+import org.apache.jmeter.report.processor.MaxAggregatorFactory;
+import org.apache.jmeter.report.processor.ResultData;
+import org.apache.jmeter.report.processor.SampleContext;
+import org.apache.jmeter.report.processor.ValueResultData;
+import org.apache.jmeter.report.processor.graph.impl.ResponseTimeVSRequestGraphConsumer;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersusRequestsGraphConsumerTest extends JMeterTestCase {
+
+    private static final SampleMetadata METADATA = new SampleMetadata(',',
+            CSVSaveService.TIME_STAMP, CSVSaveService.CSV_ELAPSED,
+            CSVSaveService.LABEL, CSVSaveService.SUCCESSFUL,
+            CSVSaveService.RESPONSE_MESSAGE);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static List<Sample> createSamples() {
+        List<Sample> samples = new ArrayList<>();
+        long row = 0;
+        // interval n of 1 second holds n + 1 samples whose elapsed times are 10, 20...
+        for (int interval = 0; interval < 5; interval++) {
+            for (int i = 0; i <= interval; i++) {
+                samples.add(new Sample(row++, METADATA,
+                        Long.toString(interval * 1000L + i), Long.toString(10L * (i + 1)),
+                        "label", "true", "OK"));
+            }
+        }
+        samples.add(new Sample(row, METADATA, "4500", "100", "label", "false", "KO"));
+        return samples;
+    }
+
+    private static Map<String, Map<Double, Double>> consume(
+            AbstractVersusRequestsGraphConsumer consumer, List<Sample> samples,
+            File workDir) {
+        SampleContext context = new SampleContext();
+        context.setWorkingDirectory(workDir);
+        consumer.setName("vsRequests");
+        consumer.setGranularity(1000L);
+        consumer.setSampleContext(context);
+        consumer.setConsumedMetadata(METADATA, 0);
+        consumer.startConsuming();
+        for (Sample sample : samples) {
+            consumer.consume(sample, 0);
+        }
+        consumer.stopConsuming();
+
+        Map<String, Map<Double, Double>> points = new TreeMap<>();
+        MapResultData result = (MapResultData) context.getData().get("vsRequests");
+        ListResultData series = (ListResultData) result
+                .getResult(AbstractGraphConsumer.RESULT_SERIES);
+        for (ResultData data : series) {
+            MapResultData seriesResult = (MapResultData) data;
+            String name = (String) ((ValueResultData) seriesResult
+                    .getResult(AbstractGraphConsumer.RESULT_SERIES_NAME)).getValue();
+            Map<Double, Double> seriesPoints = new TreeMap<>();
+            for (ResultData point : (ListResultData) seriesResult
+                    .getResult(AbstractGraphConsumer.RESULT_SERIES_DATA)) {
+                ListResultData coords = (ListResultData) point;
+                seriesPoints.put((Double) ((ValueResultData) coords.get(0)).getValue(),
+                        (Double) ((ValueResultData) coords.get(1)).getValue());
+            }
+            points.put(name, seriesPoints);
+        }
+        return points;
+    }
+
+    @Test
+    public void testBucketedIgnoresOrder() throws Exception {
+        List<Sample> samples = createSamples();
+        Map<String, Map<Double, Double>> ordered = consume(
+                new ResponseTimeVSRequestGraphConsumer(), samples, tmp.newFolder());
+        Collections.shuffle(samples, new Random(42));
+        Map<String, Map<Double, Double>> shuffled = consume(
+                new ResponseTimeVSRequestGraphConsumer(), samples, tmp.newFolder());
+        assertEquals(ordered, shuffled);
+
+        Map<Double, Double> successes = ordered.get("Successes");
+        // 2 requests per second in interval 1, median of 10 and 20
+        assertEquals(10d, successes.get(Double.valueOf(2d)), 0.5d);
+        // interval 4 has 6 samples with the failure
+        assertEquals(30d, successes.get(Double.valueOf(6d)), 0.5d);
+        assertEquals(5, successes.size());
+        assertEquals(100d, ordered.get("Failures").get(Double.valueOf(6d)), 1d);
+    }
+
+    @Test
+    public void testBufferedWithOtherAggregators() throws Exception {
+        AbstractVersusRequestsGraphConsumer consumer = new ResponseTimeVSRequestGraphConsumer() {
+            @Override
+            protected Map<String, GroupInfo> createGroupInfos() {
+                return Collections.singletonMap(AbstractGraphConsumer.DEFAULT_GROUP,
+                        new GroupInfo(new MaxAggregatorFactory(), new StatusSeriesSelector(),
+                                new ElapsedTimeValueSelector(true), false, false));
+            }
+        };
+        List<Sample> samples = createSamples();
+        Collections.shuffle(samples, new Random(42));
+        Map<Double, Double> successes = consume(consumer, samples, tmp.newFolder())
+                .get("Successes");
+        assertEquals(Double.valueOf(20d), successes.get(Double.valueOf(2d)));
+        assertEquals(Double.valueOf(50d), successes.get(Double.valueOf(6d)));
+    }
+}
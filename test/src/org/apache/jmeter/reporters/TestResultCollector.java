@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.Visualizer;
+import org.junit.Test;
+
+public class TestResultCollector extends JMeterTestCase {
+
+    private static class CountingCollector extends ResultCollector {
+        private static final long serialVersionUID = 1L;
+        int single;
+
+        @Override
+        public void sampleOccurred(SampleEvent event) {
+            single++;
+            super.sampleOccurred(event);
+        }
+    }
+
+    private static class RecordingVisualizer implements Visualizer {
+        final List<SampleResult> results = new ArrayList<>();
+
+        @Override
+        public void add(SampleResult sample) {
+            results.add(sample);
+        }
+
+        @Override
+        public boolean isStats() {
+            return false;
+        }
+    }
+
+    private static List<SampleEvent> events(int count, boolean successful) {
+        List<SampleEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SampleResult result = SampleResult.createTestSample(i);
+            result.setSuccessful(successful);
+            events.add(new SampleEvent(result, "tg"));
+        }
+        return events;
+    }
+
+    @Test
+    public void testBatchIsFilteredAndSentToVisualizer() {
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        ResultCollector collector = new ResultCollector();
+        collector.setListener(visualizer);
+        collector.setErrorLogging(true);
+        List<SampleEvent> events = events(3, true);
+        List<SampleEvent> errors = events(2, false);
+        events.addAll(errors);
+        collector.sampleOccurredBatch(events);
+        assertEquals(2, visualizer.results.size());
+        assertEquals(errors.get(0).getResult(), visualizer.results.get(0));
+    }
+
+    @Test
+    public void testBatchUsesOverriddenSampleOccurred() {
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        CountingCollector collector = new CountingCollector();
+        collector.setListener(visualizer);
+        collector.sampleOccurredBatch(events(4, true));
+        assertEquals(4, collector.single);
+        assertEquals(4, visualizer.results.size());
+    }
+}
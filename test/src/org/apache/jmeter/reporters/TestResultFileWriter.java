@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BlockGzip;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.RolledFiles;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestResultFileWriter extends JMeterTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String read(File file) throws IOException {
+        try (InputStream in = BlockGzip.newInputStream(file)) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static SampleSaveConfiguration csvConfig() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(false);
+        config.setFieldNames(true);
+        return config;
+    }
+
+    private static void write(ResultFileWriter writer, SampleSaveConfiguration config, int count) {
+        ResultCollector.writeFileStart(writer, config);
+        for (int i = 0; i < count; i++) {
+            writer.println("1000," + i + ",label");
+            writer.rollIfDue();
+        }
+    }
+
+    /**
+     * @return the number of lines after the header of each file
+     */
+    private static int countSamples(File file, String header) throws IOException {
+        String content = read(file);
+        assertTrue(content, content.startsWith(header));
+        return content.split("\n").length - 1;
+    }
+
+    @Test
+    public void testRollBySize() throws IOException {
+        File file = new File(folder.getRoot(), "results.csv");
+        SampleSaveConfiguration config = csvConfig();
+        String header = CSVSaveService.printableFieldNamesToString(config);
+        // Written data is counted when it leaves the write buffers, so use several buffers per file
+        try (ResultFileWriter writer = new ResultFileWriter(file, false, config, 20000, 0)) {
+            write(writer, config, 5000);
+            assertFalse(writer.checkError());
+        }
+        List<File> rolled = RolledFiles.listRolledFiles(file);
+        assertTrue(rolled.size() > 1);
+        int samples = countSamples(file, header);
+        for (File f : rolled) {
+            samples += countSamples(f, header);
+        }
+        assertEquals(5000, samples);
+    }
+
+    @Test
+    public void testCompressedRollByInterval() throws IOException, InterruptedException {
+        File file = new File(folder.getRoot(), "results.csv.gz");
+        SampleSaveConfiguration config = csvConfig();
+        String header = CSVSaveService.printableFieldNamesToString(config);
+        try (ResultFileWriter writer = new ResultFileWriter(file, false, config, 0, 50)) {
+            write(writer, config, 10);
+            Thread.sleep(100);
+            writer.println("1000,10,label");
+            writer.rollIfDue();
+        }
+        List<File> rolled = RolledFiles.listRolledFiles(file);
+        assertEquals(1, rolled.size());
+        assertEquals("results.1.csv.gz", rolled.get(0).getName());
+        assertEquals(11, countSamples(rolled.get(0), header));
+        assertEquals(0, countSamples(file, header));
+    }
+
+    private static SampleSaveConfiguration xmlConfig() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(true);
+        return config;
+    }
+
+    private static int occurrences(String content, String text) {
+        return content.split(Pattern.quote(text), -1).length - 1;
+    }
+
+    private static void writeAndRoll(ResultFileWriter writer, SampleSaveConfiguration config, int count)
+            throws InterruptedException {
+        ResultCollector.writeFileStart(writer, config);
+        for (int i = 0; i < count; i++) {
+            writer.println("1000," + i + ",label");
+            Thread.sleep(20);
+            writer.rollIfDue();
+        }
+    }
+
+    @Test
+    public void testRolledXmlFilesAreComplete() throws IOException, InterruptedException {
+        File file = new File(folder.getRoot(), "results.xml.gz");
+        SampleSaveConfiguration config = xmlConfig();
+        try (ResultFileWriter writer = new ResultFileWriter(file, false, config, 0, 10)) {
+            writeAndRoll(writer, config, 1);
+            assertFalse(writer.checkError());
+        }
+        List<File> rolled = RolledFiles.listRolledFiles(file);
+        assertEquals(1, rolled.size());
+        String content = read(rolled.get(0));
+        assertEquals(1, occurrences(content, "<testResults"));
+        assertTrue(content, content.endsWith("</testResults>\n"));
+        assertEquals(1, occurrences(read(file), "<testResults"));
+    }
+
+    @Test
+    public void testFailedRollContinuesTheSameDocument() throws IOException, InterruptedException {
+        File file = new File(folder.getRoot(), "results.xml");
+        // A directory in the way of the rolled file makes the move fail
+        File blocker = new File(folder.getRoot(), "results.1.xml");
+        assertTrue(blocker.mkdir());
+        assertTrue(new File(blocker, "file").createNewFile());
+        SampleSaveConfiguration config = xmlConfig();
+        try (ResultFileWriter writer = new ResultFileWriter(file, false, config, 0, 10)) {
+            writeAndRoll(writer, config, 3);
+            assertTrue(writer.checkError());
+        }
+        String content = read(file);
+        assertEquals(1, occurrences(content, "<?xml"));
+        assertEquals(1, occurrences(content, "<testResults"));
+        assertEquals(0, occurrences(content, "</testResults>"));
+        assertEquals(3, occurrences(content, "1000,"));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestResultSampler extends JMeterTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SampleSaveConfiguration csvConfig() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(false);
+        return config;
+    }
+
+    private static SampleEvent event(String label, long end, long elapsed, boolean success) {
+        SampleResult result = SampleResult.createTestSample(end - elapsed, end);
+        result.setSampleLabel(label);
+        result.setSuccessful(success);
+        result.setBytes(100L);
+        result.setSentBytes(10L);
+        return new SampleEvent(result, "tg");
+    }
+
+    private static long sampleCount(List<SampleEvent> events, String label) {
+        long count = 0;
+        for (SampleEvent event : events) {
+            if (label.equals(event.getResult().getSampleLabel())) {
+                count += event.getResult().getSampleCount();
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testSaveConfigSavesSampleCount() throws IOException {
+        SampleSaveConfiguration config = csvConfig();
+        config.setSampleCount(false);
+        ResultSampler sampler = new ResultSampler(config, 0.5f, 0, 1000L, null);
+        assertTrue(sampler.getSaveConfig().saveSampleCount());
+        assertFalse(config.saveSampleCount());
+    }
+
+    @Test
+    public void testFailuresAreSavedAsTheyOccur() throws IOException {
+        ResultSampler sampler = new ResultSampler(csvConfig(), 0.0f, 0, 1000L, null);
+        SampleEvent failure = event("a", 1500L, 10L, false);
+        List<SampleEvent> saved = sampler.sample(failure);
+        assertEquals(1, saved.size());
+        assertSame(failure, saved.get(0));
+        assertTrue(sampler.sample(event("a", 1600L, 10L, true)).isEmpty());
+    }
+
+    @Test
+    public void testReservoirCountsAddUp() throws IOException {
+        ResultSampler sampler = new ResultSampler(csvConfig(), 1.0f, 7, 1000L, null);
+        List<SampleEvent> saved = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            saved.addAll(sampler.sample(event("a", 1000L + i, 5L, true)));
+            saved.addAll(sampler.sample(event("b", 1000L + i, 5L, i % 100 != 0)));
+        }
+        // The interval stays open while the next one is
+        assertEquals(10, saved.size());
+        assertTrue(sampler.sample(event("a", 2500L, 5L, true)).isEmpty());
+        saved.addAll(sampler.sample(event("a", 3000L, 5L, true)));
+
+        assertEquals(1000L, sampleCount(saved, "a"));
+        assertEquals(1000L, sampleCount(saved, "b"));
+        int successes = 0;
+        long bytes = 0;
+        for (SampleEvent event : saved) {
+            SampleResult result = event.getResult();
+            if (result.isSuccessful() && "a".equals(result.getSampleLabel())) {
+                successes++;
+                bytes += result.getBytesAsLong();
+            }
+        }
+        assertEquals(7, successes);
+        assertEquals(100000L, bytes);
+        // The pending results are saved by flush
+        assertEquals(2L, sampleCount(sampler.flush(), "a"));
+    }
+
+    @Test
+    public void testSavedCopiesDoNotChangeResults() throws IOException {
+        ResultSampler sampler = new ResultSampler(csvConfig(), 1.0f, 1, 1000L, null);
+        SampleEvent event = event("a", 1000L, 5L, true);
+        sampler.sample(event);
+        sampler.sample(event("a", 1001L, 5L, true));
+        List<SampleEvent> saved = sampler.flush();
+        assertEquals(1, saved.size());
+        assertEquals(2, saved.get(0).getResult().getSampleCount());
+        assertEquals(10L, saved.get(0).getResult().getTime());
+        assertNotSame(event.getResult(), saved.get(0).getResult());
+        assertEquals(1, event.getResult().getSampleCount());
+        assertEquals(5L, event.getResult().getTime());
+    }
+
+    @Test
+    public void testRateKeepsAtLeastOneSuccess() throws IOException {
+        ResultSampler sampler = new ResultSampler(csvConfig(), 0.0f, 0, 1000L, null);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(sampler.sample(event("a", 1000L + i, 5L, true)).isEmpty());
+        }
+        List<SampleEvent> saved = sampler.flush();
+        assertEquals(1, saved.size());
+        assertEquals(50, saved.get(0).getResult().getSampleCount());
+        assertEquals(5000L, saved.get(0).getResult().getBytesAsLong());
+    }
+
+    @Test
+    public void testAggregates() throws IOException {
+        File results = new File(folder.getRoot(), "results.csv.gz");
+        File aggregates = ResultSampler.getAggregatesFile(results);
+        assertEquals(new File(folder.getRoot(), "results.aggregates.csv"), aggregates);
+
+        ResultSampler sampler = new ResultSampler(csvConfig(), 0.1f, 0, 1000L, aggregates);
+        sampler.sample(event("a,b", 1000L, 5L, true));
+        sampler.sample(event("a,b", 1200L, 15L, false));
+        sampler.sample(event("c", 2100L, 7L, true));
+        sampler.flush();
+        sampler.close();
+
+        List<String> lines = FileUtils.readLines(aggregates, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("timeStamp,label,count,errors,totalElapsed,minElapsed,maxElapsed,bytes,sentBytes",
+                lines.get(0));
+        assertEquals("1000,\"a,b\",2,1,20,5,15,200,20", lines.get(1));
+        assertEquals("2000,c,1,0,7,7,7,100,10", lines.get(2));
+    }
+}
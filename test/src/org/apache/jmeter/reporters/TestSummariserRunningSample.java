@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class TestSummariserRunningSample {
+
+    private static void addSamples(SummariserRunningSample rs, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            rs.addSample(SampleResult.createTestSample(i));
+        }
+    }
+
+    private static void assertPercentile(long expected, long actual) {
+        assertEquals(expected, actual, Math.max(1, expected * 0.02));
+    }
+
+    @Test
+    public void testPercentiles() {
+        SummariserRunningSample rs = new SummariserRunningSample("TEST", true);
+        addSamples(rs, 1, 1000);
+        assertPercentile(500, rs.getPercentile(50));
+        assertPercentile(900, rs.getPercentile(90));
+        assertPercentile(990, rs.getPercentile(99));
+        assertEquals(1000, rs.getPercentile(100));
+    }
+
+    @Test
+    public void testMergeCopyAndClear() {
+        SummariserRunningSample delta = new SummariserRunningSample("DELTA", true);
+        SummariserRunningSample total = new SummariserRunningSample("TOTAL", true);
+        addSamples(delta, 1, 500);
+        total.addSample(delta);
+        delta.clear();
+        assertEquals(0, delta.getPercentile(50));
+        addSamples(delta, 501, 1000);
+        total.addSample(delta);
+        SummariserRunningSample copy = new SummariserRunningSample(total);
+        assertEquals(1000, copy.getNumSamples());
+        assertPercentile(500, copy.getPercentile(50));
+        assertPercentile(950, copy.getPercentile(95));
+        assertPercentile(750, delta.getPercentile(50));
+    }
+
+    @Test
+    public void testWithoutPercentiles() {
+        SummariserRunningSample rs = new SummariserRunningSample("TEST");
+        addSamples(rs, 1, 10);
+        assertFalse(rs.hasPercentiles());
+        assertEquals(0, rs.getPercentile(50));
+    }
+
+    @Test
+    public void testParsePercentiles() {
+        assertArrayEquals(new double[] { 50, 99.9 }, Summariser.parsePercentiles("50, 99.9,abc,0,101"), 0.0);
+        assertEquals(0, Summariser.parsePercentiles("").length);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.visualizers.SamplingStatCalculator;
+import org.apache.jorphan.math.StatCalculatorLong;
+import org.junit.Test;
+
+public class TestHistogramSampleSender {
+
+    /** Local listener recording the batches it receives */
+    private static class RecordingListener implements RemoteSampleListener {
+        private final List<SampleEvent> events = new ArrayList<>();
+        private int ended;
+
+        @Override
+        public void testStarted() {
+        }
+
+        @Override
+        public void testStarted(String host) {
+        }
+
+        @Override
+        public void testEnded() {
+        }
+
+        @Override
+        public void testEnded(String host) {
+            ended++;
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            // The sender reuses its list
+            events.addAll(samples);
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    private static SampleEvent newEvent(String label, long elapsed, boolean success, String code) {
+        SampleResult res = new SampleResult(1500000000000L, elapsed);
+        res.setSampleLabel(label);
+        res.setSuccessful(success);
+        res.setResponseCode(code);
+        return new SampleEvent(res, "Thread Group");
+    }
+
+    @Test
+    public void testAggregatesPerLabel() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        HistogramSampleSender sender = new HistogramSampleSender(listener);
+        sender.readResolve();
+        for (int i = 1; i <= 100; i++) {
+            sender.sampleOccurred(newEvent("home", i, i % 10 != 0, i % 20 == 0 ? "500" : "404"));
+            sender.sampleOccurred(newEvent("login", 1000, true, "200"));
+        }
+        sender.testEnded("host");
+        assertEquals(1, listener.ended);
+        assertEquals(2, listener.events.size());
+
+        HistogramSampleResult home = (HistogramSampleResult) listener.events.get(0).getResult();
+        assertEquals("home", home.getSampleLabel());
+        assertEquals(100, home.getSampleCount());
+        assertEquals(10, home.getErrorCount());
+        assertEquals(5050, home.getTime());
+        assertEquals(100, home.getElapsedHistogram().getCount());
+        assertEquals(99, home.getElapsedHistogram().getPercentile(99));
+        assertEquals(Long.valueOf(5), home.getErrorCodes().get("500"));
+        assertEquals(Long.valueOf(5), home.getErrorCodes().get("404"));
+
+        HistogramSampleResult login = (HistogramSampleResult) listener.events.get(1).getResult();
+        assertEquals(0, login.getErrorCount());
+        assertTrue(login.getErrorCodes().isEmpty());
+    }
+
+    @Test
+    public void testMergedPercentilesMatchRawSamples() {
+        Random random = new Random(42);
+        StatCalculatorLong exact = new StatCalculatorLong();
+        SamplingStatCalculator merged = new SamplingStatCalculator("home");
+        // Several injectors, several intervals
+        for (int injector = 0; injector < 4; injector++) {
+            HistogramSampleResult interval = null;
+            for (int i = 0; i < 5000; i++) {
+                long elapsed = (long) Math.abs(random.nextGaussian() * 200 + 300);
+                exact.addValue(elapsed);
+                SampleEvent event = newEvent("home", elapsed, true, "200");
+                if (interval == null) {
+                    interval = new HistogramSampleResult(event.getResult(), 7);
+                }
+                interval.add(event.getResult());
+                if (i % 1000 == 999) {
+                    merged.addSample(interval);
+                    interval = null;
+                }
+            }
+        }
+        assertEquals(exact.getCount(), merged.getCount());
+        assertEquals(exact.getMax().longValue(), merged.getMax().longValue());
+        for (double percent : new double[] {0.5, 0.9, 0.99}) {
+            long expected = exact.getPercentPoint(percent).longValue();
+            long actual = merged.getPercentPoint(percent).longValue();
+            assertTrue("percentile " + percent + ": " + actual + " vs " + expected,
+                    Math.abs(actual - expected) <= expected / 128 + 1);
+        }
+    }
+
+    @Test
+    public void testMergeResults() {
+        HistogramSampleResult first = new HistogramSampleResult(newEvent("a", 10, false, "500").getResult(), 7);
+        first.add(newEvent("a", 10, false, "500").getResult());
+        HistogramSampleResult second = new HistogramSampleResult(newEvent("a", 20, true, "200").getResult(), 7);
+        second.add(newEvent("a", 20, true, "200").getResult());
+        second.add(newEvent("a", 30, false, "500").getResult());
+        first.add(second);
+        assertEquals(3, first.getSampleCount());
+        assertEquals(2, first.getErrorCount());
+        assertEquals(60, first.getTime());
+        assertEquals(3, first.getElapsedHistogram().getCount());
+        assertEquals(Long.valueOf(2), first.getErrorCodes().get("500"));
+    }
+
+    @Test
+    public void testSerializedSizeDoesNotDependOnSampleCount() throws Exception {
+        HistogramSampleResult result = new HistogramSampleResult(newEvent("a", 10, true, "200").getResult(), 7);
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            result.add(newEvent("a", 100 + random.nextInt(400), true, "200").getResult());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(result);
+        }
+        assertTrue("serialized size: " + bytes.size(), bytes.size() < 16000);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TestSampleDispatchQueue {
+
+    private static class RecordingListener implements SampleListener {
+        private final List<String> labels = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+
+        RecordingListener(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            labels.add(e.getResult().getSampleLabel());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // NOOP
+        }
+    }
+
+    private static SampleEvent event(String label) {
+        SampleResult result = new SampleResult();
+        result.setSampleLabel(label);
+        return new SampleEvent(result, "tg");
+    }
+
+    @Test
+    public void testFlushDeliversInOrder() {
+        RecordingListener listener = new RecordingListener(new CountDownLatch(0));
+        SampleDispatchQueue queue = new SampleDispatchQueue(listener, "recorder", 10, false);
+        List<SampleEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(event("s" + i));
+        }
+        queue.addAll(events);
+        queue.flush();
+        assertEquals(100, listener.labels.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("s" + i, listener.labels.get(i));
+        }
+        assertEquals(100, queue.getDeliveredSamples());
+        assertEquals(0, queue.getDroppedSamples());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlockWhenDropping() {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        SampleDispatchQueue queue = new SampleDispatchQueue(listener, "slow", 5, true);
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            queue.add(event("s" + i));
+        }
+        assertTrue("Adding should not wait for the listener",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        release.countDown();
+        queue.flush();
+        assertEquals(50, queue.getReceivedSamples());
+        // At most the queue and the batch being delivered are kept
+        assertTrue(queue.getDroppedSamples() >= 50 - 2 * 5 - 1);
+        assertEquals(50, queue.getDeliveredSamples() + queue.getDroppedSamples());
+        assertEquals(listener.labels.size(), queue.getDeliveredSamples());
+    }
+
+    @Test
+    public void testRestartAfterFlush() {
+        RecordingListener listener = new RecordingListener(new CountDownLatch(0));
+        SampleDispatchQueue queue = new SampleDispatchQueue(listener, "restart", 10, false);
+        queue.add(event("host1"));
+        queue.flush();
+        queue.add(event("host2"));
+        queue.flush();
+        assertEquals(2, listener.labels.size());
+    }
+
+    @Test
+    public void testListenerIsNotCalledConcurrentlyAcrossFlushes() throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<String> labels = Collections.synchronizedList(new ArrayList<>());
+        SampleListener listener = new RecordingListener(new CountDownLatch(0)) {
+            @Override
+            public void sampleOccurred(SampleEvent e) {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                labels.add(e.getResult().getSampleLabel());
+                active.decrementAndGet();
+            }
+        };
+        SampleDispatchQueue queue = new SampleDispatchQueue(listener, "flushes", 10, false);
+        // Samples of a server still running, while other servers end
+        Thread server = new Thread(() -> {
+            for (int i = 0; i < 300; i++) {
+                queue.add(event("s" + i));
+            }
+        });
+        server.start();
+        while (server.isAlive()) {
+            queue.flush();
+        }
+        server.join();
+        queue.flush();
+        assertEquals(300, labels.size());
+        assertEquals("listener must be called by one thread at a time", 1, maxActive.get());
+    }
+
+    @Test
+    public void testMBeanIsRegisteredUntilClosed() throws Exception {
+        RecordingListener listener = new RecordingListener(new CountDownLatch(0));
+        SampleDispatchQueue queue = new SampleDispatchQueue(listener, "mbean", 10, false);
+        assertEquals(0, registeredQueues("mbean"));
+        queue.add(event("host1"));
+        queue.flush();
+        assertEquals("flushing when a server ends keeps the MBean", 1, registeredQueues("mbean"));
+        queue.add(event("host2"));
+        queue.close();
+        assertEquals(0, registeredQueues("mbean"));
+        assertEquals(2, listener.labels.size());
+        queue.close();
+        assertEquals(0, registeredQueues("mbean"));
+    }
+
+    private static int registeredQueues(String listenerName) throws Exception {
+        int count = 0;
+        for (ObjectName name : ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("org.apache.jmeter:type=SampleDispatchQueue,*"), null)) {
+            if (ObjectName.unquote(name.getKeyProperty("name")).startsWith(listenerName + "@")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.junit.Test;
+
+public class TestSampleEventCodec {
+
+    /** Sub-class with an extra primitive field, encoded field by field */
+    public static class CustomResult extends SampleResult {
+        private static final long serialVersionUID = 1L;
+        private int retries;
+        private String region;
+    }
+
+    /** Sub-class with a field that cannot be encoded */
+    public static class ListResult extends SampleResult {
+        private static final long serialVersionUID = 1L;
+        private List<String> items = new ArrayList<>();
+    }
+
+    private final SampleEventCodec.Encoder encoder = new SampleEventCodec.Encoder();
+
+    private final SampleEventCodec.Decoder decoder = new SampleEventCodec.Decoder();
+
+    private List<SampleEvent> roundTrip(List<SampleEvent> events) throws IOException {
+        return decode(encode(events), events.size());
+    }
+
+    private byte[] encode(List<SampleEvent> events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        encoder.encode(events, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private List<SampleEvent> decode(byte[] bytes, int count) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<SampleEvent> decoded = decoder.decode(in, count, bytes.length);
+        assertEquals("all bytes should be read", -1, in.read());
+        return decoded;
+    }
+
+    private static SampleResult newResult(String label) throws Exception {
+        SampleResult res = new SampleResult(1500000000000L, 123);
+        res.setSampleLabel(label);
+        res.setThreadName("Thread Group 1-1");
+        res.setResponseCode("200");
+        res.setResponseMessage("OK");
+        res.setSuccessful(true);
+        res.setDataType(SampleResult.TEXT);
+        res.setDataEncoding("UTF-8");
+        res.setContentType("text/html; charset=UTF-8");
+        res.setURL(new URL("http://jmeter.apache.org/index.html?q=1"));
+        res.setLatency(45);
+        res.setConnectTime(12);
+        res.setHeadersSize(200);
+        res.setBodySize(1024L);
+        res.setSentBytes(300);
+        res.setGroupThreads(10);
+        res.setAllThreads(20);
+        res.setRequestHeaders("Accept: */*");
+        res.setResponseHeaders("HTTP/1.1 200 OK");
+        res.setSamplerData("GET http://jmeter.apache.org/");
+        res.setResponseData("<html>é</html>", "UTF-8");
+        return res;
+    }
+
+    private static void assertSameResult(SampleResult expected, SampleResult actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(expected.getSampleLabel(), actual.getSampleLabel());
+        assertEquals(expected.getThreadName(), actual.getThreadName());
+        assertEquals(expected.getResponseCode(), actual.getResponseCode());
+        assertEquals(expected.getResponseMessage(), actual.getResponseMessage());
+        assertEquals(expected.isSuccessful(), actual.isSuccessful());
+        assertEquals(expected.getDataType(), actual.getDataType());
+        assertEquals(expected.getDataEncodingNoDefault(), actual.getDataEncodingNoDefault());
+        assertEquals(expected.getContentType(), actual.getContentType());
+        assertEquals(expected.getUrlAsString(), actual.getUrlAsString());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(expected.getIdleTime(), actual.getIdleTime());
+        assertEquals(expected.getLatency(), actual.getLatency());
+        assertEquals(expected.getConnectTime(), actual.getConnectTime());
+        assertEquals(expected.getSampleCount(), actual.getSampleCount());
+        assertEquals(expected.getErrorCount(), actual.getErrorCount());
+        assertEquals(expected.getBytesAsLong(), actual.getBytesAsLong());
+        assertEquals(expected.getSentBytes(), actual.getSentBytes());
+        assertEquals(expected.getHeadersSize(), actual.getHeadersSize());
+        assertEquals(expected.getBodySizeAsLong(), actual.getBodySizeAsLong());
+        assertEquals(expected.getGroupThreads(), actual.getGroupThreads());
+        assertEquals(expected.getAllThreads(), actual.getAllThreads());
+        assertEquals(expected.getSamplerData(), actual.getSamplerData());
+        assertEquals(expected.getRequestHeaders(), actual.getRequestHeaders());
+        assertEquals(expected.getResponseHeaders(), actual.getResponseHeaders());
+        assertArrayEquals(expected.getResponseData(), actual.getResponseData());
+        assertEquals(expected.getAssertionResults().length, actual.getAssertionResults().length);
+        for (int i = 0; i < expected.getAssertionResults().length; i++) {
+            AssertionResult e = expected.getAssertionResults()[i];
+            AssertionResult a = actual.getAssertionResults()[i];
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.isFailure(), a.isFailure());
+            assertEquals(e.isError(), a.isError());
+            assertEquals(e.getFailureMessage(), a.getFailureMessage());
+        }
+        SampleResult[] expectedSubs = expected.getSubResults();
+        SampleResult[] actualSubs = actual.getSubResults();
+        assertEquals(expectedSubs.length, actualSubs.length);
+        for (int i = 0; i < expectedSubs.length; i++) {
+            assertSameResult(expectedSubs[i], actualSubs[i]);
+            assertSame(actual, actualSubs[i].getParent());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SampleResult res = newResult("Home");
+        AssertionResult assertion = new AssertionResult("Response Assertion");
+        assertion.setFailure(true);
+        assertion.setFailureMessage("Test failed: text expected to contain /foo/");
+        res.addAssertionResult(assertion);
+        SampleResult sub = newResult("Home-0");
+        sub.setSuccessful(false);
+        res.storeSubResult(sub);
+        SampleEvent event = new SampleEvent(res, "Thread Group", "injector1");
+
+        SampleEvent decoded = roundTrip(Collections.singletonList(event)).get(0);
+        assertEquals("Thread Group", decoded.getThreadGroup());
+        assertEquals("injector1", decoded.getHostname());
+        assertFalse(decoded.isTransactionSampleEvent());
+        assertSameResult(res, decoded.getResult());
+        assertEquals("<html>é</html>", decoded.getResult().getResponseDataAsString());
+    }
+
+    @Test
+    public void testNullsAndDefaults() throws Exception {
+        SampleResult res = new SampleResult();
+        res.setSampleLabel("empty");
+        SampleResult decoded = roundTrip(Collections.singletonList(new SampleEvent(res, null, (String) null)))
+                .get(0).getResult();
+        assertSameResult(res, decoded);
+        assertNull(decoded.getURL());
+        assertNull(decoded.getSamplerData());
+        assertNull(decoded.getDataEncodingNoDefault());
+    }
+
+    @Test
+    public void testSymbolsAreReusedAcrossBatches() throws Exception {
+        List<SampleEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new SampleEvent(newResult("Home"), "Thread Group", "injector1"));
+        }
+        byte[] first = encode(batch);
+        byte[] second = encode(batch);
+        assertTrue("second batch should only reference known symbols", second.length < first.length);
+        List<SampleEvent> decoded = decode(first, batch.size());
+        decoded.addAll(decode(second, batch.size()));
+        assertEquals(20, decoded.size());
+        for (SampleEvent event : decoded) {
+            assertSameResult(batch.get(0).getResult(), event.getResult());
+        }
+    }
+
+    @Test
+    public void testSubClasses() throws Exception {
+        StatisticalSampleResult statistical = new StatisticalSampleResult(newResult("Home"));
+        statistical.add(newResult("Home"));
+        SampleResult failed = newResult("Home");
+        failed.setSuccessful(false);
+        statistical.add(failed);
+
+        CustomResult custom = new CustomResult();
+        custom.setSampleLabel("custom");
+        custom.retries = 3;
+        custom.region = "eu-west";
+
+        List<SampleEvent> decoded = roundTrip(Arrays.asList(
+                new SampleEvent(statistical, "tg"), new SampleEvent(custom, "tg")));
+
+        StatisticalSampleResult decodedStatistical = (StatisticalSampleResult) decoded.get(0).getResult();
+        assertEquals(2, decodedStatistical.getSampleCount());
+        assertEquals(1, decodedStatistical.getErrorCount());
+        assertEquals(statistical.getTime(), decodedStatistical.getTime());
+
+        CustomResult decodedCustom = (CustomResult) decoded.get(1).getResult();
+        assertEquals(3, decodedCustom.retries);
+        assertEquals("eu-west", decodedCustom.region);
+    }
+
+    @Test
+    public void testCannotEncodeNonPrimitiveFields() throws Exception {
+        ListResult list = new ListResult();
+        list.items.add("item");
+        assertFalse(SampleEventCodec.canEncode(list));
+        SampleResult parent = newResult("Home");
+        assertTrue(SampleEventCodec.canEncode(parent));
+        parent.storeSubResult(list);
+        assertFalse(SampleEventCodec.canEncode(parent));
+        try {
+            encode(Collections.singletonList(new SampleEvent(list, "tg")));
+            fail("Results that cannot be encoded must be rejected");
+        } catch (IOException expected) {
+            // Java serialization is not used
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOnlyDecodesSampleResults() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(0); // event flags
+        SampleEventCodec.writeVarInt(0, out); // thread group
+        SampleEventCodec.writeVarInt(0, out); // host name
+        SampleEventCodec.writeVarInt(0, out); // variables
+        byte[] className = "java.io.File".getBytes(StandardCharsets.UTF_8);
+        SampleEventCodec.writeVarInt(1, out); // literal
+        SampleEventCodec.writeVarInt(className.length, out);
+        out.write(className);
+        out.flush();
+        decode(bytes.toByteArray(), 1);
+    }
+
+    @Test
+    public void testLongStrings() throws Exception {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'x');
+        SampleResult res = newResult(new String(chars));
+        res.setResponseHeaders(new String(chars));
+        SampleEvent event = new SampleEvent(res, "tg");
+        assertSameResult(res, roundTrip(Arrays.asList(event, event)).get(1).getResult());
+    }
+
+    @Test
+    public void testVarLong() throws Exception {
+        long[] values = {0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            SampleEventCodec.writeVarLong(SampleEventCodec.zigZag(value), out);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, SampleEventCodec.unZigZag(SampleEventCodec.readVarLong(in)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownSymbol() throws Exception {
+        SampleEventCodec.Decoder freshDecoder = new SampleEventCodec.Decoder();
+        byte[] bytes = encode(Collections.singletonList(new SampleEvent(newResult("Home"), "tg")));
+        // Decoding the second occurrence without the first one fails
+        byte[] again = encode(Collections.singletonList(new SampleEvent(newResult("Home"), "tg")));
+        assertTrue(bytes.length > again.length);
+        freshDecoder.decode(new DataInputStream(new ByteArrayInputStream(again)), 1, again.length);
+    }
+
+    @Test
+    public void testNonAsciiStrings() throws Exception {
+        SampleResult res = newResult("Accueil été 中文");
+        byte[] bytes = encode(Collections.singletonList(new SampleEvent(res, "tg")));
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).contains("中文"));
+        assertEquals(res.getSampleLabel(), decode(bytes, 1).get(0).getResult().getSampleLabel());
+    }
+
+    @Test
+    public void testLengthsAreBounded() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(0); // event flags
+        SampleEventCodec.writeVarInt(0, out); // thread group
+        SampleEventCodec.writeVarInt(0, out); // host name
+        SampleEventCodec.writeVarInt(Integer.MAX_VALUE, out); // variables
+        out.flush();
+        try {
+            decode(bytes.toByteArray(), 1);
+            fail("A count larger than the data must be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("exceeds"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCountIsBounded() throws Exception {
+        byte[] bytes = encode(Collections.singletonList(new SampleEvent(newResult("Home"), "tg")));
+        decoder.decode(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length + 1, bytes.length);
+    }
+}
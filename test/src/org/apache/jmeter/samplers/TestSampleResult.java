@@ -303,6 +303,24 @@ public class TestSampleResult {
             assertFalse(1d / (parentElapsed / 1000d) <= calculator.getRate());
         }
 
+        @Test
+        public void testClockOffset() throws Exception {
+            for (boolean nanoTime : new boolean[] {true, false}) {
+                SampleResult res = new SampleResult(nanoTime);
+                SampleResult.setClockOffset(5000L);
+                try {
+                    long now = System.currentTimeMillis();
+                    res.sampleStart();
+                    res.sampleEnd();
+                    // Local clock is 5s ahead of the controller one
+                    assertTrue(Math.abs(now - 5000L - res.getStartTime()) < 100);
+                    assertTrue(res.getEndTime() >= res.getStartTime());
+                } finally {
+                    SampleResult.setClockOffset(0L);
+                }
+            }
+        }
+
         // TODO some more invalid sequence tests needed
         
         @Test
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSpillLog {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder();
+    }
+
+    private static SampleEvent newEvent(int i) {
+        SampleResult res = new SampleResult(1500000000000L + i, 10);
+        res.setSampleLabel("label-" + i);
+        return new SampleEvent(res, "Thread Group");
+    }
+
+    private static List<SampleEvent> readAll(SpillLog log, int batchSize) throws Exception {
+        List<SampleEvent> events = new ArrayList<>();
+        SpillLog.SegmentReader reader;
+        while ((reader = log.next()) != null) {
+            try {
+                List<SampleEvent> batch;
+                while (!(batch = reader.read(batchSize)).isEmpty()) {
+                    assertTrue(batch.size() <= batchSize);
+                    events.addAll(batch);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void testAppendAndReadInOrder() throws Exception {
+        SpillLog log = new SpillLog(directory, 1024);
+        for (int i = 0; i < 500; i++) {
+            log.append(newEvent(i));
+        }
+        assertEquals(500, log.getPending());
+        assertTrue("segments should have been rolled", directory.list().length > 1);
+        assertTrue(log.getBytesOnDisk() > 0);
+
+        List<SampleEvent> events = readAll(log, 64);
+        assertEquals(500, events.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals("label-" + i, events.get(i).getResult().getSampleLabel());
+            assertEquals(1500000000000L + i, events.get(i).getResult().getTimeStamp());
+        }
+        assertEquals(0, log.getPending());
+        assertEquals(0, log.getBytesOnDisk());
+        assertEquals("read segments should be deleted", 0, directory.list().length);
+        assertNull(log.next());
+    }
+
+    @Test
+    public void testAppendWhileReading() throws Exception {
+        SpillLog log = new SpillLog(directory, 1L << 20);
+        log.append(newEvent(0));
+        // Closes the active segment, appends go to a new one
+        SpillLog.SegmentReader reader = log.next();
+        log.append(newEvent(1));
+        assertEquals(2, log.getPending());
+        assertEquals("label-0", reader.read(10).get(0).getResult().getSampleLabel());
+        reader.close();
+        assertEquals(1, log.getPending());
+        List<SampleEvent> events = readAll(log, 10);
+        assertEquals("label-1", events.get(0).getResult().getSampleLabel());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        SpillLog log = new SpillLog(directory, 100);
+        for (int i = 0; i < 50; i++) {
+            log.append(newEvent(i));
+        }
+        log.close();
+        assertEquals(0, log.getPending());
+        assertEquals(0, directory.list().length);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class TestSpillingSampleSender {
+
+    /** Listener blocked until the samplers are done, recording what it receives */
+    private static class SlowListener implements RemoteSampleListener {
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<SampleEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile int eventsAtEnd = -1;
+
+        @Override
+        public void testStarted() {
+        }
+
+        @Override
+        public void testStarted(String host) {
+        }
+
+        @Override
+        public void testEnded() {
+        }
+
+        @Override
+        public void testEnded(String host) {
+            eventsAtEnd = events.size();
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            events.addAll(samples);
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    @Test
+    public void testSpillsWithoutBlockingAndKeepsOrder() throws Exception {
+        SlowListener listener = new SlowListener();
+        SpillingSampleSender sender = new SpillingSampleSender(listener);
+        sender.readResolve();
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            SampleResult res = new SampleResult(1500000000000L + i, 10);
+            res.setSampleLabel("label-" + i);
+            sender.sampleOccurred(new SampleEvent(res, "Thread Group"));
+        }
+        assertEquals(count, sender.getReceivedSamples());
+        assertTrue("memory queue should have overflowed", sender.getSpilledSamples() > 0);
+        assertTrue(sender.getBacklog() > 0);
+        listener.released.countDown();
+        sender.testEnded("host");
+
+        assertEquals(count, listener.eventsAtEnd);
+        assertEquals(count, sender.getSentSamples());
+        assertEquals(0, sender.getBacklog());
+        assertEquals(0, sender.getBytesOnDisk());
+        for (int i = 0; i < count; i++) {
+            assertEquals("label-" + i, listener.events.get(i).getResult().getSampleLabel());
+        }
+    }
+
+    @Test
+    public void testSendsResultsThatCannotBeSpilled() throws Exception {
+        SlowListener listener = new SlowListener();
+        SpillingSampleSender sender = new SpillingSampleSender(listener);
+        sender.readResolve();
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            sender.sampleOccurred(new SampleEvent(new SampleResult(1500000000000L + i, 10), "Thread Group"));
+        }
+        assertTrue("memory queue should have overflowed", sender.getSpilledSamples() > 0);
+        TestSampleEventCodec.ListResult list = new TestSampleEventCodec.ListResult();
+        sender.sampleOccurred(new SampleEvent(list, "Thread Group"));
+        assertTrue(listener.events.stream().anyMatch(e -> e.getResult() == list));
+        listener.released.countDown();
+        sender.testEnded("host");
+        assertEquals(count + 1, listener.eventsAtEnd);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestStreamSampleSender {
+
+    /** Local listener recording what it receives, in order */
+    private static class RecordingListener implements RemoteSampleListener {
+        private final List<SampleEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile int eventsAtEnd = -1;
+        private volatile String endedHost;
+
+        @Override
+        public void testStarted() {
+        }
+
+        @Override
+        public void testStarted(String host) {
+        }
+
+        @Override
+        public void testEnded() {
+        }
+
+        @Override
+        public void testEnded(String host) {
+            eventsAtEnd = events.size();
+            endedHost = host;
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            events.addAll(samples);
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    @Test
+    public void testStreamOverLoopback() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        StreamSampleSender sender = new StreamSampleSender(listener);
+        // As done by RMI on the server
+        sender.readResolve();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            SampleResult res = new SampleResult(1500000000000L + i, 10);
+            res.setSampleLabel("label-" + (i % 10));
+            res.setSuccessful(i % 7 != 0);
+            sender.sampleOccurred(new SampleEvent(res, "Thread Group"));
+        }
+        sender.testEnded("injector1");
+
+        assertEquals("injector1", listener.endedHost);
+        assertEquals("all samples should be processed before the end is notified", count, listener.eventsAtEnd);
+        for (int i = 0; i < count; i++) {
+            SampleResult res = listener.events.get(i).getResult();
+            assertEquals("label-" + (i % 10), res.getSampleLabel());
+            assertEquals(1500000000000L + i, res.getTimeStamp());
+            assertEquals(i % 7 != 0, res.isSuccessful());
+        }
+    }
+
+    @Test
+    public void testSeveralStreamsShareTheServer() throws Exception {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        StreamSampleSender firstSender = new StreamSampleSender(first);
+        StreamSampleSender secondSender = new StreamSampleSender(second);
+        firstSender.readResolve();
+        secondSender.readResolve();
+        firstSender.sampleOccurred(new SampleEvent(new SampleResult(1L, 1L), "tg"));
+        secondSender.sampleOccurred(new SampleEvent(new SampleResult(2L, 1L), "tg"));
+        secondSender.sampleOccurred(new SampleEvent(new SampleResult(3L, 1L), "tg"));
+        firstSender.testEnded("a");
+        secondSender.testEnded("b");
+        assertEquals(1, first.eventsAtEnd);
+        assertEquals(2, second.eventsAtEnd);
+        assertTrue(SampleStreamServer.getInstance().getPort() > 0);
+    }
+
+    @Test
+    public void testResultsThatCannotBeEncodedUseRmi() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        StreamSampleSender sender = new StreamSampleSender(listener);
+        sender.readResolve();
+        TestSampleEventCodec.ListResult list = new TestSampleEventCodec.ListResult();
+        list.setSampleLabel("list");
+        sender.sampleOccurred(new SampleEvent(new SampleResult(1L, 1L), "tg"));
+        sender.sampleOccurred(new SampleEvent(list, "tg"));
+        sender.testEnded("a");
+        assertEquals(2, listener.eventsAtEnd);
+        // Sent directly rather than after the streamed results
+        assertTrue(listener.events.stream().anyMatch(e -> e.getResult() == list));
+    }
+
+    private static void assertClosedAfter(long tokenOffset, int rawLength, int length) throws Exception {
+        RecordingListener listener = new RecordingListener();
+        SampleStreamServer server = SampleStreamServer.getInstance();
+        SampleStreamServer.Registration registration = server.register(listener);
+        try (Socket socket = new Socket(server.getHost(), server.getPort())) {
+            socket.setSoTimeout(10000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(SampleStreamServer.MAGIC);
+            out.writeInt(SampleStreamServer.VERSION);
+            out.writeInt(registration.getId());
+            out.writeLong(registration.getToken() + tokenOffset);
+            out.writeUTF("intruder");
+            if (tokenOffset == 0) {
+                out.writeByte(SampleStreamServer.FRAME_SAMPLES);
+                out.writeByte(0);
+                out.writeInt(1);
+                out.writeInt(rawLength);
+                out.writeInt(length);
+            }
+            out.flush();
+            assertEquals("the stream should be closed", -1, socket.getInputStream().read());
+        }
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void testRegistrationServesOneStream() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        SampleStreamServer server = SampleStreamServer.getInstance();
+        SampleStreamServer.Registration registration = server.register(listener);
+        for (int i = 0; i < 2; i++) {
+            try (Socket socket = new Socket(server.getHost(), server.getPort())) {
+                socket.setSoTimeout(10000);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(SampleStreamServer.MAGIC);
+                out.writeInt(SampleStreamServer.VERSION);
+                out.writeInt(registration.getId());
+                out.writeLong(registration.getToken());
+                out.writeUTF("injector");
+                out.writeByte(SampleStreamServer.FRAME_END);
+                out.flush();
+                int expected = i == 0 ? SampleStreamServer.ACK : -1;
+                assertEquals("only the first stream should be accepted", expected, socket.getInputStream().read());
+            }
+        }
+    }
+
+    @Test
+    public void testWrongTokenIsRejected() throws Exception {
+        assertClosedAfter(1, 0, 0);
+    }
+
+    @Test
+    public void testInvalidFramesAreRejected() throws Exception {
+        assertClosedAfter(0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertClosedAfter(0, -1, -1);
+        assertClosedAfter(0, 10, 20);
+    }
+}
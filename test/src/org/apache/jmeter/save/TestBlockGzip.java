@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBlockGzip {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i).append(",label ").append(i % 7).append(",200,OK\n");
+        }
+        return sb.toString();
+    }
+
+    private File write(String content, int blockSize, int threads) throws IOException {
+        File file = folder.newFile("results.csv.gz");
+        try (OutputStream out = new BlockGzipOutputStream(new FileOutputStream(file), blockSize, threads)) {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            // Mix single byte and array writes
+            out.write(bytes, 0, 10);
+            out.write(bytes[10]);
+            out.write(bytes, 11, bytes.length - 11);
+        }
+        return file;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        String content = lines(5000);
+        File file = write(content, 4096, 3);
+        assertEquals(content, read(BlockGzip.newInputStream(file)));
+        // Standard gzip readers read all the blocks
+        assertEquals(content, read(new GZIPInputStream(FileUtils.openInputStream(file))));
+    }
+
+    @Test
+    public void testBlocksEndOnLines() throws IOException {
+        String content = lines(5000);
+        File file = write(content, 4096, 2);
+        List<Long> offsets = BlockGzip.blockOffsets(file);
+        assertTrue("Expected several blocks, got " + offsets.size(), offsets.size() > 10);
+        assertEquals(Long.valueOf(0), offsets.get(0));
+        List<String> blocks = new ArrayList<>();
+        for (int i = 0; i < offsets.size(); i++) {
+            long end = i + 1 < offsets.size() ? offsets.get(i + 1).longValue() : file.length();
+            String block = read(BlockGzip.openBlocks(file, offsets.get(i).longValue(), end));
+            assertTrue(block.endsWith("\n"));
+            blocks.add(block);
+        }
+        assertEquals(content, String.join("", blocks));
+        // Consecutive blocks can be read together
+        assertEquals(blocks.get(1) + blocks.get(2),
+                read(BlockGzip.openBlocks(file, offsets.get(1).longValue(), offsets.get(3).longValue())));
+    }
+
+    @Test
+    public void testPlainFile() throws IOException {
+        File file = folder.newFile("results.csv");
+        String content = lines(10);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        assertEquals(content, read(BlockGzip.newInputStream(file)));
+    }
+
+    @Test
+    public void testIsCompressed() {
+        assertTrue(BlockGzip.isCompressed("results.jtl.GZ"));
+        assertEquals(false, BlockGzip.isCompressed("results.jtl"));
+        assertEquals(false, BlockGzip.isCompressed(null));
+    }
+
+    @Test
+    public void testRolledFiles() throws IOException {
+        File file = new File(folder.getRoot(), "results.jtl.gz");
+        assertEquals("results.1.jtl.gz", RolledFiles.nextRolledFile(file).getName());
+        folder.newFile("results.1.jtl.gz");
+        folder.newFile("results.3.jtl.gz");
+        folder.newFile("results-1.jtl.gz");
+        assertEquals("results.4.jtl.gz", RolledFiles.nextRolledFile(file).getName());
+        List<File> rolled = RolledFiles.listRolledFiles(file);
+        assertEquals(2, rolled.size());
+        assertEquals("results.1.jtl.gz", rolled.get(0).getName());
+        assertEquals("results.3.jtl.gz", rolled.get(1).getName());
+        assertEquals("noext.1", RolledFiles.nextRolledFile(new File(folder.getRoot(), "noext")).getName());
+    }
+}
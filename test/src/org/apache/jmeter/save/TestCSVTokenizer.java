@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Test;
+
+public class TestCSVTokenizer extends JMeterTestCase {
+
+    private static final int[] BUFFER_SIZES = {1, 2, 3, 7, 64};
+
+    private static final String[] INPUTS = {
+            "",
+            "a",
+            "\n",
+            "\r\n\r\n",
+            "\r\r",
+            "\"\"\n",
+            "a,,\"c\nd\",e\n,,f,g,\n\n",
+            "a,b,\r\nc,d\re,f",
+            "\"a\"\"b\",\"c,d\"\r\n1,2",
+            "x,\"y\"\r",
+            "1507000000000,123,\"Home page, with \"\"quotes\"\"\",200,OK,Thread Group 1-1,text,true,,10240,512,10,10,100,0,20\n",
+    };
+
+    private static List<Object> readAll(String input) throws IOException {
+        List<Object> records = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(input));
+        try {
+            String[] fields;
+            while ((fields = CSVSaveService.csvReadFile(reader, ',')).length > 0) {
+                records.add(fields);
+            }
+        } catch (IOException e) {
+            records.add(e.getMessage());
+        }
+        return records;
+    }
+
+    private static List<Object> tokenizeAll(String input, int bufferSize) throws IOException {
+        List<Object> records = new ArrayList<>();
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(input), ',', bufferSize);
+        try {
+            String[] fields;
+            while ((fields = tokenizer.next()).length > 0) {
+                records.add(fields);
+            }
+        } catch (IOException e) {
+            records.add(e.getMessage());
+        }
+        return records;
+    }
+
+    private static void assertSameRecords(String input) throws IOException {
+        List<Object> expected = readAll(input);
+        for (int bufferSize : BUFFER_SIZES) {
+            List<Object> actual = tokenizeAll(input, bufferSize);
+            assertEquals("records of [" + input + "] with buffer " + bufferSize,
+                    expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Object e = expected.get(i);
+                Object a = actual.get(i);
+                if (e instanceof String[]) {
+                    assertArrayEquals("record " + i + " of [" + input + "] with buffer " + bufferSize,
+                            (String[]) e, (String[]) a);
+                } else {
+                    assertEquals("error of [" + input + "] with buffer " + bufferSize, e, a);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsCsvReadFile() throws Exception {
+        for (String input : INPUTS) {
+            assertSameRecords(input);
+        }
+    }
+
+    @Test
+    public void testSameErrorsAsCsvReadFile() throws Exception {
+        assertSameRecords("a,b\"c\n");
+        assertSameRecords("a,\"b\"c\n");
+        assertSameRecords("a,\"bc\n");
+    }
+
+    @Test
+    public void testSameAsCsvReadFileRandom() throws Exception {
+        Random random = new Random(1234);
+        char[] alphabet = {'a', 'b', ',', '"', '\n', '\r'};
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertSameRecords(input.toString());
+        }
+    }
+
+    @Test
+    public void testLazyFields() throws Exception {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("a,bc\n\"d,e\",f\n"), ',');
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(2, tokenizer.getFieldCount());
+        assertEquals("bc", tokenizer.getField(1));
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("d,e", tokenizer.getField(0));
+        assertEquals("f", tokenizer.getField(1));
+        assertFalse(tokenizer.nextRecord());
+        assertEquals(0, tokenizer.getFieldCount());
+    }
+
+    @Test
+    public void testLongRecord() throws Exception {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            line.append("field").append(i).append(',');
+        }
+        line.append("last");
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(line + "\nnext"), ',', 16);
+        String[] fields = tokenizer.next();
+        assertEquals(1001, fields.length);
+        assertEquals("field999", fields[999]);
+        assertEquals("last", fields[1000]);
+        assertArrayEquals(new String[] {"next"}, tokenizer.next());
+    }
+}
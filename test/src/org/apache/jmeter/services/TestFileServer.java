@@ -22,14 +22,20 @@
      
 package org.apache.jmeter.services;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.jmeter.junit.JMeterTestCase;
 import org.junit.After;
@@ -184,4 +190,68 @@ public class TestFileServer extends JMeterTestCase {
         FS.setBaseForScript(anchor);
         assertTrue(FS.getResolvedFile(anchor.getName()).exists());
     }
+
+    @Test
+    public void testPartitions() throws Exception {
+        final String infile = findTestPath("testfiles/test.csv");
+        FS.reserveFile(infile, null, "p0", false, 0, 3, false);
+        FS.reserveFile(infile, null, "p1", false, 1, 3, false);
+        FS.reserveFile(infile, null, "p2", false, 2, 3, false);
+        assertEquals("a1,b1,c1,d1", FS.readLine("p0", false));
+        assertEquals("a4,b4,c4,d4", FS.readLine("p0", false));
+        assertNull(FS.readLine("p0", false));
+        assertEquals("a2,b2,c2,d2", FS.readLine("p1", false));
+        assertNull(FS.readLine("p1", false));
+        assertEquals("a3,b3,c3,d3", FS.readLine("p2"));
+        assertEquals("a3,b3,c3,d3", FS.readLine("p2")); // recycled
+    }
+
+    @Test
+    public void testPartitionsWithHeaderAndQuotes() throws Exception {
+        File file = File.createTempFile("partition", ".csv");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("name,comment\n1,\"multi\nline\"\n2,é\n3,\"a \"\"quoted\"\" word\"\n4,last");
+        }
+        String header = FS.reserveFile(file.getPath(), "UTF-8", "q0", true, 0, 2, true);
+        FS.reserveFile(file.getPath(), "UTF-8", "q1", true, 1, 2, true);
+        assertEquals("name,comment", header);
+        assertArrayEquals(new String[] {"1", "multi\nline"}, FS.getParsedLine("q0", false, true, ','));
+        assertArrayEquals(new String[] {"3", "a \"quoted\" word"}, FS.getParsedLine("q0", false, true, ','));
+        assertEquals(0, FS.getParsedLine("q0", false, true, ',').length);
+        assertArrayEquals(new String[] {"2", "é"}, FS.getParsedLine("q1", true, true, ','));
+        assertArrayEquals(new String[] {"4", "last"}, FS.getParsedLine("q1", true, true, ','));
+        // Recycling skips the header
+        assertArrayEquals(new String[] {"2", "é"}, FS.getParsedLine("q1", true, true, ','));
+    }
+
+    @Test
+    public void testPartitionsBetweenCheckpoints() throws Exception {
+        final int records = 1000;
+        File file = File.createTempFile("partition", ".csv");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,comment\n");
+            for (int i = 0; i < records; i++) {
+                writer.write(i + (i % 7 == 0 ? ",\"line\nbreak\"\n" : ",plain\n"));
+            }
+        }
+        for (int partitions : new int[] { 3, LineOffsetIndex.RECORDS_PER_CHECKPOINT + 50 }) {
+            for (int partition = 0; partition < partitions; partition++) {
+                String alias = "c" + partitions + "-" + partition;
+                FS.reserveFile(file.getPath(), "UTF-8", alias, true, partition, partitions, true);
+                for (int i = partition; i < records; i += partitions) {
+                    String[] line = FS.getParsedLine(alias, false, true, ',');
+                    assertEquals(Integer.toString(i), line[0]);
+                    assertEquals(i % 7 == 0 ? "line\nbreak" : "plain", line[1]);
+                }
+                assertEquals(0, FS.getParsedLine(alias, false, true, ',').length);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPartitionUnsupportedEncoding() {
+        FS.reserveFile(findTestPath("testfiles/test.csv"), "UTF-16", "utf16", false, 0, 2, false);
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.management.ObjectName;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.threads.ElementCosts.Category;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestElementCosts {
+
+    private static class DummyListener extends AbstractTestElement implements SampleListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // NOOP
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ElementCosts.setEnabled(true);
+        ElementCosts.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ElementCosts.setEnabled(false);
+        ElementCosts.reset();
+    }
+
+    @Test
+    public void testDisabled() {
+        ElementCosts.setEnabled(false);
+        long start = ElementCosts.start();
+        assertEquals(ElementCosts.NOT_STARTED, start);
+        ElementCosts.record(Category.TIMER, new DummyListener(), start);
+        assertTrue(ElementCosts.getClassCosts().isEmpty());
+    }
+
+    @Test
+    public void testListenerNotifier() throws Exception {
+        DummyListener first = new DummyListener();
+        first.setName("first");
+        DummyListener second = new DummyListener();
+        second.setName("second");
+        SampleEvent event = new SampleEvent(new SampleResult(), "group");
+        ListenerNotifier notifier = new ListenerNotifier();
+        for (int i = 0; i < 10; i++) {
+            notifier.notifyListeners(event, Arrays.<SampleListener>asList(first, second));
+        }
+
+        Collection<ElementCost> classCosts = ElementCosts.getClassCosts();
+        assertEquals(1, classCosts.size());
+        ElementCost classCost = classCosts.iterator().next();
+        assertEquals(20, classCost.getCount());
+        assertEquals("Listener", classCost.getCategory());
+        assertEquals(DummyListener.class.getName(), classCost.getName());
+        assertTrue(classCost.getTotalNanos() > 0);
+
+        Collection<ElementCost> elementCosts = ElementCosts.getElementCosts();
+        assertEquals(2, elementCosts.size());
+        for (ElementCost cost : elementCosts) {
+            assertEquals(10, cost.getCount());
+        }
+
+        ObjectName name = new ObjectName("org.apache.jmeter:type=ElementCost,scope=Class,category=Listener,name="
+                + ObjectName.quote(DummyListener.class.getName()));
+        assertEquals(Long.valueOf(20),
+                ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+        assertTrue(ElementCosts.summary(classCosts).contains(DummyListener.class.getName()));
+
+        ElementCosts.reset();
+        assertTrue(ElementCosts.getClassCosts().isEmpty());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    public void testSameElementInSeveralCategories() {
+        DummyListener element = new DummyListener();
+        ElementCosts.record(Category.POST_PROCESSOR, element, ElementCosts.start());
+        ElementCosts.record(Category.LISTENER, element, ElementCosts.start());
+        assertEquals(2, ElementCosts.getClassCosts().size());
+    }
+}
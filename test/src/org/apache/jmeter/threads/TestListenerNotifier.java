@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jmeter.samplers.BatchSampleListener;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.junit.Test;
+
+public class TestListenerNotifier {
+
+    private static class Listener extends AbstractTestElement implements SampleListener {
+        private static final long serialVersionUID = 1L;
+        final List<SampleEvent> events = new ArrayList<>();
+        int calls;
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            calls++;
+            events.add(e);
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // NOOP
+        }
+    }
+
+    private static class BatchListener extends Listener implements BatchSampleListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sampleOccurredBatch(List<SampleEvent> batch) {
+            calls++;
+            events.addAll(batch);
+        }
+    }
+
+    private static class FailingListener extends BatchListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sampleOccurredBatch(List<SampleEvent> batch) {
+            throw new IllegalStateException("expected");
+        }
+    }
+
+    private static List<SampleEvent> events(int count) {
+        List<SampleEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SampleEvent(SampleResult.createTestSample(i), "tg"));
+        }
+        return events;
+    }
+
+    @Test
+    public void testBatchListenerIsCalledOnce() {
+        List<SampleEvent> events = events(5);
+        Listener plain = new Listener();
+        BatchListener batch = new BatchListener();
+        new ListenerNotifier().notifyListeners(events, Arrays.asList(plain, new FailingListener(), batch));
+        assertEquals(5, plain.calls);
+        assertEquals(events, plain.events);
+        assertEquals(1, batch.calls);
+        assertEquals(events, batch.events);
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        BatchListener batch = new BatchListener();
+        new ListenerNotifier().notifyListeners(new ArrayList<SampleEvent>(), Arrays.<SampleListener>asList(batch));
+        assertEquals(0, batch.calls);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link VariableSlots} and the slot storage of {@link JMeterVariables}
+ */
+public class TestVariableSlots {
+
+    @Before
+    public void setUp() {
+        VariableSlots.setEnabled(true);
+        VariableSlots.clear();
+    }
+
+    @After
+    public void tearDown() {
+        VariableSlots.clear();
+        VariableSlots.setEnabled(false);
+    }
+
+    @Test
+    public void testRegister() {
+        int slot = VariableSlots.register("user");
+        assertEquals(0, slot);
+        assertEquals(slot, VariableSlots.register("user"));
+        assertEquals(1, VariableSlots.register("password"));
+        assertEquals(slot, VariableSlots.slotOf("user"));
+        assertEquals("password", VariableSlots.nameOf(1));
+        assertEquals(2, VariableSlots.size());
+    }
+
+    @Test
+    public void testDynamicNamesAreNotRegistered() {
+        assertEquals(VariableSlots.NO_SLOT, VariableSlots.register("${__threadNum}"));
+        assertEquals(VariableSlots.NO_SLOT, VariableSlots.register(""));
+        assertEquals(VariableSlots.NO_SLOT, VariableSlots.register(null));
+        assertEquals(VariableSlots.NO_SLOT, VariableSlots.slotOf("unknown"));
+    }
+
+    @Test
+    public void testDisabled() {
+        VariableSlots.setEnabled(false);
+        assertEquals(VariableSlots.NO_SLOT, VariableSlots.register("user"));
+        assertEquals(0, VariableSlots.size());
+    }
+
+    @Test
+    public void testSlotAndNameAccessAreEquivalent() {
+        int slot = VariableSlots.register("user");
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("user", "u1");
+        assertEquals("u1", vars.get(slot));
+        vars.put(slot, "u2");
+        assertEquals("u2", vars.get("user"));
+        vars.put("dynamic", "d1");
+        assertEquals("d1", vars.get("dynamic"));
+        assertEquals("u2", vars.remove("user"));
+        assertNull(vars.get(slot));
+        assertNull(vars.get("user"));
+    }
+
+    @Test
+    public void testValueSetBeforeRegistration() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("user", "u1");
+        int slot = VariableSlots.register("user");
+        assertEquals("u1", vars.get("user"));
+        vars.put(slot, "u2");
+        assertEquals("u2", vars.get("user"));
+        vars.remove("user");
+        assertNull(vars.get("user"));
+    }
+
+    @Test
+    public void testSlotRemovesValueSetBeforeRegistration() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("user", "u1");
+        int slot = VariableSlots.register("user");
+        vars.put(slot, "u2");
+        assertEquals("u2", vars.remove(slot));
+        assertNull(vars.get("user"));
+        assertNull(vars.get(slot));
+        for (Entry<String, Object> entry : vars.entrySet()) {
+            assertNotEquals("user", entry.getKey());
+        }
+    }
+
+    @Test
+    public void testNameAccessUpdatesSlot() {
+        int slot = VariableSlots.register("user");
+        JMeterVariables vars = new JMeterVariables();
+        vars.put(slot, "u1");
+        vars.put("user", "u2");
+        assertEquals("u2", vars.get(slot));
+        assertEquals("u2", vars.remove("user"));
+        assertNull(vars.get(slot));
+        vars.put("user", "u3");
+        assertEquals("u3", vars.get(slot));
+    }
+
+    @Test
+    public void testReadsDoNotAddVariables() {
+        int slot = VariableSlots.register("user");
+        JMeterVariables vars = new JMeterVariables();
+        int size = vars.entrySet().size();
+        assertNull(vars.get(slot));
+        assertNull(vars.remove(slot));
+        assertEquals(size, vars.entrySet().size());
+        vars.put("user", "u1");
+        assertEquals("u1", vars.get(slot));
+        assertEquals(size + 1, vars.entrySet().size());
+    }
+
+    @Test
+    public void testEntrySetAndPutAll() {
+        int slot = VariableSlots.register("user");
+        JMeterVariables vars = new JMeterVariables();
+        vars.put(slot, "u1");
+        vars.put("dynamic", "d1");
+        Map<String, Object> entries = new HashMap<>();
+        for (Entry<String, Object> entry : vars.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals("u1", entries.get("user"));
+        assertEquals("d1", entries.get("dynamic"));
+
+        JMeterVariables copy = new JMeterVariables();
+        copy.putAll(vars);
+        assertEquals("u1", copy.get(slot));
+        assertEquals("d1", copy.get("dynamic"));
+        assertTrue(copy.entrySet().size() >= 2);
+    }
+}
@@ -68,6 +68,15 @@ public class ConstantThroughputTimerTest {
         assertEquals(1,timer.calculateCurrentTarget(0)); // Should delay for 1 milli-second
     }
 
+    @Test
+    public void testTimerSubMillisecond() throws Exception {
+        ConstantThroughputTimer timer = new ConstantThroughputTimer();
+        timer.setThroughput(600000.0);// 10 per milli-second
+        assertEquals(0, timer.delayNanos()); // Initialise
+        long delay = timer.delayNanos();
+        Assert.assertTrue("delay:" + delay + " is not in expected range", delay > 0 && delay <= 100_000);
+    }
+
     @Test
     public void testTimer3() throws Exception {
         ConstantThroughputTimer timer = new ConstantThroughputTimer();
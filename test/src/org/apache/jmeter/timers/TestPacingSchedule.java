@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.timers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestPacingSchedule {
+
+    private static final long INTERVAL_10K_PER_SECOND = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Test
+    public void testFirstEventIsImmediate() {
+        PacingSchedule schedule = new PacingSchedule(0);
+        assertEquals(0, schedule.nextDelayNanos(1000, 5000));
+        assertEquals(1000, schedule.nextDelayNanos(1000, 5000));
+        assertEquals(500, schedule.nextDelayNanos(1000, 6500));
+        schedule.reset();
+        assertEquals(0, schedule.nextDelayNanos(1000, 10000));
+    }
+
+    /**
+     * Sleeps overshooting the deadline and time spent sampling must not make the rate drift
+     */
+    @Test
+    public void testRateWithOvershootAt10kPerSecond() {
+        PacingSchedule schedule = new PacingSchedule(TimeUnit.SECONDS.toNanos(1));
+        Random random = new Random(1234);
+        long now = 0;
+        long end = TimeUnit.SECONDS.toNanos(10);
+        int events = 0;
+        while (now < end) {
+            now += schedule.nextDelayNanos(INTERVAL_10K_PER_SECOND, now);
+            now += random.nextInt(60_000); // overshoot of the pause
+            events++;
+            now += 20_000; // sampling
+        }
+        assertEquals(100_000, events, 1000); // 1%
+    }
+
+    @Test
+    public void testDebtIsCaughtUp() {
+        PacingSchedule schedule = new PacingSchedule(TimeUnit.SECONDS.toNanos(1));
+        long now = 0;
+        schedule.nextDelayNanos(1000, now);
+        now += 10_500; // late by 10 events
+        int immediate = 0;
+        while (schedule.nextDelayNanos(1000, now) == 0) {
+            immediate++;
+        }
+        assertEquals(10, immediate);
+    }
+
+    @Test
+    public void testDebtIsBounded() {
+        PacingSchedule schedule = new PacingSchedule(5_000);
+        long now = 0;
+        schedule.nextDelayNanos(1000, now);
+        now += 100_000; // stalled
+        int immediate = 0;
+        while (schedule.nextDelayNanos(1000, now) == 0) {
+            immediate++;
+        }
+        assertTrue("Expected at most 6 events to catch up, got " + immediate, immediate <= 6);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.visualizers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class TestGuiSampleBus extends JMeterTestCase {
+
+    private static class RecordingVisualizer implements Visualizer {
+        final List<List<SampleResult>> batches = new ArrayList<>();
+
+        @Override
+        public void add(SampleResult sample) {
+            throw new AssertionError("Samples should be delivered in batches");
+        }
+
+        @Override
+        public void addAll(List<SampleResult> samples) {
+            batches.add(new ArrayList<>(samples));
+        }
+
+        @Override
+        public boolean isStats() {
+            return false;
+        }
+    }
+
+    private static List<SampleResult> samples(int count) {
+        List<SampleResult> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            samples.add(SampleResult.createTestSample(i));
+        }
+        return samples;
+    }
+
+    @Test
+    public void testSamplesAreDeliveredInOneBatchPerVisualizer() {
+        GuiSampleBus bus = new GuiSampleBus(100);
+        RecordingVisualizer first = new RecordingVisualizer();
+        RecordingVisualizer second = new RecordingVisualizer();
+        List<SampleResult> samples = samples(10);
+        for (SampleResult sample : samples) {
+            bus.publish(first, sample);
+        }
+        bus.publish(second, samples.get(0));
+        assertTrue(first.batches.isEmpty());
+
+        bus.deliver();
+        assertEquals(1, first.batches.size());
+        assertEquals(samples, first.batches.get(0));
+        assertEquals(1, second.batches.size());
+
+        // Nothing new to deliver
+        bus.deliver();
+        assertEquals(1, first.batches.size());
+    }
+
+    @Test
+    public void testSamplesAreDroppedWhenFull() {
+        GuiSampleBus bus = new GuiSampleBus(5);
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        List<SampleResult> samples = samples(8);
+        for (SampleResult sample : samples) {
+            bus.publish(visualizer, sample);
+        }
+        bus.deliver();
+        assertEquals(samples.subList(0, 5), visualizer.batches.get(0));
+
+        // Room is available again once delivered
+        bus.publish(visualizer, samples.get(7));
+        bus.deliver();
+        assertEquals(1, visualizer.batches.get(1).size());
+    }
+
+    @Test
+    public void testIdleVisualizerIsReleased() {
+        GuiSampleBus bus = new GuiSampleBus(100);
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        List<SampleResult> samples = samples(2);
+        bus.publish(visualizer, samples.get(0));
+        for (int i = 0; i < 100; i++) {
+            bus.deliver();
+        }
+        bus.publish(visualizer, samples.get(1));
+        bus.deliver();
+        assertEquals(2, visualizer.batches.size());
+        assertEquals(samples.get(1), visualizer.batches.get(1).get(0));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestHeavyHitters {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new HeavyHitters<String>(0);
+    }
+
+    @Test
+    public void testExactBelowCapacity() {
+        HeavyHitters<String> sketch = new HeavyHitters<>(10);
+        for (String value : new String[] { "a", "b", "a", "c", "a", "b" }) {
+            sketch.add(value);
+        }
+        assertEquals(3, sketch.size());
+        assertEquals(6, sketch.getTotal());
+        assertEquals(3, sketch.getCount("a"));
+        assertEquals(2, sketch.getCount("b"));
+        assertEquals(1, sketch.getCount("c"));
+        assertEquals(0, sketch.getCount("d"));
+        assertEquals(Arrays.asList("a", "b"), sketch.getTop(2));
+        assertEquals(Arrays.asList("a", "b", "c"), sketch.getTop(5));
+    }
+
+    @Test
+    public void testReplacesLowestCounter() {
+        HeavyHitters<String> sketch = new HeavyHitters<>(2);
+        sketch.add("a");
+        sketch.add("a");
+        sketch.add("b");
+        sketch.add("c");
+        assertEquals(2, sketch.size());
+        assertEquals(0, sketch.getCount("b"));
+        // c inherits the count of b, so it is overestimated
+        assertEquals(2, sketch.getCount("c"));
+        assertEquals(2, sketch.getCount("a"));
+    }
+
+    @Test
+    public void testFindsFrequentValuesInLongTail() {
+        HeavyHitters<String> sketch = new HeavyHitters<>(100);
+        Random random = new Random(42);
+        int unique = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int r = random.nextInt(100);
+            if (r < 50) {
+                sketch.add("frequent" + (r % 5));
+            } else {
+                sketch.add("rare" + unique++);
+            }
+        }
+        assertEquals(100, sketch.size());
+        List<String> top = sketch.getTop(5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(top + " should contain frequent" + i, top.contains("frequent" + i));
+        }
+    }
+}
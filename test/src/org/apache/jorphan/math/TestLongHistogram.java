@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLongHistogram {
+
+    @Test
+    public void testEmpty() {
+        LongHistogram histogram = new LongHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LongHistogram histogram = new LongHistogram(3);
+        for (long v = 1; v <= 8; v++) {
+            histogram.record(v);
+        }
+        assertEquals(8, histogram.getCount());
+        assertEquals(36, histogram.getSum());
+        assertEquals(1, histogram.getMin());
+        assertEquals(8, histogram.getMax());
+        assertEquals(4, histogram.getPercentile(50));
+        assertEquals(8, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        LongHistogram histogram = new LongHistogram(4);
+        int previous = -1;
+        for (long v = 0; v < 100_000; v++) {
+            int index = histogram.indexOf(v);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(histogram.highestValueOf(index) >= v);
+            previous = index;
+        }
+        assertTrue(histogram.indexOf(Long.MAX_VALUE) >= 0);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testPercentileRelativeError() {
+        LongHistogram histogram = new LongHistogram(7);
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + random.nextInt(1_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percent : new double[] {50, 90, 99}) {
+            long exact = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+            long approximate = histogram.getPercentile(percent);
+            assertTrue("percentile " + percent + ": " + approximate + " vs " + exact,
+                    Math.abs(approximate - exact) <= exact / 128 + 1);
+        }
+    }
+
+    @Test
+    public void testAdd() {
+        LongHistogram first = new LongHistogram(5);
+        LongHistogram second = new LongHistogram(5);
+        first.record(10);
+        first.record(20, 3);
+        second.record(5);
+        second.record(1000);
+        first.add(second);
+        assertEquals(6, first.getCount());
+        assertEquals(10 + 60 + 5 + 1000, first.getSum());
+        assertEquals(5, first.getMin());
+        assertEquals(1000, first.getMax());
+        first.reset();
+        assertEquals(0, first.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddDifferentPrecision() {
+        new LongHistogram(5).add(new LongHistogram(6));
+    }
+
+    @Test
+    public void testForEachBucket() {
+        LongHistogram histogram = new LongHistogram(3);
+        histogram.record(3, 2);
+        histogram.record(1000);
+        histogram.record(1001);
+        List<long[]> buckets = new ArrayList<>();
+        histogram.forEachBucket((value, count) -> buckets.add(new long[] {value, count}));
+        assertEquals(2, buckets.size());
+        assertEquals(3, buckets.get(0)[0]);
+        assertEquals(2, buckets.get(0)[1]);
+        // Highest value of the bucket, bounded by the maximum
+        assertEquals(1001, buckets.get(1)[0]);
+        assertEquals(2, buckets.get(1)[1]);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        LongHistogram histogram = new LongHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 7L);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(histogram);
+        }
+        // Only non empty buckets are written, not the 7296 buckets
+        assertTrue("serialized size: " + bytes.size(), bytes.size() < 12000);
+        LongHistogram copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (LongHistogram) in.readObject();
+        }
+        assertEquals(histogram.getPrecisionBits(), copy.getPrecisionBits());
+        assertEquals(histogram.getCount(), copy.getCount());
+        assertEquals(histogram.getSum(), copy.getSum());
+        assertEquals(histogram.getMin(), copy.getMin());
+        assertEquals(histogram.getMax(), copy.getMax());
+        assertEquals(histogram.getPercentile(99), copy.getPercentile(99));
+        copy.record(1);
+        assertEquals(1, copy.getMin());
+    }
+
+    @Test
+    public void testInvalidSerializedFormsAreRejected() throws Exception {
+        assertRejected("precisionBits", Integer.valueOf(17));
+        assertRejected("indexes", new int[] { 1 << 20 });
+        assertRejected("indexes", new int[] { -1 });
+        assertRejected("indexes", new int[] { 3, 3 });
+        assertRejected("counts", new long[] { 1, 2, 3 });
+        assertRejected("counts", new long[] { -1, 1 });
+        assertRejected("counts", new long[] { Long.MAX_VALUE, 1 });
+        assertRejected("min", Long.valueOf(-1));
+        assertRejected("max", Long.valueOf(0));
+    }
+
+    /**
+     * Serialize a histogram of two values whose form has a field replaced, and check it can not be read
+     */
+    private static void assertRejected(String field, Object value) throws Exception {
+        LongHistogram histogram = new LongHistogram();
+        histogram.record(3);
+        histogram.record(1000);
+        Method writeReplace = LongHistogram.class.getDeclaredMethod("writeReplace");
+        writeReplace.setAccessible(true);
+        Object form = writeReplace.invoke(histogram);
+        Field f = form.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(form, value);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(form);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            in.readObject();
+            fail("Form with " + field + " set to " + value + " should be rejected");
+        } catch (InvalidObjectException expected) {
+            // expected
+        }
+    }
+}
@@ -159,6 +159,20 @@ public class TestStatCalculator {
         assertEquals(0.5773502691896255, calc.getStandardDeviation(), 0.000000000000001);
     }
 
+    @Test
+    public void testAddHistogram() {
+        LongHistogram histogram = new LongHistogram();
+        for (long i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        calc.addHistogram(histogram);
+        assertEquals(100, calc.getCount());
+        assertEquals(5050.0, calc.getSum(), 0.000000000001);
+        assertEquals(90, calc.getPercentPoint(0.9).longValue());
+        assertEquals(1, calc.getMin().longValue());
+        assertEquals(100, calc.getMax().longValue());
+    }
+
     @Test
     public void testBug52125_2A(){ // as above, but with aggregate sample instead
         calc.addValue(1L);